@@ -0,0 +1,65 @@
+package com.example.toremainserver.capture;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+/**
+ * 샘플링되어 캡처된 업스트림 요청/응답 한 건입니다.
+ * payload는 직렬화된 JSON 문자열(긴 문자열은 잘림, apiKey는 가림)이며 응답에 그대로 포함됩니다.
+ */
+public class CapturedPayload {
+    private final long sequence;
+    private final Instant capturedAt;
+    private final String endpoint;
+    private final String direction;
+    private final Long profileId;
+    private final Long npcId;
+    private final Integer statusCode;
+    private final String payload;
+
+    public CapturedPayload(long sequence, Instant capturedAt, String endpoint, String direction,
+                           Long profileId, Long npcId, Integer statusCode, String payload) {
+        this.sequence = sequence;
+        this.capturedAt = capturedAt;
+        this.endpoint = endpoint;
+        this.direction = direction;
+        this.profileId = profileId;
+        this.npcId = npcId;
+        this.statusCode = statusCode;
+        this.payload = payload;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public Long getNpcId() {
+        return npcId;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+}
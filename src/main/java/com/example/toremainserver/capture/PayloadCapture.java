@@ -0,0 +1,342 @@
+package com.example.toremainserver.capture;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI 서버 요청/응답 페이로드 샘플링 캡처입니다.
+ *
+ * 매 호출마다 전체 요청/응답을 pretty print 하여 INFO로 남기던 방식을 대체합니다.
+ * (Material 응답은 수 MB의 base64 텍스처라 직렬화, 할당, 동기 로그 I/O 비용이 요청 경로에 그대로 실림)
+ * - capture.sample-rate(0.0~1.0) 비율의 호출만 캡처하며, 기본값 0이면 난수 하나를 뽑는 비용만 듭니다.
+ * - 직렬화는 호출한 스레드에서 하되, 긴 문자열은 capture.max-string-chars까지만 쓰고 apiKey 값은 가립니다.
+ *   그래도 capture.max-payload-bytes를 넘으면 크기, SHA-256, 앞부분만 남깁니다.
+ *   (원본 페이로드 객체는 대기열에 넣지 않으므로 수 MB 응답이 캡처 대기 중에 힙에 남지 않음)
+ * - 링 버퍼/파일 기록은 전용 단일 스레드(payloadCaptureExecutor)에서 하며,
+ *   대기열이 가득 차거나 대기 중인 캡처가 capture.max-queued-bytes를 넘으면 캡처를 버립니다.
+ * - 최근 capture.ring-size건은 메모리 링 버퍼에 두고 관리자 API로 조회하며,
+ *   capture.file.enabled=true 이면 capture.file.dir에 JSON 한 줄씩 기록합니다.
+ *   (capture.file.max-bytes를 넘으면 .1, .2 ... 로 밀어내고 capture.file.max-files개까지 보관)
+ */
+@Component
+public class PayloadCapture {
+    private static final Logger logger = LoggerFactory.getLogger(PayloadCapture.class);
+    private static final String FILE_NAME = "payload-capture.log";
+    private static final Set<String> REDACTED_FIELDS = Set.of("apiKey", "api_key");
+
+    private final double sampleRate;
+    private final int maxStringChars;
+    private final int maxPayloadBytes;
+    private final long maxQueuedBytes;
+    private final boolean fileEnabled;
+    private final Path fileDir;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final ObjectMapper objectMapper;
+    private final Executor captureExecutor;
+    private final Counter capturedCounter;
+    private final Counter droppedCounter;
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    // 링 버퍼 (쓰기는 캡처 스레드, 읽기는 관리자 API)
+    private final CapturedPayload[] ring;
+    private long nextSequence;
+
+    // 파일 기록 상태 (캡처 스레드에서만 접근)
+    private BufferedWriter fileWriter;
+    private long fileBytes;
+
+    @Autowired
+    public PayloadCapture(@Value("${capture.sample-rate:0.0}") double sampleRate,
+                          @Value("${capture.ring-size:256}") int ringSize,
+                          @Value("${capture.max-string-chars:2048}") int maxStringChars,
+                          @Value("${capture.max-payload-bytes:65536}") int maxPayloadBytes,
+                          @Value("${capture.max-queued-bytes:8388608}") long maxQueuedBytes,
+                          @Value("${capture.file.enabled:true}") boolean fileEnabled,
+                          @Value("${capture.file.dir:./data/payload-capture}") String fileDir,
+                          @Value("${capture.file.max-bytes:10485760}") long maxFileBytes,
+                          @Value("${capture.file.max-files:5}") int maxFiles,
+                          ObjectMapper objectMapper,
+                          @Qualifier("payloadCaptureExecutor") Executor captureExecutor,
+                          MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.maxStringChars = maxStringChars;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.fileEnabled = fileEnabled;
+        this.fileDir = Paths.get(fileDir);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.objectMapper = objectMapper;
+        this.captureExecutor = captureExecutor;
+        this.ring = new CapturedPayload[Math.max(1, ringSize)];
+        this.capturedCounter = meterRegistry.counter("payload.capture.captured");
+        this.droppedCounter = meterRegistry.counter("payload.capture.dropped");
+    }
+
+    /**
+     * 이번 호출을 캡처할지 정합니다. 요청과 응답을 함께 캡처하도록 호출 단위로 한 번만 호출합니다.
+     * @return 캡처 대상이면 true
+     */
+    public boolean sample() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * 페이로드를 잘라서 직렬화한 뒤 비동기로 기록합니다.
+     * @param endpoint AI 서버 엔드포인트 (예: llm/generate)
+     * @param direction request | response | error
+     * @param profileId 프로필 ID (없으면 null)
+     * @param npcId NPC ID (없으면 null)
+     * @param statusCode 응답 상태 코드 (요청이면 null)
+     * @param payload 요청/응답 본문
+     */
+    public void capture(String endpoint, String direction, Long profileId, Long npcId, Integer statusCode, Object payload) {
+        Instant capturedAt = Instant.now();
+        String json;
+        try {
+            json = serialize(payload);
+        } catch (IOException | RuntimeException e) {
+            droppedCounter.increment();
+            logger.debug("Failed to capture {} {} payload: {}", endpoint, direction, e.getMessage());
+            return;
+        }
+
+        // 대기 중인 캡처의 메모리 상한 (String은 문자당 최대 2바이트)
+        long bytes = 2L * json.length();
+        if (queuedBytes.addAndGet(bytes) > maxQueuedBytes) {
+            queuedBytes.addAndGet(-bytes);
+            droppedCounter.increment();
+            return;
+        }
+        try {
+            captureExecutor.execute(() -> {
+                try {
+                    record(capturedAt, endpoint, direction, profileId, npcId, statusCode, json);
+                } finally {
+                    queuedBytes.addAndGet(-bytes);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedBytes.addAndGet(-bytes);
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * 페이로드를 JSON으로 직렬화합니다. 긴 문자열은 자르고 apiKey 값은 가리며,
+     * 결과가 capture.max-payload-bytes를 넘으면 {truncated, bytes, sha256, head} 요약으로 대신합니다.
+     */
+    String serialize(Object payload) throws IOException {
+        HeadOutputStream out = new HeadOutputStream(maxPayloadBytes);
+        try (JsonGenerator generator = new SanitizingGenerator(
+                objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8))) {
+            objectMapper.writeValue(generator, payload);
+        }
+        String head = out.head.toString(StandardCharsets.UTF_8);
+        if (out.size <= maxPayloadBytes) {
+            return head;
+        }
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("truncated", true);
+        summary.put("bytes", out.size);
+        summary.put("sha256", HexFormat.of().formatHex(out.digest.digest()));
+        summary.put("head", head);
+        return objectMapper.writeValueAsString(summary);
+    }
+
+    /**
+     * 최근 캡처를 최신 순으로 조회합니다.
+     * @param profileId 프로필 ID 필터 (null이면 전체)
+     * @param npcId NPC ID 필터 (null이면 전체)
+     * @param limit 최대 개수
+     * @return 캡처 목록 (최신 순)
+     */
+    public synchronized List<CapturedPayload> recent(Long profileId, Long npcId, int limit) {
+        List<CapturedPayload> result = new ArrayList<>();
+        long oldest = Math.max(0, nextSequence - ring.length);
+        for (long seq = nextSequence - 1; seq >= oldest && result.size() < limit; seq--) {
+            CapturedPayload captured = ring[(int) (seq % ring.length)];
+            if ((profileId == null || profileId.equals(captured.getProfileId()))
+                    && (npcId == null || npcId.equals(captured.getNpcId()))) {
+                result.add(captured);
+            }
+        }
+        return result;
+    }
+
+    private void record(Instant capturedAt, String endpoint, String direction,
+                        Long profileId, Long npcId, Integer statusCode, String json) {
+        try {
+            CapturedPayload captured;
+            synchronized (this) {
+                captured = new CapturedPayload(nextSequence, capturedAt, endpoint, direction,
+                    profileId, npcId, statusCode, json);
+                ring[(int) (nextSequence % ring.length)] = captured;
+                nextSequence++;
+            }
+            capturedCounter.increment();
+
+            if (fileEnabled) {
+                writeToFile(objectMapper.writeValueAsString(captured));
+            }
+        } catch (Exception e) {
+            droppedCounter.increment();
+            logger.debug("Failed to capture {} {} payload: {}", endpoint, direction, e.getMessage());
+        }
+    }
+
+    // 긴 문자열(base64 텍스처 등)을 자르고 API 키를 가리면서 쓰는 JsonGenerator
+    private final class SanitizingGenerator extends JsonGeneratorDelegate {
+        SanitizingGenerator(JsonGenerator delegate) {
+            super(delegate, false);
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            writeSanitized(text);
+        }
+
+        @Override
+        public void writeString(char[] text, int offset, int len) throws IOException {
+            writeSanitized(new String(text, offset, len));
+        }
+
+        @Override
+        public void writeString(SerializableString text) throws IOException {
+            writeSanitized(text.getValue());
+        }
+
+        private void writeSanitized(String text) throws IOException {
+            JsonStreamContext context = getOutputContext();
+            if (text != null && context.inObject() && REDACTED_FIELDS.contains(context.getCurrentName())) {
+                delegate.writeString("***");
+            } else if (text != null && text.length() > maxStringChars) {
+                delegate.writeString(text.substring(0, maxStringChars) + "...(" + text.length() + " chars)");
+            } else {
+                delegate.writeString(text);
+            }
+        }
+    }
+
+    // 앞의 limit 바이트만 보관하고 전체 크기와 SHA-256을 계산하는 출력
+    private static final class HeadOutputStream extends OutputStream {
+        private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        private final MessageDigest digest;
+        private final int limit;
+        private long size;
+
+        HeadOutputStream(int limit) {
+            this.limit = limit;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            int keep = (int) Math.max(0, Math.min(length, limit - size));
+            head.write(bytes, offset, keep);
+            digest.update(bytes, offset, length);
+            size += length;
+        }
+    }
+
+    private void writeToFile(String line) throws IOException {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (fileWriter != null && fileBytes + bytes.length > maxFileBytes) {
+            rotate();
+        }
+        if (fileWriter == null) {
+            Files.createDirectories(fileDir);
+            Path file = fileDir.resolve(FILE_NAME);
+            fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            fileBytes = Files.size(file);
+        }
+        fileWriter.write(line);
+        fileWriter.write('\n');
+        fileWriter.flush();
+        fileBytes += bytes.length;
+    }
+
+    // payload-capture.log -> .1 -> .2 ... (max-files 넘는 파일은 삭제)
+    private void rotate() throws IOException {
+        fileWriter.close();
+        fileWriter = null;
+        Files.deleteIfExists(fileDir.resolve(FILE_NAME + "." + (maxFiles - 1)));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path source = fileDir.resolve(FILE_NAME + "." + i);
+            if (Files.exists(source)) {
+                Files.move(source, fileDir.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(fileDir.resolve(FILE_NAME), fileDir.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(fileDir.resolve(FILE_NAME));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        // 파일은 캡처 스레드에서만 다루므로 닫기도 캡처 스레드에 맡김 (실행기는 이 빈보다 나중에 종료됨)
+        try {
+            captureExecutor.execute(() -> {
+                try {
+                    if (fileWriter != null) {
+                        fileWriter.close();
+                        fileWriter = null;
+                    }
+                } catch (IOException e) {
+                    logger.debug("Failed to close payload capture file: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Payload capture executor already shut down");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.toremainserver.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 작업은 도착 순서대로 하나씩, 서로 다른 키의 작업은 병렬로 실행하는 키별 잠금입니다.
+ *
+ * 작업은 호출한 스레드에서 바로 실행되므로 별도 실행기에 넘기고 결과를 기다리는 스레드가 생기지 않습니다.
+ * 키마다 공정(fair) 잠금과 사용 중인 스레드 수를 두고, 마지막 스레드가 풀고 나가면 항목을 제거하므로
+ * 활성 키 수만큼만 메모리를 사용합니다.
+ *
+ * 같은 스레드에서 같은 키로 다시 들어가는 것은 허용됩니다. (ReentrantLock)
+ */
+public class KeyedLock<K> {
+
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        // entries.compute 안에서만 변경
+        private int holders;
+    }
+
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * key의 잠금을 얻은 상태에서 task를 실행합니다.
+     * @return task 결과 (예외는 그대로 전파)
+     */
+    public <T> T withLock(K key, Supplier<T> task) {
+        Entry entry = entries.compute(key, (k, existing) -> {
+            Entry e = existing != null ? existing : new Entry();
+            e.holders++;
+            return e;
+        });
+        entry.lock.lock();
+        try {
+            return task.get();
+        } finally {
+            entry.lock.unlock();
+            entries.compute(key, (k, e) -> --e.holders == 0 ? null : e);
+        }
+    }
+
+    /**
+     * 현재 잠금을 가지고 있거나 기다리는 스레드가 있는 키의 수
+     */
+    public int activeKeyCount() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.toremainserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * AI 서버(LLM, Material) 업스트림 호출 전용 실행기입니다.
+     * 서블릿(Tomcat) 스레드는 요청을 넘기고 즉시 반환되며,
+     * 동시에 진행되는 업스트림 요청 수는 ai.upstream.max-concurrent 로 제한됩니다.
+     * 대기열(ai.upstream.queue-capacity)까지 가득 차면 요청을 거절(503)합니다.
+     */
+    @Bean(name = "aiUpstreamExecutor")
+    public ThreadPoolTaskExecutor aiUpstreamExecutor(
+            @Value("${ai.upstream.max-concurrent:64}") int maxConcurrent,
+            @Value("${ai.upstream.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ai-upstream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Spring MVC 비동기 처리 실행기입니다. (StreamingResponseBody 본문 전송 등, WebConfig에서 등록)
+     * 실행기 빈을 직접 정의하면 Boot가 applicationTaskExecutor를 만들지 않아 MVC가 요청마다 새 스레드를 만드는
+     * SimpleAsyncTaskExecutor로 돌아가므로, web.async.max-threads개로 제한합니다.
+     * 대기열(web.async.queue-capacity)까지 가득 차면 요청 스레드에서 직접 실행하여 새 요청 수락을 늦춥니다.
+     */
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(
+            @Value("${web.async.max-threads:64}") int maxThreads,
+            @Value("${web.async.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 대화 기록 쓰기 전용 실행기입니다.
+     * ConversationWriteBehindBuffer가 모아 둔 대화 기록을 DB에 저장할 때 사용합니다.
+     */
+    @Bean(name = "conversationWriteExecutor")
+    public ThreadPoolTaskExecutor conversationWriteExecutor(
+            @Value("${conversation.writer.threads:8}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("conversation-writer-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 대화 기록 턴 테이블 일괄 마이그레이션 전용 실행기입니다. (conversation.turns.migrate-on-startup)
+     * 대화 수만큼 DB 작업을 하므로 채팅 요청과 공유하는 풀 대신 낮은 우선순위의 스레드 하나에서 실행합니다.
+     */
+    @Bean(name = "conversationMigrationExecutor")
+    public ThreadPoolTaskExecutor conversationMigrationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setThreadNamePrefix("conversation-migration-");
+        return executor;
+    }
+
+    /**
+     * 백그라운드 대화 요약 전용 실행기입니다.
+     * 한 번에 한 배치만 실행하며(진행 중이면 다음 주기로 넘김), 채팅 요청보다 낮은 스레드 우선순위로 동작합니다.
+     */
+    @Bean(name = "conversationSummaryExecutor")
+    public ThreadPoolTaskExecutor conversationSummaryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setThreadNamePrefix("conversation-summary-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+
+    /**
+     * 업스트림 페이로드 캡처 전용 실행기입니다.
+     * 샘플링된 요청/응답의 직렬화와 파일 기록을 요청 스레드 밖에서 수행하며,
+     * 대기열(capture.queue-capacity)이 가득 차면 캡처를 버립니다.
+     */
+    @Bean(name = "payloadCaptureExecutor")
+    public ThreadPoolTaskExecutor payloadCaptureExecutor(
+            @Value("${capture.queue-capacity:1024}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setThreadNamePrefix("payload-capture-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Material 생성 작업자 실행기입니다.
+     * 작업자 수(material.jobs.workers)만큼 스레드를 두며, 각 작업자가 대기열에서 작업을 꺼내 AI 서버를 호출합니다.
+     */
+    @Bean(name = "materialJobExecutor")
+    public ThreadPoolTaskExecutor materialJobExecutor(
+            @Value("${material.jobs.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("material-job-");
+        return executor;
+    }
+}
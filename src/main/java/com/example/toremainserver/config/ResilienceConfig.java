@@ -0,0 +1,51 @@
+package com.example.toremainserver.config;
+
+import com.example.toremainserver.resilience.Bulkhead;
+import com.example.toremainserver.resilience.CircuitBreaker;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.UncheckedIOException;
+
+/**
+ * AI 서버 업스트림별 서킷 브레이커/벌크헤드 설정입니다.
+ * 각 업스트림은 ai.resilience.{name}.* 속성으로 개별 설정합니다.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean(name = "aiNpcGuard")
+    public UpstreamGuard aiNpcGuard(Environment env, MeterRegistry meterRegistry) {
+        return buildGuard("npc", env, meterRegistry);
+    }
+
+    @Bean(name = "aiMaterialGuard")
+    public UpstreamGuard aiMaterialGuard(Environment env, MeterRegistry meterRegistry) {
+        return buildGuard("material", env, meterRegistry);
+    }
+
+    private UpstreamGuard buildGuard(String name, Environment env, MeterRegistry meterRegistry) {
+        String prefix = "ai.resilience." + name + ".";
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+            env.getProperty(prefix + "window-size", Integer.class, 50),
+            env.getProperty(prefix + "minimum-calls", Integer.class, 10),
+            env.getProperty(prefix + "failure-rate-threshold", Double.class, 50.0),
+            env.getProperty(prefix + "open-duration-ms", Long.class, 30000L),
+            env.getProperty(prefix + "half-open-calls", Integer.class, 3)
+        );
+        Bulkhead bulkhead = new Bulkhead(
+            env.getProperty(prefix + "max-concurrent", Integer.class, 32),
+            env.getProperty(prefix + "max-wait-ms", Long.class, 100L)
+        );
+
+        // 4xx 응답(잘못된 요청)과 UE5 연결 종료(UncheckedIOException)는 업스트림 장애로 보지 않음
+        return new UpstreamGuard(name, circuitBreaker, bulkhead,
+            e -> !(e instanceof HttpClientErrorException) && !(e instanceof UncheckedIOException),
+            meterRegistry);
+    }
+}
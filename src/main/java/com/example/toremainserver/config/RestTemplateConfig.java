@@ -1,14 +1,138 @@
 package com.example.toremainserver.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 업스트림별 RestTemplate 설정입니다.
+ * 각 업스트림(ai, ai-stream, blockchain)은 upstream.http.{name}.* 속성으로 개별 설정합니다.
+ *
+ * - 커넥션 풀(Apache HttpClient 5): 전체/라우트별 최대 연결 수, 풀 대기 시간(connection-request-timeout-ms)
+ * - 타임아웃: 연결(connect-timeout-ms), 소켓 읽기(read-timeout-ms), 응답 대기(response-timeout-ms)
+ * - keep-alive: 서버가 알려준 값과 keep-alive-ms 중 짧은 값만큼 연결을 재사용
+ * - http2=true 이면 JDK HttpClient(HTTP/2)를 사용합니다. 이 경우 풀 크기는 JDK가 관리하므로 풀 메트릭은 없습니다.
+ *
+ * 메트릭
+ * - httpcomponents.httpclient.pool.* {httpclient=name}: 풀 연결(leased/available), 풀 대기(pending)
+ * - upstream.http.requests {client=name, status}: 요청부터 응답 헤더 수신까지의 지연
+ */
 @Configuration
 public class RestTemplateConfig {
-    
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+
+    /**
+     * AI 서버 전용 RestTemplate
+     * AI 서버가 느려져도 요청이 무한정 대기하지 않도록 합니다.
+     */
+    @Bean(name = "aiRestTemplate")
+    public RestTemplate aiRestTemplate(Environment env, MeterRegistry meterRegistry) {
+        return buildRestTemplate("ai", env, meterRegistry);
+    }
+
+    /**
+     * AI 서버 스트리밍/장시간 요청 전용 RestTemplate
+     * Material 생성(/api/material, Material 작업자)과 NPC 대화 SSE 중계는 응답 첫 바이트나 토큰 사이 간격이
+     * 일반 AI 호출보다 길므로 타임아웃과 커넥션 풀을 aiRestTemplate과 분리합니다.
+     */
+    @Bean(name = "aiStreamRestTemplate")
+    public RestTemplate aiStreamRestTemplate(Environment env, MeterRegistry meterRegistry) {
+        return buildRestTemplate("ai-stream", env, meterRegistry);
+    }
+
+    /**
+     * 블록체인 서버 전용 RestTemplate (NFT 민팅/조회/잠금)
+     */
+    @Bean(name = "blockchainRestTemplate")
+    public RestTemplate blockchainRestTemplate(Environment env, MeterRegistry meterRegistry) {
+        return buildRestTemplate("blockchain", env, meterRegistry);
+    }
+
+    private RestTemplate buildRestTemplate(String name, Environment env, MeterRegistry meterRegistry) {
+        String prefix = "upstream.http." + name + ".";
+        long connectTimeoutMs = env.getProperty(prefix + "connect-timeout-ms", Long.class, 2000L);
+        long readTimeoutMs = env.getProperty(prefix + "read-timeout-ms", Long.class, 30000L);
+
+        ClientHttpRequestFactory requestFactory;
+        if (env.getProperty(prefix + "http2", Boolean.class, false)) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+            JdkClientHttpRequestFactory jdkFactory = new JdkClientHttpRequestFactory(httpClient);
+            jdkFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            requestFactory = jdkFactory;
+        } else {
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(env.getProperty(prefix + "max-total", Integer.class, 64))
+                .setMaxConnPerRoute(env.getProperty(prefix + "max-per-route", Integer.class, 32))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                    .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                    // 오래 쉰 연결은 재사용 전에 확인 (서버가 먼저 끊은 연결로 요청하지 않도록)
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                    .build())
+                .build();
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+            TimeValue maxKeepAlive = TimeValue.ofMilliseconds(env.getProperty(prefix + "keep-alive-ms", Long.class, 30000L));
+            CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(
+                        env.getProperty(prefix + "connection-request-timeout-ms", Long.class, 500L)))
+                    .setResponseTimeout(Timeout.ofMilliseconds(
+                        env.getProperty(prefix + "response-timeout-ms", Long.class, readTimeoutMs)))
+                    .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive.toMilliseconds() < maxKeepAlive.toMilliseconds() ? serverKeepAlive : maxKeepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(maxKeepAlive)
+                .build();
+            requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        }
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(latencyInterceptor(name, meterRegistry));
+        return restTemplate;
+    }
+
+    private ClientHttpRequestInterceptor latencyInterceptor(String name, MeterRegistry meterRegistry) {
+        return (request, body, execution) -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String status = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                status = String.valueOf(response.getStatusCode().value());
+                return response;
+            } finally {
+                sample.stop(Timer.builder("upstream.http.requests")
+                    .tag("client", name)
+                    .tag("status", status)
+                    .register(meterRegistry));
+            }
+        };
     }
 }
@@ -0,0 +1,12 @@
+package com.example.toremainserver.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 캐시 정리, 주기적 flush 등 백그라운드 @Scheduled 작업을 활성화합니다.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
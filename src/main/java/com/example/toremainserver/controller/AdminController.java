@@ -0,0 +1,71 @@
+package com.example.toremainserver.controller;
+
+import com.example.toremainserver.capture.CapturedPayload;
+import com.example.toremainserver.capture.PayloadCapture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 운영용 관리자 API입니다.
+ * admin.token이 설정된 경우에만 동작하며, 요청 헤더 X-Admin-Token이 일치해야 합니다.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    private static final int MAX_CAPTURE_LIMIT = 200;
+
+    private final PayloadCapture payloadCapture;
+    private final String adminToken;
+
+    @Autowired
+    public AdminController(PayloadCapture payloadCapture,
+                           @Value("${admin.token:}") String adminToken) {
+        this.payloadCapture = payloadCapture;
+        this.adminToken = adminToken;
+    }
+
+    /**
+     * 최근 캡처된 AI 서버 요청/응답을 최신 순으로 조회합니다. (capture.sample-rate로 샘플링된 호출만)
+     *
+     * 요청 예시:
+     * GET /api/admin/payload-captures?profileId=1&npcId=2&limit=20
+     * X-Admin-Token: {admin.token}
+     *
+     * @param profileId 프로필 ID 필터 (선택)
+     * @param npcId NPC ID 필터 (선택)
+     * @param limit 최대 개수 (기본 50, 최대 200)
+     * @return 캡처 목록
+     */
+    @GetMapping("/payload-captures")
+    public ResponseEntity<?> getPayloadCaptures(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token,
+            @RequestParam(required = false) Long profileId,
+            @RequestParam(required = false) Long npcId,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "관리자 인증이 필요합니다."));
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit은 1 이상이어야 합니다."));
+        }
+
+        List<CapturedPayload> captures = payloadCapture.recent(profileId, npcId, Math.min(limit, MAX_CAPTURE_LIMIT));
+        return ResponseEntity.ok(captures);
+    }
+
+    private boolean isAuthorized(String token) {
+        if (adminToken.isEmpty() || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.toremainserver.controller;
 
+import com.example.toremainserver.dto.game.ConversationPrefetchRequest;
+import com.example.toremainserver.dto.game.Ue5NpcBatchRequest;
 import com.example.toremainserver.dto.game.Ue5NpcRequest;
 import com.example.toremainserver.dto.game.Ue5NpcResponse;
 import com.example.toremainserver.dto.game.ProfileCreateRequest;
@@ -8,27 +10,50 @@ import com.example.toremainserver.dto.game.UserGameProfileSyncRequest;
 import com.example.toremainserver.dto.game.UserGameProfileUpdateRequest;
 import com.example.toremainserver.dto.game.GoldUpdateRequest;
 import com.example.toremainserver.dto.game.GoldUpdateResponse;
+import com.example.toremainserver.dto.game.ProfileBatchRequest;
 import com.example.toremainserver.dto.game.ExperienceUpdateRequest;
 import com.example.toremainserver.dto.game.ExperienceUpdateResponse;
 import com.example.toremainserver.dto.game.EquipmentSlotRequest;
 import com.example.toremainserver.dto.game.EquipmentUpdateResponse;
-import com.example.toremainserver.entity.Conversation;
-import com.example.toremainserver.entity.Npc;
+import com.example.toremainserver.dto.game.MaterialJobResponse;
+import com.example.toremainserver.service.CatalogCache;
+import com.example.toremainserver.service.ConversationPrefetchCache;
 import com.example.toremainserver.service.GameEventService;
+import com.example.toremainserver.service.MaterialJobService;
+import com.example.toremainserver.service.MaterialStreamClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 public class GameEventController {
     private final GameEventService gameEventService;
+    private final MaterialJobService materialJobService;
+    private final MaterialStreamClient materialStreamClient;
+    private final CatalogCache catalogCache;
+    private final ConversationPrefetchCache conversationPrefetchCache;
 
     @Autowired
-    public GameEventController(GameEventService gameEventService) {
+    public GameEventController(GameEventService gameEventService,
+                               MaterialJobService materialJobService,
+                               MaterialStreamClient materialStreamClient,
+                               CatalogCache catalogCache,
+                               ConversationPrefetchCache conversationPrefetchCache) {
         this.gameEventService = gameEventService;
+        this.materialJobService = materialJobService;
+        this.materialStreamClient = materialStreamClient;
+        this.catalogCache = catalogCache;
+        this.conversationPrefetchCache = conversationPrefetchCache;
     }
 
     /**
@@ -68,10 +93,80 @@ public class GameEventController {
      * 3. 완전한 NpcChatRequest 구성 (previousConversationSummary 포함)
      * 4. /api.ai/npc로 POST 요청
      * 5. 응답을 UE5로 그대로 반환 (previousConversationSummary 포함)
+     *
+     * LLM 호출은 AI 업스트림 전용 실행기에서 수행되므로 Tomcat 스레드를 점유하지 않습니다.
+     * 동시 업스트림 요청 한도를 넘으면 503 Service Unavailable을 반환합니다.
      */
     @PostMapping("/npc/chat")
-    public ResponseEntity<Ue5NpcResponse> ue5Npc(@RequestBody Ue5NpcRequest ue5Request) {
-        return gameEventService.forwardNpcRequest(ue5Request);
+    public CompletableFuture<ResponseEntity<Ue5NpcResponse>> ue5Npc(@RequestBody Ue5NpcRequest ue5Request) {
+        return gameEventService.forwardNpcRequestAsync(ue5Request);
+    }
+
+    /**
+     * 여러 NPC 대화 요청을 한 번에 처리합니다. (마을/파티 장면처럼 여러 플레이어·NPC 대화가 동시에 일어날 때)
+     * NPC, 프로필, 대화 기록은 테이블별로 한 번씩만 조회하고 LLM 호출은 병렬로 수행합니다.
+     * 일부 항목이 실패해도 나머지 항목의 결과는 그대로 반환합니다.
+     *
+     * 요청 body 예시:
+     * {
+     *   "requests": [
+     *     { "npcId": 1, "profileId": 10, "currentPlayerMessage": { "speaker": "player", "message": "안녕하세요" }, ... },
+     *     { "npcId": 2, "profileId": 11, "currentPlayerMessage": { "speaker": "player", "message": "오늘 날씨 어때?" }, ... }
+     *   ]
+     * }
+     *
+     * 응답 body 예시 (요청 순서와 동일):
+     * {
+     *   "results": [
+     *     { "index": 0, "status": 200, "fallback": false, "response": { "npcId": 1, "npcResponse": {...} }, "error": null },
+     *     { "index": 1, "status": 400, "fallback": false, "response": null, "error": "NPC not found: 2" }
+     *   ]
+     * }
+     *
+     * 엔드포인트: POST /api/npc/chat/batch
+     */
+    @PostMapping("/npc/chat/batch")
+    public CompletableFuture<ResponseEntity<?>> ue5NpcBatch(@RequestBody Ue5NpcBatchRequest batchRequest) {
+        List<Ue5NpcRequest> requests = batchRequest.getRequests();
+        if (requests == null || requests.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body(Map.of("error", "requests가 비어 있습니다.")));
+        }
+        if (requests.size() > gameEventService.getBatchMaxItems()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
+                Map.of("error", "한 번에 최대 " + gameEventService.getBatchMaxItems() + "개까지 요청할 수 있습니다.")));
+        }
+        return gameEventService.forwardNpcBatchAsync(requests).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * /npc/chat의 스트리밍 버전입니다.
+     * AI 서버가 생성하는 토큰을 Server-Sent Events로 즉시 UE5에 전달하여
+     * 첫 토큰까지의 대기 시간을 줄입니다.
+     *
+     * 요청 body: /npc/chat과 동일 (Ue5NpcRequest)
+     *
+     * 응답 이벤트 예시:
+     * event: token
+     * data: {"token":"어서"}
+     *
+     * event: token
+     * data: {"token":" 오게나"}
+     *
+     * event: done
+     * data: {"npcId":1,"npcResponse":{"speaker":"npc","message":"어서 오게나","timestamp":"..."}}
+     *
+     * 엔드포인트: POST /api/npc/chat/stream
+     *
+     * 내부 처리 흐름:
+     * 1. /npc/chat과 동일하게 NpcChatRequest 구성
+     * 2. /api.ai/llm/generate/stream으로 POST 요청
+     * 3. 토큰 청크를 token 이벤트로 중계
+     * 4. 스트림 종료 시 Conversation 업데이트 후 done 이벤트 전송
+     */
+    @PostMapping(value = "/npc/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter ue5NpcStream(@RequestBody Ue5NpcRequest ue5Request) {
+        return gameEventService.streamNpcRequest(ue5Request);
     }
 
     /**
@@ -90,12 +185,109 @@ public class GameEventController {
      * 1. UE5에서 description을 POST로 받음
      * 2. (TODO) 필요한 정보 가공
      * 3. /api.ai/material로 POST 요청
-     * 4. 응답(multipart/form-data)을 UE5로 그대로 반환
+     * 4. 응답을 UE5로 그대로 반환 (본문은 메모리에 올리지 않고 스트리밍)
+     *
+     * 응답 형식:
+     * - 기본: JSON { baseColor64, normalMap64, ORMMap64, emissiveMap64 }
+     * - Accept: multipart/form-data 이면 base64를 푼 PNG 파트 (baseColor, normalMap, ORMMap, emissiveMap)
+     *
+     * /npc/chat과 동일하게 AI 업스트림 전용 실행기에서 비동기로 처리됩니다.
      */
     @PostMapping("/material")
-    public ResponseEntity<?> ue5Material(@RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> ue5Material(
+            @RequestBody Map<String, Object> body,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         // TODO: UE5에서 받은 정보를 가공하거나 추가 처리
-        return gameEventService.forwardMaterialRequest(body);
+        boolean binary = accept != null && accept.contains(MediaType.MULTIPART_FORM_DATA_VALUE);
+        return gameEventService.forwardMaterialRequestAsync(body, binary);
+    }
+    
+    /**
+     * Material 생성 작업을 접수하고 작업 ID를 바로 반환합니다.
+     * 같은 요청이 대기/실행 중이면 기존 작업을, 이미 생성된 텍스처면 완료된 작업을 반환합니다.
+     *
+     * 요청 예시:
+     * POST /api/material/jobs?priority=10
+     * (body는 /api/material과 동일)
+     *
+     * 응답 예시 (202):
+     * { "jobId": "6f1c...", "status": "QUEUED", "error": null, "resultUrl": null }
+     *
+     * @param body Material 요청
+     * @param priority 우선순위 (클수록 먼저 처리, 기본 0)
+     * @return 작업 상태 (대기열이 가득 차면 503)
+     */
+    @PostMapping("/material/jobs")
+    public ResponseEntity<?> submitMaterialJob(
+            @RequestBody Map<String, Object> body,
+            @RequestParam(defaultValue = "0") int priority
+    ) {
+        MaterialJobService.Job job = materialJobService.submit(body, priority);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Material 생성 요청이 많아 잠시 후 다시 시도해주세요."));
+        }
+        return ResponseEntity.accepted().body(materialJobService.toResponse(job));
+    }
+
+    /**
+     * Material 생성 작업 상태를 조회합니다.
+     * waitMs를 주면 작업이 끝나거나 waitMs가 지날 때까지 기다렸다가 응답합니다. (롱 폴링)
+     *
+     * 요청 예시:
+     * GET /api/material/jobs/{jobId}?waitMs=30000
+     *
+     * 응답 예시:
+     * { "jobId": "6f1c...", "status": "SUCCEEDED", "error": null, "resultUrl": "/api/material/jobs/6f1c.../result" }
+     *
+     * @param jobId 작업 ID
+     * @param waitMs 최대 대기 시간 (기본 0 = 바로 응답)
+     * @return 작업 상태 (없으면 404)
+     */
+    @GetMapping("/material/jobs/{jobId}")
+    public CompletableFuture<ResponseEntity<MaterialJobResponse>> getMaterialJob(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") long waitMs
+    ) {
+        MaterialJobService.Job job = materialJobService.get(jobId);
+        if (job == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return materialJobService.awaitCompletion(job, waitMs)
+            .thenApply(completed -> ResponseEntity.ok(materialJobService.toResponse(completed)));
+    }
+
+    /**
+     * 완료된 Material 생성 작업의 텍스처를 반환합니다. (형식은 /api/material과 동일)
+     * @param jobId 작업 ID
+     * @return 텍스처 (없으면 404, 아직 완료되지 않았으면 409, 결과가 만료되었으면 410)
+     */
+    @GetMapping("/material/jobs/{jobId}/result")
+    public ResponseEntity<StreamingResponseBody> getMaterialJobResult(
+            @PathVariable String jobId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        MaterialJobService.Job job = materialJobService.get(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != MaterialJobService.Status.SUCCEEDED) {
+            return materialStreamClient.error(HttpStatus.CONFLICT, "작업이 완료되지 않았습니다: " + job.getStatus());
+        }
+        InputStream result = materialJobService.openResult(job);
+        if (result == null) {
+            return materialStreamClient.error(HttpStatus.GONE, "작업 결과가 만료되었습니다. 다시 요청해주세요.");
+        }
+
+        boolean binary = accept != null && accept.contains(MediaType.MULTIPART_FORM_DATA_VALUE);
+        String boundary = materialStreamClient.newBoundary(binary);
+        return ResponseEntity.ok()
+            .contentType(materialStreamClient.contentType(boundary))
+            .body(out -> {
+                try (result) {
+                    materialStreamClient.writeBody(result, out, boundary);
+                }
+            });
     }
     
     /**
@@ -107,7 +299,7 @@ public class GameEventController {
      * 응답 예시:
      * {
      *   "conversationId": 1,
-     *   "userId": 123,
+     *   "profileId": 7,
      *   "npcId": 5,
      *   "recentHistory": [
      *     {
@@ -128,21 +320,57 @@ public class GameEventController {
      * @param userId 유저 ID
      * @param npcId NPC ID
      * @param profileId 프로필 ID
-     * @return Conversation (없으면 404)
+     * @return 대화 기록 (유저/NPC/프로필이 없거나 소유자가 다르면 404와 {"error": 사유})
      */
     @GetMapping("/npc/conversations")
-    public ResponseEntity<Conversation> getNpcConversations(
+    public ResponseEntity<?> getNpcConversations(
             @RequestParam Long userId,
             @RequestParam Long profileId,
             @RequestParam Long npcId
     ) {
-        Conversation conversation = gameEventService.getNpcConversations(userId, profileId, npcId);
-        
-        if (conversation == null) {
-            return ResponseEntity.notFound().build();
+        return gameEventService.getNpcConversations(userId, profileId, npcId);
+    }
+
+    /**
+     * 플레이어가 존에 들어왔을 때 존에 있는 NPC들과의 대화 기록을 미리 읽어 둡니다.
+     * 이후 첫 /npc/chat 요청은 DB를 조회하지 않고 미리 읽은 대화 기록으로 시작합니다.
+     * (npc.prefetch.ttl-seconds가 지나거나 존을 떠나면 제거)
+     *
+     * 요청 예시:
+     * POST /api/npc/conversations/prefetch
+     * { "profileId": 10, "npcIds": [1, 2, 5] }
+     *
+     * 응답 예시:
+     * { "profileId": 10, "npcIds": [1, 2, 5], "ttlSeconds": 120 }
+     *
+     * @param request profileId와 존에 있는 NPC ID 목록
+     * @return 미리 읽은 NPC ID 목록 (존재하지 않는 NPC 제외)
+     */
+    @PostMapping("/npc/conversations/prefetch")
+    public ResponseEntity<?> prefetchConversations(@RequestBody ConversationPrefetchRequest request) {
+        if (request.getProfileId() == null || request.getNpcIds() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "profileId와 npcIds는 필수입니다."));
         }
-        
-        return ResponseEntity.ok(conversation);
+        if (request.getNpcIds().size() > conversationPrefetchCache.getMaxNpcs()) {
+            return ResponseEntity.badRequest().body(
+                Map.of("error", "한 번에 최대 " + conversationPrefetchCache.getMaxNpcs() + "개 NPC까지 요청할 수 있습니다."));
+        }
+        List<Long> prefetched = conversationPrefetchCache.prefetch(request.getProfileId(), request.getNpcIds());
+        return ResponseEntity.ok(Map.of(
+            "profileId", request.getProfileId(),
+            "npcIds", prefetched,
+            "ttlSeconds", conversationPrefetchCache.getTtlSeconds()
+        ));
+    }
+
+    /**
+     * 플레이어가 존을 떠나면 미리 읽어 둔 대화 기록을 제거합니다.
+     * DELETE /api/npc/conversations/prefetch/{profileId}
+     */
+    @DeleteMapping("/npc/conversations/prefetch/{profileId}")
+    public ResponseEntity<Void> evictPrefetchedConversations(@PathVariable Long profileId) {
+        conversationPrefetchCache.evict(profileId);
+        return ResponseEntity.noContent().build();
     }
     
     /**
@@ -172,12 +400,18 @@ public class GameEventController {
      *   }
      * ]
      *
+     * 응답에는 ETag와 Cache-Control이 포함되며, If-None-Match가 일치하면 본문 없이 304를 반환합니다.
+     * Accept-Encoding: gzip 이면 미리 압축한 본문을 반환합니다.
+     *
      * @return 모든 NPC 리스트
      */
     @GetMapping("/npcs")
-    public ResponseEntity<List<Npc>> getAllNpcs() {
-        List<Npc> npcs = gameEventService.getAllNpcs();
-        return ResponseEntity.ok(npcs);
+    public ResponseEntity<byte[]> getAllNpcs(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        // 미리 직렬화된 카탈로그 (ETag 일치 시 304)
+        return catalogCache.respond(CatalogCache.NPCS, ifNoneMatch, acceptEncoding);
     }
 
     /**
@@ -445,8 +679,9 @@ public class GameEventController {
      *   "updatedAt": "2025-10-29T16:10:00"
      * }
      *
-     * 에러 응답 (Gold 부족):
+     * 에러 응답 (Gold 부족 또는 INT 범위 초과):
      * 400 Bad Request - "Gold cannot be negative. Current: 200, Amount: -300"
+     * 400 Bad Request - "Gold exceeds maximum. Current: 2147483000, Amount: 1000"
      *
      * @param request profileId와 증감량 (음수면 차감)
      * @return 간소화된 Gold 업데이트 정보 (프로필이 없으면 404)
@@ -467,6 +702,42 @@ public class GameEventController {
         }
     }
 
+    /**
+     * 여러 프로필의 Gold/경험치/장비 변경을 한 번에 처리합니다. (던전/PvP 종료 정산)
+     * 참가자마다 /profile/gold, /profile/experience, /profile/equipment를 따로 호출하는 대신
+     * 한 트랜잭션에서 JDBC 배치로 저장합니다.
+     *
+     * 요청 예시:
+     * POST /api/profile/batch
+     * {
+     *   "mode": "ALL_OR_NOTHING",
+     *   "operations": [
+     *     { "profileId": 12345, "gold": 500, "experience": 1500 },
+     *     { "profileId": 12346, "gold": -300, "equipment": { "weapon": 1001, "helmet": null } }
+     *   ]
+     * }
+     *
+     * 응답 예시 (요청 순서와 동일):
+     * {
+     *   "mode": "ALL_OR_NOTHING",
+     *   "applied": true,
+     *   "results": [
+     *     { "index": 0, "status": 200, "profileId": 12345, "gold": 2700, "experience": 9000, "previousEquipment": null, "error": null },
+     *     { "index": 1, "status": 200, "profileId": 12346, "gold": 100, "experience": 500, "previousEquipment": { "weapon": 1000, "helmet": 2001 }, "error": null }
+     *   ]
+     * }
+     *
+     * - ALL_OR_NOTHING(기본값): 하나라도 실패하면 아무것도 저장하지 않고 409 Conflict (실패하지 않은 작업도 status 409)
+     * - BEST_EFFORT: 실패한 작업(400/403/404)만 건너뛰고 나머지를 저장
+     *
+     * @param request 모드와 작업 목록
+     * @return 작업별 결과
+     */
+    @PostMapping("/profile/batch")
+    public ResponseEntity<?> applyProfileBatch(@RequestBody ProfileBatchRequest request) {
+        return gameEventService.applyProfileBatch(request);
+    }
+
     /**
      * Experience를 증가시킵니다. (최적화된 전용 API)
      * 몬스터 처치, 퀘스트 완료, 던전 클리어 등에 사용됩니다.
@@ -488,18 +759,26 @@ public class GameEventController {
      *   "updatedAt": "2025-10-29T16:20:00"
      * }
      *
+     * 에러 응답 (경험치 범위 초과):
+     * 400 Bad Request - "Experience exceeds maximum. Current: ..., Amount: ..."
+     *
      * @param request profileId와 획득 경험치
      * @return 간소화된 경험치 업데이트 정보 (프로필이 없으면 404)
      */
     @PatchMapping("/profile/experience")
-    public ResponseEntity<ExperienceUpdateResponse> addExperience(@RequestBody ExperienceUpdateRequest request) {
-        ExperienceUpdateResponse response = gameEventService.addExperience(request);
-        
-        if (response == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> addExperience(@RequestBody ExperienceUpdateRequest request) {
+        try {
+            ExperienceUpdateResponse response = gameEventService.addExperience(request);
+            
+            if (response == null) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            // 경험치 범위 초과
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
-        
-        return ResponseEntity.ok(response);
     }
 
     /**
@@ -531,17 +810,24 @@ public class GameEventController {
      *   "updatedAt": "2025-10-29T16:15:00"
      * }
      *
+     * 에러 응답 (빈 슬롯명 또는 제어 문자가 든 슬롯명):
+     * 400 Bad Request - "Invalid equipment slot: "
+     *
      * @param request profileId, 슬롯명, 아이템ID (null이면 해제)
      * @return 간소화된 장비 업데이트 정보 (프로필이 없으면 404)
      */
     @PatchMapping("/profile/equipment")
-    public ResponseEntity<EquipmentUpdateResponse> updateEquipmentSlot(@RequestBody EquipmentSlotRequest request) {
-        EquipmentUpdateResponse response = gameEventService.updateEquipmentSlot(request);
-        
-        if (response == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> updateEquipmentSlot(@RequestBody EquipmentSlotRequest request) {
+        try {
+            EquipmentUpdateResponse response = gameEventService.updateEquipmentSlot(request);
+            
+            if (response == null) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
-        
-        return ResponseEntity.ok(response);
     }
 } 
\ No newline at end of file
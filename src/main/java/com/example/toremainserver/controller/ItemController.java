@@ -6,8 +6,10 @@ import com.example.toremainserver.dto.item.UpdateLocationRequest;
 import com.example.toremainserver.entity.ItemDefinition;
 import com.example.toremainserver.entity.UserConsumableItem;
 import com.example.toremainserver.entity.UserEquipItem;
+import com.example.toremainserver.service.CatalogCache;
 import com.example.toremainserver.service.ItemService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,17 +20,20 @@ import java.util.List;
 public class ItemController {
     
     private final ItemService itemService;
+    private final CatalogCache catalogCache;
     
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, CatalogCache catalogCache) {
         this.itemService = itemService;
+        this.catalogCache = catalogCache;
     }
     
-    // 모든 아이템 정의 조회
+    // 모든 아이템 정의 조회 (미리 직렬화된 카탈로그, ETag 일치 시 304)
     @GetMapping("/item-definitions")
-    public ResponseEntity<List<ItemDefinition>> getAllItemDefinitions() {
-        List<ItemDefinition> items = itemService.getAllItemDefinitions();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<byte[]> getAllItemDefinitions(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogCache.respond(CatalogCache.ITEM_DEFINITIONS, ifNoneMatch, acceptEncoding);
     }
     
     // 프로필별 소비 아이템 조회
@@ -0,0 +1,31 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+
+public class ConversationPrefetchRequest {
+    private Long profileId;
+    private List<Long> npcIds; // 존에 있는 NPC ID 목록
+
+    public ConversationPrefetchRequest() {}
+
+    public ConversationPrefetchRequest(Long profileId, List<Long> npcIds) {
+        this.profileId = profileId;
+        this.npcIds = npcIds;
+    }
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public void setProfileId(Long profileId) {
+        this.profileId = profileId;
+    }
+
+    public List<Long> getNpcIds() {
+        return npcIds;
+    }
+
+    public void setNpcIds(List<Long> npcIds) {
+        this.npcIds = npcIds;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.toremainserver.dto.game;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * GET /api/npc/conversations 응답입니다.
+ * Conversation 엔티티의 저장용 필드(턴 번호, 요약 대상 수, 감정 누적값, 토큰 수)는 노출하지 않습니다.
+ */
+public class ConversationResponse {
+    private Long conversationId;
+    private Long profileId;
+    private Long npcId;
+    private List<Ue5NpcResponse.ChatHistory> recentHistory;
+    private String summary;
+    private LocalDateTime lastUpdated;
+
+    public ConversationResponse() {
+    }
+
+    public ConversationResponse(Long conversationId, Long profileId, Long npcId, List<Ue5NpcResponse.ChatHistory> recentHistory,
+                                String summary, LocalDateTime lastUpdated) {
+        this.conversationId = conversationId;
+        this.profileId = profileId;
+        this.npcId = npcId;
+        this.recentHistory = recentHistory;
+        this.summary = summary;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(Long conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public void setProfileId(Long profileId) {
+        this.profileId = profileId;
+    }
+
+    public Long getNpcId() {
+        return npcId;
+    }
+
+    public void setNpcId(Long npcId) {
+        this.npcId = npcId;
+    }
+
+    public List<Ue5NpcResponse.ChatHistory> getRecentHistory() {
+        return recentHistory;
+    }
+
+    public void setRecentHistory(List<Ue5NpcResponse.ChatHistory> recentHistory) {
+        this.recentHistory = recentHistory;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+
+/**
+ * AI 서버 대화 요약 요청 (/api.ai/llm/summarize)
+ * 여러 대화를 한 번에 요약합니다.
+ */
+public class ConversationSummaryRequest {
+    
+    // 요약할 대화 하나
+    public static class Item {
+        private Long conversationId;
+        private String npcName;
+        private String playerName;
+        private String previousSummary; // 기존 요약 (없으면 null)
+        private List<NpcChatRequest.ChatHistory> messages; // 아직 요약에 반영되지 않은 메시지 (오래된 순)
+        
+        public Item() {}
+        
+        public Item(Long conversationId, String npcName, String playerName, String previousSummary,
+                    List<NpcChatRequest.ChatHistory> messages) {
+            this.conversationId = conversationId;
+            this.npcName = npcName;
+            this.playerName = playerName;
+            this.previousSummary = previousSummary;
+            this.messages = messages;
+        }
+        
+        // Getter와 Setter
+        public Long getConversationId() {
+            return conversationId;
+        }
+        
+        public void setConversationId(Long conversationId) {
+            this.conversationId = conversationId;
+        }
+        
+        public String getNpcName() {
+            return npcName;
+        }
+        
+        public void setNpcName(String npcName) {
+            this.npcName = npcName;
+        }
+        
+        public String getPlayerName() {
+            return playerName;
+        }
+        
+        public void setPlayerName(String playerName) {
+            this.playerName = playerName;
+        }
+        
+        public String getPreviousSummary() {
+            return previousSummary;
+        }
+        
+        public void setPreviousSummary(String previousSummary) {
+            this.previousSummary = previousSummary;
+        }
+        
+        public List<NpcChatRequest.ChatHistory> getMessages() {
+            return messages;
+        }
+        
+        public void setMessages(List<NpcChatRequest.ChatHistory> messages) {
+            this.messages = messages;
+        }
+    }
+    
+    private List<Item> items;
+    private String apiKey;
+    
+    public ConversationSummaryRequest() {}
+    
+    public ConversationSummaryRequest(List<Item> items, String apiKey) {
+        this.items = items;
+        this.apiKey = apiKey;
+    }
+    
+    public List<Item> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+    
+    public String getApiKey() {
+        return apiKey;
+    }
+    
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+
+/**
+ * AI 서버 대화 요약 응답 (/api.ai/llm/summarize)
+ */
+public class ConversationSummaryResponse {
+    
+    // 대화 하나의 요약 결과
+    public static class Item {
+        private Long conversationId;
+        private String summary;
+        
+        public Item() {}
+        
+        public Item(Long conversationId, String summary) {
+            this.conversationId = conversationId;
+            this.summary = summary;
+        }
+        
+        // Getter와 Setter
+        public Long getConversationId() {
+            return conversationId;
+        }
+        
+        public void setConversationId(Long conversationId) {
+            this.conversationId = conversationId;
+        }
+        
+        public String getSummary() {
+            return summary;
+        }
+        
+        public void setSummary(String summary) {
+            this.summary = summary;
+        }
+    }
+    
+    private List<Item> items;
+    
+    public ConversationSummaryResponse() {}
+    
+    public ConversationSummaryResponse(List<Item> items) {
+        this.items = items;
+    }
+    
+    public List<Item> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+}
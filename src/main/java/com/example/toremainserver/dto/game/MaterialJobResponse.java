@@ -0,0 +1,49 @@
+package com.example.toremainserver.dto.game;
+
+public class MaterialJobResponse {
+    private String jobId;
+    private String status;  // QUEUED, RUNNING, SUCCEEDED, FAILED
+    private String error;
+    private String resultUrl;
+
+    public MaterialJobResponse() {}
+
+    public MaterialJobResponse(String jobId, String status, String error, String resultUrl) {
+        this.jobId = jobId;
+        this.status = status;
+        this.error = error;
+        this.resultUrl = resultUrl;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getResultUrl() {
+        return resultUrl;
+    }
+
+    public void setResultUrl(String resultUrl) {
+        this.resultUrl = resultUrl;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProfileBatchRequest {
+    public static final String ALL_OR_NOTHING = "ALL_OR_NOTHING";
+    public static final String BEST_EFFORT = "BEST_EFFORT";
+
+    public static class Operation {
+        private Long profileId;
+        private Integer gold;                  // Gold 증감 (음수면 차감, null이면 변경 없음)
+        private Long experience;               // 경험치 증감 (null이면 변경 없음)
+        private Map<String, Long> equipment;   // 슬롯명 -> 장착할 아이템 ID (값이 null이면 해제)
+
+        public Operation() {}
+
+        public Operation(Long profileId, Integer gold, Long experience, Map<String, Long> equipment) {
+            this.profileId = profileId;
+            this.gold = gold;
+            this.experience = experience;
+            this.equipment = equipment;
+        }
+
+        public Long getProfileId() {
+            return profileId;
+        }
+
+        public void setProfileId(Long profileId) {
+            this.profileId = profileId;
+        }
+
+        public Integer getGold() {
+            return gold;
+        }
+
+        public void setGold(Integer gold) {
+            this.gold = gold;
+        }
+
+        public Long getExperience() {
+            return experience;
+        }
+
+        public void setExperience(Long experience) {
+            this.experience = experience;
+        }
+
+        public Map<String, Long> getEquipment() {
+            return equipment;
+        }
+
+        public void setEquipment(Map<String, Long> equipment) {
+            this.equipment = equipment;
+        }
+    }
+
+    private String mode;                 // ALL_OR_NOTHING(기본값) | BEST_EFFORT
+    private List<Operation> operations;
+
+    public ProfileBatchRequest() {}
+
+    public ProfileBatchRequest(String mode, List<Operation> operations) {
+        this.mode = mode;
+        this.operations = operations;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<Operation> operations) {
+        this.operations = operations;
+    }
+}
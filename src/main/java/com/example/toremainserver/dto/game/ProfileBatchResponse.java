@@ -0,0 +1,121 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProfileBatchResponse {
+    public static class Result {
+        private int index;                          // 요청 목록에서의 위치
+        private int status;                         // 개별 처리 결과 HTTP 상태 코드
+        private Long profileId;
+        private Integer gold;                       // 이 작업까지 반영한 Gold
+        private Long experience;                    // 이 작업까지 반영한 경험치
+        private Map<String, Long> previousEquipment; // 변경한 슬롯의 이전 아이템 ID
+        private String error;
+
+        public Result() {}
+
+        public Result(int index, int status, Long profileId, Integer gold, Long experience,
+                      Map<String, Long> previousEquipment, String error) {
+            this.index = index;
+            this.status = status;
+            this.profileId = profileId;
+            this.gold = gold;
+            this.experience = experience;
+            this.previousEquipment = previousEquipment;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        public Long getProfileId() {
+            return profileId;
+        }
+
+        public void setProfileId(Long profileId) {
+            this.profileId = profileId;
+        }
+
+        public Integer getGold() {
+            return gold;
+        }
+
+        public void setGold(Integer gold) {
+            this.gold = gold;
+        }
+
+        public Long getExperience() {
+            return experience;
+        }
+
+        public void setExperience(Long experience) {
+            this.experience = experience;
+        }
+
+        public Map<String, Long> getPreviousEquipment() {
+            return previousEquipment;
+        }
+
+        public void setPreviousEquipment(Map<String, Long> previousEquipment) {
+            this.previousEquipment = previousEquipment;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    private String mode;
+    private boolean applied;        // 변경 사항을 저장했는지 (ALL_OR_NOTHING에서 하나라도 실패하면 false)
+    private List<Result> results;   // 요청 순서와 동일
+
+    public ProfileBatchResponse() {}
+
+    public ProfileBatchResponse(String mode, boolean applied, List<Result> results) {
+        this.mode = mode;
+        this.applied = applied;
+        this.results = results;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+
+public class Ue5NpcBatchRequest {
+    private List<Ue5NpcRequest> requests; // 개별 NPC 대화 요청 (/npc/chat과 동일 형식)
+
+    public Ue5NpcBatchRequest() {}
+
+    public Ue5NpcBatchRequest(List<Ue5NpcRequest> requests) {
+        this.requests = requests;
+    }
+
+    public List<Ue5NpcRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<Ue5NpcRequest> requests) {
+        this.requests = requests;
+    }
+}
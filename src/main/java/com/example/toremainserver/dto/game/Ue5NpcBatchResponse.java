@@ -0,0 +1,79 @@
+package com.example.toremainserver.dto.game;
+
+import java.util.List;
+
+public class Ue5NpcBatchResponse {
+    public static class Result {
+        private int index;              // 요청 목록에서의 위치
+        private int status;             // 개별 처리 결과 HTTP 상태 코드
+        private boolean fallback;       // AI 서버를 사용할 수 없어 기본 대사로 응답했는지
+        private Ue5NpcResponse response;
+        private String error;
+
+        public Result() {}
+
+        public Result(int index, int status, boolean fallback, Ue5NpcResponse response, String error) {
+            this.index = index;
+            this.status = status;
+            this.fallback = fallback;
+            this.response = response;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        public boolean isFallback() {
+            return fallback;
+        }
+
+        public void setFallback(boolean fallback) {
+            this.fallback = fallback;
+        }
+
+        public Ue5NpcResponse getResponse() {
+            return response;
+        }
+
+        public void setResponse(Ue5NpcResponse response) {
+            this.response = response;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    private List<Result> results; // 요청 순서와 동일
+
+    public Ue5NpcBatchResponse() {}
+
+    public Ue5NpcBatchResponse(List<Result> results) {
+        this.results = results;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+}
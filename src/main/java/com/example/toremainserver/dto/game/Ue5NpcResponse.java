@@ -1,6 +1,6 @@
 package com.example.toremainserver.dto.game;
 
-import java.util.Map;
+import com.example.toremainserver.entity.EmotionData;
 
 public class Ue5NpcResponse {
     
@@ -9,7 +9,7 @@ public class Ue5NpcResponse {
         private String speaker; // "player" 또는 "npc"
         private String message;
         private String timestamp;
-        private Map<String, Object> emotionData; // 감정 데이터 (JSON)
+        private EmotionData emotionData; // 감정 데이터 (JSON 형식은 기존과 동일)
         
         public ChatHistory() {}
         
@@ -19,7 +19,7 @@ public class Ue5NpcResponse {
             this.timestamp = timestamp;
         }
         
-        public ChatHistory(String speaker, String message, String timestamp, Map<String, Object> emotionData) {
+        public ChatHistory(String speaker, String message, String timestamp, EmotionData emotionData) {
             this.speaker = speaker;
             this.message = message;
             this.timestamp = timestamp;
@@ -51,11 +51,11 @@ public class Ue5NpcResponse {
             this.timestamp = timestamp;
         }
         
-        public Map<String, Object> getEmotionData() {
+        public EmotionData getEmotionData() {
             return emotionData;
         }
         
-        public void setEmotionData(Map<String, Object> emotionData) {
+        public void setEmotionData(EmotionData emotionData) {
             this.emotionData = emotionData;
         }
     }
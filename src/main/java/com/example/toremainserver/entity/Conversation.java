@@ -5,11 +5,17 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Entity
-@Table(name = "conversations")
+@Table(name = "conversations", uniqueConstraints = {
+    // 프로필-NPC 쌍당 대화는 하나 (write-behind 배치 upsert의 기준 키)
+    @UniqueConstraint(name = "uk_conversations_profile_npc", columnNames = {"profile_id", "npc_id"})
+}, indexes = {
+    // 백그라운드 요약 대상 조회
+    @Index(name = "idx_conversations_unsummarized", columnList = "unsummarized_count")
+})
 public class Conversation {
     
     // 대화 기록을 위한 내부 클래스
@@ -17,7 +23,8 @@ public class Conversation {
         private String speaker; // "player" 또는 "npc"
         private String message;
         private String timestamp;
-        private Map<String, Object> emotionData; // 감정 데이터 (JSON)
+        private EmotionData emotionData; // 감정 데이터 (JSON 형식은 기존과 동일)
+        private Integer tokenCount; // 추정 토큰 수 (한 번 계산 후 함께 저장)
         
         public ChatHistory() {}
         
@@ -27,7 +34,7 @@ public class Conversation {
             this.timestamp = timestamp;
         }
         
-        public ChatHistory(String speaker, String message, String timestamp, Map<String, Object> emotionData) {
+        public ChatHistory(String speaker, String message, String timestamp, EmotionData emotionData) {
             this.speaker = speaker;
             this.message = message;
             this.timestamp = timestamp;
@@ -59,13 +66,21 @@ public class Conversation {
             this.timestamp = timestamp;
         }
         
-        public Map<String, Object> getEmotionData() {
+        public EmotionData getEmotionData() {
             return emotionData;
         }
         
-        public void setEmotionData(Map<String, Object> emotionData) {
+        public void setEmotionData(EmotionData emotionData) {
             this.emotionData = emotionData;
         }
+        
+        public Integer getTokenCount() {
+            return tokenCount;
+        }
+        
+        public void setTokenCount(Integer tokenCount) {
+            this.tokenCount = tokenCount;
+        }
     }
     
     @Id
@@ -89,6 +104,22 @@ public class Conversation {
     @Column(name = "last_updated")
     private LocalDateTime lastUpdated; // 마지막 대화 시간
     
+    @Column(name = "last_turn_seq", columnDefinition = "BIGINT DEFAULT 0")
+    private Long lastTurnSeq = 0L; // conversation_turns에 마지막으로 추가한 메시지 순번
+    
+    @Column(name = "unsummarized_count", columnDefinition = "INT DEFAULT 0")
+    private Integer unsummarizedCount = 0; // summary에 아직 반영되지 않은 최근 메시지 수
+    
+    // NPC 감정 누적값 (메시지마다 더하므로 기록을 다시 읽어 계산하지 않음)
+    @Column(name = "emotion_samples", columnDefinition = "INT DEFAULT 0")
+    private Integer emotionSamples = 0; // 누적한 NPC 응답 수
+    
+    @Column(name = "valence_sum", columnDefinition = "BIGINT DEFAULT 0")
+    private Long valenceSum = 0L;
+    
+    @Column(name = "arousal_sum", columnDefinition = "BIGINT DEFAULT 0")
+    private Long arousalSum = 0L;
+    
     // 기본 생성자
     public Conversation() {
         this.lastUpdated = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
@@ -158,6 +189,93 @@ public class Conversation {
         this.lastUpdated = lastUpdated;
     }
     
+    public Long getLastTurnSeq() {
+        return lastTurnSeq;
+    }
+    
+    public void setLastTurnSeq(Long lastTurnSeq) {
+        this.lastTurnSeq = lastTurnSeq;
+    }
+    
+    public Integer getUnsummarizedCount() {
+        return unsummarizedCount;
+    }
+    
+    public void setUnsummarizedCount(Integer unsummarizedCount) {
+        this.unsummarizedCount = unsummarizedCount;
+    }
+    
+    public Integer getEmotionSamples() {
+        return emotionSamples;
+    }
+    
+    public void setEmotionSamples(Integer emotionSamples) {
+        this.emotionSamples = emotionSamples;
+    }
+    
+    public Long getValenceSum() {
+        return valenceSum;
+    }
+    
+    public void setValenceSum(Long valenceSum) {
+        this.valenceSum = valenceSum;
+    }
+    
+    public Long getArousalSum() {
+        return arousalSum;
+    }
+    
+    public void setArousalSum(Long arousalSum) {
+        this.arousalSum = arousalSum;
+    }
+    
+    /**
+     * NPC 응답 감정을 누적값에 더합니다.
+     * @param emotionData NPC 응답 감정 (null이면 무시)
+     */
+    public void recordEmotion(EmotionData emotionData) {
+        if (emotionData == null) {
+            return;
+        }
+        emotionSamples = (emotionSamples != null ? emotionSamples : 0) + 1;
+        valenceSum = (valenceSum != null ? valenceSum : 0L) + emotionData.getValence();
+        arousalSum = (arousalSum != null ? arousalSum : 0L) + emotionData.getArousal();
+    }
+    
+    /**
+     * 이 플레이어에 대한 NPC의 호감도 (NPC 응답 valence 평균, -100 ~ 100, 기록이 없으면 0)
+     */
+    @Transient
+    public double getAffinity() {
+        return emotionSamples != null && emotionSamples > 0 ? (double) valenceSum / emotionSamples : 0.0;
+    }
+    
+    /**
+     * NPC 응답 arousal 평균 (-100 ~ 100, 기록이 없으면 0)
+     */
+    @Transient
+    public double getAverageArousal() {
+        return emotionSamples != null && emotionSamples > 0 ? (double) arousalSum / emotionSamples : 0.0;
+    }
+    
+    // 영속성 컨텍스트와 무관한 복사본 (recentHistory 리스트도 새로 만듦)
+    public Conversation copy() {
+        Conversation copy = new Conversation(
+            profileId,
+            npcId,
+            recentHistory != null ? new ArrayList<>(recentHistory) : null,
+            summary
+        );
+        copy.conversationId = conversationId;
+        copy.lastUpdated = lastUpdated;
+        copy.lastTurnSeq = lastTurnSeq;
+        copy.unsummarizedCount = unsummarizedCount;
+        copy.emotionSamples = emotionSamples;
+        copy.valenceSum = valenceSum;
+        copy.arousalSum = arousalSum;
+        return copy;
+    }
+    
     // 대화 갱신 헬퍼 메서드
     public void updateConversation(List<ChatHistory> newHistory, String newSummary) {
         this.recentHistory = newHistory;
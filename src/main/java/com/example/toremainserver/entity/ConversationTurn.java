@@ -0,0 +1,137 @@
+package com.example.toremainserver.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+
+/**
+ * 대화 기록의 한 메시지(플레이어 또는 NPC)입니다.
+ * (conversation_id, seq) 순서로 추가만 하며 수정/삭제하지 않습니다.
+ * 최근 N개 메시지는 seq 역순 범위 조회로 가져옵니다.
+ */
+@Entity
+@Table(name = "conversation_turns")
+@IdClass(ConversationTurnId.class)
+public class ConversationTurn implements Persistable<ConversationTurnId> {
+    
+    @Id
+    @Column(name = "conversation_id")
+    private Long conversationId;
+    
+    @Id
+    @Column(name = "seq")
+    private Long seq;  // 대화 내 순번 (1부터, Conversation.lastTurnSeq로 할당)
+    
+    @Column(name = "speaker", length = 20)
+    private String speaker; // "player" 또는 "npc"
+    
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+    
+    @Column(name = "message_timestamp", length = 40)
+    private String timestamp;
+    
+    @Column(name = "emotion_packed")
+    private Long emotionPacked; // EmotionData.pack() (NPC 응답만, 8바이트)
+    
+    @Column(name = "token_count")
+    private Integer tokenCount; // 추정 토큰 수
+    
+    // 할당된 복합키를 쓰므로 save 시 merge(SELECT) 없이 바로 INSERT 하기 위한 플래그
+    @Transient
+    private boolean isNew = true;
+    
+    // 기본 생성자
+    public ConversationTurn() {}
+    
+    // 생성자
+    public ConversationTurn(Long conversationId, Long seq, Conversation.ChatHistory chatHistory) {
+        this.conversationId = conversationId;
+        this.seq = seq;
+        this.speaker = chatHistory.getSpeaker();
+        this.message = chatHistory.getMessage();
+        this.timestamp = chatHistory.getTimestamp();
+        this.emotionPacked = chatHistory.getEmotionData() != null ? chatHistory.getEmotionData().pack() : null;
+        this.tokenCount = chatHistory.getTokenCount();
+    }
+    
+    public Conversation.ChatHistory toChatHistory() {
+        Conversation.ChatHistory chatHistory = new Conversation.ChatHistory(speaker, message, timestamp,
+            emotionPacked != null ? EmotionData.unpack(emotionPacked) : null);
+        chatHistory.setTokenCount(tokenCount);
+        return chatHistory;
+    }
+    
+    @Override
+    public ConversationTurnId getId() {
+        return new ConversationTurnId(conversationId, seq);
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+    
+    // Getter와 Setter
+    public Long getConversationId() {
+        return conversationId;
+    }
+    
+    public void setConversationId(Long conversationId) {
+        this.conversationId = conversationId;
+    }
+    
+    public Long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+    
+    public String getSpeaker() {
+        return speaker;
+    }
+    
+    public void setSpeaker(String speaker) {
+        this.speaker = speaker;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public String getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public Long getEmotionPacked() {
+        return emotionPacked;
+    }
+    
+    public void setEmotionPacked(Long emotionPacked) {
+        this.emotionPacked = emotionPacked;
+    }
+    
+    public Integer getTokenCount() {
+        return tokenCount;
+    }
+    
+    public void setTokenCount(Integer tokenCount) {
+        this.tokenCount = tokenCount;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.toremainserver.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class ConversationTurnId implements Serializable {
+    private Long conversationId;
+    private Long seq;
+    
+    public ConversationTurnId() {}
+    
+    public ConversationTurnId(Long conversationId, Long seq) {
+        this.conversationId = conversationId;
+        this.seq = seq;
+    }
+    
+    public Long getConversationId() {
+        return conversationId;
+    }
+    
+    public void setConversationId(Long conversationId) {
+        this.conversationId = conversationId;
+    }
+    
+    public Long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConversationTurnId that = (ConversationTurnId) o;
+        return Objects.equals(conversationId, that.conversationId) &&
+               Objects.equals(seq, that.seq);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(conversationId, seq);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.toremainserver.entity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+
+/**
+ * NPC 응답 한 건의 감정 수치입니다.
+ *
+ * 차원형(valence, arousal: -100 ~ 100)과 범주형(joy, sadness, anger, surprise, fear, disgust: 0 ~ 100)
+ * 8개 값을 각 1바이트씩 long 하나에 담습니다. 메시지마다 중첩 Map과 박싱된 숫자를 두지 않기 위함입니다.
+ * JSON 형식은 기존과 같습니다. (UE5, AI 서버, recent_history 호환)
+ * {"dimensional": {"valence": 90, "arousal": 30},
+ *  "categorical": {"joy": 70, "sadness": 0, "anger": 0, "surprise": 10, "fear": 0, "disgust": 0}}
+ * 범위를 벗어난 값은 범위 안으로 자르고, 없는 값은 0으로 봅니다. 정의되지 않은 키는 버립니다.
+ */
+@JsonSerialize(using = EmotionData.Serializer.class)
+@JsonDeserialize(using = EmotionData.Deserializer.class)
+public final class EmotionData {
+    public static final int VALENCE = 0;
+    public static final int AROUSAL = 1;
+    public static final int JOY = 2;
+    public static final int SADNESS = 3;
+    public static final int ANGER = 4;
+    public static final int SURPRISE = 5;
+    public static final int FEAR = 6;
+    public static final int DISGUST = 7;
+
+    private static final String DIMENSIONAL = "dimensional";
+    private static final String CATEGORICAL = "categorical";
+    // 인덱스 순서와 같음
+    private static final String[] NAMES = {"valence", "arousal", "joy", "sadness", "anger", "surprise", "fear", "disgust"};
+
+    private final long packed;
+
+    private EmotionData(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * 8개 값으로 만듭니다. (인덱스 순서: VALENCE ~ DISGUST)
+     */
+    public static EmotionData of(int... values) {
+        long packed = 0;
+        for (int i = 0; i < NAMES.length; i++) {
+            int value = i < values.length ? values[i] : 0;
+            packed |= (clamp(i, value) & 0xFFL) << shift(i);
+        }
+        return new EmotionData(packed);
+    }
+
+    /**
+     * pack()으로 만든 값에서 복원합니다.
+     */
+    public static EmotionData unpack(long packed) {
+        return new EmotionData(packed);
+    }
+
+    public long pack() {
+        return packed;
+    }
+
+    /**
+     * @param index VALENCE ~ DISGUST
+     */
+    public int get(int index) {
+        return (byte) (packed >>> shift(index));
+    }
+
+    public int getValence() {
+        return get(VALENCE);
+    }
+
+    public int getArousal() {
+        return get(AROUSAL);
+    }
+
+    private static int shift(int index) {
+        return 8 * (NAMES.length - 1 - index);
+    }
+
+    private static int clamp(int index, int value) {
+        int min = index <= AROUSAL ? -100 : 0;
+        return Math.max(min, Math.min(100, value));
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof EmotionData && ((EmotionData) o).packed == packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EmotionData{");
+        for (int i = 0; i < NAMES.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(NAMES[i]).append('=').append(get(i));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 기존 중첩 JSON 형식으로 씁니다.
+     */
+    public static class Serializer extends JsonSerializer<EmotionData> {
+        @Override
+        public void serialize(EmotionData value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            gen.writeObjectFieldStart(DIMENSIONAL);
+            for (int i = VALENCE; i <= AROUSAL; i++) {
+                gen.writeNumberField(NAMES[i], value.get(i));
+            }
+            gen.writeEndObject();
+            gen.writeObjectFieldStart(CATEGORICAL);
+            for (int i = JOY; i <= DISGUST; i++) {
+                gen.writeNumberField(NAMES[i], value.get(i));
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * 중첩 JSON을 Map으로 만들지 않고 토큰 단위로 읽습니다.
+     * LLM이 숫자를 문자열("90")이나 실수로 보내도 정수로 읽습니다.
+     */
+    public static class Deserializer extends JsonDeserializer<EmotionData> {
+        @Override
+        public EmotionData deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                return null;
+            }
+            int[] values = new int[NAMES.length];
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String group = p.currentName();
+                JsonToken token = p.nextToken();
+                if (token == JsonToken.START_OBJECT && (DIMENSIONAL.equals(group) || CATEGORICAL.equals(group))) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        int index = indexOf(p.currentName());
+                        JsonToken valueToken = p.nextToken();
+                        if (index >= 0 && valueToken.isScalarValue()) {
+                            values[index] = p.getValueAsInt(0);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return of(values);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Map;
 
 @Entity
 @Table(name = "item_definitions")
+@EntityListeners(ItemDefinitionChangeListener.class)
 public class ItemDefinition {
     
     @Id
@@ -0,0 +1,17 @@
+package com.example.toremainserver.entity;
+
+/**
+ * 아이템 정의가 생성/수정/삭제되었을 때 발행되는 애플리케이션 이벤트입니다.
+ * 아이템 정의를 캐시하는 컴포넌트들이 이 이벤트로 캐시를 무효화합니다.
+ */
+public class ItemDefinitionChangedEvent {
+    private final Long itemId;
+
+    public ItemDefinitionChangedEvent(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+}
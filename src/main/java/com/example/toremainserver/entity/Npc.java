@@ -7,6 +7,7 @@ import java.util.Map;
 
 @Entity
 @Table(name = "npcs")
+@EntityListeners(NpcChangeListener.class)
 public class Npc {
     
     @Id
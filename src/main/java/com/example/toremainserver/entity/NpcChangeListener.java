@@ -0,0 +1,27 @@
+package com.example.toremainserver.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Npc 엔티티 변경을 감지하여 NpcChangedEvent를 발행하는 JPA 엔티티 리스너입니다.
+ * (Hibernate의 SpringBeanContainer를 통해 생성되므로 의존성 주입이 가능합니다)
+ */
+public class NpcChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public NpcChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onNpcChanged(Npc npc) {
+        eventPublisher.publishEvent(new NpcChangedEvent(npc.getId()));
+    }
+}
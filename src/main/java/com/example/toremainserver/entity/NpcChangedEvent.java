@@ -0,0 +1,17 @@
+package com.example.toremainserver.entity;
+
+/**
+ * NPC 엔티티가 생성/수정/삭제되었을 때 발행되는 애플리케이션 이벤트입니다.
+ * NPC 정보를 캐시하는 컴포넌트들이 이 이벤트로 캐시를 무효화합니다.
+ */
+public class NpcChangedEvent {
+    private final Long npcId;
+
+    public NpcChangedEvent(Long npcId) {
+        this.npcId = npcId;
+    }
+
+    public Long getNpcId() {
+        return npcId;
+    }
+}
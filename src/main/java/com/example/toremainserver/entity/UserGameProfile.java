@@ -12,6 +12,7 @@ import java.util.Map;
        indexes = {
            @Index(name = "idx_user_id", columnList = "user_id")
        })
+@EntityListeners(UserGameProfileChangeListener.class)
 public class UserGameProfile {
     
     @Id
@@ -52,6 +53,10 @@ public class UserGameProfile {
     @Column(name = "version")
     private Long version;
     
+    // 마지막으로 DB에 반영한 Gold/경험치 증감 로그 번호 (ProfileDeltaBuffer, 중복 반영 방지)
+    @Column(name = "delta_seq", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long deltaSeq = 0L;
+    
     // 프로필 이름 (예: "메인 캐릭터", "서브1")
     @Column(name = "profile_name", nullable = false)
     private String profileName;
@@ -172,7 +177,29 @@ public class UserGameProfile {
         this.version = version;
     }
     
+    public Long getDeltaSeq() {
+        return deltaSeq;
+    }
+    
+    public void setDeltaSeq(Long deltaSeq) {
+        this.deltaSeq = deltaSeq;
+    }
+    
     // 장비 관련 유틸리티 메서드
+    
+    /**
+     * 장비 슬롯의 JSON 경로를 만듭니다. (JSON_EXTRACT/JSON_SET/JSON_REMOVE 용, 예: "weapon" -> "$.\"weapon\"")
+     * 멤버명을 따옴표로 감싸므로 "1h_weapon"처럼 숫자로 시작하거나 공백/점이 있는 슬롯명도 그대로 쓸 수 있고,
+     * 따옴표와 역슬래시는 이스케이프합니다. (빈 이름과 제어 문자는 허용하지 않음)
+     * @throws IllegalArgumentException 허용되지 않는 슬롯명
+     */
+    public static String equipmentSlotPath(String slotName) {
+        if (slotName == null || slotName.isEmpty() || slotName.chars().anyMatch(Character::isISOControl)) {
+            throw new IllegalArgumentException("Invalid equipment slot: " + slotName);
+        }
+        return "$.\"" + slotName.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+    
     public void equipItem(String slotName, Long itemId) {
         this.equippedItems.put(slotName, itemId);
         this.updatedAt = LocalDateTime.now();
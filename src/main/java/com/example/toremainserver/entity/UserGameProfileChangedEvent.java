@@ -0,0 +1,29 @@
+package com.example.toremainserver.entity;
+
+/**
+ * 게임 프로필이 생성/수정/삭제되었을 때 발행되는 애플리케이션 이벤트입니다.
+ * JPA로 저장하면 저장된 엔티티를 함께 담고(캐시에 바로 반영),
+ * SQL로 직접 갱신했거나 삭제했으면 profile은 null입니다(캐시에서 제거).
+ * 여러 서버 노드를 운영할 때는 ProfileCache가 ProfileInvalidationPublisher로 다른 노드에 전달하고,
+ * 전달받은 노드에서 ProfileCache.evict를 호출하면 노드 간 캐시가 맞춰집니다.
+ */
+public class UserGameProfileChangedEvent {
+    private final Long profileId;
+    private final UserGameProfile profile;
+
+    public UserGameProfileChangedEvent(Long profileId, UserGameProfile profile) {
+        this.profileId = profileId;
+        this.profile = profile;
+    }
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    /**
+     * @return 저장된 엔티티 (SQL 갱신 또는 삭제면 null)
+     */
+    public UserGameProfile getProfile() {
+        return profile;
+    }
+}
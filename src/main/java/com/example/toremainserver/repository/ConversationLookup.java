@@ -0,0 +1,40 @@
+package com.example.toremainserver.repository;
+
+import com.example.toremainserver.entity.Conversation;
+
+/**
+ * 대화 기록 조회 화면용 한 번의 쿼리 결과입니다.
+ * 프로필 행을 기준으로 대화 행을 LEFT JOIN하고, 유저/NPC 존재 여부를 서브쿼리로 함께 가져옵니다.
+ */
+public class ConversationLookup {
+    private final Long profileOwnerId;
+    private final boolean userExists;
+    private final boolean npcExists;
+    private final Conversation conversation;
+
+    public ConversationLookup(Long profileOwnerId, Long userCount, Long npcCount, Conversation conversation) {
+        this.profileOwnerId = profileOwnerId;
+        this.userExists = userCount != null && userCount > 0;
+        this.npcExists = npcCount != null && npcCount > 0;
+        this.conversation = conversation;
+    }
+
+    public Long getProfileOwnerId() {
+        return profileOwnerId;
+    }
+
+    public boolean isUserExists() {
+        return userExists;
+    }
+
+    public boolean isNpcExists() {
+        return npcExists;
+    }
+
+    /**
+     * @return 대화 행 (아직 대화가 없으면 null)
+     */
+    public Conversation getConversation() {
+        return conversation;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.toremainserver.repository;
 
 import com.example.toremainserver.entity.Conversation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +23,30 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     // 특정 프로필 ID와 NPC ID 간의 대화 조회
     Optional<Conversation> findByProfileIdAndNpcId(Long profileId, Long npcId);
     
+    // 여러 (프로필, NPC) 쌍의 대화를 한 번에 조회 (두 ID 목록의 조합이므로 호출자가 필요한 쌍만 골라 씀)
+    List<Conversation> findByProfileIdInAndNpcIdIn(Collection<Long> profileIds, Collection<Long> npcIds);
+    
+    // 대화 기록 조회 화면용: 프로필 소유자, 유저/NPC 존재 여부, 대화 행을 한 번에 조회 (프로필이 없으면 결과 없음)
+    @Query("SELECT new com.example.toremainserver.repository.ConversationLookup(" +
+           "p.userId, " +
+           "(SELECT COUNT(u) FROM User u WHERE u.id = :userId), " +
+           "(SELECT COUNT(n) FROM Npc n WHERE n.id = :npcId), " +
+           "c) " +
+           "FROM UserGameProfile p LEFT JOIN Conversation c ON c.profileId = p.id AND c.npcId = :npcId " +
+           "WHERE p.id = :profileId")
+    Optional<ConversationLookup> lookup(@Param("userId") Long userId,
+                                        @Param("profileId") Long profileId,
+                                        @Param("npcId") Long npcId);
+    
     // 특정 프로필과 NPC 간의 대화 존재 여부 확인
     boolean existsByProfileIdAndNpcId(Long profileId, Long npcId);
+    
+    // recent_history JSON이 남아 있는 대화 ID 조회 (conversation_turns 마이그레이션용, ID 순 keyset 페이징)
+    @Query("SELECT c.conversationId FROM Conversation c WHERE c.recentHistory IS NOT NULL AND c.conversationId > :afterId ORDER BY c.conversationId")
+    List<Long> findIdsWithJsonHistoryAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // 요약에 반영되지 않은 메시지가 threshold개 이상인 대화 조회 (오래 방치된 순)
+    @Query("SELECT c FROM Conversation c WHERE c.unsummarizedCount >= :threshold ORDER BY c.lastUpdated")
+    List<Conversation> findSummarizationCandidates(@Param("threshold") Integer threshold, Pageable pageable);
 }
 
@@ -0,0 +1,19 @@
+package com.example.toremainserver.repository;
+
+import com.example.toremainserver.entity.ConversationTurn;
+import com.example.toremainserver.entity.ConversationTurnId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ConversationTurnRepository extends JpaRepository<ConversationTurn, ConversationTurnId> {
+    
+    // 대화의 최근 N개 메시지 조회 (seq 역순, PK 범위 조회)
+    List<ConversationTurn> findByConversationIdOrderBySeqDesc(Long conversationId, Pageable pageable);
+    
+    // 대화의 전체 메시지 수
+    long countByConversationId(Long conversationId);
+}
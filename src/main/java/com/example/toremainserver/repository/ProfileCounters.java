@@ -0,0 +1,59 @@
+package com.example.toremainserver.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 프로필의 수치 컬럼만 담은 조회 결과입니다.
+ * Gold/경험치 증감 후 값을 돌려줄 때 equipped_items, skill_info JSON 컬럼을 읽지 않기 위해 사용합니다.
+ */
+public class ProfileCounters {
+    private final Long profileId;
+    private final Long userId;
+    private final Integer level;
+    private final Long experience;
+    private final Integer gold;
+    private final LocalDateTime updatedAt;
+    private final Long deltaSeq;
+
+    public ProfileCounters(Long profileId, Long userId, Integer level, Long experience, Integer gold,
+                           LocalDateTime updatedAt, Long deltaSeq) {
+        this.profileId = profileId;
+        this.userId = userId;
+        this.level = level;
+        this.experience = experience;
+        this.gold = gold;
+        this.updatedAt = updatedAt;
+        this.deltaSeq = deltaSeq;
+    }
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public Long getExperience() {
+        return experience;
+    }
+
+    public Integer getGold() {
+        return gold;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * @return 이 값에 반영된 마지막 증감 로그 번호 (ProfileDeltaBuffer)
+     */
+    public Long getDeltaSeq() {
+        return deltaSeq;
+    }
+}
@@ -2,7 +2,12 @@ package com.example.toremainserver.repository;
 
 import com.example.toremainserver.entity.UserGameProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +26,50 @@ public interface UserGameProfileRepository extends JpaRepository<UserGameProfile
     // 존재 여부 확인
     boolean existsByUserId(Long userId);
     
+    // Gold 증감 (엔티티 로드 없이 DB에서 계산, 결과가 음수이거나 INT 범위를 넘으면 0행)
+    // version도 올려서 엔티티를 읽어 저장하는 경로가 이 변경을 덮어쓰지 않도록 함
+    // (MySQL은 INT 덧셈을 BIGINT로 계산하므로 WHERE의 비교는 넘치지 않음)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UserGameProfile p SET p.gold = p.gold + :amount, p.updatedAt = :now, p.version = p.version + 1 " +
+           "WHERE p.id = :profileId AND p.gold + :amount >= 0 AND p.gold + :amount <= 2147483647")
+    int addGold(@Param("profileId") Long profileId, @Param("amount") int amount, @Param("now") LocalDateTime now);
+    
+    // 경험치 증가 (엔티티 로드 없이 DB에서 계산, 결과가 BIGINT 범위를 넘으면 0행)
+    // maxCurrent = Long.MAX_VALUE - amount: 현재 값이 이보다 크면 더할 수 없음 (BIGINT 덧셈이 넘치지 않도록 뺄셈으로 비교)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UserGameProfile p SET p.experience = p.experience + :amount, p.updatedAt = :now, p.version = p.version + 1 " +
+           "WHERE p.id = :profileId AND p.experience <= :maxCurrent")
+    int addExperience(@Param("profileId") Long profileId, @Param("amount") long amount, @Param("maxCurrent") long maxCurrent,
+                      @Param("now") LocalDateTime now);
+    
+    // 수치 컬럼만 조회 (JSON 컬럼 제외)
+    @Query("SELECT new com.example.toremainserver.repository.ProfileCounters(p.id, p.userId, p.level, p.experience, p.gold, p.updatedAt, p.deltaSeq) " +
+           "FROM UserGameProfile p WHERE p.id = :profileId")
+    Optional<ProfileCounters> findCountersById(@Param("profileId") Long profileId);
+    
+    // 장비 슬롯 하나의 아이템 ID와 소유자 조회 (행 잠금, JSON 컬럼 전체를 읽지 않음)
+    // 결과: [user_id, item_id(슬롯이 비어 있으면 null)], 프로필이 없으면 빈 목록
+    @Query(value = "SELECT user_id, CAST(JSON_EXTRACT(equipped_items, :path) AS SIGNED) FROM user_game_profiles " +
+                   "WHERE profile_id = :profileId FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockEquipmentSlot(@Param("profileId") Long profileId, @Param("path") String path);
+    
+    // 장비 슬롯 하나만 장착 (JSON_SET, 다른 슬롯과 컬럼은 그대로)
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE user_game_profiles SET equipped_items = JSON_SET(COALESCE(equipped_items, JSON_OBJECT()), :path, :itemId), " +
+                   "version = version + 1, updated_at = :now WHERE profile_id = :profileId", nativeQuery = true)
+    int setEquipmentSlot(@Param("profileId") Long profileId, @Param("path") String path,
+                         @Param("itemId") Long itemId, @Param("now") LocalDateTime now);
+    
+    // 장비 슬롯 하나만 해제 (JSON_REMOVE)
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE user_game_profiles SET equipped_items = JSON_REMOVE(equipped_items, :path), " +
+                   "version = version + 1, updated_at = :now WHERE profile_id = :profileId", nativeQuery = true)
+    int removeEquipmentSlot(@Param("profileId") Long profileId, @Param("path") String path, @Param("now") LocalDateTime now);
+    
+    // 버전만 조회 (ProfileCache 검증용)
+    @Query("SELECT p.version FROM UserGameProfile p WHERE p.id = :profileId")
+    Optional<Long> findVersionById(@Param("profileId") Long profileId);
+    
     // 참고: 기본 제공 메서드
     // - Optional<UserGameProfile> findById(Long profileId)  // PK로 조회
     // - UserGameProfile save(UserGameProfile profile)        // 저장/수정
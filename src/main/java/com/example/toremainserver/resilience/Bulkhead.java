@@ -0,0 +1,45 @@
+package com.example.toremainserver.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 업스트림별 동시 호출 수를 제한하는 세마포어 벌크헤드입니다.
+ * 한 업스트림이 느려져도 다른 작업에 쓰일 스레드를 모두 잡아두지 않도록 합니다.
+ */
+public class Bulkhead {
+    private final Semaphore semaphore;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+
+    public Bulkhead(int maxConcurrentCalls, long maxWaitMillis) {
+        this.semaphore = new Semaphore(maxConcurrentCalls, true);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * 최대 maxWaitMillis 동안 자리를 기다립니다.
+     * @return 자리를 얻으면 true (반드시 release 호출)
+     */
+    public boolean tryAcquire() {
+        try {
+            return semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int getAvailablePermits() {
+        return semaphore.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.toremainserver.resilience;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * 최근 N개 호출 결과(rolling window)를 기준으로 동작하는 서킷 브레이커입니다.
+ *
+ * - CLOSED: 모든 호출 허용. 최근 windowSize개 중 실패율이 임계값 이상이면 OPEN
+ * - OPEN: 모든 호출 거절. openDuration이 지나면 HALF_OPEN
+ * - HALF_OPEN: halfOpenMaxCalls개의 시험 호출만 허용.
+ *              모두 성공하면 CLOSED, 하나라도 실패하면 다시 OPEN
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 상태 전이 알림 (메트릭, 로그 용도)
+     */
+    public interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final int halfOpenMaxCalls;
+    private final LongSupplier clock;
+    private final List<TransitionListener> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAtMillis;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMillis, int halfOpenMaxCalls) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDurationMillis, halfOpenMaxCalls,
+            System::currentTimeMillis);
+    }
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMillis, int halfOpenMaxCalls, LongSupplier clock) {
+        if (windowSize <= 0 || halfOpenMaxCalls <= 0) {
+            throw new IllegalArgumentException("windowSize and halfOpenMaxCalls must be positive");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+        this.clock = clock;
+    }
+
+    public void addListener(TransitionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 호출 허용 여부를 확인합니다. true를 받은 호출은 반드시
+     * onSuccess / onFailure / releasePermission 중 하나로 결과를 알려야 합니다.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAtMillis < openDurationMillis) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSuccesses >= halfOpenMaxCalls) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * 허용받았지만 실제로 호출하지 않은 경우 (예: 벌크헤드 거절) 허가를 반납합니다.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        record(true);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0.0 : windowFailures * 100.0 / windowCount;
+    }
+
+    private void record(boolean failure) {
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight > 0) {
+                halfOpenInFlight--;
+            }
+            if (failure) {
+                transitionTo(State.OPEN);
+                return;
+            }
+            halfOpenSuccesses++;
+            if (halfOpenSuccesses >= halfOpenMaxCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // OPEN 전환 전에 시작된 호출의 늦은 결과는 무시
+            return;
+        }
+
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (windowCount >= minimumCalls && getFailureRate() >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        if (previous == next) {
+            return;
+        }
+        state = next;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAtMillis = clock.getAsLong();
+        }
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+        for (TransitionListener listener : listeners) {
+            listener.onTransition(previous, next);
+        }
+    }
+}
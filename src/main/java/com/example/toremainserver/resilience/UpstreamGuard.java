@@ -0,0 +1,159 @@
+package com.example.toremainserver.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 하나의 업스트림(예: AI 서버 LLM, Material)에 대한 서킷 브레이커 + 벌크헤드 조합입니다.
+ *
+ * 메트릭:
+ *   ai.upstream.circuit.state{upstream}              0=CLOSED, 1=OPEN, 2=HALF_OPEN
+ *   ai.upstream.circuit.transitions{upstream,from,to} 상태 전이 횟수
+ *   ai.upstream.rejected{upstream,reason}            거절 횟수
+ *   ai.upstream.bulkhead.available{upstream}         남은 동시 호출 자리
+ */
+public class UpstreamGuard {
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamGuard.class);
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Predicate<Throwable> failurePredicate;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+
+    /**
+     * @param failurePredicate 서킷 브레이커에 실패로 기록할 예외 판별 (예: 4xx는 업스트림 장애가 아님)
+     */
+    public UpstreamGuard(String name, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                         Predicate<Throwable> failurePredicate, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.failurePredicate = failurePredicate;
+
+        this.circuitOpenRejections = rejectionCounter(meterRegistry, UpstreamRejectedException.Reason.CIRCUIT_OPEN);
+        this.bulkheadRejections = rejectionCounter(meterRegistry, UpstreamRejectedException.Reason.BULKHEAD_FULL);
+        Gauge.builder("ai.upstream.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+            .tag("upstream", name)
+            .register(meterRegistry);
+        Gauge.builder("ai.upstream.bulkhead.available", bulkhead, Bulkhead::getAvailablePermits)
+            .tag("upstream", name)
+            .register(meterRegistry);
+
+        circuitBreaker.addListener((from, to) -> {
+            logger.warn("Upstream '{}' circuit breaker: {} -> {}", name, from, to);
+            Counter.builder("ai.upstream.circuit.transitions")
+                .tag("upstream", name)
+                .tag("from", from.name())
+                .tag("to", to.name())
+                .register(meterRegistry)
+                .increment();
+        });
+    }
+
+    private Counter rejectionCounter(MeterRegistry meterRegistry, UpstreamRejectedException.Reason reason) {
+        return Counter.builder("ai.upstream.rejected")
+            .tag("upstream", name)
+            .tag("reason", reason.name())
+            .register(meterRegistry);
+    }
+
+    /**
+     * 서킷 브레이커와 벌크헤드를 통과한 경우에만 call을 실행합니다.
+     * @throws UpstreamRejectedException 서킷이 열려 있거나 벌크헤드가 가득 찬 경우
+     */
+    public <T> T execute(Supplier<T> call) {
+        Permit permit = acquire();
+        try {
+            T result = call.get();
+            permit.success();
+            return result;
+        } catch (RuntimeException | Error e) {
+            permit.failure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 서킷 브레이커 허가와 벌크헤드 자리를 얻습니다.
+     * 응답 본문을 나중에 스트리밍하는 호출처럼 결과가 call 반환 이후에 정해질 때 사용하며,
+     * 끝나면 반드시 Permit.success() 또는 Permit.failure()로 결과를 알려야 자리가 반납됩니다.
+     * @throws UpstreamRejectedException 서킷이 열려 있거나 벌크헤드가 가득 찬 경우
+     */
+    public Permit acquire() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitOpenRejections.increment();
+            throw new UpstreamRejectedException(name, UpstreamRejectedException.Reason.CIRCUIT_OPEN);
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            bulkheadRejections.increment();
+            throw new UpstreamRejectedException(name, UpstreamRejectedException.Reason.BULKHEAD_FULL);
+        }
+        return new Permit();
+    }
+
+    /**
+     * acquire()로 얻은 호출 자리입니다. success/failure는 처음 한 번만 반영됩니다.
+     */
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        /**
+         * 성공을 기록하고 벌크헤드 자리를 반납합니다.
+         */
+        public void success() {
+            if (released.compareAndSet(false, true)) {
+                try {
+                    circuitBreaker.onSuccess();
+                } finally {
+                    bulkhead.release();
+                }
+            }
+        }
+
+        /**
+         * 실패를 기록하고 벌크헤드 자리를 반납합니다. (failurePredicate가 false인 예외는 성공으로 기록)
+         */
+        public void failure(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                try {
+                    if (failurePredicate.test(error)) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                } finally {
+                    bulkhead.release();
+                }
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getAvailablePermits() {
+        return bulkhead.getAvailablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return bulkhead.getMaxConcurrentCalls();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.toremainserver.resilience;
+
+/**
+ * 서킷 브레이커가 열려 있거나 벌크헤드가 가득 차서 업스트림 호출을 하지 않은 경우 발생합니다.
+ */
+public class UpstreamRejectedException extends RuntimeException {
+
+    public enum Reason {
+        CIRCUIT_OPEN, BULKHEAD_FULL
+    }
+
+    private final String upstream;
+    private final Reason reason;
+
+    public UpstreamRejectedException(String upstream, Reason reason) {
+        super("Upstream '" + upstream + "' rejected: " + reason);
+        this.upstream = upstream;
+        this.reason = reason;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.ItemDefinitionChangedEvent;
+import com.example.toremainserver.entity.NpcChangedEvent;
+import com.example.toremainserver.repository.ItemDefinitionRepository;
+import com.example.toremainserver.repository.NpcRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 정적 카탈로그(/api/npcs, /api/item-definitions) 응답 캐시입니다.
+ *
+ * 카탈로그는 거의 바뀌지 않지만 게임 서버 부팅과 클라이언트 로그인마다 findAll + 직렬화를 반복하므로,
+ * 직렬화된 JSON 바이트(와 gzip 압축본)를 보관하고 엔티티 변경 이벤트가 오면 다음 요청 때 다시 만듭니다.
+ * - ETag는 본문의 SHA-256으로 만든 강한 ETag이며, If-None-Match가 일치하면 DB 조회와 직렬화 없이 304를 반환합니다.
+ *   gzip 본문은 바이트가 다르므로 같은 태그에 -gz를 붙인 ETag를 쓰고, If-None-Match는 두 형태를 모두 받습니다.
+ * - Accept-Encoding에 gzip이 있으면 미리 압축한 본문을 반환합니다. (catalog.gzip.min-bytes 이상일 때만 압축)
+ */
+@Component
+public class CatalogCache {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCache.class);
+
+    public static final String NPCS = "npcs";
+    public static final String ITEM_DEFINITIONS = "item-definitions";
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    /**
+     * 직렬화된 카탈로그 한 벌
+     */
+    static final class Catalog {
+        private final byte[] json;
+        private final byte[] gzip;  // 압축하지 않으면 null
+        private final String etag;
+        private final String gzipEtag;  // 압축하지 않으면 null
+
+        Catalog(byte[] json, byte[] gzip, String etag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.gzipEtag = gzip != null ? gzipEtagOf(etag) : null;
+        }
+    }
+
+    /**
+     * 카탈로그별 로더와 현재 캐시
+     * version은 무효화마다 증가하며, 조회 중 무효화되면 그 결과는 캐시하지 않습니다.
+     */
+    private static final class Entry {
+        private final String name;
+        private final Supplier<List<?>> loader;
+        private final AtomicLong version = new AtomicLong();
+        private volatile Catalog catalog;
+
+        Entry(String name, Supplier<List<?>> loader) {
+            this.name = name;
+            this.loader = loader;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean gzipEnabled;
+    private final int gzipMinBytes;
+    private final CacheControl cacheControl;
+    private final Entry npcs;
+    private final Entry itemDefinitions;
+
+    @Autowired
+    public CatalogCache(NpcRepository npcRepository,
+                        ItemDefinitionRepository itemDefinitionRepository,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${catalog.gzip.enabled:true}") boolean gzipEnabled,
+                        @Value("${catalog.gzip.min-bytes:1024}") int gzipMinBytes,
+                        @Value("${catalog.max-age-seconds:60}") long maxAgeSeconds) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.gzipEnabled = gzipEnabled;
+        this.gzipMinBytes = gzipMinBytes;
+        // max-age가 0이면 매번 ETag로 재검증
+        this.cacheControl = maxAgeSeconds > 0
+            ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic()
+            : CacheControl.noCache();
+        this.npcs = new Entry(NPCS, npcRepository::findAll);
+        this.itemDefinitions = new Entry(ITEM_DEFINITIONS, itemDefinitionRepository::findAll);
+    }
+
+    /**
+     * 기동 시 카탈로그를 미리 만들어 첫 요청도 DB를 거치지 않게 합니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            current(npcs);
+            current(itemDefinitions);
+        } catch (RuntimeException e) {
+            logger.warn("Catalog warm-up failed, will build on first request: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 카탈로그 응답을 만듭니다.
+     * @param name 카탈로그 이름 (NPCS, ITEM_DEFINITIONS)
+     * @param ifNoneMatch If-None-Match 헤더
+     * @param acceptEncoding Accept-Encoding 헤더
+     * @return 200(JSON 또는 gzip) 또는 304
+     */
+    public ResponseEntity<byte[]> respond(String name, String ifNoneMatch, String acceptEncoding) {
+        Entry entry = NPCS.equals(name) ? npcs : itemDefinitions;
+        Catalog catalog = current(entry);
+
+        boolean gzip = catalog.gzip != null && acceptsGzip(acceptEncoding);
+        String etag = gzip ? catalog.gzipEtag : catalog.etag;
+        if (matches(ifNoneMatch, catalog.etag)) {
+            count(entry, "not_modified");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            count(entry, "gzip");
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(catalog.gzip);
+        }
+        count(entry, "identity");
+        return response.body(catalog.json);
+    }
+
+    /**
+     * NPC가 변경되면 (트랜잭션 커밋 후) NPC 카탈로그를 무효화합니다.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNpcChanged(NpcChangedEvent event) {
+        invalidate(npcs);
+    }
+
+    /**
+     * 아이템 정의가 변경되면 (트랜잭션 커밋 후) 아이템 정의 카탈로그를 무효화합니다.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemDefinitionChanged(ItemDefinitionChangedEvent event) {
+        invalidate(itemDefinitions);
+    }
+
+    private void invalidate(Entry entry) {
+        entry.version.incrementAndGet();
+        entry.catalog = null;
+    }
+
+    private Catalog current(Entry entry) {
+        Catalog catalog = entry.catalog;
+        if (catalog != null) {
+            return catalog;
+        }
+        synchronized (entry) {
+            catalog = entry.catalog;
+            if (catalog != null) {
+                return catalog;
+            }
+            long version = entry.version.get();
+            catalog = build(entry.loader.get());
+            if (entry.version.get() == version) {
+                entry.catalog = catalog;
+            }
+            logger.info("Catalog {} rebuilt: {} bytes (gzip {} bytes)", entry.name, catalog.json.length,
+                catalog.gzip != null ? catalog.gzip.length : "-");
+            return catalog;
+        }
+    }
+
+    Catalog build(List<?> rows) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(rows);
+            byte[] gzip = null;
+            if (gzipEnabled && json.length >= gzipMinBytes) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                    out.write(json);
+                }
+                gzip = buffer.toByteArray();
+            }
+            String etag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16) + "\"";
+            return new Catalog(json, gzip, etag);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * gzip 본문의 ETag ("{태그}-gz")
+     */
+    static String gzipEtagOf(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    /**
+     * If-None-Match 비교 (RFC 9110: 약한 비교, 여러 값 또는 * 허용)
+     * 같은 카탈로그의 gzip ETag("{태그}-gz")도 일치로 봅니다. (내용이 같고 인코딩만 다름)
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.endsWith(GZIP_ETAG_SUFFIX + "\"")) {
+                tag = tag.substring(0, tag.length() - GZIP_ETAG_SUFFIX.length() - 1) + "\"";
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 은 거부
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private void count(Entry entry, String result) {
+        meterRegistry.counter("catalog.responses", "catalog", entry.name, "result", result).increment();
+    }
+}
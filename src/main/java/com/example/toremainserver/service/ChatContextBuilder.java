@@ -0,0 +1,147 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LLM 요청에 넣을 이전 대화 기록을 토큰 예산 안에서 고릅니다.
+ *
+ * 저장된 메시지 수로 자르면 긴 메시지가 몰릴 때 프롬프트가 커지고(지연/비용 증가),
+ * 짧은 대화에서는 쓸 수 있는 문맥을 버리게 됩니다.
+ * 최신 메시지부터 거꾸로 채우면서 예산(npc.context.token-budget)을 넘기 전까지 포함합니다.
+ * NPC별 예산은 npcInfo의 contextTokenBudget으로 지정할 수 있습니다.
+ *
+ * 메시지별 토큰 수는 메시지를 만들 때 ChatHistory.tokenCount에 저장하여 다음 턴부터는 다시 계산하지 않습니다.
+ * (조회 경로의 ChatHistory는 캐시와 공유되므로 여기서는 읽기만 합니다.)
+ */
+@Component
+public class ChatContextBuilder {
+    // 메시지마다 붙는 역할/구분자 토큰
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final String NPC_BUDGET_KEY = "contextTokenBudget";
+
+    private final int defaultTokenBudget;
+    private final DistributionSummary contextTokens;
+
+    @Autowired
+    public ChatContextBuilder(@Value("${npc.context.token-budget:1500}") int defaultTokenBudget,
+                              MeterRegistry meterRegistry) {
+        this.defaultTokenBudget = defaultTokenBudget;
+        this.contextTokens = DistributionSummary.builder("npc.chat.context.tokens")
+            .description("Estimated tokens of chat history sent to the LLM")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 토큰 예산 안에 들어가는 최근 대화 기록을 반환합니다.
+     * @param history 저장된 대화 기록 (오래된 순)
+     * @param npcInfo NPC 정보 (contextTokenBudget이 있으면 기본 예산 대신 사용, null 가능)
+     * @return 예산 안의 최근 대화 기록 (오래된 순)
+     */
+    public List<Conversation.ChatHistory> selectHistory(List<Conversation.ChatHistory> history, Map<String, Object> npcInfo) {
+        if (history == null || history.isEmpty()) {
+            return history;
+        }
+
+        int budget = tokenBudgetFor(npcInfo);
+        int used = 0;
+        List<Conversation.ChatHistory> selected = new ArrayList<>();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Conversation.ChatHistory chatHistory = history.get(i);
+            int tokens = tokensOf(chatHistory);
+            if (used + tokens > budget) {
+                break;
+            }
+            used += tokens;
+            selected.add(chatHistory);
+        }
+        Collections.reverse(selected);
+
+        contextTokens.record(used);
+        return selected;
+    }
+
+    /**
+     * 오래된 메시지 dropCount개를 버려도 남은 기록만으로 토큰 예산을 채울 수 있는지 확인합니다.
+     * 그렇다면 버린 메시지는 selectHistory에서 뽑히지 않으므로 더 보관할 필요가 없습니다.
+     * @param history 저장된 대화 기록 (오래된 순)
+     * @param dropCount 버릴 오래된 메시지 수
+     * @param budget 토큰 예산
+     */
+    public boolean fillsBudgetWithout(List<Conversation.ChatHistory> history, int dropCount, int budget) {
+        int tokens = 0;
+        for (int i = history.size() - 1; i >= dropCount; i--) {
+            tokens += tokensOf(history.get(i));
+            if (tokens >= budget) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 메시지의 토큰 수를 반환합니다. 저장된 tokenCount가 있으면 사용하고, 없으면(이전 기록) 추정만 합니다.
+     * ChatHistory는 변경하지 않습니다.
+     */
+    public int tokensOf(Conversation.ChatHistory chatHistory) {
+        Integer cached = chatHistory.getTokenCount();
+        if (cached != null) {
+            return cached;
+        }
+        return estimateTokens(chatHistory.getMessage()) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * 문자열의 토큰 수를 추정합니다.
+     * BPE 토크나이저 기준으로 영문/숫자/기호는 약 4글자당 1토큰, 한글 등 비 ASCII 문자는 글자당 약 1토큰으로 계산합니다.
+     * @param text 문자열 (null이면 0)
+     * @return 추정 토큰 수
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int asciiChars = 0;
+        int otherChars = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (codePoint < 0x80) {
+                asciiChars++;
+            } else {
+                otherChars++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return (asciiChars + 3) / 4 + otherChars;
+    }
+
+    /**
+     * NPC의 토큰 예산을 반환합니다.
+     * @param npcInfo NPC 정보 (contextTokenBudget이 있으면 기본 예산 대신 사용, null 가능)
+     */
+    public int tokenBudgetFor(Map<String, Object> npcInfo) {
+        if (npcInfo != null) {
+            Object value = npcInfo.get(NPC_BUDGET_KEY);
+            if (value instanceof Number) {
+                return ((Number) value).intValue();
+            }
+            if (value != null) {
+                try {
+                    return Integer.parseInt(value.toString().trim());
+                } catch (NumberFormatException e) {
+                    // 잘못된 값이면 기본 예산 사용
+                }
+            }
+        }
+        return defaultTokenBudget;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.toremainserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 존 진입 시 미리 읽어 둔 대화 기록 캐시입니다. (프로필별, 짧은 TTL)
+ *
+ * UE5가 존에 있는 NPC 목록을 알려주면 그 NPC들의 페르소나와 대화 기록을 한 번에 읽어 두고,
+ * 첫 대화 턴이 DB 조회 없이 시작되게 합니다.
+ * - 미리 읽은 대화 기록은 한 번 사용하면 제거합니다. (다음 턴부터는 갱신된 기록을 읽어야 하므로)
+ * - 읽은 이후 같은 대화에 쓰기가 있었으면 사용하지 않고 DB에서 다시 읽습니다.
+ * - 플레이어가 존을 떠나면(evict) 또는 npc.prefetch.ttl-seconds가 지나면 제거합니다.
+ */
+@Component
+public class ConversationPrefetchCache {
+
+    /**
+     * 프로필 하나의 미리 읽은 대화 기록
+     */
+    private static final class ProfileEntry {
+        private final Map<Long, ConversationWriter.Snapshot> snapshots;
+        private final long expiresAt;
+
+        ProfileEntry(Map<Long, ConversationWriter.Snapshot> snapshots, long expiresAt) {
+            this.snapshots = snapshots;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConversationWriter conversationWriter;
+    private final PromptFragmentCache promptFragmentCache;
+    private final long ttlMillis;
+    private final int maxNpcs;
+    private final int maxProfiles;
+    private final Map<Long, ProfileEntry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+
+    @Autowired
+    public ConversationPrefetchCache(ConversationWriter conversationWriter,
+                                     PromptFragmentCache promptFragmentCache,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${npc.prefetch.ttl-seconds:120}") long ttlSeconds,
+                                     @Value("${npc.prefetch.max-npcs:50}") int maxNpcs,
+                                     @Value("${npc.prefetch.max-profiles:10000}") int maxProfiles) {
+        this.conversationWriter = conversationWriter;
+        this.promptFragmentCache = promptFragmentCache;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxNpcs = maxNpcs;
+        this.maxProfiles = maxProfiles;
+        this.hits = meterRegistry.counter("npc.prefetch.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("npc.prefetch.lookups", "result", "miss");
+        this.stale = meterRegistry.counter("npc.prefetch.lookups", "result", "stale");
+        Gauge.builder("npc.prefetch.profiles", entries, Map::size).register(meterRegistry);
+    }
+
+    public int getMaxNpcs() {
+        return maxNpcs;
+    }
+
+    public long getTtlSeconds() {
+        return ttlMillis / 1000L;
+    }
+
+    /**
+     * 프로필의 존 NPC 대화 기록과 NPC 페르소나를 미리 읽습니다. 같은 프로필의 이전 prefetch는 대체합니다.
+     * @param profileId 프로필 ID
+     * @param npcIds 존에 있는 NPC ID 목록 (npc.prefetch.max-npcs개 이하)
+     * @return 미리 읽은 NPC ID (존재하지 않는 NPC 제외, 캐시가 가득 차면 빈 목록)
+     */
+    public List<Long> prefetch(Long profileId, Collection<Long> npcIds) {
+        Set<Long> uniqueNpcIds = new LinkedHashSet<>(npcIds);
+        uniqueNpcIds.remove(null);
+        if (entries.size() >= maxProfiles && !entries.containsKey(profileId)) {
+            return List.of();
+        }
+
+        // 페르소나는 PromptFragmentCache에 채워짐 (캐시에 없는 NPC만 한 번에 조회)
+        Set<Long> existingNpcIds = promptFragmentCache.getNpcPersonas(uniqueNpcIds).keySet();
+        List<ConversationWriter.ConversationKey> keys = new ArrayList<>();
+        for (Long npcId : uniqueNpcIds) {
+            if (existingNpcIds.contains(npcId)) {
+                keys.add(new ConversationWriter.ConversationKey(profileId, npcId));
+            }
+        }
+
+        Map<Long, ConversationWriter.Snapshot> snapshots = new ConcurrentHashMap<>();
+        conversationWriter.readAll(keys).forEach((key, snapshot) -> snapshots.put(key.getNpcId(), snapshot));
+        entries.put(profileId, new ProfileEntry(snapshots, System.currentTimeMillis() + ttlMillis));
+
+        List<Long> prefetched = new ArrayList<>();
+        for (ConversationWriter.ConversationKey key : keys) {
+            prefetched.add(key.getNpcId());
+        }
+        return prefetched;
+    }
+
+    /**
+     * 미리 읽은 대화 기록을 꺼냅니다. (한 번만 사용)
+     * @param profileId 프로필 ID
+     * @param npcId NPC ID
+     * @return 대화 기록 Snapshot (없거나 만료되었거나 이후 쓰기가 있었으면 null)
+     */
+    public ConversationWriter.Snapshot take(Long profileId, Long npcId) {
+        ProfileEntry entry = profileId != null ? entries.get(profileId) : null;
+        if (entry == null || npcId == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(profileId, entry);
+            misses.increment();
+            return null;
+        }
+        ConversationWriter.Snapshot snapshot = entry.snapshots.remove(npcId);
+        if (snapshot == null) {
+            misses.increment();
+            return null;
+        }
+        if (!conversationWriter.isCurrent(snapshot)) {
+            stale.increment();
+            return null;
+        }
+        hits.increment();
+        return snapshot;
+    }
+
+    /**
+     * 플레이어가 존을 떠나면 미리 읽은 대화 기록을 제거합니다.
+     * @param profileId 프로필 ID
+     */
+    public void evict(Long profileId) {
+        entries.remove(profileId);
+    }
+
+    /**
+     * TTL이 지난 프로필을 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "${npc.prefetch.purge-interval-ms:30000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt < now || entry.snapshots.isEmpty());
+    }
+}
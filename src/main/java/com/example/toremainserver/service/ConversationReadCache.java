@@ -0,0 +1,96 @@
+package com.example.toremainserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 대화 기록 조회(/api/npc/conversations) 결과 캐시입니다.
+ *
+ * UE5가 대화 기록 패널을 자주 폴링하므로 검증을 통과한 조회 결과를 (프로필, NPC)별로 보관합니다.
+ * - 대화 기록 쓰기(ConversationWriter.update)가 있으면 쓰기 순번 비교로 바로 무효가 됩니다.
+ * - 프로필/NPC 삭제는 이벤트가 없으므로 conversation.read-cache.ttl-seconds가 지나면 다시 검증합니다.
+ * - 최대 개수를 넘으면 가장 오래 사용되지 않은 항목부터 제거합니다(LRU).
+ */
+@Component
+public class ConversationReadCache {
+
+    private static final class Entry {
+        private final Long ownerUserId;
+        private final ConversationWriter.Snapshot snapshot;
+        private final long expiresAt;
+
+        Entry(Long ownerUserId, ConversationWriter.Snapshot snapshot, long expiresAt) {
+            this.ownerUserId = ownerUserId;
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConversationWriter conversationWriter;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Map<ConversationWriter.ConversationKey, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public ConversationReadCache(ConversationWriter conversationWriter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${conversation.read-cache.enabled:true}") boolean enabled,
+                                 @Value("${conversation.read-cache.ttl-seconds:30}") long ttlSeconds,
+                                 @Value("${conversation.read-cache.max-entries:4096}") int maxEntries) {
+        this.conversationWriter = conversationWriter;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.entries = Collections.synchronizedMap(
+            new LinkedHashMap<ConversationWriter.ConversationKey, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ConversationWriter.ConversationKey, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            });
+        this.hits = meterRegistry.counter("conversation.read.cache", "result", "hit");
+        this.misses = meterRegistry.counter("conversation.read.cache", "result", "miss");
+        Gauge.builder("conversation.read.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * 캐시된 조회 결과를 반환합니다.
+     * @param userId 요청한 유저 ID (프로필 소유자와 같아야 함)
+     * @param key (프로필, NPC)
+     * @return 대화 기록 Snapshot (없거나 만료되었거나 이후 쓰기가 있었으면 null)
+     */
+    public ConversationWriter.Snapshot get(Long userId, ConversationWriter.ConversationKey key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.ownerUserId.equals(userId)
+                || entry.expiresAt < System.currentTimeMillis()
+                || !conversationWriter.isCurrent(entry.snapshot)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.snapshot;
+    }
+
+    /**
+     * 검증을 통과한 조회 결과를 저장합니다.
+     * @param ownerUserId 프로필 소유자 유저 ID
+     * @param snapshot 대화 기록 Snapshot
+     */
+    public void put(Long ownerUserId, ConversationWriter.Snapshot snapshot) {
+        if (enabled) {
+            entries.put(snapshot.getKey(), new Entry(ownerUserId, snapshot, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+}
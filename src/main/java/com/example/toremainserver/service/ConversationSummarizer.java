@@ -0,0 +1,281 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.ConversationSummaryRequest;
+import com.example.toremainserver.dto.game.ConversationSummaryResponse;
+import com.example.toremainserver.dto.game.NpcChatRequest;
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.entity.UserGameProfile;
+import com.example.toremainserver.repository.ConversationRepository;
+import com.example.toremainserver.repository.UserGameProfileRepository;
+import com.example.toremainserver.resilience.CircuitBreaker;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import com.example.toremainserver.resilience.UpstreamRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * 채팅 요청과 분리된 백그라운드 대화 요약기입니다. (conversation.summary.enabled=true 일 때 동작)
+ *
+ * 채팅 턴마다 Conversation.unsummarizedCount(요약에 반영되지 않은 메시지 수)가 늘어나고,
+ * interval-ms 주기로 threshold 이상인 대화를 batch-size개씩 모아 AI 서버(/api.ai/llm/summarize)에 한 번에 요약을 요청합니다.
+ * - 낮은 우선순위: 전용 단일 스레드에서 실행하며, AI 서버 서킷이 CLOSED가 아니거나
+ *   NPC 대화 벌크헤드 여유가 min-free-capacity 미만이면 이번 주기를 건너뜁니다.
+ * - 요약 결과는 ConversationWriter를 통해 같은 대화의 다른 쓰기와 순서를 지켜 저장합니다.
+ *
+ * 요약이 켜져 있으면 채팅 요청에는 요약과 함께 아직 요약되지 않은 최근 메시지만 보냅니다.
+ */
+@Component
+public class ConversationSummarizer {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSummarizer.class);
+
+    // 요약 요청에 포함한 대화와 그때의 미요약 메시지 수
+    private static final class SummaryTarget {
+        private final Long profileId;
+        private final Long npcId;
+        private final int summarizedCount;
+
+        SummaryTarget(Long profileId, Long npcId, int summarizedCount) {
+            this.profileId = profileId;
+            this.npcId = npcId;
+            this.summarizedCount = summarizedCount;
+        }
+    }
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int batchSize;
+    private final int minRecentMessages;
+    private final double minFreeCapacity;
+    private final String apiKey;
+    private final RestTemplate restTemplate;
+    private final String aiServerUrl;
+    private final UpstreamGuard aiNpcGuard;
+    private final Executor summaryExecutor;
+    private final ConversationRepository conversationRepository;
+    private final ConversationWriter conversationWriter;
+    private final ConversationTurnStore conversationTurnStore;
+    private final PromptFragmentCache promptFragmentCache;
+    private final UserGameProfileRepository userGameProfileRepository;
+    private final Counter summarizedCounter;
+    private final Counter deferredCounter;
+    private final Counter failureCounter;
+
+    @Autowired
+    public ConversationSummarizer(@Value("${conversation.summary.enabled:false}") boolean enabled,
+                                  @Value("${conversation.summary.threshold:6}") int threshold,
+                                  @Value("${conversation.summary.batch-size:20}") int batchSize,
+                                  @Value("${conversation.summary.min-recent-messages:2}") int minRecentMessages,
+                                  @Value("${conversation.summary.min-free-capacity:0.5}") double minFreeCapacity,
+                                  @Value("${conversation.summary.api-key:}") String apiKey,
+                                  @Qualifier("aiRestTemplate") RestTemplate restTemplate,
+                                  @Value("${ai.server.url}") String aiServerUrl,
+                                  @Qualifier("aiNpcGuard") UpstreamGuard aiNpcGuard,
+                                  @Qualifier("conversationSummaryExecutor") Executor summaryExecutor,
+                                  ConversationRepository conversationRepository,
+                                  ConversationWriter conversationWriter,
+                                  ConversationTurnStore conversationTurnStore,
+                                  PromptFragmentCache promptFragmentCache,
+                                  UserGameProfileRepository userGameProfileRepository,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.batchSize = batchSize;
+        this.minRecentMessages = minRecentMessages;
+        this.minFreeCapacity = minFreeCapacity;
+        this.apiKey = apiKey;
+        this.restTemplate = restTemplate;
+        this.aiServerUrl = aiServerUrl;
+        this.aiNpcGuard = aiNpcGuard;
+        this.summaryExecutor = summaryExecutor;
+        this.conversationRepository = conversationRepository;
+        this.conversationWriter = conversationWriter;
+        this.conversationTurnStore = conversationTurnStore;
+        this.promptFragmentCache = promptFragmentCache;
+        this.userGameProfileRepository = userGameProfileRepository;
+        this.summarizedCounter = meterRegistry.counter("conversation.summary.summarized");
+        this.deferredCounter = meterRegistry.counter("conversation.summary.deferred");
+        this.failureCounter = meterRegistry.counter("conversation.summary.failures");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 채팅 요청에 보낼 대화 기록을 반환합니다.
+     * 요약이 켜져 있으면 요약에 아직 반영되지 않은 메시지(최소 min-recent-messages개)만 보냅니다.
+     * @param conversation 대화
+     * @return 보낼 대화 기록 (오래된 순)
+     */
+    public List<Conversation.ChatHistory> unsummarizedTail(Conversation conversation) {
+        List<Conversation.ChatHistory> history = conversation.getRecentHistory();
+        if (!enabled || history == null) {
+            return history;
+        }
+        int keep = Math.max(unsummarizedCountOf(conversation), minRecentMessages);
+        if (keep >= history.size()) {
+            return history;
+        }
+        return history.subList(history.size() - keep, history.size());
+    }
+
+    /**
+     * 오래된 메시지 dropCount개를 버려도 아직 요약되지 않은 메시지가 모두 남는지 확인합니다.
+     * 요약이 꺼져 있으면 항상 true 입니다.
+     * @param historySize 저장된 메시지 수
+     * @param unsummarizedCount 요약에 반영되지 않은 메시지 수
+     * @param dropCount 버릴 오래된 메시지 수
+     */
+    public boolean keepsUnsummarized(int historySize, int unsummarizedCount, int dropCount) {
+        return !enabled || historySize - dropCount >= unsummarizedCount;
+    }
+
+    @Scheduled(fixedDelayString = "${conversation.summary.interval-ms:30000}")
+    public void scheduleBatch() {
+        if (enabled) {
+            // 이전 배치가 진행 중이면 실행기가 버림 (DiscardPolicy)
+            summaryExecutor.execute(this::summarizeBatch);
+        }
+    }
+
+    void summarizeBatch() {
+        // 채팅이 우선: AI 서버가 불안정하거나 바쁘면 다음 주기로 미룸
+        if (aiNpcGuard.getState() != CircuitBreaker.State.CLOSED
+                || aiNpcGuard.getAvailablePermits() < aiNpcGuard.getMaxConcurrentCalls() * minFreeCapacity) {
+            deferredCounter.increment();
+            return;
+        }
+
+        List<Conversation> candidates = conversationRepository.findSummarizationCandidates(threshold, PageRequest.of(0, batchSize));
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> playerNames = loadPlayerNames(candidates);
+        Map<Long, SummaryTarget> targets = new HashMap<>();
+        List<ConversationSummaryRequest.Item> items = new ArrayList<>();
+        for (Conversation candidate : candidates) {
+            // write-behind 버퍼나 턴 테이블의 최신 상태 기준
+            Conversation conversation = conversationWriter.read(candidate.getProfileId(), candidate.getNpcId()).getConversation();
+            if (conversation == null || conversation.getConversationId() == null) {
+                continue;
+            }
+            List<Conversation.ChatHistory> messages = unsummarizedMessages(conversation);
+            if (messages.isEmpty()) {
+                continue;
+            }
+
+            PromptFragmentCache.NpcPersona persona = promptFragmentCache.getNpcPersona(conversation.getNpcId());
+            items.add(new ConversationSummaryRequest.Item(
+                conversation.getConversationId(),
+                persona != null ? persona.getNpcName() : null,
+                playerNames.getOrDefault(conversation.getProfileId(), "Unknown"),
+                conversation.getSummary(),
+                toRequestHistory(messages)
+            ));
+            targets.put(conversation.getConversationId(),
+                new SummaryTarget(conversation.getProfileId(), conversation.getNpcId(), unsummarizedCountOf(conversation)));
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        ConversationSummaryResponse response;
+        try {
+            String url = aiServerUrl + "/api.ai/llm/summarize";
+            ConversationSummaryRequest request = new ConversationSummaryRequest(items, apiKey.isEmpty() ? null : apiKey);
+            ResponseEntity<ConversationSummaryResponse> entity = aiNpcGuard.execute(
+                () -> restTemplate.postForEntity(url, request, ConversationSummaryResponse.class));
+            response = entity.getBody();
+        } catch (UpstreamRejectedException e) {
+            deferredCounter.increment();
+            return;
+        } catch (RestClientException e) {
+            failureCounter.increment();
+            logger.warn("Conversation summarization request failed ({} conversations): {}", items.size(), e.getMessage());
+            return;
+        }
+        if (response == null || response.getItems() == null) {
+            return;
+        }
+
+        for (ConversationSummaryResponse.Item item : response.getItems()) {
+            SummaryTarget target = targets.get(item.getConversationId());
+            if (target == null || item.getSummary() == null || item.getSummary().isBlank()) {
+                continue;
+            }
+            try {
+                writeBack(target, item.getSummary());
+                summarizedCounter.increment();
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                logger.warn("Failed to store summary for conversation {}: {}", item.getConversationId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 요약을 저장하고 요약한 만큼 미요약 메시지 수를 줄입니다.
+     * 요약하는 동안 추가된 메시지는 미요약으로 남습니다.
+     */
+    private void writeBack(SummaryTarget target, String summary) {
+        conversationWriter.update(conversationWriter.read(target.profileId, target.npcId), conversation -> {
+            conversation.setSummary(summary);
+            conversation.setUnsummarizedCount(Math.max(0, unsummarizedCountOf(conversation) - target.summarizedCount));
+        });
+    }
+
+    private List<Conversation.ChatHistory> unsummarizedMessages(Conversation conversation) {
+        int count = unsummarizedCountOf(conversation);
+        if (conversationTurnStore.isEnabled()) {
+            // 턴 테이블에는 창 밖 메시지도 남아 있음
+            return conversationTurnStore.loadLatest(conversation.getConversationId(), count);
+        }
+        List<Conversation.ChatHistory> history = conversation.getRecentHistory();
+        if (history == null || history.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return history.subList(Math.max(0, history.size() - count), history.size());
+    }
+
+    private Map<Long, String> loadPlayerNames(List<Conversation> conversations) {
+        Set<Long> profileIds = conversations.stream().map(Conversation::getProfileId).collect(Collectors.toSet());
+        Map<Long, String> playerNames = new HashMap<>();
+        for (UserGameProfile profile : userGameProfileRepository.findAllById(profileIds)) {
+            playerNames.put(profile.getId(), profile.getProfileName());
+        }
+        return playerNames;
+    }
+
+    private List<NpcChatRequest.ChatHistory> toRequestHistory(List<Conversation.ChatHistory> messages) {
+        List<NpcChatRequest.ChatHistory> result = new ArrayList<>(messages.size());
+        for (Conversation.ChatHistory message : messages) {
+            result.add(new NpcChatRequest.ChatHistory(message.getSpeaker(), message.getMessage(), message.getTimestamp()));
+        }
+        return result;
+    }
+
+    private static int unsummarizedCountOf(Conversation conversation) {
+        return conversation.getUnsummarizedCount() != null ? conversation.getUnsummarizedCount() : 0;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.entity.ConversationTurn;
+import com.example.toremainserver.repository.ConversationRepository;
+import com.example.toremainserver.repository.ConversationTurnRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * conversation_turns 테이블 기반 대화 기록 저장소입니다. (conversation.storage=turns 일 때 사용)
+ *
+ * 기존 방식은 턴마다 recent_history JSON 전체를 복사하여 다시 쓰고, 창 밖으로 밀려난 메시지는 사라집니다.
+ * 이 저장소는 새 메시지만 (conversation_id, seq) 순서로 INSERT 하고,
+ * 최근 메시지 창은 seq 역순 범위 조회(window-size 개)로 구성합니다.
+ * conversations 행에는 요약, 마지막 대화 시간, 마지막 seq만 갱신합니다.
+ *
+ * 기존 recent_history JSON은 처음 읽을 때(또는 일괄 마이그레이션 시) 턴 테이블로 옮기고 비웁니다.
+ */
+@Component
+public class ConversationTurnStore {
+    private final boolean enabled;
+    private final int windowSize;
+    private final ConversationRepository conversationRepository;
+    private final ConversationTurnRepository conversationTurnRepository;
+
+    @Autowired
+    public ConversationTurnStore(@Value("${conversation.storage:json}") String storage,
+                                 @Value("${conversation.turns.window-size:64}") int windowSize,
+                                 ConversationRepository conversationRepository,
+                                 ConversationTurnRepository conversationTurnRepository) {
+        this.enabled = "turns".equalsIgnoreCase(storage);
+        this.windowSize = windowSize;
+        this.conversationRepository = conversationRepository;
+        this.conversationTurnRepository = conversationTurnRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 대화의 최근 메시지 창을 조회합니다.
+     * @param conversationId 대화 ID
+     * @return 최근 window-size 개의 메시지 (오래된 순)
+     */
+    public List<Conversation.ChatHistory> loadWindow(Long conversationId) {
+        return loadLatest(conversationId, windowSize);
+    }
+
+    /**
+     * 대화의 최근 메시지를 limit개까지 조회합니다.
+     * @param conversationId 대화 ID
+     * @param limit 최대 메시지 수
+     * @return 최근 메시지 (오래된 순)
+     */
+    public List<Conversation.ChatHistory> loadLatest(Long conversationId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<ConversationTurn> turns = conversationTurnRepository.findByConversationIdOrderBySeqDesc(
+            conversationId, PageRequest.of(0, limit));
+        List<Conversation.ChatHistory> window = new ArrayList<>(turns.size());
+        for (ConversationTurn turn : turns) {
+            window.add(turn.toChatHistory());
+        }
+        Collections.reverse(window);
+        return window;
+    }
+
+    /**
+     * recent_history JSON이 아직 턴 테이블로 옮겨지지 않았는지 확인합니다.
+     */
+    public boolean needsMigration(Conversation conversation) {
+        return conversation.getConversationId() != null
+            && conversation.getRecentHistory() != null
+            && !conversation.getRecentHistory().isEmpty();
+    }
+
+    /**
+     * recent_history JSON의 메시지를 턴 테이블에 추가하고 JSON 컬럼을 비웁니다.
+     * 같은 대화에 대한 다른 쓰기와 겹치지 않도록 ConversationWriter의 직렬화 구간에서 호출해야 합니다.
+     * @param conversation 마이그레이션할 대화
+     */
+    @Transactional
+    public void migrate(Conversation conversation) {
+        append(conversation, conversation.getRecentHistory());
+    }
+
+    /**
+     * 새 메시지를 턴 테이블에 추가하고 conversations 행(요약, 마지막 seq, 시간)을 갱신합니다.
+     * 첫 대화이면 conversations 행을 먼저 생성합니다.
+     * 메시지 창은 턴 테이블에서 조회하므로 recentHistory는 null로 비운 뒤 저장합니다.
+     * (트랜잭션 안에서 다시 채우면 JSON 컬럼에 기록되므로, 필요하면 호출한 쪽에서 반환 후 복원)
+     * @param conversation 갱신할 대화
+     * @param newTurns 추가할 메시지 (순서대로)
+     */
+    @Transactional
+    public void append(Conversation conversation, List<Conversation.ChatHistory> newTurns) {
+        long seq = conversation.getLastTurnSeq() != null ? conversation.getLastTurnSeq() : 0L;
+
+        conversation.setRecentHistory(null);
+        conversation.setLastTurnSeq(seq + newTurns.size());
+        Conversation saved = conversationRepository.save(conversation);
+        conversation.setConversationId(saved.getConversationId());
+
+        List<ConversationTurn> turns = new ArrayList<>(newTurns.size());
+        for (Conversation.ChatHistory chatHistory : newTurns) {
+            turns.add(new ConversationTurn(saved.getConversationId(), ++seq, chatHistory));
+        }
+        conversationTurnRepository.saveAll(turns);
+    }
+
+}
@@ -0,0 +1,368 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 대화 기록 write-behind 버퍼입니다. (conversation.write-behind.enabled=true 일 때만 동작)
+ *
+ * 채팅 턴마다 recent_history JSON 전체를 save 하는 대신
+ * - 갱신된 대화 기록은 메모리(dirty)에 보관하고 읽기도 여기서 먼저 처리합니다.
+ * - flush-interval-ms 주기 또는 dirty 수가 flush-threshold에 도달하면 JDBC 배치 upsert로 저장합니다.
+ * - 종료 시(@PreDestroy) 남은 대화 기록을 모두 저장합니다.
+ * - 메모리에 넣기 전에 로컬 로그(log-dir)에 추가하고, 비정상 종료 후 시작 시 로그를 DB에 반영합니다.
+ *
+ * 로그는 세그먼트 단위로 나뉘며, flush가 성공하면 그 이전 세그먼트를 삭제합니다.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ConversationWriteBehindBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationWriteBehindBuffer.class);
+
+    private static final String SEGMENT_PREFIX = "conversation-wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String UPSERT_SQL =
+        "INSERT INTO conversations (profile_id, npc_id, recent_history, summary, last_updated, unsummarized_count, " +
+        "emotion_samples, valence_sum, arousal_sum) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE recent_history = VALUES(recent_history), summary = VALUES(summary), " +
+        "last_updated = VALUES(last_updated), unsummarized_count = VALUES(unsummarized_count), " +
+        "emotion_samples = VALUES(emotion_samples), valence_sum = VALUES(valence_sum), arousal_sum = VALUES(arousal_sum)";
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Executor flushExecutor;
+    private final Path logDir;
+    private final boolean fsync;
+    private final int flushThreshold;
+    private final int batchSize;
+    private final Counter flushedCounter;
+    private final Counter flushFailureCounter;
+    private final Counter logFailureCounter;
+
+    private final Map<ConversationWriter.ConversationKey, Conversation> dirty = new ConcurrentHashMap<>();
+    // 로그 추가와 dirty 반영, 세그먼트 교체를 원자적으로 묶는 잠금
+    private final Object logLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private FileChannel segment;
+    private long segmentSeq;
+
+    @Autowired
+    public ConversationWriteBehindBuffer(@Value("${conversation.write-behind.enabled:false}") boolean enabled,
+                                         JdbcTemplate jdbcTemplate,
+                                         ObjectMapper objectMapper,
+                                         @Qualifier("conversationWriteExecutor") Executor flushExecutor,
+                                         @Value("${conversation.write-behind.log-dir:./data/conversation-wal}") String logDir,
+                                         @Value("${conversation.write-behind.fsync:true}") boolean fsync,
+                                         @Value("${conversation.write-behind.flush-threshold:500}") int flushThreshold,
+                                         @Value("${conversation.write-behind.batch-size:200}") int batchSize,
+                                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.flushExecutor = flushExecutor;
+        this.logDir = Paths.get(logDir);
+        this.fsync = fsync;
+        this.flushThreshold = flushThreshold;
+        this.batchSize = batchSize;
+        this.flushedCounter = meterRegistry.counter("conversation.buffer.flushed");
+        this.flushFailureCounter = meterRegistry.counter("conversation.buffer.flush.failures");
+        this.logFailureCounter = meterRegistry.counter("conversation.buffer.log.failures");
+        meterRegistry.gauge("conversation.buffer.dirty", dirty, Map::size);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 이전 실행에서 저장하지 못한 로그를 DB에 반영하고 새 세그먼트를 엽니다.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(logDir);
+
+        List<Path> segments = listSegments();
+        Map<ConversationWriter.ConversationKey, Conversation> recovered = new LinkedHashMap<>();
+        for (Path path : segments) {
+            readSegment(path, recovered);
+        }
+        if (!recovered.isEmpty()) {
+            upsert(new ArrayList<>(recovered.values()));
+            logger.info("Recovered {} conversations from write-behind log", recovered.size());
+        }
+        for (Path path : segments) {
+            Files.deleteIfExists(path);
+        }
+
+        segmentSeq = segments.isEmpty() ? 0 : segmentSeqOf(segments.get(segments.size() - 1));
+        openNextSegment();
+    }
+
+    /**
+     * 아직 DB에 저장되지 않은 대화 기록을 반환합니다.
+     * @return 대화 기록 복사본 (버퍼에 없으면 null)
+     */
+    public Conversation get(ConversationWriter.ConversationKey key) {
+        if (!enabled) {
+            return null;
+        }
+        Conversation conversation = dirty.get(key);
+        return conversation != null ? conversation.copy() : null;
+    }
+
+    /**
+     * 갱신된 대화 기록을 로그에 추가하고 버퍼에 보관합니다.
+     * 로그 추가에 실패해도 메모리에는 보관하여 다음 flush에서 저장합니다.
+     * @param conversation 갱신된 대화 기록 (복사하여 보관하므로 호출 후 수정해도 무방)
+     */
+    public void put(Conversation conversation) {
+        Conversation copy = conversation.copy();
+        ConversationWriter.ConversationKey key = new ConversationWriter.ConversationKey(copy.getProfileId(), copy.getNpcId());
+
+        synchronized (logLock) {
+            try {
+                appendLog(copy);
+            } catch (IOException e) {
+                logFailureCounter.increment();
+                logger.error("Failed to append conversation write-behind log: {}", e.getMessage());
+            }
+            dirty.put(key, copy);
+        }
+
+        if (dirty.size() >= flushThreshold) {
+            try {
+                flushExecutor.execute(this::flushIfIdle);
+            } catch (RejectedExecutionException e) {
+                // 주기 flush가 처리
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${conversation.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flushIfIdle();
+        }
+    }
+
+    private void flushIfIdle() {
+        if (flushLock.tryLock()) {
+            try {
+                doFlush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * dirty 대화 기록을 모두 DB에 저장합니다.
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void doFlush() {
+        Map<ConversationWriter.ConversationKey, Conversation> batch;
+        long flushedThroughSeq;
+        synchronized (logLock) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(dirty);
+            // 이후 갱신은 새 세그먼트에 기록되므로, flush 성공 시 현재까지의 세그먼트는 삭제 가능
+            flushedThroughSeq = segmentSeq;
+            try {
+                openNextSegment();
+            } catch (IOException e) {
+                logger.error("Failed to rotate conversation write-behind log: {}", e.getMessage());
+                flushedThroughSeq = segmentSeq - 1;
+            }
+        }
+
+        try {
+            upsert(new ArrayList<>(batch.values()));
+        } catch (DataAccessException e) {
+            flushFailureCounter.increment();
+            logger.error("Conversation write-behind flush failed ({} pending): {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        // flush 중에 다시 갱신된 대화 기록은 남겨둠
+        batch.forEach(dirty::remove);
+        flushedCounter.increment(batch.size());
+        deleteSegmentsThrough(flushedThroughSeq);
+    }
+
+    /**
+     * 종료 시 남은 대화 기록을 저장합니다. 저장에 실패하면 로그가 남아 다음 시작 시 반영됩니다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        synchronized (logLock) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close conversation write-behind log: {}", e.getMessage());
+            }
+            if (dirty.isEmpty()) {
+                deleteSegmentsThrough(segmentSeq);
+            }
+        }
+    }
+
+    private void upsert(List<Conversation> conversations) {
+        List<Object[]> rows = new ArrayList<>(conversations.size());
+        for (Conversation conversation : conversations) {
+            rows.add(new Object[] {
+                conversation.getProfileId(),
+                conversation.getNpcId(),
+                toJson(conversation.getRecentHistory()),
+                conversation.getSummary(),
+                conversation.getLastUpdated() != null ? Timestamp.valueOf(conversation.getLastUpdated()) : null,
+                conversation.getUnsummarizedCount() != null ? conversation.getUnsummarizedCount() : 0,
+                conversation.getEmotionSamples() != null ? conversation.getEmotionSamples() : 0,
+                conversation.getValenceSum() != null ? conversation.getValenceSum() : 0L,
+                conversation.getArousalSum() != null ? conversation.getArousalSum() : 0L
+            });
+        }
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize conversation history", e);
+        }
+    }
+
+    private void appendLog(Conversation conversation) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(conversation) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        if (fsync) {
+            segment.force(false);
+        }
+    }
+
+    private void readSegment(Path path, Map<ConversationWriter.ConversationKey, Conversation> recovered) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Conversation conversation = objectMapper.readValue(line, Conversation.class);
+                    ConversationWriter.ConversationKey key =
+                        new ConversationWriter.ConversationKey(conversation.getProfileId(), conversation.getNpcId());
+                    // 같은 대화는 마지막 기록이 최신 상태
+                    recovered.remove(key);
+                    recovered.put(key, conversation);
+                } catch (JsonProcessingException e) {
+                    // 비정상 종료로 마지막 줄이 잘린 경우
+                    logger.warn("Skipping unreadable write-behind log entry in {}", path.getFileName());
+                }
+            }
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        segmentSeq++;
+        segment = FileChannel.open(logDir.resolve(SEGMENT_PREFIX + segmentSeq + SEGMENT_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void deleteSegmentsThrough(long seq) {
+        try {
+            for (Path path : listSegments()) {
+                if (segmentSeqOf(path) <= seq) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete flushed write-behind log segments: {}", e.getMessage());
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted((a, b) -> Long.compare(segmentSeqOf(a), segmentSeqOf(b)))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private long segmentSeqOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.concurrent.KeyedLock;
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.repository.ConversationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * (profileId, npcId) 단위로 대화 기록 쓰기를 직렬화합니다.
+ *
+ * 대화 기록 갱신은 find -> recentHistory 복사 -> append -> save 의 read-modify-write 이므로
+ * 같은 NPC에 대한 두 턴이 동시에 처리되면 나중에 저장한 쪽이 먼저 저장한 턴을 덮어씁니다.
+ * 같은 키의 갱신은 키별 잠금으로 도착 순서대로 하나씩, 다른 키의 갱신은 병렬로 실행하여 이를 막습니다.
+ * (갱신은 호출한 스레드에서 실행하며, 별도 실행기에 넘기고 기다리지 않습니다.)
+ *
+ * 요청 처음에 읽은 대화 기록(Snapshot)을 갱신 시 재사용하여 두 번째 조회를 생략합니다.
+ * 읽은 뒤 같은 키에 다른 쓰기가 있었으면 다시 조회합니다.
+ * (서버 인스턴스가 하나라는 전제입니다. 다중 인스턴스에서는 DB 수준 잠금이 필요합니다.)
+ *
+ * write-behind가 켜져 있으면 저장 대신 ConversationWriteBehindBuffer에 보관하고,
+ * 아직 저장되지 않은 대화 기록은 DB보다 버퍼에서 먼저 읽습니다.
+ * conversation.storage=turns 이면 ConversationTurnStore로 새 메시지만 추가합니다.
+ */
+@Component
+public class ConversationWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ConversationWriter.class);
+
+    // 키별 마지막 쓰기 순번을 저장하는 슬롯 수 (해시 충돌은 불필요한 재조회만 일으킴)
+    private static final int WRITE_STAMP_SLOTS = 4096;
+
+    public static final class ConversationKey {
+        private final Long profileId;
+        private final Long npcId;
+
+        public ConversationKey(Long profileId, Long npcId) {
+            this.profileId = profileId;
+            this.npcId = npcId;
+        }
+
+        public Long getProfileId() {
+            return profileId;
+        }
+
+        public Long getNpcId() {
+            return npcId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConversationKey)) return false;
+            ConversationKey other = (ConversationKey) o;
+            return Objects.equals(profileId, other.profileId)
+                && Objects.equals(npcId, other.npcId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(profileId, npcId);
+        }
+    }
+
+    /**
+     * 요청 처음에 읽은 대화 기록과 읽은 시점의 쓰기 순번
+     */
+    public static final class Snapshot {
+        private final ConversationKey key;
+        private final Conversation conversation;
+        private final long readStamp;
+
+        private Snapshot(ConversationKey key, Conversation conversation, long readStamp) {
+            this.key = key;
+            this.conversation = conversation;
+            this.readStamp = readStamp;
+        }
+
+        public ConversationKey getKey() {
+            return key;
+        }
+
+        /**
+         * @return 읽은 대화 기록 (첫 대화이면 null)
+         */
+        public Conversation getConversation() {
+            return conversation;
+        }
+    }
+
+    private final ConversationRepository conversationRepository;
+    private final ConversationWriteBehindBuffer writeBehindBuffer;
+    private final ConversationTurnStore turnStore;
+    private final Executor migrationExecutor;
+    private final boolean migrateOnStartup;
+    private final int migrationPageSize;
+    private final KeyedLock<ConversationKey> keyedLock = new KeyedLock<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLongArray lastWriteStamps = new AtomicLongArray(WRITE_STAMP_SLOTS);
+
+    @Autowired
+    public ConversationWriter(ConversationRepository conversationRepository,
+                              ConversationWriteBehindBuffer writeBehindBuffer,
+                              ConversationTurnStore turnStore,
+                              @Qualifier("conversationMigrationExecutor") Executor migrationExecutor,
+                              @Value("${conversation.turns.migrate-on-startup:false}") boolean migrateOnStartup,
+                              @Value("${conversation.turns.migration-page-size:200}") int migrationPageSize) {
+        this.conversationRepository = conversationRepository;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.turnStore = turnStore;
+        this.migrationExecutor = migrationExecutor;
+        this.migrateOnStartup = migrateOnStartup;
+        this.migrationPageSize = migrationPageSize;
+
+        if (turnStore.isEnabled() && writeBehindBuffer.isEnabled()) {
+            logger.warn("conversation.write-behind is ignored when conversation.storage=turns");
+        }
+    }
+
+    /**
+     * 대화 기록을 조회하여 Snapshot으로 반환합니다.
+     * conversation.storage=turns 이면 최근 메시지 창을 턴 테이블에서 채웁니다.
+     * @param profileId 프로필 ID
+     * @param npcId NPC ID
+     * @return Snapshot (대화 기록이 없으면 conversation이 null)
+     */
+    public Snapshot read(Long profileId, Long npcId) {
+        // 조회 전에 순번을 읽어야 조회 이후 커밋된 쓰기를 놓치지 않음
+        long readStamp = writeSequence.get();
+        ConversationKey key = new ConversationKey(profileId, npcId);
+        Conversation conversation = writeBehindBuffer.get(key);
+        if (conversation == null) {
+            conversation = conversationRepository.findByProfileIdAndNpcId(profileId, npcId).orElse(null);
+            if (conversation != null && turnStore.isEnabled()) {
+                if (turnStore.needsMigration(conversation)) {
+                    // JSON 기록을 턴 테이블로 옮긴 뒤 다시 조회
+                    migrateToTurns(conversation.getConversationId());
+                    conversation = conversationRepository.findByProfileIdAndNpcId(profileId, npcId).orElse(null);
+                }
+                if (conversation != null) {
+                    // 영속성 컨텍스트의 엔티티에 메시지 창을 채우지 않도록 복사본 사용
+                    conversation = conversation.copy();
+                    conversation.setRecentHistory(turnStore.loadWindow(conversation.getConversationId()));
+                }
+            }
+        }
+        return new Snapshot(key, conversation, readStamp);
+    }
+
+    /**
+     * 여러 대화 기록을 한 번의 쿼리로 조회하여 Snapshot으로 반환합니다. (배치 NPC 대화용)
+     * 턴 테이블로 옮기지 않은 대화가 섞여 있으면 그 대화만 read()로 개별 조회합니다.
+     * @param keys 조회할 (프로필, NPC) 쌍
+     * @return 키별 Snapshot (대화 기록이 없으면 conversation이 null)
+     */
+    public Map<ConversationKey, Snapshot> readAll(Collection<ConversationKey> keys) {
+        long readStamp = writeSequence.get();
+        Map<ConversationKey, Snapshot> snapshots = new HashMap<>();
+        Set<Long> profileIds = new HashSet<>();
+        Set<Long> npcIds = new HashSet<>();
+        for (ConversationKey key : keys) {
+            Conversation buffered = writeBehindBuffer.get(key);
+            if (buffered != null) {
+                snapshots.put(key, new Snapshot(key, buffered, readStamp));
+            } else {
+                profileIds.add(key.profileId);
+                npcIds.add(key.npcId);
+            }
+        }
+        if (profileIds.isEmpty()) {
+            return snapshots;
+        }
+
+        Map<ConversationKey, Conversation> loaded = new HashMap<>();
+        for (Conversation conversation : conversationRepository.findByProfileIdInAndNpcIdIn(profileIds, npcIds)) {
+            loaded.put(new ConversationKey(conversation.getProfileId(), conversation.getNpcId()), conversation);
+        }
+        for (ConversationKey key : keys) {
+            if (!snapshots.containsKey(key)) {
+                snapshots.put(key, resolve(key, loaded.get(key), readStamp));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * 조회 시작 시점의 쓰기 순번을 반환합니다. 대화 행을 직접 조회하는 경우 조회 전에 호출하여 resolve()에 넘깁니다.
+     */
+    public long beginRead() {
+        return writeSequence.get();
+    }
+
+    /**
+     * 이미 조회한 대화 행으로 Snapshot을 만듭니다. (다른 테이블과 함께 한 번에 조회한 경우)
+     * write-behind 버퍼에 최신 상태가 있으면 우선 사용하고, conversation.storage=turns 이면 메시지 창을 채웁니다.
+     * @param key (프로필, NPC)
+     * @param loaded 조회한 대화 행 (없으면 null)
+     * @param readStamp 조회 전에 beginRead()로 얻은 순번
+     * @return Snapshot (대화 기록이 없으면 conversation이 null)
+     */
+    public Snapshot resolve(ConversationKey key, Conversation loaded, long readStamp) {
+        Conversation conversation = writeBehindBuffer.get(key);
+        if (conversation == null) {
+            conversation = loaded;
+            if (conversation != null && turnStore.isEnabled()) {
+                if (turnStore.needsMigration(conversation)) {
+                    return read(key.profileId, key.npcId);
+                }
+                // 영속성 컨텍스트의 엔티티에 메시지 창을 채우지 않도록 복사본 사용
+                conversation = conversation.copy();
+                conversation.setRecentHistory(turnStore.loadWindow(conversation.getConversationId()));
+            }
+        }
+        return new Snapshot(key, conversation, readStamp);
+    }
+
+    /**
+     * Snapshot 이후 같은 키에 쓰기가 없었는지 확인합니다. (미리 읽어 둔 Snapshot을 재사용하기 전 검사)
+     * 슬롯 단위로 비교하므로 다른 키의 쓰기로 false가 될 수 있지만, 쓰기를 놓치지는 않습니다.
+     */
+    public boolean isCurrent(Snapshot snapshot) {
+        return lastWriteStamps.get(slotOf(snapshot.key)) <= snapshot.readStamp;
+    }
+
+    /**
+     * 같은 키의 다른 쓰기와 겹치지 않게 대화 기록을 수정하고 저장합니다.
+     * Snapshot 이후 같은 키에 쓰기가 없었으면 Snapshot의 대화 기록을 그대로 사용합니다.
+     * conversation.storage=turns 이면 mutation이 recentHistory에 새로 추가한 메시지만 턴 테이블에 INSERT 합니다.
+     * @param snapshot read()로 얻은 Snapshot
+     * @param mutation 대화 기록 수정 (직렬화된 상태에서 실행)
+     * @return 저장된 대화 기록
+     */
+    public Conversation update(Snapshot snapshot, Consumer<Conversation> mutation) {
+        ConversationKey key = snapshot.key;
+        return keyedLock.withLock(key, () -> {
+            // write-behind 버퍼에 아직 DB에 저장되지 않은 최신 상태가 있으면 우선 사용
+            Conversation conversation = writeBehindBuffer.get(key);
+            if (conversation == null) {
+                if (lastWriteStamps.get(slotOf(key)) <= snapshot.readStamp) {
+                    conversation = snapshot.conversation;
+                } else {
+                    conversation = conversationRepository.findByProfileIdAndNpcId(key.profileId, key.npcId).orElse(null);
+                    if (conversation != null && turnStore.isEnabled()) {
+                        conversation = loadTurnWindow(key, conversation);
+                    }
+                }
+            }
+            if (conversation == null) {
+                conversation = new Conversation(key.profileId, key.npcId);
+            }
+
+            Conversation saved;
+            if (turnStore.isEnabled()) {
+                Set<Conversation.ChatHistory> before = Collections.newSetFromMap(new IdentityHashMap<>());
+                if (conversation.getRecentHistory() != null) {
+                    before.addAll(conversation.getRecentHistory());
+                }
+
+                mutation.accept(conversation);
+
+                List<Conversation.ChatHistory> window = conversation.getRecentHistory();
+                List<Conversation.ChatHistory> appended = new ArrayList<>();
+                if (window != null) {
+                    for (Conversation.ChatHistory chatHistory : window) {
+                        if (!before.contains(chatHistory)) {
+                            appended.add(chatHistory);
+                        }
+                    }
+                }
+                turnStore.append(conversation, appended);
+                // 커밋 후 메모리 상의 메시지 창 복원
+                conversation.setRecentHistory(window);
+                saved = conversation;
+            } else {
+                mutation.accept(conversation);
+                if (writeBehindBuffer.isEnabled()) {
+                    writeBehindBuffer.put(conversation);
+                    saved = conversation;
+                } else {
+                    saved = conversationRepository.save(conversation);
+                }
+            }
+
+            markWritten(key);
+            return saved;
+        });
+    }
+
+    /**
+     * 대화 하나의 recent_history JSON을 턴 테이블로 옮깁니다. (같은 대화의 다른 쓰기와 직렬화)
+     * @param conversationId 대화 ID
+     * @return 옮겼으면 true, 이미 옮겨졌거나 대화가 없으면 false
+     */
+    public boolean migrateToTurns(Long conversationId) {
+        Conversation conversation = conversationRepository.findById(conversationId).orElse(null);
+        if (conversation == null) {
+            return false;
+        }
+        ConversationKey key = new ConversationKey(conversation.getProfileId(), conversation.getNpcId());
+        return keyedLock.withLock(key, () -> {
+            Conversation latest = conversationRepository.findById(conversationId).orElse(null);
+            if (latest == null || !turnStore.needsMigration(latest)) {
+                return false;
+            }
+            turnStore.migrate(latest);
+            markWritten(key);
+            return true;
+        });
+    }
+
+    /**
+     * recent_history JSON이 남아 있는 모든 대화를 턴 테이블로 옮깁니다.
+     * @return 옮긴 대화 수
+     */
+    public int migrateAllToTurns() {
+        int migrated = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Long> ids = conversationRepository.findIdsWithJsonHistoryAfter(afterId, PageRequest.of(0, migrationPageSize));
+            if (ids.isEmpty()) {
+                return migrated;
+            }
+            for (Long conversationId : ids) {
+                if (migrateToTurns(conversationId)) {
+                    migrated++;
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * conversation.turns.migrate-on-startup=true 이면 시작 후 백그라운드에서 일괄 마이그레이션합니다.
+     * 마이그레이션 전에 읽히는 대화는 read()에서 개별적으로 옮겨집니다.
+     * (시작 스레드를 막지 않도록 전용 실행기에서 돌리며, 대화별 작업은 그 스레드에서 키별 잠금을 잡고 실행)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!turnStore.isEnabled() || !migrateOnStartup) {
+            return;
+        }
+        migrationExecutor.execute(() -> {
+            try {
+                int migrated = migrateAllToTurns();
+                logger.info("Migrated {} conversations from recent_history JSON to conversation_turns", migrated);
+            } catch (Exception e) {
+                logger.error("Conversation turn migration failed", e);
+            }
+        });
+    }
+
+    // 직렬화 구간 안에서 호출: 필요하면 마이그레이션 후 메시지 창을 채움
+    private Conversation loadTurnWindow(ConversationKey key, Conversation conversation) {
+        if (turnStore.needsMigration(conversation)) {
+            turnStore.migrate(conversation);
+            markWritten(key);
+        }
+        conversation.setRecentHistory(turnStore.loadWindow(conversation.getConversationId()));
+        return conversation;
+    }
+
+    private void markWritten(ConversationKey key) {
+        lastWriteStamps.accumulateAndGet(slotOf(key), writeSequence.incrementAndGet(), Math::max);
+    }
+
+    private int slotOf(ConversationKey key) {
+        return Math.floorMod(key.hashCode(), WRITE_STAMP_SLOTS);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.toremainserver.service;
 
+import com.example.toremainserver.dto.game.ConversationResponse;
 import com.example.toremainserver.dto.game.NpcChatRequest;
 import com.example.toremainserver.dto.game.NpcChatResponse;
+import com.example.toremainserver.dto.game.Ue5NpcBatchResponse;
 import com.example.toremainserver.dto.game.Ue5NpcRequest;
 import com.example.toremainserver.dto.game.Ue5NpcResponse;
 import com.example.toremainserver.dto.game.ProfileCreateRequest;
@@ -10,6 +12,8 @@ import com.example.toremainserver.dto.game.UserGameProfileSyncRequest;
 import com.example.toremainserver.dto.game.UserGameProfileUpdateRequest;
 import com.example.toremainserver.dto.game.GoldUpdateRequest;
 import com.example.toremainserver.dto.game.GoldUpdateResponse;
+import com.example.toremainserver.dto.game.ProfileBatchRequest;
+import com.example.toremainserver.dto.game.ProfileBatchResponse;
 import com.example.toremainserver.dto.game.ExperienceUpdateRequest;
 import com.example.toremainserver.dto.game.ExperienceUpdateResponse;
 import com.example.toremainserver.dto.game.EquipmentSlotRequest;
@@ -17,38 +21,132 @@ import com.example.toremainserver.dto.game.EquipmentUpdateResponse;
 import com.example.toremainserver.entity.Conversation;
 import com.example.toremainserver.entity.Npc;
 import com.example.toremainserver.entity.UserGameProfile;
+import com.example.toremainserver.entity.UserGameProfileChangedEvent;
+import com.example.toremainserver.repository.ConversationLookup;
 import com.example.toremainserver.repository.ConversationRepository;
 import com.example.toremainserver.repository.NpcRepository;
+import com.example.toremainserver.repository.ProfileCounters;
 import com.example.toremainserver.repository.UserRepository;
 import com.example.toremainserver.repository.UserGameProfileRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.toremainserver.capture.PayloadCapture;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import com.example.toremainserver.resilience.UpstreamRejectedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class GameEventService {
     private static final Logger logger = LoggerFactory.getLogger(GameEventService.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    // AI 서버 대신 기본 대사로 응답했음을 표시하는 헤더 (재전송 캐시 대상에서 제외)
+    public static final String FALLBACK_HEADER = "X-Npc-Fallback";
+    
     private final RestTemplate restTemplate;
     private final String aiServerUrl;
     private final NpcRepository npcRepository;
     private final UserRepository userRepository;
-    private final ConversationRepository conversationRepository;
     private final UserGameProfileRepository userGameProfileRepository;
+    private final Executor aiUpstreamExecutor;
+    private final boolean upstreamAsyncEnabled;
+    private final NpcChatStreamClient npcChatStreamClient;
+    private final long streamTimeoutMs;
+    private final PromptFragmentCache promptFragmentCache;
+    private final NpcChatCoalescer npcChatCoalescer;
+    private final UpstreamGuard aiNpcGuard;
+    private final UpstreamGuard aiMaterialGuard;
+    private final String defaultFallbackLine;
+    private final ConversationWriter conversationWriter;
+    private final ChatContextBuilder chatContextBuilder;
+    private final int historyMaxMessages;
+    private final ConversationSummarizer conversationSummarizer;
+    private final PayloadCapture payloadCapture;
+    private final MaterialTextureCache materialTextureCache;
+    private final MaterialStreamClient materialStreamClient;
+    private final int batchMaxItems;
+    private final int batchMaxParallel;
+    private final ConversationPrefetchCache conversationPrefetchCache;
+    private final ConversationRepository conversationRepository;
+    private final ConversationReadCache conversationReadCache;
+    private final ProfileDeltaBuffer profileDeltaBuffer;
+    private final ProfileBatchWriter profileBatchWriter;
+    private final ProfileCache profileCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int profileBatchMaxOperations;
+    // 본문 전송이 아직 시작되지 않은 Material 업스트림 응답 (reapMaterialStreams가 정리)
+    private final Set<PendingMaterialStream> pendingMaterialStreams = ConcurrentHashMap.newKeySet();
+
+    /**
+     * AI 서버로 보낼 요청과, 요청 구성 시 읽은 대화 기록
+     */
+    private static final class PreparedNpcChat {
+        private final NpcChatRequest request;
+        private final ConversationWriter.Snapshot conversationSnapshot;
+        // 대화 기록 보관량 기준 (NPC별 설정 반영)
+        private final int contextTokenBudget;
+
+        PreparedNpcChat(NpcChatRequest request, ConversationWriter.Snapshot conversationSnapshot, int contextTokenBudget) {
+            this.request = request;
+            this.conversationSnapshot = conversationSnapshot;
+            this.contextTokenBudget = contextTokenBudget;
+        }
+    }
+    
+    /**
+     * 열어 둔 Material 업스트림 응답과 가드 자리입니다.
+     * 본문 전송과 reapMaterialStreams 중 claim에 먼저 성공한 쪽만 응답을 닫고 가드 결과를 기록합니다.
+     */
+    private static final class PendingMaterialStream {
+        private final ClientHttpResponse upstream;
+        private final UpstreamGuard.Permit permit;
+        private final long deadline;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingMaterialStream(ClientHttpResponse upstream, UpstreamGuard.Permit permit, long deadline) {
+            this.upstream = upstream;
+            this.permit = permit;
+            this.deadline = deadline;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
     
     // ========================================
     // 권한 검증 헬퍼 메서드 (인증 시스템 연동 대비)
@@ -78,29 +176,137 @@ public class GameEventService {
      * @param profile 검증할 프로필
      */
     private void validateProfileOwnership(UserGameProfile profile) {
+        validateProfileOwnership(profile.getUserId());
+    }
+    
+    /**
+     * 프로필 소유자 ID로 소유권을 검증합니다. (엔티티를 읽지 않는 경로용)
+     * @param profileUserId 프로필 소유자 ID
+     */
+    private void validateProfileOwnership(Long profileUserId) {
         // TODO: 인증 시스템 추가 시 아래 주석 해제
         /*
         Long currentUserId = SecurityContext.getCurrentUserId();
         if (currentUserId == null) {
             throw new UnauthorizedException("Authentication required");
         }
-        if (!profile.getUserId().equals(currentUserId)) {
+        if (!profileUserId.equals(currentUserId)) {
             throw new UnauthorizedException("This profile doesn't belong to you");
         }
         */
     }
 
     @Autowired
-    public GameEventService(RestTemplate restTemplate, @Value("${ai.server.url}") String aiServerUrl, 
+    public GameEventService(@Qualifier("aiRestTemplate") RestTemplate restTemplate, @Value("${ai.server.url}") String aiServerUrl, 
                            NpcRepository npcRepository, UserRepository userRepository, 
+                           UserGameProfileRepository userGameProfileRepository,
+                           @Qualifier("aiUpstreamExecutor") Executor aiUpstreamExecutor,
+                           @Value("${ai.upstream.async-enabled:true}") boolean upstreamAsyncEnabled,
+                           NpcChatStreamClient npcChatStreamClient,
+                           @Value("${ai.upstream.stream-timeout-ms:120000}") long streamTimeoutMs,
+                           PromptFragmentCache promptFragmentCache,
+                           NpcChatCoalescer npcChatCoalescer,
+                           @Qualifier("aiNpcGuard") UpstreamGuard aiNpcGuard,
+                           @Qualifier("aiMaterialGuard") UpstreamGuard aiMaterialGuard,
+                           @Value("${ai.resilience.npc.fallback-line:...(잠시 생각에 잠긴 듯 말이 없다)}") String defaultFallbackLine,
+                           ConversationWriter conversationWriter,
+                           ChatContextBuilder chatContextBuilder,
+                           @Value("${conversation.history.max-messages:64}") int historyMaxMessages,
+                           ConversationSummarizer conversationSummarizer,
+                           PayloadCapture payloadCapture,
+                           MaterialTextureCache materialTextureCache,
+                           MaterialStreamClient materialStreamClient,
+                           @Value("${npc.batch.max-items:32}") int batchMaxItems,
+                           @Value("${npc.batch.max-parallel:8}") int batchMaxParallel,
+                           ConversationPrefetchCache conversationPrefetchCache,
                            ConversationRepository conversationRepository,
-                           UserGameProfileRepository userGameProfileRepository) {
+                           ConversationReadCache conversationReadCache,
+                           ProfileDeltaBuffer profileDeltaBuffer,
+                           ProfileBatchWriter profileBatchWriter,
+                           @Value("${profile.batch.max-operations:256}") int profileBatchMaxOperations,
+                           ProfileCache profileCache,
+                           ApplicationEventPublisher eventPublisher) {
         this.restTemplate = restTemplate;
         this.aiServerUrl = aiServerUrl;
         this.npcRepository = npcRepository;
         this.userRepository = userRepository;
-        this.conversationRepository = conversationRepository;
         this.userGameProfileRepository = userGameProfileRepository;
+        this.aiUpstreamExecutor = aiUpstreamExecutor;
+        this.upstreamAsyncEnabled = upstreamAsyncEnabled;
+        this.npcChatStreamClient = npcChatStreamClient;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.promptFragmentCache = promptFragmentCache;
+        this.npcChatCoalescer = npcChatCoalescer;
+        this.aiNpcGuard = aiNpcGuard;
+        this.aiMaterialGuard = aiMaterialGuard;
+        this.defaultFallbackLine = defaultFallbackLine;
+        this.conversationWriter = conversationWriter;
+        this.chatContextBuilder = chatContextBuilder;
+        this.historyMaxMessages = historyMaxMessages;
+        this.conversationSummarizer = conversationSummarizer;
+        this.payloadCapture = payloadCapture;
+        this.materialTextureCache = materialTextureCache;
+        this.materialStreamClient = materialStreamClient;
+        this.batchMaxItems = batchMaxItems;
+        this.batchMaxParallel = batchMaxParallel;
+        this.conversationPrefetchCache = conversationPrefetchCache;
+        this.conversationRepository = conversationRepository;
+        this.conversationReadCache = conversationReadCache;
+        this.profileDeltaBuffer = profileDeltaBuffer;
+        this.profileBatchWriter = profileBatchWriter;
+        this.profileBatchMaxOperations = profileBatchMaxOperations;
+        this.profileCache = profileCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * forwardNpcRequest를 AI 업스트림 전용 실행기에서 수행합니다.
+     * 서블릿 스레드는 LLM 응답을 기다리지 않고 즉시 반환됩니다.
+     * ai.upstream.async-enabled=false 이면 기존처럼 호출 스레드에서 동기 처리합니다.
+     * UE5 재시도로 같은 대화 턴이 다시 들어오면 진행 중이거나 방금 끝난 결과를 공유합니다.
+     * @param ue5Request UE5에서 받은 NPC 대화 요청 정보
+     * @return UE5용 NPC 응답 (실행기 포화 시 503)
+     */
+    public CompletableFuture<ResponseEntity<Ue5NpcResponse>> forwardNpcRequestAsync(Ue5NpcRequest ue5Request) {
+        return npcChatCoalescer.execute(ue5Request, () -> submitUpstream(
+            () -> forwardNpcRequest(ue5Request),
+            () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<Ue5NpcResponse>build()
+        ));
+    }
+
+    /**
+     * forwardMaterialRequest를 AI 업스트림 전용 실행기에서 수행합니다.
+     * 텍스처 캐시에 있으면 실행기와 AI 서버를 거치지 않고 바로 반환합니다.
+     * @param body UE5에서 받은 요청
+     * @param binary true면 multipart/form-data(PNG 바이트), false면 JSON(base64)으로 응답
+     * @return 파이썬 AI 서버의 응답 (실행기 포화 시 503)
+     */
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> forwardMaterialRequestAsync(Map<String, Object> body, boolean binary) {
+        String cacheKey = materialTextureCache.isEnabled() ? materialTextureCache.keyOf(body) : null;
+        ResponseEntity<StreamingResponseBody> cached = cachedMaterialResponse(cacheKey, binary);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return submitUpstream(
+            () -> requestMaterial(body, cacheKey, binary),
+            () -> materialStreamClient.error(HttpStatus.SERVICE_UNAVAILABLE, "AI 서버 요청이 많아 잠시 후 다시 시도해주세요.")
+        );
+    }
+
+    /**
+     * 업스트림 작업을 aiUpstreamExecutor에 제출합니다.
+     * 동시 실행 수와 대기열이 모두 가득 차면 onRejected 결과를 즉시 반환합니다.
+     */
+    private <T> CompletableFuture<T> submitUpstream(Supplier<T> task, Supplier<T> onRejected) {
+        if (!upstreamAsyncEnabled) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, aiUpstreamExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("AI upstream executor is saturated, rejecting request");
+            return CompletableFuture.completedFuture(onRejected.get());
+        }
     }
 
     /**
@@ -111,19 +317,311 @@ public class GameEventService {
      * @return UE5용 NPC 응답(Ue5NpcResponse)
      */
     public ResponseEntity<Ue5NpcResponse> forwardNpcRequest(Ue5NpcRequest ue5Request) {
-        // DB에서 NPC 정보 조회
-        Optional<Npc> npcOptional = npcRepository.findById(ue5Request.getNpcId());
+        PreparedNpcChat prepared = prepareNpcChat(ue5Request);
         
-        if (npcOptional.isEmpty()) {
+        if (prepared == null) {
             // NPC가 존재하지 않는 경우 에러 응답
             return ResponseEntity.badRequest().body(null);
         }
+        return sendNpcChat(ue5Request, prepared);
+    }
+
+    /**
+     * 구성된 NpcChatRequest를 AI 서버로 보내고 응답으로 대화 기록을 갱신합니다.
+     * @param ue5Request UE5에서 받은 NPC 대화 요청 정보
+     * @param prepared AI 서버용 요청과 대화 기록 Snapshot
+     * @return UE5용 NPC 응답 (AI 서버를 사용할 수 없으면 기본 대사)
+     */
+    private ResponseEntity<Ue5NpcResponse> sendNpcChat(Ue5NpcRequest ue5Request, PreparedNpcChat prepared) {
+        NpcChatRequest npcChatRequest = prepared.request;
+        
+        // 요청 헤더 설정 (JSON)
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<NpcChatRequest> request = new HttpEntity<>(npcChatRequest, headers);
+        
+        // LLM 서버 요청 캡처 (capture.sample-rate 비율만, 잘라서 직렬화한 결과만 캡처 스레드로 넘김)
+        boolean captured = payloadCapture.sample();
+        if (captured) {
+            payloadCapture.capture("llm/generate", "request", ue5Request.getProfileId(), ue5Request.getNpcId(), null, npcChatRequest);
+        }
+        logger.debug("LLM request: npcId={}, profileId={}", ue5Request.getNpcId(), ue5Request.getProfileId());
+        
+        // 파이썬 AI 서버의 NPC 엔드포인트로 POST 요청
+        String url = aiServerUrl + "/api.ai/llm/generate";
+        
+        ResponseEntity<NpcChatResponse> response;
+        try {
+            response = aiNpcGuard.execute(() -> restTemplate.postForEntity(url, request, NpcChatResponse.class));
+            
+            // LLM 서버 응답 캡처 (성공)
+            if (captured) {
+                payloadCapture.capture("llm/generate", "response", ue5Request.getProfileId(), ue5Request.getNpcId(),
+                    response.getStatusCode().value(), response.getBody());
+            }
+            
+            // AI 서버 응답이 성공적이고 responseBody가 있으면 Conversation 업데이트
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                updateConversationHistory(ue5Request, response.getBody(), prepared);
+            }
+            
+            // NpcChatResponse를 Ue5NpcResponse로 변환
+            Ue5NpcResponse ue5Response = convertToUe5NpcResponse(response.getBody());
+            
+            // 처리된 응답을 UE5로 반환
+            return ResponseEntity.status(response.getStatusCode()).body(ue5Response);
+            
+        } catch (org.springframework.web.client.HttpStatusCodeException e) {
+            // LLM 서버 에러 응답 로그 출력
+            logger.error("=== LLM Server Response (ERROR) ===");
+            logger.error("Status Code: {}", e.getStatusCode());
+            logger.error("Error Response Body:\n{}", e.getResponseBodyAsString());
+            if (captured) {
+                payloadCapture.capture("llm/generate", "error", ue5Request.getProfileId(), ue5Request.getNpcId(),
+                    e.getStatusCode().value(), e.getResponseBodyAsString());
+            }
+            throw e;
+        } catch (UpstreamRejectedException e) {
+            // 서킷 OPEN 또는 벌크헤드 포화: AI 서버를 호출하지 않고 기본 대사로 응답
+            logger.warn("LLM request not sent ({}), returning fallback line for npcId {}", e.getReason(), ue5Request.getNpcId());
+            return buildFallbackResponse(ue5Request.getNpcId());
+        } catch (ResourceAccessException e) {
+            // 연결 실패 또는 타임아웃
+            logger.error("LLM server unreachable or timed out: {}", e.getMessage());
+            return buildFallbackResponse(ue5Request.getNpcId());
+        }
+    }
+
+    public int getBatchMaxItems() {
+        return batchMaxItems;
+    }
+
+    /**
+     * 여러 NPC 대화 요청을 한 번에 처리합니다. (마을/파티 장면의 동시 대화, 주변 NPC 대사)
+     * - NPC 페르소나, 프로필, 대화 기록을 테이블별 한 번의 쿼리로 미리 읽습니다.
+     * - LLM 호출은 aiUpstreamExecutor에서 최대 npc.batch.max-parallel개씩 병렬로 수행합니다.
+     * - 항목별로 결과를 반환하며, 일부 항목이 실패해도 나머지 항목의 결과는 그대로 반환합니다.
+     * @param ue5Requests NPC 대화 요청 목록 (npc.batch.max-items개 이하)
+     * @return 요청과 같은 순서의 항목별 결과
+     */
+    public CompletableFuture<Ue5NpcBatchResponse> forwardNpcBatchAsync(List<Ue5NpcRequest> ue5Requests) {
+        Set<Long> npcIds = new HashSet<>();
+        Set<Long> profileIds = new HashSet<>();
+        Set<ConversationWriter.ConversationKey> conversationKeys = new HashSet<>();
+        for (Ue5NpcRequest ue5Request : ue5Requests) {
+            if (ue5Request != null && ue5Request.getNpcId() != null && ue5Request.getProfileId() != null) {
+                npcIds.add(ue5Request.getNpcId());
+                profileIds.add(ue5Request.getProfileId());
+                conversationKeys.add(new ConversationWriter.ConversationKey(ue5Request.getProfileId(), ue5Request.getNpcId()));
+            }
+        }
+
+        Map<Long, PromptFragmentCache.NpcPersona> personas = promptFragmentCache.getNpcPersonas(npcIds);
+        Map<Long, String> playerNames = new HashMap<>();
+        for (UserGameProfile profile : userGameProfileRepository.findAllById(profileIds)) {
+            playerNames.put(profile.getId(), profile.getProfileName());
+        }
+        Map<ConversationWriter.ConversationKey, ConversationWriter.Snapshot> snapshots = conversationWriter.readAll(conversationKeys);
+
+        int size = ue5Requests.size();
+        Ue5NpcBatchResponse.Result[] results = new Ue5NpcBatchResponse.Result[size];
+        AtomicInteger nextIndex = new AtomicInteger();
+        // 각 레인은 남은 항목을 하나씩 가져가 처리하므로 배치 하나의 동시 LLM 호출 수는 레인 수를 넘지 않음
+        Runnable lane = () -> {
+            int index;
+            while ((index = nextIndex.getAndIncrement()) < size) {
+                results[index] = processBatchItem(index, ue5Requests.get(index), personas, playerNames, snapshots);
+            }
+        };
+
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (int i = 0; i < Math.min(batchMaxParallel, size); i++) {
+            if (!upstreamAsyncEnabled) {
+                lane.run();
+                break;
+            }
+            try {
+                lanes.add(CompletableFuture.runAsync(lane, aiUpstreamExecutor));
+            } catch (RejectedExecutionException e) {
+                logger.warn("AI upstream executor is saturated, running NPC batch with {} lanes", lanes.size());
+                break;
+            }
+        }
+
+        return CompletableFuture.allOf(lanes.toArray(new CompletableFuture[0])).thenApply(done -> {
+            for (int i = 0; i < size; i++) {
+                if (results[i] == null) {
+                    // 레인을 하나도 시작하지 못한 경우
+                    results[i] = new Ue5NpcBatchResponse.Result(i, HttpStatus.SERVICE_UNAVAILABLE.value(), false, null,
+                        "AI 서버 요청이 많아 잠시 후 다시 시도해주세요.");
+                }
+            }
+            return new Ue5NpcBatchResponse(Arrays.asList(results));
+        });
+    }
+
+    private Ue5NpcBatchResponse.Result processBatchItem(int index, Ue5NpcRequest ue5Request,
+                                                        Map<Long, PromptFragmentCache.NpcPersona> personas,
+                                                        Map<Long, String> playerNames,
+                                                        Map<ConversationWriter.ConversationKey, ConversationWriter.Snapshot> snapshots) {
+        if (ue5Request == null || ue5Request.getNpcId() == null || ue5Request.getProfileId() == null) {
+            return new Ue5NpcBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), false, null, "npcId와 profileId는 필수입니다.");
+        }
+        PromptFragmentCache.NpcPersona persona = personas.get(ue5Request.getNpcId());
+        if (persona == null) {
+            return new Ue5NpcBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), false, null,
+                "NPC not found: " + ue5Request.getNpcId());
+        }
+
+        try {
+            PreparedNpcChat prepared = prepareNpcChat(ue5Request, persona,
+                playerNames.getOrDefault(ue5Request.getProfileId(), "Unknown"),
+                snapshots.get(new ConversationWriter.ConversationKey(ue5Request.getProfileId(), ue5Request.getNpcId())));
+            ResponseEntity<Ue5NpcResponse> response = sendNpcChat(ue5Request, prepared);
+            return new Ue5NpcBatchResponse.Result(index, response.getStatusCode().value(),
+                response.getHeaders().containsKey(FALLBACK_HEADER), response.getBody(), null);
+        } catch (org.springframework.web.client.HttpStatusCodeException e) {
+            return new Ue5NpcBatchResponse.Result(index, e.getStatusCode().value(), false, null, e.getResponseBodyAsString());
+        } catch (Exception e) {
+            logger.error("NPC batch item {} failed (npcId={})", index, ue5Request.getNpcId(), e);
+            return new Ue5NpcBatchResponse.Result(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), false, null,
+                "NPC 대화 처리 중 오류가 발생했습니다: " + e.getMessage());
+        }
+    }
+
+    /**
+     * AI 서버를 사용할 수 없을 때의 NPC 기본 대사 응답을 만듭니다.
+     * NPC의 npcInfo.fallbackLine이 있으면 사용하고, 없으면 ai.resilience.npc.fallback-line을 사용합니다.
+     * 대화 기록에는 저장하지 않습니다.
+     * @param npcId NPC ID
+     * @return 기본 대사 응답 (X-Npc-Fallback 헤더 포함)
+     */
+    private ResponseEntity<Ue5NpcResponse> buildFallbackResponse(Long npcId) {
+        return ResponseEntity.ok()
+            .header(FALLBACK_HEADER, "true")
+            .body(buildFallbackBody(npcId));
+    }
+
+    private Ue5NpcResponse buildFallbackBody(Long npcId) {
+        String line = defaultFallbackLine;
+        PromptFragmentCache.NpcPersona persona = promptFragmentCache.getNpcPersona(npcId);
+        if (persona != null && persona.getNpcInfo() != null) {
+            Object npcFallbackLine = persona.getNpcInfo().get("fallbackLine");
+            if (npcFallbackLine != null && !npcFallbackLine.toString().isBlank()) {
+                line = npcFallbackLine.toString();
+            }
+        }
+        
+        return new Ue5NpcResponse(npcId, new Ue5NpcResponse.ChatHistory(
+            "npc",
+            line,
+            LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString()
+        ));
+    }
+
+    /**
+     * NPC 대화를 스트리밍으로 처리합니다.
+     * AI 서버의 /api.ai/llm/generate/stream 에서 받은 토큰 청크를 SSE로 UE5에 바로 전달하고,
+     * 스트림이 끝나면 대화 기록을 업데이트한 뒤 최종 응답을 보냅니다.
+     *
+     * SSE 이벤트:
+     *   token - {"token": "..."}  생성 중인 토큰 청크
+     *   done  - Ue5NpcResponse    최종 응답 (대화 기록 저장 완료 후, 토큰 전송 전에 AI 서버를 쓸 수 없으면 기본 대사)
+     *   error - {"error": "..."}  처리 실패 (토큰을 보낸 뒤 스트림이 끊긴 경우 포함)
+     *
+     * @param ue5Request UE5에서 받은 NPC 대화 요청 정보
+     * @return SSE 스트림
+     */
+    public SseEmitter streamNpcRequest(Ue5NpcRequest ue5Request) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        
+        try {
+            aiUpstreamExecutor.execute(() -> relayNpcStream(ue5Request, emitter));
+        } catch (RejectedExecutionException e) {
+            logger.warn("AI upstream executor is saturated, rejecting stream request");
+            sendStreamError(emitter, "AI 서버 요청이 많아 잠시 후 다시 시도해주세요.");
+        }
         
-        Npc npc = npcOptional.get();
-        String npcName = npc.getName();
+        return emitter;
+    }
+
+    private void relayNpcStream(Ue5NpcRequest ue5Request, SseEmitter emitter) {
+        try {
+            PreparedNpcChat prepared = prepareNpcChat(ue5Request);
+            if (prepared == null) {
+                sendStreamError(emitter, "NPC not found: " + ue5Request.getNpcId());
+                return;
+            }
+            NpcChatRequest npcChatRequest = prepared.request;
+            
+            String url = aiServerUrl + "/api.ai/llm/generate/stream";
+            logger.info("=== LLM Server Stream Request === URL: {}, npcId: {}", url, ue5Request.getNpcId());
+            
+            NpcChatResponse npcChatResponse;
+            AtomicInteger sentTokens = new AtomicInteger();
+            try {
+                npcChatResponse = aiNpcGuard.execute(() -> npcChatStreamClient.stream(url, npcChatRequest, token -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(Map.of("token", token)));
+                        sentTokens.incrementAndGet();
+                    } catch (IOException e) {
+                        // 클라이언트 연결 종료 시 업스트림 읽기도 중단
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (UpstreamRejectedException | ResourceAccessException e) {
+                if (sentTokens.get() > 0) {
+                    // 이미 보낸 토큰과 다른 기본 대사로 끝내지 않고 에러로 종료 (대화 기록 저장 안 함)
+                    logger.warn("LLM stream broke after {} tokens for npcId {}: {}", sentTokens.get(), ue5Request.getNpcId(), e.getMessage());
+                    sendStreamError(emitter, "NPC 응답 생성이 중간에 끊겼습니다. 다시 시도해주세요.");
+                    return;
+                }
+                // 토큰을 보내기 전이면 기본 대사로 종료 (대화 기록 저장 안 함)
+                logger.warn("LLM stream not available ({}), returning fallback line for npcId {}", e.getMessage(), ue5Request.getNpcId());
+                emitter.send(SseEmitter.event().name("done").data(buildFallbackBody(ue5Request.getNpcId())));
+                emitter.complete();
+                return;
+            }
+            
+            // 스트림 종료 후 기존 동기 경로와 동일하게 대화 기록 업데이트
+            updateConversationHistory(ue5Request, npcChatResponse, prepared);
+            
+            emitter.send(SseEmitter.event().name("done").data(convertToUe5NpcResponse(npcChatResponse)));
+            emitter.complete();
+        } catch (org.springframework.web.client.HttpStatusCodeException e) {
+            logger.error("=== LLM Server Stream Response (ERROR) === Status Code: {}, Body: {}",
+                e.getStatusCode(), e.getResponseBodyAsString());
+            sendStreamError(emitter, e.getResponseBodyAsString());
+        } catch (Exception e) {
+            logger.warn("NPC chat stream aborted: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void sendStreamError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(
+                java.util.Collections.singletonMap("error", message)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * UE5 요청과 DB 정보(NPC 페르소나, 프로필, 대화 기록)로 AI 서버용 NpcChatRequest를 구성합니다.
+     * 읽은 대화 기록은 응답 후 대화 기록 갱신에 재사용합니다.
+     * @param ue5Request UE5에서 받은 NPC 대화 요청 정보
+     * @return 완전한 NpcChatRequest와 대화 기록 Snapshot (NPC가 존재하지 않으면 null)
+     */
+    private PreparedNpcChat prepareNpcChat(Ue5NpcRequest ue5Request) {
+        // NPC 페르소나 조회 (캐시에 없을 때만 DB 조회 및 렌더링)
+        PromptFragmentCache.NpcPersona persona = promptFragmentCache.getNpcPersona(ue5Request.getNpcId());
         
-        // npcInfo에서 페르소나 정보를 추출하여 포맷팅
-        String npcDescription = buildNpcDescription(npc);
+        if (persona == null) {
+            // NPC가 존재하지 않는 경우
+            return null;
+        }
         
         // DB에서 UserGameProfile 정보 조회하여 profileName 가져오기
         Optional<UserGameProfile> profileOptional = userGameProfileRepository.findById(ue5Request.getProfileId());
@@ -134,8 +632,33 @@ public class GameEventService {
             playerName = profile.getProfileName();
         }
         
-        // UE5 요청의 playerDescription JSON을 포맷팅된 문자열로 변환
-        String playerDescription = buildPlayerDescription(ue5Request.getPlayerDescription(), playerName);
+        // 존 진입 시 미리 읽어 둔 대화 기록이 있으면 사용하고, 없으면 DB에서 Conversation 조회
+        ConversationWriter.Snapshot conversationSnapshot = conversationPrefetchCache.take(
+            ue5Request.getProfileId(), 
+            ue5Request.getNpcId()
+        );
+        if (conversationSnapshot == null) {
+            conversationSnapshot = conversationWriter.read(ue5Request.getProfileId(), ue5Request.getNpcId());
+        }
+        
+        return prepareNpcChat(ue5Request, persona, playerName, conversationSnapshot);
+    }
+
+    /**
+     * 미리 조회한 NPC 페르소나, 플레이어 이름, 대화 기록으로 NpcChatRequest를 구성합니다.
+     * @param ue5Request UE5에서 받은 NPC 대화 요청 정보
+     * @param persona NPC 페르소나
+     * @param playerName 프로필 이름 (프로필이 없으면 "Unknown")
+     * @param conversationSnapshot 대화 기록 Snapshot
+     * @return 완전한 NpcChatRequest와 대화 기록 Snapshot
+     */
+    private PreparedNpcChat prepareNpcChat(Ue5NpcRequest ue5Request, PromptFragmentCache.NpcPersona persona,
+                                           String playerName, ConversationWriter.Snapshot conversationSnapshot) {
+        String npcName = persona.getNpcName();
+        String npcDescription = persona.getDescription();
+        
+        // UE5 요청의 playerDescription JSON을 포맷팅된 문자열로 변환 (동일 내용이면 캐시 재사용)
+        String playerDescription = promptFragmentCache.getPlayerDescription(ue5Request.getPlayerDescription(), playerName);
         
         String systemMessages = "대화는 다음과 같은 규칙을 가집니다. 대화에는 { } 기호가 들어가면 안됩니다. 대화는 앞쪽에 ()가 있다면 () 안의 내용은 발언자가 발언을 하면서 느끼는 속마음 혹은 행동과 같은 비언어적 표현입니다.  속마음 혹은 행동과 같은 비언어적 표현이 없다면 언급이 딱히 필요없었던 것입니다. 만약 대답을 생성 할 때 속마음 혹은 행동과 같은 비언어적 표현에 대한 언급이 필요하다면 대답 앞쪽에 ()를 생성하여 안에 속마음을 쓰도록 합니다."
 //                + " \n 또한 반드시 대답을 생성 한 후 현재 당신의 role인 화자의 상태를 분석하여 내포된 감정 상태를 수치화 합니다. 이 과정은 응답에서 빠지면 안됩니다. 규칙은 다음과 같습니다." +
@@ -198,16 +721,10 @@ public class GameEventService {
             currentMessage = ue5Request.getCurrentPlayerMessage().getMessage();
         }
         
-        // DB에서 Conversation 조회하여 이전 대화 기록과 요약 가져오기
-        Conversation conversation = conversationRepository.findByProfileIdAndNpcId(
-            ue5Request.getProfileId(), 
-            ue5Request.getNpcId()
-        ).orElse(null);
-        
-        // 첫 대화인 경우 (Conversation이 없으면) profileId, npcId로 새로 생성
+        // 첫 대화인 경우 (Conversation이 없으면) 빈 대화로 취급 (저장은 응답 후 대화 기록 갱신 시)
+        Conversation conversation = conversationSnapshot.getConversation();
         if (conversation == null) {
             conversation = new Conversation(ue5Request.getProfileId(), ue5Request.getNpcId());
-            conversationRepository.save(conversation);
         }
         
         // 이전 대화 기록과 요약 가져오기
@@ -215,8 +732,10 @@ public class GameEventService {
         String previousConversationSummary = null;
         
         if (conversation.getRecentHistory() != null && !conversation.getRecentHistory().isEmpty()) {
-            // recentHistory를 NpcChatRequest.ChatHistory로 변환
-            previousChatHistory = convertConversationChatHistory(conversation.getRecentHistory());
+            // 토큰 예산(NPC별 설정 가능) 안의 최근 기록만 NpcChatRequest.ChatHistory로 변환
+            // (백그라운드 요약을 쓰면 요약에 반영되지 않은 메시지만 보냄)
+            previousChatHistory = convertConversationChatHistory(
+                chatContextBuilder.selectHistory(conversationSummarizer.unsummarizedTail(conversation), persona.getNpcInfo()));
         }
         
         if (conversation.getSummary() != null && !conversation.getSummary().isEmpty()) {
@@ -236,144 +755,151 @@ public class GameEventService {
             previousConversationSummary,
             ue5Request.getApiKey()
         );
-        
-        // 요청 헤더 설정 (JSON)
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<NpcChatRequest> request = new HttpEntity<>(npcChatRequest, headers);
-        
-        // LLM 서버 요청 로그 출력
-        try {
-            String requestJson = objectMapper.writerWithDefaultPrettyPrinter()
-                .writeValueAsString(npcChatRequest);
-            logger.info("=== LLM Server Request ===");
-            logger.info("URL: {}/api.ai/llm/generate", aiServerUrl);
-            logger.info("Request Body:\n{}", requestJson);
-        } catch (Exception e) {
-            logger.error("Failed to log LLM request", e);
-        }
-        
-        // 파이썬 AI 서버의 NPC 엔드포인트로 POST 요청
-        String url = aiServerUrl + "/api.ai/llm/generate";
-        
-        ResponseEntity<NpcChatResponse> response;
-        try {
-            response = restTemplate.postForEntity(url, request, NpcChatResponse.class);
-            
-            // LLM 서버 응답 로그 출력 (성공)
-            try {
-                String responseJson = objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValueAsString(response.getBody());
-                logger.info("=== LLM Server Response (SUCCESS) ===");
-                logger.info("Status Code: {}", response.getStatusCode());
-                logger.info("Response Body:\n{}", responseJson);
-            } catch (Exception e) {
-                logger.error("Failed to log LLM response", e);
-            }
-            
-            // AI 서버 응답이 성공적이고 responseBody가 있으면 Conversation 업데이트
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                updateConversationHistory(ue5Request, response.getBody());
-            }
-            
-            // NpcChatResponse를 Ue5NpcResponse로 변환
-            Ue5NpcResponse ue5Response = convertToUe5NpcResponse(response.getBody());
-            
-            // 처리된 응답을 UE5로 반환
-            return ResponseEntity.status(response.getStatusCode()).body(ue5Response);
-            
-        } catch (org.springframework.web.client.HttpStatusCodeException e) {
-            // LLM 서버 에러 응답 로그 출력
-            logger.error("=== LLM Server Response (ERROR) ===");
-            logger.error("Status Code: {}", e.getStatusCode());
-            logger.error("Error Response Body:\n{}", e.getResponseBodyAsString());
-            throw e;
-        }
+        return new PreparedNpcChat(npcChatRequest, conversationSnapshot, chatContextBuilder.tokenBudgetFor(persona.getNpcInfo()));
     }
 
     /**
      * UE5에서 받은 질감/색 정보를 파이썬 AI 서버로 전달하고,
      * 파이썬 AI 서버의 응답을 UE5로 반환합니다.
      * (게이트웨이 역할)
+     *
+     * 응답 본문은 메모리에 올리지 않고 UE5 응답을 쓰면서 업스트림에서 읽어 전달합니다.
      * @param body UE5에서 받은 요청 (materialDescription: string, materialInfo: json)
+     * @param binary true면 multipart/form-data(baseColor, normalMap, ORMMap, emissiveMap PNG 파트)로 응답
      * @return 파이썬 AI 서버의 응답 (baseColor64, normalMap64, ORMMap64, emissiveMap64)
      */
-    public ResponseEntity<?> forwardMaterialRequest(Map<String, Object> body) {
+    public ResponseEntity<StreamingResponseBody> forwardMaterialRequest(Map<String, Object> body, boolean binary) {
+        String cacheKey = materialTextureCache.isEnabled() ? materialTextureCache.keyOf(body) : null;
+        ResponseEntity<StreamingResponseBody> cached = cachedMaterialResponse(cacheKey, binary);
+        if (cached != null) {
+            return cached;
+        }
+        return requestMaterial(body, cacheKey, binary);
+    }
+
+    /**
+     * 캐시된 텍스처 응답을 반환합니다. (X-Material-Cache: HIT)
+     * @param cacheKey 캐시 키 (캐시를 쓰지 않으면 null)
+     * @param binary multipart 응답 여부
+     * @return 캐시 응답 (없으면 null)
+     */
+    private ResponseEntity<StreamingResponseBody> cachedMaterialResponse(String cacheKey, boolean binary) {
+        if (cacheKey == null) {
+            return null;
+        }
+        InputStream cached = materialTextureCache.open(cacheKey);
+        if (cached == null) {
+            return null;
+        }
+        String boundary = materialStreamClient.newBoundary(binary);
+        return ResponseEntity.ok()
+            .contentType(materialStreamClient.contentType(boundary))
+            .header("X-Material-Cache", "HIT")
+            .body(out -> {
+                try (cached) {
+                    materialStreamClient.writeBody(cached, out, boundary);
+                }
+            });
+    }
+
+    private ResponseEntity<StreamingResponseBody> requestMaterial(Map<String, Object> body, String cacheKey, boolean binary) {
+        boolean captured = payloadCapture.sample();
         try {
-            // 요청 로그 출력
-            try {
-                String requestJson = objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValueAsString(body);
-                logger.info("=== Material Request ===");
-                logger.info("URL: {}/api.ai/material", aiServerUrl);
-                logger.info("Request Body:\n{}", requestJson);
-            } catch (Exception e) {
-                logger.error("Failed to log Material request", e);
+            // 요청 캡처 (capture.sample-rate 비율만)
+            if (captured) {
+                payloadCapture.capture("material", "request", null, null, null, body);
             }
             
-            // 요청 헤더 설정 (JSON)
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-            
-            // 파이썬 AI 서버의 Material 엔드포인트로 POST 요청
+            // 파이썬 AI 서버의 Material 엔드포인트로 POST 요청 (응답 헤더까지만 받음)
+            // 벌크헤드 자리는 본문을 UE5로 다 보낼 때까지 잡고, 결과도 그때 서킷 브레이커에 기록
             String url = aiServerUrl + "/api.ai/material";
-            ParameterizedTypeReference<Map<String, Object>> responseType = 
-                new ParameterizedTypeReference<Map<String, Object>>() {};
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                url, HttpMethod.POST, request, responseType);
-            
-            // 응답 로그 출력
+            UpstreamGuard.Permit permit = aiMaterialGuard.acquire();
+            ClientHttpResponse upstream;
             try {
-                String responseJson = objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValueAsString(response.getBody());
-                logger.info("=== Material Response ===");
-                logger.info("Status Code: {}", response.getStatusCode());
-                logger.info("Response Body:\n{}", responseJson);
-            } catch (Exception e) {
-                logger.error("Failed to log Material response", e);
+                upstream = materialStreamClient.open(url, body);
+            } catch (RuntimeException e) {
+                permit.failure(e);
+                throw e;
             }
             
-            // 응답이 성공적이면 JSON 응답 반환
-            Map<String, Object> responseBody = response.getBody();
-            if (response.getStatusCode().is2xxSuccessful() && responseBody != null) {
-                // 응답 형식: { baseColor64, normalMap64, ORMMap64, emissiveMap64 }
-                Map<String, String> materialResponse = new java.util.HashMap<>();
-                
-                if (responseBody.get("baseColor64") != null) {
-                    materialResponse.put("baseColor64", responseBody.get("baseColor64").toString());
-                }
-                if (responseBody.get("normalMap64") != null) {
-                    materialResponse.put("normalMap64", responseBody.get("normalMap64").toString());
-                }
-                if (responseBody.get("ORMMap64") != null) {
-                    materialResponse.put("ORMMap64", responseBody.get("ORMMap64").toString());
-                }
-                if (responseBody.get("emissiveMap64") != null) {
-                    materialResponse.put("emissiveMap64", responseBody.get("emissiveMap64").toString());
-                }
-                
-                return ResponseEntity.status(response.getStatusCode()).body(materialResponse);
-            } else {
-                return ResponseEntity.status(response.getStatusCode()).body(responseBody);
+            // 응답 캡처 (본문은 스트리밍하므로 상태만)
+            if (captured) {
+                payloadCapture.capture("material", "response", null, null, upstream.getStatusCode().value(), "(streamed)");
             }
             
+            // 본문이 실행되지 않으면(비동기 타임아웃, MVC 타임아웃 뒤에 끝난 업스트림 작업) 정리 대상
+            PendingMaterialStream pending = new PendingMaterialStream(upstream, permit, System.currentTimeMillis() + streamTimeoutMs);
+            pendingMaterialStreams.add(pending);
+            
+            // 본문은 UE5 응답을 쓰면서 읽고, 끝까지 받으면 같은 요청을 위해 캐시에 저장
+            String boundary = materialStreamClient.newBoundary(binary);
+            return ResponseEntity.status(upstream.getStatusCode())
+                .contentType(materialStreamClient.contentType(boundary))
+                .body(out -> {
+                    pendingMaterialStreams.remove(pending);
+                    if (!pending.claim()) {
+                        // 이미 정리되어 업스트림 응답이 닫힘
+                        throw new IOException("Material upstream response expired before the body was written");
+                    }
+                    try (upstream;
+                         MaterialTextureCache.Writer cacheWriter = cacheKey != null ? materialTextureCache.openWriter(cacheKey) : null) {
+                        InputStream in = MaterialStreamClient.tee(upstream.getBody(), cacheWriter != null ? cacheWriter.stream() : null);
+                        materialStreamClient.writeBody(in, MaterialStreamClient.downstream(out), boundary);
+                        if (cacheWriter != null) {
+                            in.transferTo(OutputStream.nullOutputStream());
+                            cacheWriter.commit();
+                        }
+                        permit.success();
+                    } catch (UncheckedIOException e) {
+                        // UE5 연결 종료
+                        permit.failure(e);
+                        throw e.getCause();
+                    } catch (IOException | RuntimeException | Error e) {
+                        // 업스트림 본문 읽기 실패
+                        permit.failure(e);
+                        throw e;
+                    }
+                });
+            
         } catch (org.springframework.web.client.HttpStatusCodeException e) {
             // AI 서버 에러 응답 로그 출력
             logger.error("=== Material Server Response (ERROR) ===");
             logger.error("Status Code: {}", e.getStatusCode());
             logger.error("Error Response Body:\n{}", e.getResponseBodyAsString());
-            return ResponseEntity.status(e.getStatusCode()).body(
-                java.util.Collections.singletonMap("error", e.getResponseBodyAsString())
-            );
+            if (captured) {
+                payloadCapture.capture("material", "error", null, null, e.getStatusCode().value(), e.getResponseBodyAsString());
+            }
+            return materialStreamClient.error(e.getStatusCode(), e.getResponseBodyAsString());
+        } catch (UpstreamRejectedException e) {
+            // 서킷 OPEN 또는 벌크헤드 포화
+            logger.warn("Material request not sent: {}", e.getReason());
+            return materialStreamClient.error(HttpStatus.SERVICE_UNAVAILABLE, "Material 서버가 일시적으로 응답할 수 없습니다. 잠시 후 다시 시도해주세요.");
         } catch (Exception e) {
             logger.error("Material request error", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
-                java.util.Collections.singletonMap("error", "Material 처리 중 오류가 발생했습니다: " + e.getMessage())
-            );
+            return materialStreamClient.error(HttpStatus.INTERNAL_SERVER_ERROR, "Material 처리 중 오류가 발생했습니다: " + e.getMessage());
         }
     }
-    
+
+    /**
+     * ai.upstream.stream-timeout-ms가 지나도록 본문 전송이 시작되지 않은 Material 업스트림 응답을 닫고
+     * 가드 자리를 실패로 반환합니다. (본문 람다가 실행되지 않으면 자리와 연결이 남기 때문)
+     */
+    @Scheduled(fixedDelayString = "${ai.upstream.stream-reap-interval-ms:10000}")
+    public void reapMaterialStreams() {
+        long now = System.currentTimeMillis();
+        pendingMaterialStreams.removeIf(pending -> {
+            if (pending.deadline > now) {
+                return false;
+            }
+            if (pending.claim()) {
+                logger.warn("Material response body was not written within {}ms, releasing upstream", streamTimeoutMs);
+                pending.upstream.close();
+                pending.permit.failure(new TimeoutException("Material response body was not written within " + streamTimeoutMs + "ms"));
+            }
+            return true;
+        });
+    }
+
     /**
      * Conversation.ChatHistory 리스트를 NpcChatRequest.ChatHistory 리스트로 변환
      */
@@ -418,39 +944,60 @@ public class GameEventService {
     }
     
     /**
-     * userId와 npcId로 Conversation을 조회합니다.
-     * User나 NPC가 존재하지 않으면 null 반환 (404),
-     * 둘 다 존재하지만 Conversation이 없으면 빈 객체 반환 (200)
+     * 유저, 프로필, NPC를 검증하고 해당 프로필과 NPC 간의 대화 기록을 조회합니다.
+     * 검증과 대화 조회를 한 번의 쿼리(ConversationRepository.lookup)로 처리하며,
+     * 검증을 통과한 결과는 대화 기록 쓰기 전까지 ConversationReadCache에서 바로 반환합니다.
      * @param userId 유저 ID
-     * @param npcId NPC ID
      * @param profileId 프로필 ID
-     * @return Conversation (User나 NPC가 없으면 null)
+     * @param npcId NPC ID
+     * @return 대화 기록 (대화가 없으면 빈 대화), 유저/NPC/프로필이 없거나 소유자가 다르면 404
      */
-    public Conversation getNpcConversations(Long userId, Long profileId, Long npcId) {
-        // User 존재 여부 확인
-        if (!userRepository.existsById(userId)) {
-            return null; // User가 없으면 404
+    public ResponseEntity<?> getNpcConversations(Long userId, Long profileId, Long npcId) {
+        ConversationWriter.ConversationKey key = new ConversationWriter.ConversationKey(profileId, npcId);
+        ConversationWriter.Snapshot cached = conversationReadCache.get(userId, key);
+        if (cached != null) {
+            return ResponseEntity.ok(toConversationResponse(cached.getConversation(), profileId, npcId));
         }
-        
-        // NPC 존재 여부 확인
-        if (!npcRepository.existsById(npcId)) {
-            return null; // NPC가 없으면 404
+
+        long readStamp = conversationWriter.beginRead();
+        Optional<ConversationLookup> lookupOptional = conversationRepository.lookup(userId, profileId, npcId);
+        String notFound = null;
+        if (lookupOptional.isEmpty()) {
+            notFound = "Profile not found: " + profileId;
+        } else if (!lookupOptional.get().isUserExists()) {
+            notFound = "User not found: " + userId;
+        } else if (!lookupOptional.get().isNpcExists()) {
+            notFound = "NPC not found: " + npcId;
+        } else if (!lookupOptional.get().getProfileOwnerId().equals(userId)) {
+            notFound = "Profile " + profileId + " does not belong to user " + userId;
         }
-        
-        // Profile 존재 여부 및 소유권 확인
-        Optional<UserGameProfile> profileOptional = userGameProfileRepository.findById(profileId);
-        if (profileOptional.isEmpty()) {
-            return null; // Profile이 없으면 404
+        if (notFound != null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", notFound));
         }
-        
-        UserGameProfile profile = profileOptional.get();
-        if (!profile.getUserId().equals(userId)) {
-            return null; // Profile 소유권 불일치
+
+        // write-behind 버퍼에 아직 저장되지 않은 최신 대화가 있으면 그것을 반환
+        ConversationLookup lookup = lookupOptional.get();
+        ConversationWriter.Snapshot snapshot = conversationWriter.resolve(key, lookup.getConversation(), readStamp);
+        conversationReadCache.put(lookup.getProfileOwnerId(), snapshot);
+        return ResponseEntity.ok(toConversationResponse(snapshot.getConversation(), profileId, npcId));
+    }
+
+    /**
+     * Conversation을 조회 응답으로 변환합니다. (대화가 없으면 빈 대화, 저장용 필드 제외)
+     */
+    private ConversationResponse toConversationResponse(Conversation conversation, Long profileId, Long npcId) {
+        if (conversation == null) {
+            conversation = new Conversation(profileId, npcId);
         }
-        
-        // User와 NPC 모두 존재하면 Conversation 조회 또는 빈 객체 반환
-        return conversationRepository.findByProfileIdAndNpcId(profileId, npcId)
-            .orElse(new Conversation(profileId, npcId));
+        List<Ue5NpcResponse.ChatHistory> history = new ArrayList<>();
+        if (conversation.getRecentHistory() != null) {
+            for (Conversation.ChatHistory chat : conversation.getRecentHistory()) {
+                history.add(new Ue5NpcResponse.ChatHistory(chat.getSpeaker(), chat.getMessage(), chat.getTimestamp(),
+                    chat.getEmotionData()));
+            }
+        }
+        return new ConversationResponse(conversation.getConversationId(), conversation.getProfileId(), conversation.getNpcId(),
+            history, conversation.getSummary(), conversation.getLastUpdated());
     }
     
     /**
@@ -464,18 +1011,24 @@ public class GameEventService {
     /**
      * Conversation의 recentHistory를 업데이트합니다.
      * currentPlayerMessage와 npcResponse를 추가하고,
-     * 22개 이상이 되면 가장 오래된 2개를 제거합니다.
+     * 남은 기록만으로 토큰 예산을 채울 수 있으면(또는 conversation.history.max-messages개를 넘으면) 가장 오래된 2개씩 제거합니다.
+     * 같은 (profileId, npcId)의 갱신은 ConversationWriter가 순서대로 하나씩 실행하므로 턴이 유실되지 않습니다.
      * @param ue5Request UE5 요청
      * @param npcChatResponse AI 서버 응답
+     * @param prepared 요청 구성 시 읽은 대화 기록과 토큰 예산
      */
-    private void updateConversationHistory(Ue5NpcRequest ue5Request, NpcChatResponse npcChatResponse) {
-        Long profileId = ue5Request.getProfileId();
-        Long npcId = ue5Request.getNpcId();
-        
-        // Conversation 조회 또는 생성
-        Conversation conversation = conversationRepository.findByProfileIdAndNpcId(profileId, npcId)
-            .orElse(new Conversation(profileId, npcId));
-        
+    private void updateConversationHistory(Ue5NpcRequest ue5Request, NpcChatResponse npcChatResponse,
+                                           PreparedNpcChat prepared) {
+        conversationWriter.update(prepared.conversationSnapshot,
+            conversation -> appendTurn(conversation, ue5Request, npcChatResponse, prepared.contextTokenBudget));
+    }
+
+    /**
+     * 대화 기록에 플레이어 메시지와 NPC 응답 한 턴을 추가합니다. (저장은 ConversationWriter가 수행)
+     */
+    private void appendTurn(Conversation conversation, Ue5NpcRequest ue5Request, NpcChatResponse npcChatResponse,
+                            int contextTokenBudget) {
+        int added = 0;
         // 기존 recentHistory 가져오기 (null이면 새 리스트 생성)
         List<Conversation.ChatHistory> recentHistory = conversation.getRecentHistory();
         if (recentHistory == null) {
@@ -492,7 +1045,10 @@ public class GameEventService {
                 ue5Request.getCurrentPlayerMessage().getMessage(),
                 ue5Request.getCurrentPlayerMessage().getTimestamp()
             );
+            // 토큰 수는 메시지를 만들 때 한 번만 계산 (이후 조회 경로에서는 읽기만 함)
+            playerMessage.setTokenCount(chatContextBuilder.tokensOf(playerMessage));
             recentHistory.add(playerMessage);
+            added++;
         }
         
         // 2. npcResponse 추가 (emotionData 포함)
@@ -503,15 +1059,24 @@ public class GameEventService {
                 npcChatResponse.getNpcResponse().getTimestamp(),
                 npcChatResponse.getNpcResponse().getEmotionData()  // ChatHistory 내부의 emotionData
             );
+            npcResponse.setTokenCount(chatContextBuilder.tokensOf(npcResponse));
             recentHistory.add(npcResponse);
+            conversation.recordEmotion(npcResponse.getEmotionData());
+            added++;
         }
+        int unsummarizedCount = (conversation.getUnsummarizedCount() != null ? conversation.getUnsummarizedCount() : 0) + added;
+        conversation.setUnsummarizedCount(unsummarizedCount);
         
-        // 3. 22개 이상이면 앞의 2개 제거
-        if (recentHistory.size() >= 8) {
+        // 3. 앞의 2개를 버려도 남은 기록으로 토큰 예산을 채울 수 있으면 제거 (LLM에 다시 보낼 일이 없는 메시지)
+        //    (LLM에 보내는 양은 ChatContextBuilder가 같은 예산으로 제한)
+        boolean trimmed = false;
+        while (recentHistory.size() > 2 && canTrimOldest(recentHistory, unsummarizedCount, contextTokenBudget)) {
             recentHistory = new ArrayList<>(recentHistory.subList(2, recentHistory.size()));
-            
-            // 4. summary 업데이트
-            if (npcChatResponse.getPreviousConversationSummary() != null) {
+            trimmed = true;
+        }
+        if (trimmed) {
+            // 4. summary 업데이트 (백그라운드 요약을 쓰면 ConversationSummarizer가 갱신)
+            if (!conversationSummarizer.isEnabled() && npcChatResponse.getPreviousConversationSummary() != null) {
                 conversation.setSummary(npcChatResponse.getPreviousConversationSummary());
             }
         }
@@ -519,130 +1084,21 @@ public class GameEventService {
         // Conversation 업데이트
         conversation.setRecentHistory(recentHistory);
         conversation.setLastUpdated(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
-        
-        // DB에 저장
-        conversationRepository.save(conversation);
     }
     
     /**
-     * NPC의 npcInfo를 AI 프롬프트 형식의 문자열로 변환합니다.
-     * @param npc NPC 엔티티
-     * @return 포맷팅된 NPC 설명 문자열
+     * 가장 오래된 메시지 2개를 버려도 되는지 확인합니다.
+     * 남은 기록만으로 토큰 예산을 채울 수 있을 때만 버리고, 백그라운드 요약을 쓰면 아직 요약되지 않은 메시지도 남겨둡니다.
+     * 예산이나 요약과 관계없이 conversation.history.max-messages개를 넘으면 버립니다. (행 크기 상한)
      */
-    private String buildNpcDescription(Npc npc) {
-        if (npc.getNpcInfo() == null || npc.getNpcInfo().isEmpty()) {
-            return "";
-        }
-        
-        Map<String, Object> npcInfo = npc.getNpcInfo();
-        StringBuilder description = new StringBuilder();
-        
-        description.append("# 시스템 명령 및 페르소나 정의\n");
-        description.append("당신은 이제부터 '").append(npc.getName()).append("'라는 ");
-        description.append(getStringValue(npcInfo, "occupation", "NPC"));
-        description.append(" NPC 역할을 수행해야 합니다.\n");
-        description.append("다음의 정보를 철저히 준수하여 사용자와 대화하십시오.\n\n");
-        
-        description.append("## ").append(npc.getName()).append(" NPC 페르소나\n");
-        description.append("* **이름:** ").append(npc.getName()).append("\n");
-        description.append("* **성별:** ").append(getStringValue(npcInfo, "gender", "알 수 없음")).append("\n");
-        description.append("* **나이:** ").append(getStringValue(npcInfo, "age", "알 수 없음")).append("세\n");
-        description.append("* **위치:** ").append(getStringValue(npcInfo, "location", "알 수 없음")).append("\n");
-        description.append("* **직업:** ").append(getStringValue(npcInfo, "occupation", "알 수 없음")).append("\n");
-        description.append("* **성격:** ").append(getStringValue(npcInfo, "personality", "알 수 없음")).append("\n");
-        
-        String persona = getStringValue(npcInfo, "persona", "");
-        if (!persona.isEmpty()) {
-            description.append("* **스토리/캐릭터 배경:** ").append(persona).append("\n");
-        }
-        
-        description.append("\n## 대화 스타일 (Speaking Style)\n");
-        String speakingStyle = getStringValue(npcInfo, "speakingStyle", "평범한 말투로 대화합니다.");
-        description.append("* **특징:** ").append(speakingStyle).append("\n");
-        
-        return description.toString();
-    }
-    
-    /**
-     * 플레이어의 상세 정보를 AI 프롬프트 형식의 문자열로 변환합니다.
-     * @param playerDescriptionMap UE5에서 받은 플레이어 정보 맵
-     * @param playerName 플레이어 이름
-     * @return 포맷팅된 플레이어 설명 문자열
-     */
-    private String buildPlayerDescription(Map<String, Object> playerDescriptionMap, String playerName) {
-        if (playerDescriptionMap == null || playerDescriptionMap.isEmpty()) {
-            // 기본 설명 반환
-            return "이름: " + playerName + "\n정보: 모험가";
-        }
-        
-        StringBuilder description = new StringBuilder();
-        
-        description.append("## 플레이어 정보\n");
-        description.append("* **이름:** ").append(playerName).append("\n");
-        
-        // 레벨 정보
-        if (playerDescriptionMap.containsKey("level")) {
-            description.append("* **레벨:** ").append(getStringValue(playerDescriptionMap, "level", "1")).append("\n");
-        }
-        
-        // 직업/클래스 정보
-        if (playerDescriptionMap.containsKey("class")) {
-            description.append("* **직업:** ").append(getStringValue(playerDescriptionMap, "class", "모험가")).append("\n");
+    private boolean canTrimOldest(List<Conversation.ChatHistory> history, int unsummarizedCount, int contextTokenBudget) {
+        if (history.size() > historyMaxMessages) {
+            return true;
         }
-        
-        // 현재 위치
-        if (playerDescriptionMap.containsKey("currentLocation")) {
-            description.append("* **현재 위치:** ").append(getStringValue(playerDescriptionMap, "currentLocation", "알 수 없음")).append("\n");
-        }
-        
-        // 소지금
-        if (playerDescriptionMap.containsKey("gold")) {
-            description.append("* **소지금:** ").append(getStringValue(playerDescriptionMap, "gold", "0")).append(" 골드\n");
-        }
-        
-        // 평판
-        if (playerDescriptionMap.containsKey("reputation")) {
-            description.append("* **평판:** ").append(getStringValue(playerDescriptionMap, "reputation", "보통")).append("\n");
-        }
-        
-        // 최근 업적
-        if (playerDescriptionMap.containsKey("recentAchievement")) {
-            description.append("* **최근 업적:** ").append(getStringValue(playerDescriptionMap, "recentAchievement", "없음")).append("\n");
-        }
-        
-        // 현재 퀘스트
-        if (playerDescriptionMap.containsKey("currentQuest")) {
-            description.append("* **진행 중인 퀘스트:** ").append(getStringValue(playerDescriptionMap, "currentQuest", "없음")).append("\n");
+        if (!chatContextBuilder.fillsBudgetWithout(history, 2, contextTokenBudget)) {
+            return false;
         }
-        
-        // 추가 정보가 있다면 포함
-        for (Map.Entry<String, Object> entry : playerDescriptionMap.entrySet()) {
-            String key = entry.getKey();
-            // 이미 처리한 필드는 건너뛰기
-            if (!key.equals("playername") && !key.equals("level") && !key.equals("class") 
-                && !key.equals("currentLocation") && !key.equals("gold") 
-                && !key.equals("reputation") && !key.equals("recentAchievement") 
-                && !key.equals("currentQuest")) {
-                description.append("* **").append(key).append(":** ").append(entry.getValue()).append("\n");
-            }
-        }
-        
-        return description.toString();
-    }
-    
-    /**
-     * Map에서 문자열 값을 안전하게 추출합니다.
-     * @param map 데이터 맵
-     * @param key 키
-     * @param defaultValue 기본값
-     * @return 추출된 값 또는 기본값
-     */
-    private String getStringValue(Map<String, Object> map, String key, String defaultValue) {
-        Object value = map.get(key);
-        if (value == null) {
-            return defaultValue;
-        }
-        return value.toString();
+        return conversationSummarizer.keepsUnsummarized(history.size(), unsummarizedCount, 2);
     }
     
     /**
@@ -651,29 +1107,19 @@ public class GameEventService {
      * @return UserGameProfileResponse (프로필이 없으면 null)
      */
     public UserGameProfileResponse getUserGameProfile(Long profileId) {
-        Optional<UserGameProfile> profileOptional = userGameProfileRepository.findById(profileId);
+        // 버퍼에 남은 Gold/경험치 증감 (DB 조회보다 먼저 가져옴)
+        ProfileDeltaBuffer.Pending pending = profileDeltaBuffer.pending(profileId);
+        // JSON 컬럼 역직렬화 없이 캐시에서 (version으로 검증)
+        ProfileCache.CachedProfile profile = profileCache.get(profileId);
         
-        if (profileOptional.isEmpty()) {
+        if (profile == null) {
             return null;
         }
         
-        UserGameProfile profile = profileOptional.get();
-        
         // 소유권 검증
-        validateProfileOwnership(profile);
+        validateProfileOwnership(profile.getUserId());
         
-        return new UserGameProfileResponse(
-            profile.getId(),        // Entity는 id
-            profile.getUserId(),
-            profile.getProfileName(),
-            profile.getLevel(),
-            profile.getExperience(),
-            profile.getGold(),
-            profile.getEquippedItems(),
-            profile.getSkillInfo(),
-            profile.getCreatedAt(),
-            profile.getUpdatedAt()
-        );
+        return profile.toResponse(pending);
     }
     
     /**
@@ -749,6 +1195,9 @@ public class GameEventService {
         UserGameProfile profile;
         
         if (request.getProfileId() != null) {
+            // 버퍼에 남은 Gold/경험치 증감을 먼저 반영 (요청 값이 그 위에 덮어씀)
+            profileDeltaBuffer.flushProfile(request.getProfileId());
+            
             // 기존 프로필 업데이트
             profile = userGameProfileRepository.findById(request.getProfileId())
                 .orElseThrow(() -> new IllegalArgumentException("Profile not found: " + request.getProfileId()));
@@ -799,6 +1248,9 @@ public class GameEventService {
      */
     @Transactional
     public UserGameProfileResponse updateUserGameProfile(UserGameProfileUpdateRequest request) {
+        // 버퍼에 남은 Gold/경험치 증감을 먼저 반영 (요청 값이 그 위에 덮어씀)
+        profileDeltaBuffer.flushProfile(request.getProfileId());
+        
         Optional<UserGameProfile> profileOptional = userGameProfileRepository.findById(request.getProfileId());
         
         if (profileOptional.isEmpty()) {
@@ -847,124 +1299,302 @@ public class GameEventService {
     /**
      * Gold를 증감합니다. (최적화된 단일 필드 업데이트)
      * 음수 amount로 차감도 가능합니다.
-     * 낙관적 락으로 동시성 문제 해결
+     * 엔티티(JSON 컬럼 포함)를 읽지 않고 UPDATE ... SET gold = gold + :amount 한 번으로 처리하므로
+     * 같은 프로필에 동시 요청이 몰려도 낙관적 락 충돌 없이 행 잠금 순서대로 모두 반영됩니다.
+     * 잔액 부족과 INT 범위 초과는 WHERE 조건으로 DB에서 판단합니다. (0행이면 400)
+     * profile.delta-buffer.enabled=true 이면 증가분은 ProfileDeltaBuffer에 모아 주기적으로 반영합니다.
      * @param request profileId와 증감량
      * @return 간소화된 Gold 업데이트 응답 (프로필이 없으면 null)
      */
     @Transactional
     public GoldUpdateResponse updateGold(GoldUpdateRequest request) {
-        UserGameProfile profile = userGameProfileRepository
-            .findById(request.getProfileId())
-            .orElse(null);
-        
-        if (profile == null) {
-            return null;
+        if (request.getAmount() >= 0 && profileDeltaBuffer.isEnabled()) {
+            ProfileCounters stored = readStoredCounters(request.getProfileId());
+            if (stored == null) {
+                return null;
+            }
+            // INT 범위를 넘으면 IllegalArgumentException (400)
+            ProfileCounters counters = profileDeltaBuffer.add(request.getProfileId(), request.getAmount(), 0, stored);
+            if (counters != null) {
+                return new GoldUpdateResponse(counters.getProfileId(), counters.getGold(), request.getAmount(), LocalDateTime.now());
+            }
         }
         
-        // 소유권 검증
-        validateProfileOwnership(profile);
+        // 차감은 버퍼에 남은 증가분을 먼저 반영한 뒤 DB에서 잔액 검증
+        profileDeltaBuffer.flushProfile(request.getProfileId());
+        int updated = userGameProfileRepository.addGold(request.getProfileId(), request.getAmount(), LocalDateTime.now());
         
-        // Gold 증감 (음수면 차감)
-        int newGold = profile.getGold() + request.getAmount();
-        
-        // Gold가 음수가 되지 않도록 검증
-        if (newGold < 0) {
-            throw new IllegalArgumentException("Gold cannot be negative. Current: " + profile.getGold() + ", Amount: " + request.getAmount());
+        // 갱신한 행은 트랜잭션이 끝날 때까지 잠겨 있으므로 다른 요청의 값이 섞이지 않음 (버퍼의 증가분만 더함)
+        ProfileCounters counters = readCounters(request.getProfileId());
+        if (counters == null) {
+            return null;
         }
         
-        profile.setGold(newGold);
-        profile.setUpdatedAt(LocalDateTime.now());
+        // 소유권 검증 (실패 시 예외로 롤백)
+        validateProfileOwnership(counters.getUserId());
         
-        UserGameProfile savedProfile = userGameProfileRepository.save(profile);
+        // 0행이면 차감은 Gold 부족, 증가는 INT 범위 초과
+        if (updated == 0) {
+            if (request.getAmount() < 0) {
+                throw new IllegalArgumentException("Gold cannot be negative. Current: " + counters.getGold() + ", Amount: " + request.getAmount());
+            }
+            throw new IllegalArgumentException("Gold exceeds maximum. Current: " + counters.getGold() + ", Amount: " + request.getAmount());
+        }
+        eventPublisher.publishEvent(new UserGameProfileChangedEvent(counters.getProfileId(), null));
         
         // 간소화된 응답 (변경된 정보만)
         return new GoldUpdateResponse(
-            savedProfile.getId(),    // Entity는 id
-            savedProfile.getGold(),
+            counters.getProfileId(),
+            counters.getGold(),
             request.getAmount(),
-            savedProfile.getUpdatedAt()
+            counters.getUpdatedAt()
         );
     }
     
     /**
      * Experience를 증가시킵니다. (레벨업 로직 제외)
-     * 낙관적 락으로 동시성 문제 해결
+     * Gold와 같이 UPDATE ... SET experience = experience + :amount 한 번으로 처리합니다.
      * @param request profileId와 획득 경험치
-     * @return ExperienceUpdateResponse (레벨과 경험치 정보)
+     * @return ExperienceUpdateResponse (레벨과 경험치 정보, 프로필이 없으면 null)
+     * @throws IllegalArgumentException 경험치가 BIGINT 범위를 넘는 경우
      */
     @Transactional
     public ExperienceUpdateResponse addExperience(ExperienceUpdateRequest request) {
-        UserGameProfile profile = userGameProfileRepository
-            .findById(request.getProfileId())
-            .orElse(null);
-        
-        if (profile == null) {
-            return null;
+        if (profileDeltaBuffer.isEnabled()) {
+            ProfileCounters stored = readStoredCounters(request.getProfileId());
+            if (stored == null) {
+                return null;
+            }
+            ProfileCounters counters = profileDeltaBuffer.add(request.getProfileId(), 0, request.getAmount(), stored);
+            if (counters != null) {
+                return new ExperienceUpdateResponse(counters.getProfileId(), counters.getLevel(), counters.getExperience(),
+                    request.getAmount(), LocalDateTime.now());
+            }
         }
         
-        // 소유권 검증
-        validateProfileOwnership(profile);
+        long amount = request.getAmount();
+        long maxCurrent = amount > 0 ? Long.MAX_VALUE - amount : Long.MAX_VALUE;
+        int updated = userGameProfileRepository.addExperience(request.getProfileId(), amount, maxCurrent, LocalDateTime.now());
         
-        // 경험치 증가만 처리 (레벨업은 별도 처리)
-        long newExperience = profile.getExperience() + request.getAmount();
+        ProfileCounters counters = readCounters(request.getProfileId());
+        if (counters == null) {
+            return null;
+        }
         
-        profile.setExperience(newExperience);
-        profile.setUpdatedAt(LocalDateTime.now());
+        // 소유권 검증 (실패 시 예외로 롤백)
+        validateProfileOwnership(counters.getUserId());
         
-        UserGameProfile savedProfile = userGameProfileRepository.save(profile);
+        // 프로필이 있는데 0행이면 범위 초과
+        if (updated == 0) {
+            throw new IllegalArgumentException("Experience exceeds maximum. Current: " + counters.getExperience() + ", Amount: " + amount);
+        }
+        eventPublisher.publishEvent(new UserGameProfileChangedEvent(counters.getProfileId(), null));
         
         // 간소화된 응답 (변경된 정보만)
         return new ExperienceUpdateResponse(
-            savedProfile.getId(),    // Entity는 id
-            savedProfile.getLevel(),
-            savedProfile.getExperience(),
+            counters.getProfileId(),
+            counters.getLevel(),
+            counters.getExperience(),
             request.getAmount(),
-            savedProfile.getUpdatedAt()
+            counters.getUpdatedAt()
         );
     }
     
+    /**
+     * 프로필 수치를 조회하고 ProfileDeltaBuffer에 남은 Gold/경험치 증감을 더합니다.
+     * @return 프로필 수치 (프로필이 없으면 null)
+     */
+    private ProfileCounters readCounters(Long profileId) {
+        // 증감 스냅샷을 DB 조회보다 먼저 가져와야 사이에 끝난 flush를 중복 없이 합산
+        ProfileDeltaBuffer.Pending pending = profileDeltaBuffer.pending(profileId);
+        ProfileCounters counters = userGameProfileRepository.findCountersById(profileId).orElse(null);
+        return counters != null && pending != null ? pending.applyTo(counters) : counters;
+    }
+    
+    /**
+     * 버퍼에 증감을 넣기 전에 DB의 프로필 수치를 조회하고 소유권을 검증합니다.
+     * (버퍼는 이 값에 남은 증감을 더해 범위를 검사하고 응답 값을 만듦)
+     * @return 프로필 수치 (프로필이 없으면 null)
+     */
+    private ProfileCounters readStoredCounters(Long profileId) {
+        ProfileCounters stored = userGameProfileRepository.findCountersById(profileId).orElse(null);
+        if (stored != null) {
+            validateProfileOwnership(stored.getUserId());
+        }
+        return stored;
+    }
+    
     /**
      * 장비 슬롯에 아이템을 장착하거나 해제합니다. (최적화된 단일 슬롯 업데이트)
-     * 낙관적 락으로 동시성 문제 해결
+     * 엔티티를 읽어 equipped_items 전체를 다시 쓰는 대신 JSON_SET/JSON_REMOVE로 해당 슬롯만 바꾸므로
+     * 같은 프로필의 Gold/경험치 갱신과 낙관적 락 충돌이 나지 않습니다.
      * @param request profileId, 슬롯명, 아이템ID (null이면 해제)
      * @return 간소화된 장비 업데이트 응답 (프로필이 없으면 null)
+     * @throws IllegalArgumentException 허용되지 않는 슬롯명
      */
     @Transactional
     public EquipmentUpdateResponse updateEquipmentSlot(EquipmentSlotRequest request) {
-        UserGameProfile profile = userGameProfileRepository
-            .findById(request.getProfileId())
-            .orElse(null);
+        String path = UserGameProfile.equipmentSlotPath(request.getSlot());
         
-        if (profile == null) {
+        // 소유자와 이전 아이템 ID 조회 (행 잠금 - 이전 아이템 ID가 동시 변경과 섞이지 않도록)
+        List<Object[]> rows = userGameProfileRepository.lockEquipmentSlot(request.getProfileId(), path);
+        if (rows.isEmpty()) {
             return null;
         }
+        Object[] row = rows.get(0);
         
         // 소유권 검증
-        validateProfileOwnership(profile);
+        validateProfileOwnership(((Number) row[0]).longValue());
         
         // 이전 아이템 ID 저장
-        Long previousItemId = profile.getEquippedItem(request.getSlot());
+        Long previousItemId = row[1] != null ? ((Number) row[1]).longValue() : null;
         
         // 슬롯 장착/해제
+        LocalDateTime now = LocalDateTime.now();
         if (request.getItemId() == null) {
             // 해제
-            profile.unequipItem(request.getSlot());
+            userGameProfileRepository.removeEquipmentSlot(request.getProfileId(), path, now);
         } else {
             // 장착
-            profile.equipItem(request.getSlot(), request.getItemId());
+            userGameProfileRepository.setEquipmentSlot(request.getProfileId(), path, request.getItemId(), now);
         }
-        
-        profile.setUpdatedAt(LocalDateTime.now());
-        UserGameProfile savedProfile = userGameProfileRepository.save(profile);
+        eventPublisher.publishEvent(new UserGameProfileChangedEvent(request.getProfileId(), null));
         
         // 간소화된 응답 (변경된 슬롯 정보만)
         return new EquipmentUpdateResponse(
-            savedProfile.getId(),    // Entity는 id
+            request.getProfileId(),
             request.getSlot(),
             request.getItemId(),
             previousItemId,
-            savedProfile.getUpdatedAt()
+            now
         );
     }
     
-} 
\ No newline at end of file
+    /**
+     * 여러 프로필의 Gold/경험치/장비 변경을 한 트랜잭션에서 처리합니다. (던전/PvP 종료 정산)
+     * 대상 프로필을 한 번에 잠그고 작업을 요청 순서대로 계산한 뒤 JDBC 배치로 저장합니다.
+     * 같은 프로필에 대한 작업이 여러 개면 앞 작업의 결과 위에 이어서 반영합니다.
+     *
+     * - ALL_OR_NOTHING(기본값): 하나라도 실패하면 아무것도 저장하지 않고 409를 반환합니다.
+     * - BEST_EFFORT: 실패한 작업만 건너뛰고 나머지를 저장합니다.
+     * @param request 모드와 작업 목록
+     * @return 작업별 결과 (요청 순서와 동일)
+     */
+    @Transactional
+    public ResponseEntity<?> applyProfileBatch(ProfileBatchRequest request) {
+        List<ProfileBatchRequest.Operation> operations = request.getOperations();
+        if (operations == null || operations.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "operations are required"));
+        }
+        if (operations.size() > profileBatchMaxOperations) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Too many operations: max " + profileBatchMaxOperations));
+        }
+        String mode = request.getMode() != null ? request.getMode().toUpperCase() : ProfileBatchRequest.ALL_OR_NOTHING;
+        if (!ProfileBatchRequest.ALL_OR_NOTHING.equals(mode) && !ProfileBatchRequest.BEST_EFFORT.equals(mode)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown mode: " + request.getMode()));
+        }
+        
+        // 버퍼에 남은 Gold/경험치 증감을 먼저 반영한 뒤 대상 프로필을 한 번에 잠금
+        Set<Long> profileIds = new TreeSet<>();
+        for (ProfileBatchRequest.Operation operation : operations) {
+            if (operation != null && operation.getProfileId() != null) {
+                profileIds.add(operation.getProfileId());
+            }
+        }
+        profileIds.forEach(profileDeltaBuffer::flushProfile);
+        Map<Long, ProfileBatchWriter.LockedProfile> profiles = profileBatchWriter.lock(profileIds);
+        
+        List<ProfileBatchResponse.Result> results = new ArrayList<>(operations.size());
+        boolean failed = false;
+        for (int i = 0; i < operations.size(); i++) {
+            ProfileBatchResponse.Result result = applyProfileOperation(i, operations.get(i), profiles);
+            failed |= result.getStatus() != HttpStatus.OK.value();
+            results.add(result);
+        }
+        
+        if (failed && ProfileBatchRequest.ALL_OR_NOTHING.equals(mode)) {
+            for (ProfileBatchResponse.Result result : results) {
+                if (result.getStatus() == HttpStatus.OK.value()) {
+                    result.setStatus(HttpStatus.CONFLICT.value());
+                    result.setError("Not applied: another operation in the batch failed");
+                }
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ProfileBatchResponse(mode, false, results));
+        }
+        
+        profileBatchWriter.write(profiles.values());
+        for (ProfileBatchWriter.LockedProfile profile : profiles.values()) {
+            if (profile.isChanged()) {
+                eventPublisher.publishEvent(new UserGameProfileChangedEvent(profile.getProfileId(), null));
+            }
+        }
+        return ResponseEntity.ok(new ProfileBatchResponse(mode, true, results));
+    }
+    
+    /**
+     * 배치 작업 하나를 잠근 프로필 값에 반영합니다. 검증에 실패하면 값을 바꾸지 않습니다.
+     */
+    private ProfileBatchResponse.Result applyProfileOperation(int index, ProfileBatchRequest.Operation operation,
+                                                              Map<Long, ProfileBatchWriter.LockedProfile> profiles) {
+        Long profileId = operation != null ? operation.getProfileId() : null;
+        if (profileId == null) {
+            return new ProfileBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), null, null, null, null, "profileId is required");
+        }
+        if (operation.getEquipment() != null) {
+            try {
+                operation.getEquipment().keySet().forEach(UserGameProfile::equipmentSlotPath);
+            } catch (IllegalArgumentException e) {
+                return new ProfileBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), profileId, null, null, null, e.getMessage());
+            }
+        }
+        
+        ProfileBatchWriter.LockedProfile profile = profiles.get(profileId);
+        if (profile == null) {
+            return new ProfileBatchResponse.Result(index, HttpStatus.NOT_FOUND.value(), profileId, null, null, null,
+                "Profile not found: " + profileId);
+        }
+        
+        // 소유권 검증
+        try {
+            validateProfileOwnership(profile.getUserId());
+        } catch (RuntimeException e) {
+            return new ProfileBatchResponse.Result(index, HttpStatus.FORBIDDEN.value(), profileId, null, null, null, e.getMessage());
+        }
+        
+        // Gold가 음수가 되거나 컬럼(INT) 범위를 넘지 않도록 검증 (int 덧셈은 넘치면 부호가 바뀌므로 long으로 계산)
+        int goldDelta = operation.getGold() != null ? operation.getGold() : 0;
+        long newGold = (long) profile.getGold() + goldDelta;
+        if (newGold < 0) {
+            return new ProfileBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), profileId, profile.getGold(),
+                profile.getExperience(), null, "Gold cannot be negative. Current: " + profile.getGold() + ", Amount: " + goldDelta);
+        }
+        if (newGold > Integer.MAX_VALUE) {
+            return new ProfileBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), profileId, profile.getGold(),
+                profile.getExperience(), null, "Gold exceeds maximum. Current: " + profile.getGold() + ", Amount: " + goldDelta);
+        }
+        long experienceDelta = operation.getExperience() != null ? operation.getExperience() : 0L;
+        try {
+            Math.addExact(profile.getExperience(), experienceDelta);
+        } catch (ArithmeticException e) {
+            return new ProfileBatchResponse.Result(index, HttpStatus.BAD_REQUEST.value(), profileId, profile.getGold(),
+                profile.getExperience(), null, "Experience exceeds maximum. Current: " + profile.getExperience() + ", Amount: " + experienceDelta);
+        }
+        
+        if (goldDelta != 0) {
+            profile.addGold(goldDelta);
+        }
+        if (experienceDelta != 0) {
+            profile.addExperience(experienceDelta);
+        }
+        Map<String, Long> previousEquipment = null;
+        if (operation.getEquipment() != null && !operation.getEquipment().isEmpty()) {
+            previousEquipment = new HashMap<>();
+            for (Map.Entry<String, Long> slot : operation.getEquipment().entrySet()) {
+                previousEquipment.put(slot.getKey(), profile.setEquipment(slot.getKey(), slot.getValue()));
+            }
+        }
+        
+        return new ProfileBatchResponse.Result(index, HttpStatus.OK.value(), profileId, profile.getGold(),
+            profile.getExperience(), previousEquipment, null);
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.MaterialJobResponse;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import com.example.toremainserver.resilience.UpstreamRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Material 텍스처 생성 작업 큐입니다.
+ *
+ * 텍스처 생성은 오래 걸리고 요청이 몰리므로, /api/material처럼 생성이 끝날 때까지 HTTP 연결을 잡고 있지 않고
+ * 작업 ID를 바로 반환한 뒤 폴링(또는 롱 폴링)으로 결과를 가져가게 합니다.
+ * - 대기열은 material.jobs.queue-capacity개까지이며, 가득 차면 접수를 거절합니다.
+ * - priority가 높은 작업부터, 같으면 먼저 들어온 작업부터 처리합니다.
+ * - 같은 요청(텍스처 캐시 키 기준)이 대기/실행 중이면 새 작업을 만들지 않고 기존 작업 ID를 반환합니다.
+ * - material.jobs.workers개의 작업자가 AI 서버를 호출하므로 GPU 서버의 동시 생성 수가 이 값으로 제한됩니다.
+ * - 결과는 material.jobs.result-dir 아래 작업별 파일({작업 ID}.json)에 저장해 material.jobs.retention-ms 동안 조회할 수 있습니다.
+ *   텍스처 캐시에도 함께 넣지만, 캐시는 크기 초과로 버리거나 LRU로 지울 수 있으므로 작업 결과는 캐시에 의존하지 않습니다.
+ *   (작업은 메모리에만 있으므로 시작 시 남은 결과 파일은 지움)
+ */
+@Service
+public class MaterialJobService {
+    private static final Logger logger = LoggerFactory.getLogger(MaterialJobService.class);
+    private static final String MATERIAL_PATH = "/api.ai/material";
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    /**
+     * 생성 작업 한 건입니다.
+     */
+    public static final class Job {
+        private final String id;
+        private final String cacheKey;
+        private final int priority;
+        private final long sequence;
+        private final CompletableFuture<Job> done = new CompletableFuture<>();
+        private Map<String, Object> body;
+        private volatile Status status = Status.QUEUED;
+        private volatile String error;
+        private volatile long completedAt;
+        private int attempts;
+
+        private Job(String id, String cacheKey, int priority, long sequence, Map<String, Object> body) {
+            this.id = id;
+            this.cacheKey = cacheKey;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.body = body;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final int queueCapacity;
+    private final int workers;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final long retentionMs;
+    private final long maxWaitMs;
+    private final String aiServerUrl;
+    private final Path resultDir;
+    private final MaterialStreamClient materialStreamClient;
+    private final MaterialTextureCache materialTextureCache;
+    private final UpstreamGuard aiMaterialGuard;
+    private final Executor jobExecutor;
+    private final Counter submittedCounter;
+    private final Counter deduplicatedCounter;
+    private final Counter rejectedCounter;
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(64,
+        Comparator.comparingInt((Job job) -> -job.priority).thenComparingLong(job -> job.sequence));
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // 캐시 키 -> 대기/실행 중인 작업 (중복 제거)
+    private final Map<String, Job> activeJobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object submitLock = new Object();
+    private volatile boolean running = true;
+
+    @Autowired
+    public MaterialJobService(@Value("${material.jobs.queue-capacity:200}") int queueCapacity,
+                              @Value("${material.jobs.workers:2}") int workers,
+                              @Value("${material.jobs.max-attempts:3}") int maxAttempts,
+                              @Value("${material.jobs.retry-delay-ms:1000}") long retryDelayMs,
+                              @Value("${material.jobs.retention-ms:600000}") long retentionMs,
+                              @Value("${material.jobs.max-wait-ms:60000}") long maxWaitMs,
+                              @Value("${material.jobs.result-dir:./data/material-jobs}") String resultDir,
+                              @Value("${ai.server.url}") String aiServerUrl,
+                              MaterialStreamClient materialStreamClient,
+                              MaterialTextureCache materialTextureCache,
+                              @Qualifier("aiMaterialGuard") UpstreamGuard aiMaterialGuard,
+                              @Qualifier("materialJobExecutor") Executor jobExecutor,
+                              MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        this.retentionMs = retentionMs;
+        this.maxWaitMs = maxWaitMs;
+        this.aiServerUrl = aiServerUrl;
+        this.resultDir = Paths.get(resultDir);
+        this.materialStreamClient = materialStreamClient;
+        this.materialTextureCache = materialTextureCache;
+        this.aiMaterialGuard = aiMaterialGuard;
+        this.jobExecutor = jobExecutor;
+        this.submittedCounter = meterRegistry.counter("material.jobs.submitted");
+        this.deduplicatedCounter = meterRegistry.counter("material.jobs.deduplicated");
+        this.rejectedCounter = meterRegistry.counter("material.jobs.rejected");
+        this.succeededCounter = meterRegistry.counter("material.jobs.completed", "status", "SUCCEEDED");
+        this.failedCounter = meterRegistry.counter("material.jobs.completed", "status", "FAILED");
+        Gauge.builder("material.jobs.queued", queue, PriorityBlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void startWorkers() throws IOException {
+        Files.createDirectories(resultDir);
+        List<Path> leftovers = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(resultDir)) {
+            stream.forEach(leftovers::add);
+        }
+        for (Path file : leftovers) {
+            Files.deleteIfExists(file);
+        }
+        for (int i = 0; i < workers; i++) {
+            jobExecutor.execute(this::workLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        running = false;
+    }
+
+    /**
+     * 생성 작업을 접수합니다.
+     * 캐시에 결과가 있으면 완료된 작업을, 같은 요청이 대기/실행 중이면 그 작업을 반환합니다.
+     * @param body Material 요청 본문
+     * @param priority 우선순위 (클수록 먼저)
+     * @return 작업 (대기열이 가득 차면 null)
+     */
+    public Job submit(Map<String, Object> body, int priority) {
+        String cacheKey = materialTextureCache.keyOf(body);
+        Job job = new Job(UUID.randomUUID().toString(), cacheKey, priority, sequence.incrementAndGet(), body);
+        if (copyFromCache(job)) {
+            // 이미 생성된 텍스처: AI 서버를 거치지 않고 완료
+            jobs.put(job.id, job);
+            complete(job, Status.SUCCEEDED, null);
+            return job;
+        }
+        synchronized (submitLock) {
+            Job active = activeJobs.get(cacheKey);
+            if (active != null) {
+                deduplicatedCounter.increment();
+                return active;
+            }
+            if (queue.size() >= queueCapacity) {
+                rejectedCounter.increment();
+                return null;
+            }
+            jobs.put(job.id, job);
+            activeJobs.put(cacheKey, job);
+            queue.add(job);
+        }
+        submittedCounter.increment();
+        return job;
+    }
+
+    public Job get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 작업이 끝나거나 waitMs가 지나면 완료되는 Future를 반환합니다. (롱 폴링, 대기 중 스레드를 점유하지 않음)
+     * @param job 작업
+     * @param waitMs 최대 대기 시간 (material.jobs.max-wait-ms를 넘지 않음)
+     */
+    public CompletableFuture<Job> awaitCompletion(Job job, long waitMs) {
+        if (waitMs <= 0 || job.done.isDone()) {
+            return CompletableFuture.completedFuture(job);
+        }
+        return job.done.copy().completeOnTimeout(job, Math.min(waitMs, maxWaitMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 작업 결과(AI 서버 응답 JSON)를 엽니다. 호출자가 스트림을 닫아야 합니다.
+     * @param job 완료된 작업
+     * @return 결과 스트림 (완료되지 않았거나 결과가 만료되었으면 null)
+     */
+    public InputStream openResult(Job job) {
+        if (job.status != Status.SUCCEEDED) {
+            return null;
+        }
+        try {
+            return Files.newInputStream(resultFileOf(job));
+        } catch (NoSuchFileException e) {
+            // 조회와 정리 사이에 삭제됨
+            return null;
+        } catch (IOException e) {
+            logger.warn("Failed to read material job result {}: {}", job.id, e.getMessage());
+            return null;
+        }
+    }
+
+    public MaterialJobResponse toResponse(Job job) {
+        String resultUrl = job.status == Status.SUCCEEDED ? "/api/material/jobs/" + job.id + "/result" : null;
+        return new MaterialJobResponse(job.id, job.status.name(), job.error, resultUrl);
+    }
+
+    /**
+     * 보관 기간이 지난 완료 작업을 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "${material.jobs.purge-interval-ms:60000}")
+    public void purgeCompleted() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        jobs.values().removeIf(job -> {
+            if (job.done.isDone() && job.completedAt < cutoff) {
+                deleteResult(job);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void workLoop() {
+        while (running) {
+            Job job;
+            try {
+                job = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job != null) {
+                run(job);
+            }
+        }
+    }
+
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        job.attempts++;
+        String url = aiServerUrl + MATERIAL_PATH;
+        UpstreamGuard.Permit permit = null;
+        try {
+            // 벌크헤드 자리는 본문을 다 받을 때까지 잡고, 본문 수신 중 실패도 서킷 브레이커에 기록
+            permit = aiMaterialGuard.acquire();
+            try (ClientHttpResponse upstream = materialStreamClient.open(url, job.body);
+                 OutputStream resultOut = Files.newOutputStream(resultFileOf(job));
+                 MaterialTextureCache.Writer cacheWriter = materialTextureCache.openWriter(job.cacheKey)) {
+                // 작업 결과 파일과 텍스처 캐시에 함께 기록 (캐시는 크기 초과로 버려져도 무관)
+                OutputStream cacheOut = cacheWriter != null ? cacheWriter.stream() : null;
+                MaterialStreamClient.tee(upstream.getBody(), cacheOut).transferTo(resultOut);
+                if (cacheWriter != null) {
+                    cacheWriter.commit();
+                }
+            }
+            permit.success();
+            complete(job, Status.SUCCEEDED, null);
+        } catch (UpstreamRejectedException e) {
+            // 서킷 OPEN 또는 벌크헤드 포화: 잠시 후 다시 시도
+            if (job.attempts < maxAttempts && running) {
+                job.status = Status.QUEUED;
+                sleepBeforeRetry();
+                queue.add(job);
+            } else {
+                complete(job, Status.FAILED, "Material 서버가 일시적으로 응답할 수 없습니다. 잠시 후 다시 시도해주세요.");
+            }
+        } catch (HttpStatusCodeException e) {
+            permit.failure(e);
+            logger.warn("Material job {} failed with status {}", job.id, e.getStatusCode());
+            complete(job, Status.FAILED, e.getResponseBodyAsString());
+        } catch (Exception e) {
+            if (permit != null) {
+                permit.failure(e);
+            }
+            logger.error("Material job {} failed", job.id, e);
+            complete(job, Status.FAILED, "Material 처리 중 오류가 발생했습니다: " + e.getMessage());
+        }
+    }
+
+    // 캐시 항목을 작업 결과 파일로 복사. 캐시에 없거나 복사하지 못하면 false
+    private boolean copyFromCache(Job job) {
+        if (!materialTextureCache.contains(job.cacheKey)) {
+            return false;
+        }
+        try (InputStream in = materialTextureCache.open(job.cacheKey)) {
+            if (in == null) {
+                return false;
+            }
+            try (OutputStream out = Files.newOutputStream(resultFileOf(job))) {
+                in.transferTo(out);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to copy material cache entry {} for job {}: {}", job.cacheKey, job.id, e.getMessage());
+            deleteResult(job);
+            return false;
+        }
+    }
+
+    private void complete(Job job, Status status, String error) {
+        if (status != Status.SUCCEEDED) {
+            // 받다 만 결과
+            deleteResult(job);
+        }
+        job.error = error;
+        job.body = null;
+        job.completedAt = System.currentTimeMillis();
+        job.status = status;
+        activeJobs.remove(job.cacheKey, job);
+        (status == Status.SUCCEEDED ? succeededCounter : failedCounter).increment();
+        job.done.complete(job);
+    }
+
+    private Path resultFileOf(Job job) {
+        return resultDir.resolve(job.id + ".json");
+    }
+
+    private void deleteResult(Job job) {
+        try {
+            Files.deleteIfExists(resultFileOf(job));
+        } catch (IOException e) {
+            logger.warn("Failed to delete material job result {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.toremainserver.service;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * AI 서버 Material 응답을 메모리에 올리지 않고 UE5로 전달합니다.
+ *
+ * 응답을 Map으로 파싱하고 base64 문자열을 복사해 다시 직렬화하면 요청마다 수 MB 문자열이 여러 번 복사됩니다.
+ * - JSON: 업스트림 본문을 그대로 복사합니다.
+ * - multipart/form-data: 최상위의 "...64" 필드(baseColor64 등)를 스트리밍 파서로 읽으면서 base64를 풀어
+ *   PNG 바이트 파트(baseColor, normalMap, ORMMap, emissiveMap)로 씁니다. (base64의 33% 오버헤드 제거)
+ *   그 밖의 필드는 버립니다.
+ */
+@Component
+public class MaterialStreamClient {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TEXTURE_SUFFIX = "64";
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public MaterialStreamClient(@Qualifier("aiStreamRestTemplate") RestTemplate restTemplate, ObjectMapper objectMapper) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * AI 서버에 요청을 보내고 응답 헤더까지 받습니다. 본문은 읽지 않은 상태로 반환하며 호출자가 닫아야 합니다.
+     * 에러 응답은 RestTemplate과 같이 HttpStatusCodeException으로 던지므로
+     * UpstreamGuard의 실패 판정과 호출부의 에러 처리를 그대로 따릅니다.
+     * @param url AI 서버 Material 엔드포인트
+     * @param body 요청 본문
+     * @return 업스트림 응답 (2xx)
+     * @throws HttpStatusCodeException 에러 응답
+     * @throws ResourceAccessException 연결 실패 또는 타임아웃
+     */
+    public ClientHttpResponse open(String url, Map<String, Object> body) {
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(URI.create(url), HttpMethod.POST);
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+            request.getBody().write(objectMapper.writeValueAsBytes(body));
+            ClientHttpResponse response = request.execute();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                try (response) {
+                    byte[] errorBody = response.getBody().readAllBytes();
+                    if (response.getStatusCode().is5xxServerError()) {
+                        throw HttpServerErrorException.create(response.getStatusCode(), response.getStatusText(),
+                            response.getHeaders(), errorBody, StandardCharsets.UTF_8);
+                    }
+                    throw HttpClientErrorException.create(response.getStatusCode(), response.getStatusText(),
+                        response.getHeaders(), errorBody, StandardCharsets.UTF_8);
+                }
+            }
+            return response;
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on POST request for \"" + url + "\": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 응답 형식에 맞는 multipart 경계 문자열을 만듭니다.
+     * @param binary multipart 응답 여부
+     * @return 경계 문자열 (JSON 응답이면 null)
+     */
+    public String newBoundary(boolean binary) {
+        return binary ? "material-" + UUID.randomUUID() : null;
+    }
+
+    public MediaType contentType(String boundary) {
+        if (boundary == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary));
+    }
+
+    /**
+     * 텍스처 응답 본문을 씁니다.
+     * @param in AI 서버 응답 JSON (업스트림 또는 캐시)
+     * @param out UE5 응답
+     * @param boundary multipart 경계 문자열 (null이면 JSON 그대로)
+     */
+    public void writeBody(InputStream in, OutputStream out, String boundary) throws IOException {
+        if (boundary == null) {
+            copyJson(in, out);
+        } else {
+            writeMultipart(in, out, boundary);
+        }
+    }
+
+    /**
+     * {"error": message} JSON 응답을 만듭니다.
+     */
+    public ResponseEntity<StreamingResponseBody> error(HttpStatusCode status, String message) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> writeJson(Map.of("error", message), out));
+    }
+
+    /**
+     * JSON 본문을 그대로 복사합니다.
+     * @param in 업스트림(또는 캐시) 본문
+     * @param out UE5 응답
+     */
+    public void copyJson(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * 값을 JSON으로 씁니다. (에러 응답 등)
+     */
+    public void writeJson(Object value, OutputStream out) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+    }
+
+    /**
+     * JSON 본문의 base64 텍스처를 풀어 multipart/form-data로 씁니다.
+     * @param in 업스트림(또는 캐시) 본문
+     * @param out UE5 응답
+     * @param boundary multipart 경계 문자열
+     */
+    public void writeMultipart(InputStream in, OutputStream out, String boundary) throws IOException {
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        // 파서를 닫아도 입력은 닫지 않음 (호출자가 남은 본문을 마저 읽을 수 있도록)
+        try (JsonParser parser = jsonFactory.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Material response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING && field.endsWith(TEXTURE_SUFFIX)) {
+                    String partName = field.substring(0, field.length() - TEXTURE_SUFFIX.length());
+                    out.write(delimiter);
+                    out.write(CRLF);
+                    out.write(("Content-Disposition: form-data; name=\"" + partName + "\"; filename=\"" + partName + ".png\"")
+                        .getBytes(StandardCharsets.US_ASCII));
+                    out.write(CRLF);
+                    out.write("Content-Type: image/png".getBytes(StandardCharsets.US_ASCII));
+                    out.write(CRLF);
+                    out.write(CRLF);
+                    parser.readBinaryValue(Base64Variants.MIME_NO_LINEFEEDS, out);
+                    out.write(CRLF);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        out.write(delimiter);
+        out.write("--".getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    /**
+     * UE5 응답 스트림을 감쌉니다. 쓰기 실패(UE5 연결 종료)는 UncheckedIOException으로 던져
+     * 업스트림 읽기 실패(IOException)와 구분할 수 있게 합니다. (UpstreamGuard는 이를 업스트림 장애로 보지 않음)
+     * @param out UE5 응답 스트림
+     */
+    public static OutputStream downstream(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) {
+                try {
+                    out.write(b);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try {
+                    out.write(b, off, len);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void flush() {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 읽은 바이트를 sink에도 기록하는 스트림을 만듭니다. (업스트림 응답을 전달하면서 캐시에 저장)
+     * @param in 원본
+     * @param sink 복사 대상 (null이면 원본 그대로 반환)
+     */
+    public static InputStream tee(InputStream in, OutputStream sink) {
+        if (sink == null) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    sink.write(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    sink.write(b, off, read);
+                }
+                return read;
+            }
+        };
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.toremainserver.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 생성된 Material 텍스처의 내용 주소(content-addressed) 캐시입니다.
+ *
+ * 공유 에셋은 같은 materialDescription/materialInfo로 반복 요청되므로,
+ * 요청 본문을 키 순서로 정렬해 직렬화한 SHA-256 해시를 키로 텍스처 응답(baseColor64, normalMap64, ORMMap64, emissiveMap64)을 저장합니다.
+ * (apiKey/api_key는 결과에 영향을 주지 않으므로 키에서 제외)
+ * - 값은 material.cache.dir 아래 {해시}.json 파일에 AI 서버 응답 JSON 그대로 저장하고,
+ *   메모리에는 해시별 파일 크기만 LRU 순서로 둡니다.
+ * - material.cache.max-bytes 또는 material.cache.max-entries를 넘으면 가장 오래 쓰지 않은 항목부터 삭제합니다.
+ * - 재시작 시 디렉터리를 다시 읽어 색인을 복구합니다. (수정 시간 순)
+ *
+ * 메트릭: material.cache.hits, material.cache.misses, material.cache.served.bytes, material.cache.hit.ratio
+ */
+@Component
+public class MaterialTextureCache {
+    private static final Logger logger = LoggerFactory.getLogger(MaterialTextureCache.class);
+    private static final String FILE_SUFFIX = ".json";
+    private static final String TEMP_MARKER = ".tmp-";
+
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final int maxEntries;
+    private final ObjectMapper canonicalMapper;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter servedBytesCounter;
+
+    // 해시 -> 파일 크기 (접근 순서)
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    @Autowired
+    public MaterialTextureCache(@Value("${material.cache.enabled:true}") boolean enabled,
+                                @Value("${material.cache.dir:./data/material-cache}") String cacheDir,
+                                @Value("${material.cache.max-bytes:1073741824}") long maxBytes,
+                                @Value("${material.cache.max-entries:10000}") int maxEntries,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+        this.canonicalMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.hitCounter = meterRegistry.counter("material.cache.hits");
+        this.missCounter = meterRegistry.counter("material.cache.misses");
+        this.servedBytesCounter = meterRegistry.counter("material.cache.served.bytes");
+        Gauge.builder("material.cache.hit.ratio", this, cache -> cache.hitRatio()).register(meterRegistry);
+        Gauge.builder("material.cache.size.bytes", this, cache -> cache.sizeBytes()).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void loadIndex() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(cacheDir);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(MaterialTextureCache::lastModified));
+
+        List<Path> evicted;
+        synchronized (index) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.contains(TEMP_MARKER)) {
+                    // 쓰다 만 파일
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(FILE_SUFFIX)) {
+                    long size = Files.size(file);
+                    index.put(name.substring(0, name.length() - FILE_SUFFIX.length()), size);
+                    totalBytes += size;
+                }
+            }
+            evicted = evictOverLimit();
+        }
+        deleteFiles(evicted);
+        logger.info("Material texture cache loaded: {} entries, {} bytes", index.size(), totalBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 요청 본문의 캐시 키(정규화된 JSON의 SHA-256)를 계산합니다.
+     * @param body Material 요청 본문
+     * @return 16진수 해시
+     */
+    public String keyOf(Map<String, Object> body) {
+        Map<String, Object> canonical = new TreeMap<>(body);
+        canonical.remove("apiKey");
+        canonical.remove("api_key");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonicalMapper.writeValueAsBytes(canonical));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash material request", e);
+        }
+    }
+
+    /**
+     * 캐시에 항목이 있는지 확인합니다. (적중/실패 메트릭에는 반영하지 않음)
+     */
+    public boolean contains(String key) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (index) {
+            return index.containsKey(key);
+        }
+    }
+
+    /**
+     * 캐시된 텍스처 응답을 엽니다. 호출자가 스트림을 닫아야 합니다.
+     * (열린 뒤에 항목이 삭제되어도 스트림은 끝까지 읽을 수 있음)
+     * @param key 캐시 키
+     * @return 응답 JSON 스트림 (없으면 null)
+     */
+    public InputStream open(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Long size;
+        synchronized (index) {
+            size = index.get(key);  // LRU 갱신
+        }
+        if (size != null) {
+            try {
+                InputStream in = Files.newInputStream(fileOf(key));
+                hitCounter.increment();
+                servedBytesCounter.increment(size);
+                return in;
+            } catch (NoSuchFileException e) {
+                // 조회와 열기 사이에 삭제됨
+                remove(key);
+            } catch (IOException e) {
+                logger.warn("Failed to read material cache entry {}: {}", key, e.getMessage());
+                remove(key);
+            }
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 캐시 항목을 쓰기 시작합니다. 업스트림 응답을 받으면서 그대로 기록하고,
+     * 끝까지 받은 경우에만 commit()으로 캐시에 반영합니다. (commit 없이 close하면 버림)
+     * @param key 캐시 키
+     * @return 기록기 (캐시를 쓰지 않거나 임시 파일을 만들 수 없으면 null)
+     */
+    public Writer openWriter(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Path temp = cacheDir.resolve(key + TEMP_MARKER + Thread.currentThread().getId());
+        try {
+            return new Writer(key, temp, Files.newOutputStream(temp));
+        } catch (IOException e) {
+            logger.warn("Failed to create material cache entry {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 텍스처 응답 전체를 캐시에 저장합니다. 저장 실패는 무시합니다.
+     * @param key 캐시 키
+     * @param bytes 응답 JSON 바이트
+     */
+    public void put(String key, byte[] bytes) {
+        try (Writer writer = openWriter(key)) {
+            if (writer != null) {
+                writer.stream().write(bytes);
+                writer.commit();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write material cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 캐시 항목 기록기입니다.
+     */
+    public final class Writer implements Closeable {
+        private final String key;
+        private final Path temp;
+        private final OutputStream out;
+        private long size;
+        private boolean committed;
+
+        private Writer(String key, Path temp, OutputStream out) {
+            this.key = key;
+            this.temp = temp;
+            this.out = new BufferedOutputStream(out) {
+                @Override
+                public void write(int b) throws IOException {
+                    super.write(b);
+                    size++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    super.write(b, off, len);
+                    size += len;
+                }
+            };
+        }
+
+        public OutputStream stream() {
+            return out;
+        }
+
+        /**
+         * 기록한 내용을 캐시에 반영합니다. (max-bytes보다 크면 버림)
+         */
+        public void commit() throws IOException {
+            out.close();
+            committed = true;
+            if (size > maxBytes) {
+                Files.deleteIfExists(temp);
+                return;
+            }
+            Files.move(temp, fileOf(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            List<Path> evicted;
+            synchronized (index) {
+                Long previous = index.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0L);
+                evicted = evictOverLimit();
+            }
+            deleteFiles(evicted);
+        }
+
+        @Override
+        public void close() {
+            if (committed) {
+                return;
+            }
+            try {
+                out.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // 다음 시작 시 정리
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (index) {
+            Long size = index.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    // index 잠금 안에서 호출. 삭제할 파일 목록을 반환 (파일 삭제는 잠금 밖에서)
+    private List<Path> evictOverLimit() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while ((totalBytes > maxBytes || index.size() > maxEntries) && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            evicted.add(fileOf(eldest.getKey()));
+            it.remove();
+        }
+        return evicted;
+    }
+
+    private void deleteFiles(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Failed to delete evicted material cache file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private Path fileOf(String key) {
+        return cacheDir.resolve(key + FILE_SUFFIX);
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private double sizeBytes() {
+        synchronized (index) {
+            return totalBytes;
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.example.toremainserver.repository.UserEquipItemRepository;
 import com.example.toremainserver.repository.UserRepository;
 import com.example.toremainserver.repository.UserGameProfileRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -61,6 +62,7 @@ public class NftService {
     private UserGameProfileRepository userGameProfileRepository;
     
     @Autowired
+    @Qualifier("blockchainRestTemplate")
     private RestTemplate restTemplate;
     
     @Value("${blockchain.server.url:http://localhost:3000}")
@@ -0,0 +1,188 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.Ue5NpcRequest;
+import com.example.toremainserver.dto.game.Ue5NpcResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * NPC 대화 턴 단위 single-flight 처리기입니다.
+ *
+ * UE5는 클라이언트 타임아웃 시 /api/npc/chat을 재시도합니다.
+ * (profileId, npcId, currentPlayerMessage.timestamp)가 같은 요청은 같은 대화 턴으로 보고
+ * - 처리 중이면 진행 중인 업스트림 호출 결과를 함께 받고,
+ * - 방금 완료되었으면 npc.chat.replay-ttl-seconds 동안 저장된 응답을 그대로 돌려줍니다.
+ * 이렇게 하면 LLM 호출과 대화 기록 추가가 턴당 한 번만 일어납니다.
+ */
+@Component
+public class NpcChatCoalescer {
+
+    private static final class ChatTurnKey {
+        private final Long profileId;
+        private final Long npcId;
+        private final String timestamp;
+
+        ChatTurnKey(Long profileId, Long npcId, String timestamp) {
+            this.profileId = profileId;
+            this.npcId = npcId;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChatTurnKey)) return false;
+            ChatTurnKey other = (ChatTurnKey) o;
+            return Objects.equals(profileId, other.profileId)
+                && Objects.equals(npcId, other.npcId)
+                && Objects.equals(timestamp, other.timestamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(profileId, npcId, timestamp);
+        }
+    }
+
+    private static final class CompletedTurn {
+        private final ResponseEntity<Ue5NpcResponse> response;
+        private final long expiresAtMillis;
+
+        CompletedTurn(ResponseEntity<Ue5NpcResponse> response, long expiresAtMillis) {
+            this.response = response;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    private final Map<ChatTurnKey, CompletableFuture<ResponseEntity<Ue5NpcResponse>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<ChatTurnKey, CompletedTurn> completed = new ConcurrentHashMap<>();
+    private final long replayTtlMillis;
+    private final LongSupplier clock;
+
+    private final Counter executedCounter;
+    private final Counter coalescedCounter;
+    private final Counter replayedCounter;
+
+    @Autowired
+    public NpcChatCoalescer(MeterRegistry meterRegistry,
+                            @Value("${npc.chat.replay-ttl-seconds:30}") long replayTtlSeconds) {
+        this(meterRegistry, replayTtlSeconds, System::currentTimeMillis);
+    }
+
+    NpcChatCoalescer(MeterRegistry meterRegistry, long replayTtlSeconds, LongSupplier clock) {
+        this.replayTtlMillis = replayTtlSeconds * 1000L;
+        this.clock = clock;
+        this.executedCounter = coalescingCounter(meterRegistry, "executed");
+        this.coalescedCounter = coalescingCounter(meterRegistry, "coalesced");
+        this.replayedCounter = coalescingCounter(meterRegistry, "replayed");
+    }
+
+    private static Counter coalescingCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("npc.chat.coalescing")
+            .description("NPC 대화 턴 중복 요청 처리 결과")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * 같은 대화 턴의 업스트림 호출이 한 번만 일어나도록 call을 실행합니다.
+     * currentPlayerMessage.timestamp가 없으면 턴을 식별할 수 없으므로 그대로 실행합니다.
+     * @param ue5Request UE5 요청
+     * @param call 실제 업스트림 호출
+     * @return 대화 턴의 응답 (진행 중/완료된 결과 공유)
+     */
+    public CompletableFuture<ResponseEntity<Ue5NpcResponse>> execute(
+            Ue5NpcRequest ue5Request,
+            Supplier<CompletableFuture<ResponseEntity<Ue5NpcResponse>>> call) {
+        ChatTurnKey key = keyOf(ue5Request);
+        if (key == null) {
+            executedCounter.increment();
+            return call.get();
+        }
+
+        CompletedTurn done = completed.get(key);
+        if (done != null && !done.isExpired(clock.getAsLong())) {
+            replayedCounter.increment();
+            return CompletableFuture.completedFuture(done.response);
+        }
+
+        CompletableFuture<ResponseEntity<Ue5NpcResponse>> leader = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Ue5NpcResponse>> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return existing;
+        }
+
+        // 위 조회와 putIfAbsent 사이에 이전 호출이 완료되었을 수 있으므로 한 번 더 확인
+        done = completed.get(key);
+        if (done != null && !done.isExpired(clock.getAsLong())) {
+            inFlight.remove(key, leader);
+            leader.complete(done.response);
+            replayedCounter.increment();
+            return leader;
+        }
+
+        executedCounter.increment();
+        CompletableFuture<ResponseEntity<Ue5NpcResponse>> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(e);
+            return leader;
+        }
+
+        upstream.whenComplete((response, ex) -> {
+            // 성공한 응답만 재전송용으로 보관 (실패/기본 대사 응답은 재시도 시 다시 호출)
+            if (ex == null && response != null && response.getStatusCode().is2xxSuccessful()
+                    && !response.getHeaders().containsKey(GameEventService.FALLBACK_HEADER)) {
+                completed.put(key, new CompletedTurn(response, clock.getAsLong() + replayTtlMillis));
+            }
+            inFlight.remove(key, leader);
+            if (ex != null) {
+                leader.completeExceptionally(ex);
+            } else {
+                leader.complete(response);
+            }
+        });
+        return leader;
+    }
+
+    /**
+     * 만료된 재전송용 응답을 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "${npc.chat.replay-purge-interval-ms:10000}")
+    public void purgeExpired() {
+        long now = clock.getAsLong();
+        completed.values().removeIf(turn -> turn.isExpired(now));
+    }
+
+    private ChatTurnKey keyOf(Ue5NpcRequest ue5Request) {
+        if (ue5Request.getProfileId() == null || ue5Request.getNpcId() == null
+                || ue5Request.getCurrentPlayerMessage() == null
+                || ue5Request.getCurrentPlayerMessage().getTimestamp() == null) {
+            return null;
+        }
+        return new ChatTurnKey(
+            ue5Request.getProfileId(),
+            ue5Request.getNpcId(),
+            ue5Request.getCurrentPlayerMessage().getTimestamp()
+        );
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.NpcChatRequest;
+import com.example.toremainserver.dto.game.NpcChatResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * AI 서버의 스트리밍 생성 엔드포인트를 호출하여 토큰 청크를 순서대로 전달합니다.
+ *
+ * AI 서버는 Server-Sent Events 형식으로 다음 두 종류의 data 라인을 보냅니다.
+ *   data: {"token": "안녕"}                              - 생성 중인 토큰 청크
+ *   data: {"npcId": 1, "npcResponse": {...}, ...}        - 최종 NpcChatResponse (선택)
+ *   data: [DONE]                                         - 스트림 종료 (선택)
+ *
+ * 최종 NpcChatResponse가 오지 않으면 받은 토큰을 이어붙여 응답을 구성합니다.
+ */
+@Component
+public class NpcChatStreamClient {
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE_MARKER = "[DONE]";
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NpcChatStreamClient(@Qualifier("aiStreamRestTemplate") RestTemplate restTemplate, ObjectMapper objectMapper) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 스트리밍 요청을 보내고, 토큰이 도착할 때마다 onToken을 호출합니다.
+     * @param url AI 서버 스트리밍 엔드포인트
+     * @param npcChatRequest 완전한 NPC 대화 요청
+     * @param onToken 토큰 청크 콜백 (호출 스레드에서 순서대로 실행)
+     * @return 스트림 종료 후의 최종 응답
+     */
+    public NpcChatResponse stream(String url, NpcChatRequest npcChatRequest, Consumer<String> onToken) {
+        return restTemplate.execute(url, HttpMethod.POST,
+            request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON));
+                request.getBody().write(objectMapper.writeValueAsBytes(npcChatRequest));
+            },
+            response -> {
+                StringBuilder message = new StringBuilder();
+                NpcChatResponse finalResponse = null;
+
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String payload = extractPayload(line);
+                        if (payload == null) {
+                            continue;
+                        }
+                        if (DONE_MARKER.equals(payload)) {
+                            break;
+                        }
+
+                        JsonNode node = objectMapper.readTree(payload);
+                        if (node.hasNonNull("token")) {
+                            String token = node.get("token").asText();
+                            message.append(token);
+                            onToken.accept(token);
+                        } else if (node.hasNonNull("npcResponse")) {
+                            finalResponse = objectMapper.treeToValue(node, NpcChatResponse.class);
+                        }
+                    }
+                }
+
+                if (finalResponse != null) {
+                    return finalResponse;
+                }
+                return new NpcChatResponse(
+                    npcChatRequest.getNpcId(),
+                    new NpcChatResponse.ChatHistory(
+                        "npc",
+                        message.toString(),
+                        LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString()
+                    )
+                );
+            });
+    }
+
+    /**
+     * SSE 라인에서 data 값을 추출합니다. (줄 단위 JSON도 허용)
+     * @return data 값 (주석, 이벤트명, 빈 줄이면 null)
+     */
+    private String extractPayload(String line) {
+        if (line.startsWith(DATA_PREFIX)) {
+            String payload = line.substring(DATA_PREFIX.length()).trim();
+            return payload.isEmpty() ? null : payload;
+        }
+        String trimmed = line.trim();
+        if (trimmed.startsWith("{")) {
+            return trimmed;
+        }
+        return null;
+    }
+}
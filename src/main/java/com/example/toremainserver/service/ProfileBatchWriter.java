@@ -0,0 +1,186 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.UserGameProfile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 여러 프로필의 Gold/경험치/장비를 한 트랜잭션에서 JDBC 배치로 저장합니다. (POST /api/profile/batch)
+ *
+ * 대상 프로필을 profile_id 순서로 한 번에 SELECT ... FOR UPDATE 하고 (여러 정산 요청이 겹쳐도 교착 없이 대기),
+ * 메모리에서 계산한 값을 수치용 UPDATE 배치와 슬롯별 JSON_SET/JSON_REMOVE 배치로 씁니다.
+ * 행을 잠근 상태로 계산하므로 수치는 증감 대신 계산된 값을 그대로 쓰고, 장비는 바뀐 슬롯만 씁니다.
+ * 호출자의 트랜잭션 안에서 사용해야 합니다.
+ */
+@Component
+public class ProfileBatchWriter {
+    private static final TypeReference<Map<String, Long>> EQUIPPED_ITEMS_TYPE = new TypeReference<>() {};
+    private static final String COUNTERS_SQL =
+        "UPDATE user_game_profiles SET gold = ?, experience = ?, version = version + 1, updated_at = ? WHERE profile_id = ?";
+    private static final String SET_SLOT_SQL =
+        "UPDATE user_game_profiles SET equipped_items = JSON_SET(COALESCE(equipped_items, JSON_OBJECT()), ?, ?), " +
+        "version = version + 1, updated_at = ? WHERE profile_id = ?";
+    private static final String REMOVE_SLOT_SQL =
+        "UPDATE user_game_profiles SET equipped_items = JSON_REMOVE(equipped_items, ?), " +
+        "version = version + 1, updated_at = ? WHERE profile_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProfileBatchWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 프로필 행을 잠그고 현재 값을 읽습니다.
+     * @param profileIds 프로필 ID 목록
+     * @return profileId -> 잠근 프로필 (없는 프로필은 포함하지 않음)
+     */
+    public Map<Long, LockedProfile> lock(Collection<Long> profileIds) {
+        Map<Long, LockedProfile> profiles = new HashMap<>();
+        if (profileIds.isEmpty()) {
+            return profiles;
+        }
+        String placeholders = String.join(",", Collections.nCopies(profileIds.size(), "?"));
+        jdbcTemplate.query(
+            "SELECT profile_id, user_id, level, experience, gold, equipped_items FROM user_game_profiles " +
+            "WHERE profile_id IN (" + placeholders + ") ORDER BY profile_id FOR UPDATE",
+            rs -> {
+                LockedProfile profile = new LockedProfile(
+                    rs.getLong("profile_id"),
+                    rs.getLong("user_id"),
+                    rs.getInt("level"),
+                    rs.getLong("experience"),
+                    rs.getInt("gold"),
+                    readEquippedItems(rs.getString("equipped_items")));
+                profiles.put(profile.getProfileId(), profile);
+            },
+            profileIds.toArray());
+        return profiles;
+    }
+
+    /**
+     * 변경된 프로필만 저장합니다.
+     */
+    public void write(Collection<LockedProfile> profiles) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> counterRows = new ArrayList<>();
+        List<Object[]> setSlotRows = new ArrayList<>();
+        List<Object[]> removeSlotRows = new ArrayList<>();
+        for (LockedProfile profile : profiles) {
+            if (profile.countersChanged) {
+                counterRows.add(new Object[] {profile.gold, profile.experience, now, profile.profileId});
+            }
+            for (Map.Entry<String, Long> slot : profile.changedSlots.entrySet()) {
+                String path = UserGameProfile.equipmentSlotPath(slot.getKey());
+                if (slot.getValue() != null) {
+                    setSlotRows.add(new Object[] {path, slot.getValue(), now, profile.profileId});
+                } else {
+                    removeSlotRows.add(new Object[] {path, now, profile.profileId});
+                }
+            }
+        }
+        if (!counterRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(COUNTERS_SQL, counterRows);
+        }
+        if (!setSlotRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_SLOT_SQL, setSlotRows);
+        }
+        if (!removeSlotRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(REMOVE_SLOT_SQL, removeSlotRows);
+        }
+    }
+
+    private Map<String, Long> readEquippedItems(String json) {
+        if (json == null || json.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return new LinkedHashMap<>(objectMapper.readValue(json, EQUIPPED_ITEMS_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read equipped items", e);
+        }
+    }
+
+    /**
+     * 잠근 프로필의 현재 값 (배치 안의 작업을 순서대로 반영)
+     */
+    public static class LockedProfile {
+        private final Long profileId;
+        private final Long userId;
+        private final int level;
+        private long experience;
+        private int gold;
+        private final Map<String, Long> equippedItems;
+        private final Map<String, Long> changedSlots = new LinkedHashMap<>(); // 슬롯 -> 최종 아이템 ID (null이면 해제)
+        private boolean countersChanged;
+
+        LockedProfile(Long profileId, Long userId, int level, long experience, int gold, Map<String, Long> equippedItems) {
+            this.profileId = profileId;
+            this.userId = userId;
+            this.level = level;
+            this.experience = experience;
+            this.gold = gold;
+            this.equippedItems = equippedItems;
+        }
+
+        public Long getProfileId() {
+            return profileId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public long getExperience() {
+            return experience;
+        }
+
+        public int getGold() {
+            return gold;
+        }
+
+        public boolean isChanged() {
+            return countersChanged || !changedSlots.isEmpty();
+        }
+
+        public void addGold(int amount) {
+            gold += amount;
+            countersChanged = true;
+        }
+
+        public void addExperience(long amount) {
+            experience += amount;
+            countersChanged = true;
+        }
+
+        /**
+         * @param itemId 장착할 아이템 ID (null이면 해제)
+         * @return 이전 아이템 ID
+         */
+        public Long setEquipment(String slot, Long itemId) {
+            changedSlots.put(slot, itemId);
+            return itemId == null ? equippedItems.remove(slot) : equippedItems.put(slot, itemId);
+        }
+    }
+}
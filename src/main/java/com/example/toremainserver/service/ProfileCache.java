@@ -0,0 +1,228 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.UserGameProfileResponse;
+import com.example.toremainserver.entity.UserGameProfile;
+import com.example.toremainserver.entity.UserGameProfileChangedEvent;
+import com.example.toremainserver.repository.UserGameProfileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 게임 프로필 조회 캐시입니다. (GET /api/profile/{profileId})
+ *
+ * UE5는 프로필을 바꾸는 것보다 훨씬 자주 읽으므로, 조회할 때마다 equipped_items/skill_info JSON 컬럼을
+ * 역직렬화하지 않도록 프로필을 profileId별로 보관합니다.
+ * - 캐시된 값은 version 컬럼만 조회해서 검증합니다. (profile.cache.validate-interval-ms 동안은 검증 생략)
+ *   Gold/경험치 증감, 장비 슬롯 변경 등 SQL로 직접 갱신하는 경로도 version을 올리므로 검증에서 걸러집니다.
+ * - JPA로 저장한 프로필은 커밋 후 UserGameProfileChangedEvent로 바로 캐시에 반영합니다(write-through).
+ *   SQL로 갱신한 프로필은 커밋 후 캐시에서 제거합니다.
+ * - 변경은 ProfileInvalidationPublisher로 다른 서버 노드에 알리고, 전달받은 노드는 evict로 반영합니다.
+ * - 최대 개수를 넘으면 가장 오래 사용되지 않은 항목부터 제거합니다(LRU).
+ */
+@Component
+public class ProfileCache {
+
+    /**
+     * 캐시된 프로필 (엔티티와 분리된 복사본)
+     */
+    public static final class CachedProfile {
+        private final Long profileId;
+        private final Long userId;
+        private final String profileName;
+        private final Integer level;
+        private final Long experience;
+        private final Integer gold;
+        private final Map<String, Long> equippedItems;
+        private final Map<String, Integer> skillInfo;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final Long version;
+        private final Long deltaSeq;
+
+        CachedProfile(UserGameProfile profile) {
+            this.profileId = profile.getId();
+            this.userId = profile.getUserId();
+            this.profileName = profile.getProfileName();
+            this.level = profile.getLevel();
+            this.experience = profile.getExperience();
+            this.gold = profile.getGold();
+            this.equippedItems = profile.getEquippedItems() != null
+                ? Collections.unmodifiableMap(new HashMap<>(profile.getEquippedItems())) : Collections.emptyMap();
+            this.skillInfo = profile.getSkillInfo() != null
+                ? Collections.unmodifiableMap(new HashMap<>(profile.getSkillInfo())) : Collections.emptyMap();
+            this.createdAt = profile.getCreatedAt();
+            this.updatedAt = profile.getUpdatedAt();
+            this.version = profile.getVersion();
+            this.deltaSeq = profile.getDeltaSeq() != null ? profile.getDeltaSeq() : 0L;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        /**
+         * 응답을 만듭니다.
+         * @param pending ProfileDeltaBuffer에 남은 Gold/경험치 증감 (없으면 null)
+         */
+        public UserGameProfileResponse toResponse(ProfileDeltaBuffer.Pending pending) {
+            return new UserGameProfileResponse(
+                profileId,
+                userId,
+                profileName,
+                level,
+                pending != null ? experience + pending.experience(deltaSeq) : experience,
+                // 버퍼는 INT 범위를 넘는 증가분을 받지 않음 (넘으면 부호가 바뀌지 않게 최대값)
+                pending != null ? (int) Math.min(gold + pending.gold(deltaSeq), Integer.MAX_VALUE) : gold,
+                equippedItems,
+                skillInfo,
+                createdAt,
+                updatedAt
+            );
+        }
+    }
+
+    private static final class Entry {
+        private final CachedProfile profile;
+        private volatile long validatedAt;
+
+        Entry(CachedProfile profile, long validatedAt) {
+            this.profile = profile;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    private final UserGameProfileRepository userGameProfileRepository;
+    private final ProfileInvalidationPublisher invalidationPublisher;
+    private final boolean enabled;
+    private final long validateIntervalMillis;
+    private final Map<Long, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter staleEvictions;
+    private final Counter changeEvictions;
+
+    @Autowired
+    public ProfileCache(UserGameProfileRepository userGameProfileRepository,
+                        ObjectProvider<ProfileInvalidationPublisher> invalidationPublisher,
+                        MeterRegistry meterRegistry,
+                        @Value("${profile.cache.enabled:true}") boolean enabled,
+                        @Value("${profile.cache.validate-interval-ms:0}") long validateIntervalMillis,
+                        @Value("${profile.cache.max-entries:10000}") int maxEntries) {
+        this(userGameProfileRepository, invalidationPublisher.getIfAvailable(() -> ProfileInvalidationPublisher.NONE),
+            meterRegistry, enabled, validateIntervalMillis, maxEntries);
+    }
+
+    public ProfileCache(UserGameProfileRepository userGameProfileRepository,
+                        ProfileInvalidationPublisher invalidationPublisher,
+                        MeterRegistry meterRegistry,
+                        boolean enabled,
+                        long validateIntervalMillis,
+                        int maxEntries) {
+        this.userGameProfileRepository = userGameProfileRepository;
+        this.invalidationPublisher = invalidationPublisher;
+        this.enabled = enabled;
+        this.validateIntervalMillis = validateIntervalMillis;
+        this.sizeEvictions = meterRegistry.counter("profile.cache.evictions", "cause", "size");
+        this.staleEvictions = meterRegistry.counter("profile.cache.evictions", "cause", "stale");
+        this.changeEvictions = meterRegistry.counter("profile.cache.evictions", "cause", "changed");
+        this.entries = Collections.synchronizedMap(
+            new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > maxEntries) {
+                        sizeEvictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            });
+        this.hits = meterRegistry.counter("profile.cache", "result", "hit");
+        this.misses = meterRegistry.counter("profile.cache", "result", "miss");
+        Gauge.builder("profile.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * 프로필을 조회합니다. 캐시된 값은 version으로 검증하고, 없거나 바뀌었으면 DB에서 읽어 캐시합니다.
+     * @return 프로필 (없으면 null)
+     */
+    public CachedProfile get(Long profileId) {
+        if (!enabled) {
+            return userGameProfileRepository.findById(profileId).map(CachedProfile::new).orElse(null);
+        }
+        Entry entry = entries.get(profileId);
+        if (entry != null) {
+            long now = System.currentTimeMillis();
+            if (now - entry.validatedAt < validateIntervalMillis) {
+                hits.increment();
+                return entry.profile;
+            }
+            Long version = userGameProfileRepository.findVersionById(profileId).orElse(null);
+            if (version != null && version.equals(entry.profile.version)) {
+                entry.validatedAt = now;
+                hits.increment();
+                return entry.profile;
+            }
+            if (entries.remove(profileId, entry)) {
+                staleEvictions.increment();
+            }
+        }
+
+        misses.increment();
+        CachedProfile profile = userGameProfileRepository.findById(profileId).map(CachedProfile::new).orElse(null);
+        if (profile != null) {
+            put(profile);
+        }
+        return profile;
+    }
+
+    /**
+     * 프로필을 캐시에서 제거합니다. (다른 노드에서 전달받은 변경 포함)
+     */
+    public void evict(Long profileId) {
+        if (entries.remove(profileId) != null) {
+            changeEvictions.increment();
+        }
+    }
+
+    /**
+     * 프로필이 변경되면 (트랜잭션 커밋 후) 저장된 값으로 바꾸거나 제거하고, 다른 노드에 알립니다.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(UserGameProfileChangedEvent event) {
+        invalidationPublisher.publish(event.getProfileId());
+        if (!enabled) {
+            return;
+        }
+        if (event.getProfile() != null && event.getProfile().getVersion() != null) {
+            put(new CachedProfile(event.getProfile()));
+        } else {
+            evict(event.getProfileId());
+        }
+    }
+
+    /**
+     * 더 새로운 버전만 저장합니다. (늦게 끝난 조회가 최신 값을 덮어쓰지 않도록)
+     */
+    private void put(CachedProfile profile) {
+        Entry entry = new Entry(profile, System.currentTimeMillis());
+        entries.merge(profile.profileId, entry,
+            (current, candidate) -> candidate.profile.version >= current.profile.version ? candidate : current);
+    }
+}
@@ -0,0 +1,711 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.UserGameProfileChangedEvent;
+import com.example.toremainserver.repository.ProfileCounters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Gold/경험치 증감 버퍼입니다. (profile.delta-buffer.enabled=true 일 때만 동작)
+ *
+ * 몬스터 처치마다 오는 작은 증감을 요청마다 트랜잭션으로 처리하는 대신
+ * - 프로필별 증감을 스트라이프(잠금 단위)로 나눈 맵에 long 값으로 합산합니다.
+ * - flush-interval-ms 주기로 프로필당 UPDATE 한 행씩 JDBC 배치로 반영합니다.
+ * - 합산 전에 로컬 로그(log-dir)에 추가하므로, 응답한 증감은 비정상 종료 후 시작 시 DB에 반영됩니다.
+ *
+ * 증감마다 번호(seq)를 붙이고 DB에는 마지막으로 반영한 번호(user_game_profiles.delta_seq)를 함께 저장합니다.
+ * UPDATE는 delta_seq가 더 작을 때만 적용되므로 재시도나 로그 복구로 같은 증감이 두 번 더해지지 않으며,
+ * 조회 시에는 DB 값의 delta_seq보다 큰 번호의 증감만 더해 응답합니다.
+ *
+ * 차감(음수 Gold)은 잔액 검증이 필요하므로 버퍼에 넣지 않고, 해당 프로필을 먼저 flush한 뒤 DB에서 처리합니다.
+ * 증가분은 DB 값과 버퍼의 증감을 더해 gold 컬럼(INT) 범위를 넘으면 받지 않습니다. (넘는 행은 UPDATE가 실패)
+ * 배치가 실패하면 행별로 다시 반영해, 반영할 수 없는 프로필 하나가 다른 프로필의 flush를 막지 않게 합니다.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ProfileDeltaBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ProfileDeltaBuffer.class);
+
+    private static final String SEGMENT_PREFIX = "profile-delta-wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String APPLY_SQL =
+        "UPDATE user_game_profiles SET gold = gold + ?, experience = experience + ?, delta_seq = ?, " +
+        "version = version + 1, updated_at = ? WHERE profile_id = ? AND delta_seq < ?";
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path logDir;
+    private final boolean fsync;
+    private final int batchSize;
+    private final Stripe[] stripes;
+    private final Counter flushedCounter;
+    private final Counter flushFailureCounter;
+    private final Counter logFailureCounter;
+
+    private final AtomicLong lastSeq = new AtomicLong();
+    private final Object logLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private FileChannel segment;
+    private long segmentSeq;
+
+    @Autowired
+    public ProfileDeltaBuffer(@Value("${profile.delta-buffer.enabled:false}") boolean enabled,
+                              JdbcTemplate jdbcTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${profile.delta-buffer.log-dir:./data/profile-delta-wal}") String logDir,
+                              @Value("${profile.delta-buffer.fsync:true}") boolean fsync,
+                              @Value("${profile.delta-buffer.batch-size:200}") int batchSize,
+                              @Value("${profile.delta-buffer.stripes:16}") int stripeCount,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.logDir = Paths.get(logDir);
+        this.fsync = fsync;
+        this.batchSize = batchSize;
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.flushedCounter = meterRegistry.counter("profile.delta.buffer.flushed");
+        this.flushFailureCounter = meterRegistry.counter("profile.delta.buffer.flush.failures");
+        this.logFailureCounter = meterRegistry.counter("profile.delta.buffer.log.failures");
+        meterRegistry.gauge("profile.delta.buffer.pending", this, ProfileDeltaBuffer::pendingProfiles);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 이전 실행에서 반영하지 못한 증감을 DB에 반영하고 새 세그먼트를 엽니다.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(logDir);
+
+        List<Path> segments = listSegments();
+        Map<Long, List<long[]>> entries = new HashMap<>();
+        long maxSeq = 0;
+        for (Path path : segments) {
+            maxSeq = Math.max(maxSeq, readSegment(path, entries));
+        }
+        if (!entries.isEmpty()) {
+            int recovered = applyRecovered(entries);
+            logger.info("Recovered gold/experience deltas for {} profiles from delta log", recovered);
+        }
+        for (Path path : segments) {
+            Files.deleteIfExists(path);
+        }
+
+        Long appliedSeq = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(delta_seq), 0) FROM user_game_profiles", Long.class);
+        lastSeq.set(Math.max(maxSeq, appliedSeq != null ? appliedSeq : 0));
+        segmentSeq = segments.isEmpty() ? 0 : segmentSeqOf(segments.get(segments.size() - 1));
+        openNextSegment();
+    }
+
+    /**
+     * 증감을 로그에 추가하고 버퍼에 합산합니다.
+     * @param profileId 프로필 ID
+     * @param gold Gold 증감
+     * @param experience 경험치 증감
+     * @param stored DB에서 읽은 프로필 수치 (버퍼의 증감을 더하기 전)
+     * @return 이 증감까지 더한 프로필 수치 (비활성화 상태이거나 로그 추가에 실패하면 null, 호출자가 DB에 직접 반영)
+     * @throws IllegalArgumentException 더한 Gold가 gold 컬럼(INT) 범위를 넘거나 경험치가 long 범위를 넘는 경우
+     */
+    public ProfileCounters add(Long profileId, long gold, long experience, ProfileCounters stored) {
+        if (!enabled) {
+            return null;
+        }
+        long appliedSeq = stored.getDeltaSeq() != null ? stored.getDeltaSeq() : 0;
+        Stripe stripe = stripeOf(profileId);
+        synchronized (stripe) {
+            Deltas current = stripe.deltas.get(profileId);
+            long pendingGold = current != null ? current.pending().gold(appliedSeq) : 0;
+            long pendingExperience = current != null ? current.pending().experience(appliedSeq) : 0;
+            long newGold = stored.getGold() + pendingGold + gold;
+            if (newGold > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Gold exceeds maximum. Current: " + (stored.getGold() + pendingGold) + ", Amount: " + gold);
+            }
+            long newExperience;
+            try {
+                newExperience = Math.addExact(Math.addExact(stored.getExperience(), pendingExperience), experience);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Experience exceeds maximum. Amount: " + experience);
+            }
+
+            long seq = lastSeq.incrementAndGet();
+            try {
+                appendLog(seq, profileId, gold, experience);
+            } catch (IOException e) {
+                logFailureCounter.increment();
+                logger.error("Failed to append profile delta log: {}", e.getMessage());
+                return false;
+            }
+            Deltas deltas = stripe.deltas.computeIfAbsent(profileId, id -> new Deltas());
+            if (deltas.firstSeq == 0) {
+                deltas.firstSeq = seq;
+            }
+            deltas.gold += gold;
+            deltas.experience += experience;
+            deltas.seq = seq;
+            return new ProfileCounters(profileId, stored.getUserId(), stored.getLevel(), newExperience, (int) newGold,
+                stored.getUpdatedAt(), stored.getDeltaSeq());
+        }
+    }
+
+    /**
+     * 아직 DB에 반영되지 않은 증감을 반환합니다.
+     * DB 값보다 먼저 가져와야 합니다. (사이에 flush가 끝나도 delta_seq로 중복 없이 합산)
+     * @return 증감 스냅샷 (없으면 null)
+     */
+    public Pending pending(Long profileId) {
+        if (!enabled) {
+            return null;
+        }
+        Stripe stripe = stripeOf(profileId);
+        synchronized (stripe) {
+            Deltas deltas = stripe.deltas.get(profileId);
+            return deltas != null ? deltas.pending() : null;
+        }
+    }
+
+    /**
+     * 한 프로필의 증감을 지금 반영합니다. (Gold 차감, 전체 값 덮어쓰기 전)
+     * 트랜잭션 안에서 호출하면 같은 트랜잭션으로 반영하고, 커밋된 뒤에 버퍼에서 지웁니다.
+     * (롤백되면 버퍼에 남아 다음 flush에서 다시 반영)
+     */
+    public void flushProfile(Long profileId) {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Row row = beginFlush(profileId);
+            if (row == null) {
+                return;
+            }
+            boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+            applyNow(row, inTransaction);
+            // 이전 flush가 실패해 남아 있던 증감을 반영했다면 그 뒤의 새 증감도 이어서 반영
+            Row next = inTransaction ? beginFlushAfter(profileId, row) : beginFlush(profileId);
+            if (next != null) {
+                applyNow(next, inTransaction);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void applyNow(Row row, boolean inTransaction) {
+        jdbcTemplate.update(APPLY_SQL, row.args(Timestamp.valueOf(LocalDateTime.now())));
+        // 캐시 무효화를 버퍼 정리보다 먼저 (조회가 캐시의 이전 값과 비워진 버퍼를 함께 보지 않도록)
+        publishChanged(row);
+        if (!inTransaction) {
+            completeFlush(row);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                completeFlush(row);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${profile.delta-buffer.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        if (enabled && flushLock.tryLock()) {
+            try {
+                doFlush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 버퍼의 증감을 모두 DB에 반영합니다.
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void doFlush() {
+        long rotatedAtSeq;
+        long flushedThroughSegment;
+        synchronized (logLock) {
+            // 이후 증감은 새 세그먼트에 기록되므로, 이 시점까지의 증감이 모두 반영되면 이전 세그먼트는 삭제 가능
+            rotatedAtSeq = lastSeq.get();
+            flushedThroughSegment = segmentSeq;
+            try {
+                openNextSegment();
+            } catch (IOException e) {
+                logger.error("Failed to rotate profile delta log: {}", e.getMessage());
+                flushedThroughSegment = segmentSeq - 1;
+            }
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<Long, Deltas> entry : stripe.deltas.entrySet()) {
+                    Row row = entry.getValue().beginFlush(entry.getKey());
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            deleteSegmentsThrough(flushedThroughSegment);
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Row> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            try {
+                jdbcTemplate.batchUpdate(APPLY_SQL, chunk.stream().map(row -> row.args(now)).collect(Collectors.toList()));
+            } catch (DataAccessException e) {
+                // 어느 행 때문인지 알 수 없으므로 행별로 다시 반영 (이미 반영된 행은 delta_seq 조건으로 건너뜀)
+                flushFailureCounter.increment();
+                logger.warn("Profile delta batch failed, applying {} profiles one by one: {}", chunk.size(), e.getMessage());
+                if (applyOneByOne(chunk, now) == 0) {
+                    // 모두 실패하면 DB 장애로 보고 남은 증감은 같은 번호로 다음 flush에서 다시 반영
+                    logger.error("Profile delta flush failed ({} profiles pending)", rows.size() - from);
+                    return;
+                }
+                continue;
+            }
+            chunk.forEach(this::publishChanged);
+            chunk.forEach(this::completeFlush);
+            flushedCounter.increment(chunk.size());
+        }
+
+        if (oldestPendingSeq() > rotatedAtSeq) {
+            deleteSegmentsThrough(flushedThroughSegment);
+        }
+    }
+
+    /**
+     * 행마다 따로 반영합니다. 실패한 행은 버퍼에 남아 다음 flush에서 같은 번호로 다시 반영됩니다.
+     * @return 반영한 행 수
+     */
+    private int applyOneByOne(List<Row> chunk, Timestamp now) {
+        int applied = 0;
+        for (Row row : chunk) {
+            try {
+                jdbcTemplate.update(APPLY_SQL, row.args(now));
+            } catch (DataAccessException e) {
+                flushFailureCounter.increment();
+                logger.error("Profile delta flush failed for profile {} (gold {}, experience {}): {}",
+                    row.profileId, row.gold, row.experience, e.getMessage());
+                continue;
+            }
+            publishChanged(row);
+            completeFlush(row);
+            flushedCounter.increment();
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * 종료 시 남은 증감을 반영합니다. 실패하면 로그가 남아 다음 시작 시 반영됩니다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        synchronized (logLock) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close profile delta log: {}", e.getMessage());
+            }
+            if (oldestPendingSeq() == Long.MAX_VALUE) {
+                deleteSegmentsThrough(segmentSeq);
+            }
+        }
+    }
+
+    private Row beginFlush(Long profileId) {
+        Stripe stripe = stripeOf(profileId);
+        synchronized (stripe) {
+            Deltas deltas = stripe.deltas.get(profileId);
+            return deltas != null ? deltas.beginFlush(profileId) : null;
+        }
+    }
+
+    /**
+     * 커밋 전인 반영분(flushed)과 그 뒤의 새 증감을 합친 행을 만듭니다.
+     * delta_seq 조건은 flushed 반영 이후 값 기준이므로 새 증감만 더해집니다.
+     */
+    private Row beginFlushAfter(Long profileId, Row flushed) {
+        Stripe stripe = stripeOf(profileId);
+        synchronized (stripe) {
+            Deltas deltas = stripe.deltas.get(profileId);
+            if (deltas == null || deltas.seq == 0 || deltas.flushingSeq != flushed.seq) {
+                return null;
+            }
+            Row row = new Row(profileId, deltas.seq, deltas.gold, deltas.experience, deltas.firstSeq);
+            deltas.flushingSeq = deltas.seq;
+            deltas.flushingFirstSeq = flushed.firstSeq;
+            deltas.flushingGold = flushed.gold + deltas.gold;
+            deltas.flushingExperience = flushed.experience + deltas.experience;
+            deltas.clearPending();
+            return row;
+        }
+    }
+
+    private void publishChanged(Row row) {
+        eventPublisher.publishEvent(new UserGameProfileChangedEvent(row.profileId, null));
+    }
+
+    private void completeFlush(Row row) {
+        Stripe stripe = stripeOf(row.profileId);
+        synchronized (stripe) {
+            Deltas deltas = stripe.deltas.get(row.profileId);
+            if (deltas == null || deltas.flushingSeq != row.seq) {
+                return;
+            }
+            deltas.flushingSeq = 0;
+            deltas.flushingFirstSeq = 0;
+            deltas.flushingGold = 0;
+            deltas.flushingExperience = 0;
+            if (deltas.seq == 0) {
+                stripe.deltas.remove(row.profileId);
+            }
+        }
+    }
+
+    /**
+     * @return 아직 반영되지 않은 가장 오래된 증감 번호 (없으면 Long.MAX_VALUE)
+     */
+    private long oldestPendingSeq() {
+        long oldest = Long.MAX_VALUE;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Deltas deltas : stripe.deltas.values()) {
+                    if (deltas.flushingFirstSeq != 0) {
+                        oldest = Math.min(oldest, deltas.flushingFirstSeq);
+                    }
+                    if (deltas.firstSeq != 0) {
+                        oldest = Math.min(oldest, deltas.firstSeq);
+                    }
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private int pendingProfiles() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.deltas.size();
+            }
+        }
+        return count;
+    }
+
+    private Stripe stripeOf(Long profileId) {
+        int hash = Long.hashCode(profileId);
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    /**
+     * 로그의 증감 중 DB의 delta_seq보다 큰 번호만 합산해 반영합니다.
+     * @return 반영한 프로필 수
+     */
+    private int applyRecovered(Map<Long, List<long[]>> entries) {
+        Map<Long, Long> appliedSeqs = new HashMap<>();
+        List<Long> profileIds = new ArrayList<>(entries.keySet());
+        for (int from = 0; from < profileIds.size(); from += batchSize) {
+            List<Long> chunk = profileIds.subList(from, Math.min(from + batchSize, profileIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT profile_id, delta_seq FROM user_game_profiles WHERE profile_id IN (" + placeholders + ")",
+                rs -> {
+                    appliedSeqs.put(rs.getLong(1), rs.getLong(2));
+                }, chunk.toArray());
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Map.Entry<Long, List<long[]>> entry : entries.entrySet()) {
+            Long appliedSeq = appliedSeqs.get(entry.getKey());
+            if (appliedSeq == null) {
+                continue; // 삭제된 프로필
+            }
+            long gold = 0;
+            long experience = 0;
+            long maxSeq = 0;
+            for (long[] delta : entry.getValue()) {
+                if (delta[0] > appliedSeq) {
+                    gold += delta[1];
+                    experience += delta[2];
+                    maxSeq = Math.max(maxSeq, delta[0]);
+                }
+            }
+            if (maxSeq != 0) {
+                rows.add(new Row(entry.getKey(), maxSeq, gold, experience, 0).args(now));
+            }
+        }
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(APPLY_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+        return rows.size();
+    }
+
+    private void appendLog(long seq, Long profileId, long gold, long experience) throws IOException {
+        byte[] line = (seq + " " + profileId + " " + gold + " " + experience + "\n").getBytes(StandardCharsets.US_ASCII);
+        synchronized (logLock) {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            if (fsync) {
+                segment.force(false);
+            }
+        }
+    }
+
+    /**
+     * @return 세그먼트의 가장 큰 증감 번호
+     */
+    private long readSegment(Path path, Map<Long, List<long[]>> entries) throws IOException {
+        long maxSeq = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.trim().split(" ");
+                try {
+                    long seq = Long.parseLong(fields[0]);
+                    long profileId = Long.parseLong(fields[1]);
+                    long gold = Long.parseLong(fields[2]);
+                    long experience = Long.parseLong(fields[3]);
+                    entries.computeIfAbsent(profileId, id -> new ArrayList<>()).add(new long[] {seq, gold, experience});
+                    maxSeq = Math.max(maxSeq, seq);
+                } catch (RuntimeException e) {
+                    // 비정상 종료로 마지막 줄이 잘린 경우
+                    logger.warn("Skipping unreadable profile delta log entry in {}", path.getFileName());
+                }
+            }
+        }
+        return maxSeq;
+    }
+
+    private void openNextSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        segmentSeq++;
+        segment = FileChannel.open(logDir.resolve(SEGMENT_PREFIX + segmentSeq + SEGMENT_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void deleteSegmentsThrough(long seq) {
+        try {
+            for (Path path : listSegments()) {
+                if (segmentSeqOf(path) <= seq) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete flushed profile delta log segments: {}", e.getMessage());
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted((a, b) -> Long.compare(segmentSeqOf(a), segmentSeqOf(b)))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private long segmentSeqOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 아직 반영되지 않은 증감 (DB 값에 더해 응답할 때 사용)
+     */
+    public static final class Pending {
+        private final long flushingSeq;
+        private final long flushingGold;
+        private final long flushingExperience;
+        private final long seq;
+        private final long gold;
+        private final long experience;
+
+        Pending(long flushingSeq, long flushingGold, long flushingExperience, long seq, long gold, long experience) {
+            this.flushingSeq = flushingSeq;
+            this.flushingGold = flushingGold;
+            this.flushingExperience = flushingExperience;
+            this.seq = seq;
+            this.gold = gold;
+            this.experience = experience;
+        }
+
+        /**
+         * @param appliedSeq DB 값의 delta_seq
+         * @return DB 값에 아직 포함되지 않은 Gold 증감
+         */
+        public long gold(long appliedSeq) {
+            return (flushingSeq > appliedSeq ? flushingGold : 0) + (seq > appliedSeq ? gold : 0);
+        }
+
+        /**
+         * @param appliedSeq DB 값의 delta_seq
+         * @return DB 값에 아직 포함되지 않은 경험치 증감
+         */
+        public long experience(long appliedSeq) {
+            return (flushingSeq > appliedSeq ? flushingExperience : 0) + (seq > appliedSeq ? experience : 0);
+        }
+
+        /**
+         * DB에서 읽은 수치에 아직 반영되지 않은 증감을 더합니다.
+         */
+        public ProfileCounters applyTo(ProfileCounters counters) {
+            long appliedSeq = counters.getDeltaSeq() != null ? counters.getDeltaSeq() : 0;
+            return new ProfileCounters(
+                counters.getProfileId(),
+                counters.getUserId(),
+                counters.getLevel(),
+                counters.getExperience() + experience(appliedSeq),
+                // add()에서 INT 범위를 넘는 증가분은 받지 않으므로 넘지 않음 (넘으면 부호가 바뀌지 않게 최대값)
+                (int) Math.min(counters.getGold() + gold(appliedSeq), Integer.MAX_VALUE),
+                counters.getUpdatedAt(),
+                counters.getDeltaSeq()
+            );
+        }
+    }
+
+    /**
+     * 프로필 하나의 증감 합계
+     * - gold/experience/seq: 아직 flush하지 않은 증감 (seq는 마지막 번호, firstSeq는 첫 번호)
+     * - flushing*: DB에 반영 중이거나 반영에 실패해 같은 번호로 다시 반영할 증감
+     */
+    private static final class Deltas {
+        long gold;
+        long experience;
+        long seq;
+        long firstSeq;
+        long flushingGold;
+        long flushingExperience;
+        long flushingSeq;
+        long flushingFirstSeq;
+
+        Pending pending() {
+            return new Pending(flushingSeq, flushingGold, flushingExperience, seq, gold, experience);
+        }
+
+        /**
+         * 반영할 행을 만듭니다. 반영 중인 증감이 있으면 그것을 같은 번호로 다시 반영합니다.
+         */
+        Row beginFlush(Long profileId) {
+            if (flushingSeq == 0) {
+                if (seq == 0) {
+                    return null;
+                }
+                flushingSeq = seq;
+                flushingFirstSeq = firstSeq;
+                flushingGold = gold;
+                flushingExperience = experience;
+                clearPending();
+            }
+            return new Row(profileId, flushingSeq, flushingGold, flushingExperience, flushingFirstSeq);
+        }
+
+        void clearPending() {
+            gold = 0;
+            experience = 0;
+            seq = 0;
+            firstSeq = 0;
+        }
+    }
+
+    private static final class Row {
+        final Long profileId;
+        final long seq;
+        final long gold;
+        final long experience;
+        final long firstSeq;
+
+        Row(Long profileId, long seq, long gold, long experience, long firstSeq) {
+            this.profileId = profileId;
+            this.seq = seq;
+            this.gold = gold;
+            this.experience = experience;
+            this.firstSeq = firstSeq;
+        }
+
+        Object[] args(Timestamp now) {
+            return new Object[] {gold, experience, seq, now, profileId, seq};
+        }
+    }
+
+    private static final class Stripe {
+        final Map<Long, Deltas> deltas = new HashMap<>();
+    }
+}
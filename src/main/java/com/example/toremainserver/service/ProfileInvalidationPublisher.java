@@ -0,0 +1,16 @@
+package com.example.toremainserver.service;
+
+/**
+ * 프로필 변경을 다른 서버 노드에 알리는 통로입니다.
+ * ProfileCache가 커밋된 변경마다 publish를 호출하고, 전달받은 노드는 ProfileCache.evict를 호출합니다.
+ * 빈이 없으면 단일 노드로 보고 NONE(아무것도 하지 않음)을 사용합니다.
+ */
+public interface ProfileInvalidationPublisher {
+
+    ProfileInvalidationPublisher NONE = profileId -> {};
+
+    /**
+     * @param profileId 변경된 프로필 ID
+     */
+    void publish(Long profileId);
+}
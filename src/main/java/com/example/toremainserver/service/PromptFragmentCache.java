@@ -0,0 +1,386 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Npc;
+import com.example.toremainserver.entity.NpcChangedEvent;
+import com.example.toremainserver.repository.NpcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NPC 대화 프롬프트 조각(NPC 페르소나, 플레이어 설명) 캐시입니다.
+ *
+ * - NPC 페르소나: NPC별로 미리 렌더링한 문자열을 보관하고,
+ *   Npc 엔티티 변경(NpcChangedEvent) 시 또는 TTL 경과 시 다시 생성합니다.
+ * - 플레이어 설명: (playerName, playerDescription 내용)을 키로 메모이제이션하며,
+ *   최대 개수를 넘으면 가장 오래 사용되지 않은 항목부터 제거합니다(LRU).
+ *
+ * 캐시 적중/미스는 npc.prompt.fragment.cache 메트릭으로 노출됩니다.
+ */
+@Component
+public class PromptFragmentCache {
+
+    /**
+     * 미리 렌더링된 NPC 페르소나
+     */
+    public static class NpcPersona {
+        private final Long npcId;
+        private final String npcName;
+        private final String description;
+        private final Map<String, Object> npcInfo;
+        private final long loadedAtMillis;
+
+        NpcPersona(Long npcId, String npcName, String description, Map<String, Object> npcInfo, long loadedAtMillis) {
+            this.npcId = npcId;
+            this.npcName = npcName;
+            this.description = description;
+            this.npcInfo = npcInfo;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        public Long getNpcId() {
+            return npcId;
+        }
+
+        public String getNpcName() {
+            return npcName;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Map<String, Object> getNpcInfo() {
+            return npcInfo;
+        }
+    }
+
+    /**
+     * 플레이어 설명 캐시 키 (내용 기반 해시를 한 번만 계산)
+     */
+    private static final class PlayerBlockKey {
+        private final String playerName;
+        private final Map<String, Object> attributes;
+        private final int hash;
+
+        PlayerBlockKey(String playerName, Map<String, Object> attributes) {
+            this.playerName = playerName;
+            this.attributes = attributes;
+            this.hash = Objects.hash(playerName, attributes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PlayerBlockKey)) return false;
+            PlayerBlockKey other = (PlayerBlockKey) o;
+            return hash == other.hash
+                && Objects.equals(playerName, other.playerName)
+                && Objects.equals(attributes, other.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final NpcRepository npcRepository;
+    private final long personaTtlMillis;
+    private final Map<Long, NpcPersona> personas = new ConcurrentHashMap<>();
+    // NPC별 무효화 횟수 (조회하는 동안 변경된 NPC의 이전 페르소나를 다시 캐시하지 않도록)
+    private final Map<Long, AtomicLong> npcVersions = new ConcurrentHashMap<>();
+    private final Map<PlayerBlockKey, String> playerBlocks;
+
+    private final Counter personaHits;
+    private final Counter personaMisses;
+    private final Counter playerHits;
+    private final Counter playerMisses;
+
+    @Autowired
+    public PromptFragmentCache(NpcRepository npcRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${npc.prompt-cache.persona-ttl-seconds:600}") long personaTtlSeconds,
+                               @Value("${npc.prompt-cache.player-max-entries:2048}") int playerMaxEntries) {
+        this.npcRepository = npcRepository;
+        this.personaTtlMillis = personaTtlSeconds * 1000L;
+        this.playerBlocks = java.util.Collections.synchronizedMap(
+            new LinkedHashMap<PlayerBlockKey, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PlayerBlockKey, String> eldest) {
+                    return size() > playerMaxEntries;
+                }
+            });
+
+        this.personaHits = cacheCounter(meterRegistry, "persona", "hit");
+        this.personaMisses = cacheCounter(meterRegistry, "persona", "miss");
+        this.playerHits = cacheCounter(meterRegistry, "player", "hit");
+        this.playerMisses = cacheCounter(meterRegistry, "player", "miss");
+        Gauge.builder("npc.prompt.fragment.cache.size", personas, Map::size)
+            .tag("fragment", "persona")
+            .register(meterRegistry);
+        Gauge.builder("npc.prompt.fragment.cache.size", playerBlocks, Map::size)
+            .tag("fragment", "player")
+            .register(meterRegistry);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String fragment, String result) {
+        return Counter.builder("npc.prompt.fragment.cache")
+            .description("NPC 프롬프트 조각 캐시 조회 결과")
+            .tag("fragment", fragment)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * NPC 페르소나를 조회합니다. 캐시에 없거나 만료되었으면 DB에서 읽어 다시 렌더링합니다.
+     * @param npcId NPC ID
+     * @return 렌더링된 페르소나 (NPC가 없으면 null)
+     */
+    public NpcPersona getNpcPersona(Long npcId) {
+        NpcPersona cached = personas.get(npcId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAtMillis < personaTtlMillis) {
+            personaHits.increment();
+            return cached;
+        }
+
+        personaMisses.increment();
+        long version = versionOf(npcId);
+        Optional<Npc> npcOptional = npcRepository.findById(npcId);
+        if (npcOptional.isEmpty()) {
+            personas.remove(npcId);
+            return null;
+        }
+        return cacheNpc(npcOptional.get(), version);
+    }
+
+    /**
+     * 여러 NPC 페르소나를 조회합니다. 캐시에 없거나 만료된 NPC만 한 번의 쿼리로 DB에서 읽습니다.
+     * @param npcIds NPC ID 목록
+     * @return NPC ID별 페르소나 (존재하지 않는 NPC는 포함되지 않음)
+     */
+    public Map<Long, NpcPersona> getNpcPersonas(Collection<Long> npcIds) {
+        Map<Long, NpcPersona> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long now = System.currentTimeMillis();
+        for (Long npcId : npcIds) {
+            NpcPersona cached = personas.get(npcId);
+            if (cached != null && now - cached.loadedAtMillis < personaTtlMillis) {
+                personaHits.increment();
+                result.put(npcId, cached);
+            } else {
+                personaMisses.increment();
+                missing.add(npcId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Long> versions = new HashMap<>();
+            for (Long npcId : missing) {
+                versions.put(npcId, versionOf(npcId));
+            }
+            for (Npc npc : npcRepository.findAllById(missing)) {
+                result.put(npc.getId(), cacheNpc(npc, versions.get(npc.getId())));
+                missing.remove(npc.getId());
+            }
+            missing.forEach(personas::remove);
+        }
+        return result;
+    }
+
+    /**
+     * 조회한 Npc 엔티티로 페르소나를 렌더링하여 캐시에 넣습니다.
+     * 조회 전에 읽은 무효화 횟수가 그 사이 바뀌었으면(onNpcChanged) 렌더링 결과만 반환하고 캐시하지 않습니다.
+     * (CatalogCache.current와 같은 방식, 검사와 저장은 같은 항목 잠금 안에서 수행)
+     * @param npc NPC 엔티티
+     * @param version 조회 전에 versionOf로 읽은 무효화 횟수
+     * @return 렌더링된 페르소나
+     */
+    private NpcPersona cacheNpc(Npc npc, long version) {
+        NpcPersona persona = new NpcPersona(
+            npc.getId(),
+            npc.getName(),
+            buildNpcDescription(npc),
+            npc.getNpcInfo(),
+            System.currentTimeMillis()
+        );
+        personas.compute(npc.getId(), (npcId, current) -> versionOf(npcId) == version ? persona : current);
+        return persona;
+    }
+
+    private long versionOf(Long npcId) {
+        AtomicLong version = npcVersions.get(npcId);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 플레이어 설명 문자열을 조회합니다. 같은 내용이면 이전 렌더링 결과를 재사용합니다.
+     * @param playerDescriptionMap UE5에서 받은 플레이어 정보 맵
+     * @param playerName 플레이어 이름
+     * @return 포맷팅된 플레이어 설명 문자열
+     */
+    public String getPlayerDescription(Map<String, Object> playerDescriptionMap, String playerName) {
+        if (playerDescriptionMap == null || playerDescriptionMap.isEmpty()) {
+            return buildPlayerDescription(playerDescriptionMap, playerName);
+        }
+
+        PlayerBlockKey key = new PlayerBlockKey(playerName, new HashMap<>(playerDescriptionMap));
+        String cached = playerBlocks.get(key);
+        if (cached != null) {
+            playerHits.increment();
+            return cached;
+        }
+
+        playerMisses.increment();
+        String rendered = buildPlayerDescription(playerDescriptionMap, playerName);
+        playerBlocks.put(key, rendered);
+        return rendered;
+    }
+
+    /**
+     * NPC가 변경되면 (트랜잭션 커밋 후) 해당 NPC의 페르소나를 제거합니다.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNpcChanged(NpcChangedEvent event) {
+        if (event.getNpcId() != null) {
+            // 횟수를 먼저 올려야 진행 중인 조회가 제거 이후에 이전 값을 넣지 않음
+            npcVersions.computeIfAbsent(event.getNpcId(), npcId -> new AtomicLong()).incrementAndGet();
+            personas.remove(event.getNpcId());
+        }
+    }
+
+    /**
+     * NPC의 npcInfo를 AI 프롬프트 형식의 문자열로 변환합니다.
+     * @param npc NPC 엔티티
+     * @return 포맷팅된 NPC 설명 문자열
+     */
+    private String buildNpcDescription(Npc npc) {
+        if (npc.getNpcInfo() == null || npc.getNpcInfo().isEmpty()) {
+            return "";
+        }
+        
+        Map<String, Object> npcInfo = npc.getNpcInfo();
+        StringBuilder description = new StringBuilder();
+        
+        description.append("# 시스템 명령 및 페르소나 정의\n");
+        description.append("당신은 이제부터 '").append(npc.getName()).append("'라는 ");
+        description.append(getStringValue(npcInfo, "occupation", "NPC"));
+        description.append(" NPC 역할을 수행해야 합니다.\n");
+        description.append("다음의 정보를 철저히 준수하여 사용자와 대화하십시오.\n\n");
+        
+        description.append("## ").append(npc.getName()).append(" NPC 페르소나\n");
+        description.append("* **이름:** ").append(npc.getName()).append("\n");
+        description.append("* **성별:** ").append(getStringValue(npcInfo, "gender", "알 수 없음")).append("\n");
+        description.append("* **나이:** ").append(getStringValue(npcInfo, "age", "알 수 없음")).append("세\n");
+        description.append("* **위치:** ").append(getStringValue(npcInfo, "location", "알 수 없음")).append("\n");
+        description.append("* **직업:** ").append(getStringValue(npcInfo, "occupation", "알 수 없음")).append("\n");
+        description.append("* **성격:** ").append(getStringValue(npcInfo, "personality", "알 수 없음")).append("\n");
+        
+        String persona = getStringValue(npcInfo, "persona", "");
+        if (!persona.isEmpty()) {
+            description.append("* **스토리/캐릭터 배경:** ").append(persona).append("\n");
+        }
+        
+        description.append("\n## 대화 스타일 (Speaking Style)\n");
+        String speakingStyle = getStringValue(npcInfo, "speakingStyle", "평범한 말투로 대화합니다.");
+        description.append("* **특징:** ").append(speakingStyle).append("\n");
+        
+        return description.toString();
+    }
+    
+    /**
+     * 플레이어의 상세 정보를 AI 프롬프트 형식의 문자열로 변환합니다.
+     * @param playerDescriptionMap UE5에서 받은 플레이어 정보 맵
+     * @param playerName 플레이어 이름
+     * @return 포맷팅된 플레이어 설명 문자열
+     */
+    private String buildPlayerDescription(Map<String, Object> playerDescriptionMap, String playerName) {
+        if (playerDescriptionMap == null || playerDescriptionMap.isEmpty()) {
+            // 기본 설명 반환
+            return "이름: " + playerName + "\n정보: 모험가";
+        }
+        
+        StringBuilder description = new StringBuilder();
+        
+        description.append("## 플레이어 정보\n");
+        description.append("* **이름:** ").append(playerName).append("\n");
+        
+        // 레벨 정보
+        if (playerDescriptionMap.containsKey("level")) {
+            description.append("* **레벨:** ").append(getStringValue(playerDescriptionMap, "level", "1")).append("\n");
+        }
+        
+        // 직업/클래스 정보
+        if (playerDescriptionMap.containsKey("class")) {
+            description.append("* **직업:** ").append(getStringValue(playerDescriptionMap, "class", "모험가")).append("\n");
+        }
+        
+        // 현재 위치
+        if (playerDescriptionMap.containsKey("currentLocation")) {
+            description.append("* **현재 위치:** ").append(getStringValue(playerDescriptionMap, "currentLocation", "알 수 없음")).append("\n");
+        }
+        
+        // 소지금
+        if (playerDescriptionMap.containsKey("gold")) {
+            description.append("* **소지금:** ").append(getStringValue(playerDescriptionMap, "gold", "0")).append(" 골드\n");
+        }
+        
+        // 평판
+        if (playerDescriptionMap.containsKey("reputation")) {
+            description.append("* **평판:** ").append(getStringValue(playerDescriptionMap, "reputation", "보통")).append("\n");
+        }
+        
+        // 최근 업적
+        if (playerDescriptionMap.containsKey("recentAchievement")) {
+            description.append("* **최근 업적:** ").append(getStringValue(playerDescriptionMap, "recentAchievement", "없음")).append("\n");
+        }
+        
+        // 현재 퀘스트
+        if (playerDescriptionMap.containsKey("currentQuest")) {
+            description.append("* **진행 중인 퀘스트:** ").append(getStringValue(playerDescriptionMap, "currentQuest", "없음")).append("\n");
+        }
+        
+        // 추가 정보가 있다면 포함
+        for (Map.Entry<String, Object> entry : playerDescriptionMap.entrySet()) {
+            String key = entry.getKey();
+            // 이미 처리한 필드는 건너뛰기
+            if (!key.equals("playername") && !key.equals("level") && !key.equals("class") 
+                && !key.equals("currentLocation") && !key.equals("gold") 
+                && !key.equals("reputation") && !key.equals("recentAchievement") 
+                && !key.equals("currentQuest")) {
+                description.append("* **").append(key).append(":** ").append(entry.getValue()).append("\n");
+            }
+        }
+        
+        return description.toString();
+    }
+    
+    /**
+     * Map에서 문자열 값을 안전하게 추출합니다.
+     * @param map 데이터 맵
+     * @param key 키
+     * @param defaultValue 기본값
+     * @return 추출된 값 또는 기본값
+     */
+    private String getStringValue(Map<String, Object> map, String key, String defaultValue) {
+        Object value = map.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value.toString();
+    }
+}
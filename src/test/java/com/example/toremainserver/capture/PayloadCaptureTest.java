@@ -0,0 +1,136 @@
+package com.example.toremainserver.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadCaptureTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void samplesNothingAtZeroAndEverythingAtOne() {
+        PayloadCapture off = newCapture(0.0, 4, 1024, Long.MAX_VALUE, false, 1024, 2, Runnable::run);
+        PayloadCapture all = newCapture(1.0, 4, 1024, Long.MAX_VALUE, false, 1024, 2, Runnable::run);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(off.sample());
+            assertTrue(all.sample());
+        }
+    }
+
+    @Test
+    void truncatesLongStringsAndRedactsApiKeyBeforeQueueing() throws Exception {
+        PayloadCapture capture = newCapture(1.0, 4, 1024, Long.MAX_VALUE, false, 1024, 2, Runnable::run);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("apiKey", "secret");
+        payload.put("texture", "A".repeat(100));
+        payload.put("tags", List.of("apiKey", "short"));
+
+        JsonNode json = objectMapper.readTree(capture.serialize(payload));
+
+        assertEquals("***", json.get("apiKey").asText());
+        assertEquals("A".repeat(16) + "...(100 chars)", json.get("texture").asText());
+        assertEquals("apiKey", json.get("tags").get(0).asText());
+    }
+
+    @Test
+    void oversizedPayloadIsReplacedBySizeHashAndHead() throws Exception {
+        PayloadCapture capture = newCapture(1.0, 4, 64, Long.MAX_VALUE, false, 1024, 2, Runnable::run);
+        List<String> payload = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            payload.add("item-" + i);
+        }
+        byte[] full = objectMapper.writeValueAsBytes(payload);
+
+        JsonNode summary = objectMapper.readTree(capture.serialize(payload));
+
+        assertTrue(summary.get("truncated").asBoolean());
+        assertEquals(full.length, summary.get("bytes").asLong());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(full)), summary.get("sha256").asText());
+        assertEquals(new String(full, 0, 64, StandardCharsets.UTF_8), summary.get("head").asText());
+    }
+
+    @Test
+    void ringBufferKeepsNewestCapturesAndFilters() {
+        PayloadCapture capture = newCapture(1.0, 3, 1024, Long.MAX_VALUE, false, 1024, 2, Runnable::run);
+        for (long npcId = 1; npcId <= 5; npcId++) {
+            capture.capture("llm/generate", "request", 10L, npcId % 2, null, Map.of("n", npcId));
+        }
+
+        assertEquals(List.of(4L, 3L, 2L), sequences(capture.recent(null, null, 10)));
+        assertEquals(List.of(4L, 2L), sequences(capture.recent(10L, 1L, 10)));
+        assertEquals(List.of(4L), sequences(capture.recent(null, null, 1)));
+        assertTrue(capture.recent(11L, null, 10).isEmpty());
+    }
+
+    @Test
+    void dropsCapturesOnceQueuedBytesExceedTheLimit() {
+        List<Runnable> queue = new ArrayList<>();
+        // 캡처 하나가 약 2 * 30바이트: 두 건까지만 대기열에 들어감
+        PayloadCapture capture = newCapture(1.0, 8, 1024, 130, false, 1024, 2, queue::add);
+        for (int i = 0; i < 4; i++) {
+            capture.capture("llm/generate", "request", 10L, 1L, null, Map.of("message", "0123456789abcdef"));
+        }
+        assertEquals(2, queue.size());
+        assertEquals(2.0, meterRegistry.counter("payload.capture.dropped").count());
+
+        // 기록이 끝나면 자리가 다시 남
+        queue.forEach(Runnable::run);
+        capture.capture("llm/generate", "request", 10L, 1L, null, Map.of("message", "0123456789abcdef"));
+        assertEquals(3, queue.size());
+        assertEquals(2, capture.recent(null, null, 10).size());
+    }
+
+    @Test
+    void rotatesCaptureFilesAndKeepsMaxFiles() throws Exception {
+        PayloadCapture capture = newCapture(1.0, 8, 1024, Long.MAX_VALUE, true, 300, 3, Runnable::run);
+        for (int i = 0; i < 10; i++) {
+            capture.capture("llm/generate", "request", 10L, 1L, null, Map.of("message", "x".repeat(100)));
+        }
+        capture.close();
+
+        List<String> files;
+        try (var stream = Files.list(tempDir)) {
+            files = stream.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+        assertEquals(List.of("payload-capture.log", "payload-capture.log.1", "payload-capture.log.2"), files);
+        for (String file : files) {
+            assertTrue(Files.size(tempDir.resolve(file)) <= 300, file);
+        }
+        // 가장 최근 캡처는 현재 파일의 마지막 줄
+        List<String> lines = Files.readAllLines(tempDir.resolve("payload-capture.log"));
+        assertEquals(9, objectMapper.readTree(lines.get(lines.size() - 1)).get("sequence").asLong());
+    }
+
+    private PayloadCapture newCapture(double sampleRate, int ringSize, int maxPayloadBytes, long maxQueuedBytes,
+                                      boolean fileEnabled, long maxFileBytes, int maxFiles, Executor executor) {
+        return new PayloadCapture(sampleRate, ringSize, 16, maxPayloadBytes, maxQueuedBytes,
+            fileEnabled, tempDir.toString(), maxFileBytes, maxFiles, objectMapper, executor, meterRegistry);
+    }
+
+    private static List<Long> sequences(List<CapturedPayload> captures) {
+        return captures.stream().map(CapturedPayload::getSequence).collect(Collectors.toList());
+    }
+}
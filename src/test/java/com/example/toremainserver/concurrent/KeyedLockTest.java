@@ -0,0 +1,90 @@
+package com.example.toremainserver.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * KeyedLock의 키별 직렬화와 잠금 해제를 검증합니다.
+ * (대화 기록 갱신의 동시 실행은 ConversationWriterConcurrencyTest에서 검증)
+ */
+class KeyedLockTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(32);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void sameKeyRunsOneAtATime() throws Exception {
+        KeyedLock<String> lock = new KeyedLock<>();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(CompletableFuture.runAsync(() -> lock.withLock("a", () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                Thread.yield();
+                return inside.decrementAndGet();
+            }), callers));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        assertEquals(1, maxInside.get());
+        assertEquals(0, lock.activeKeyCount());
+    }
+
+    @Test
+    void differentKeysRunInParallel() throws Exception {
+        KeyedLock<String> lock = new KeyedLock<>();
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> lock.withLock("a", () -> {
+            bothRunning.countDown();
+            return await(bothRunning);
+        }), callers);
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> lock.withLock("b", () -> {
+            bothRunning.countDown();
+            return await(bothRunning);
+        }), callers);
+
+        assertTrue(first.get(10, TimeUnit.SECONDS));
+        assertTrue(second.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void taskRunsOnCallerThreadAndFailureReleasesTheKey() {
+        KeyedLock<String> lock = new KeyedLock<>();
+
+        assertThrows(IllegalStateException.class, () -> lock.withLock("a", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(0, lock.activeKeyCount());
+        assertSame(Thread.currentThread(), lock.withLock("a", Thread::currentThread));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
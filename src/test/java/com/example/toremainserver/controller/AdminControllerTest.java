@@ -0,0 +1,51 @@
+package com.example.toremainserver.controller;
+
+import com.example.toremainserver.capture.CapturedPayload;
+import com.example.toremainserver.capture.PayloadCapture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdminControllerTest {
+
+    private final PayloadCapture payloadCapture = new PayloadCapture(1.0, 8, 2048, 65536, Long.MAX_VALUE,
+        false, "unused", 1024, 2, new ObjectMapper(), Runnable::run, new SimpleMeterRegistry());
+
+    @Test
+    void rejectsMissingOrWrongToken() {
+        AdminController controller = new AdminController(payloadCapture, "s3cret");
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.getPayloadCaptures(null, null, null, 50).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.getPayloadCaptures("s3cre", null, null, 50).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.getPayloadCaptures("s3cret2", null, null, 50).getStatusCode());
+    }
+
+    @Test
+    void disabledWhenNoTokenIsConfigured() {
+        AdminController controller = new AdminController(payloadCapture, "");
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.getPayloadCaptures("", null, null, 50).getStatusCode());
+    }
+
+    @Test
+    void returnsCapturesForMatchingToken() {
+        payloadCapture.capture("llm/generate", "request", 10L, 1L, null, Map.of("message", "안녕하세요"));
+        payloadCapture.capture("llm/generate", "request", 11L, 1L, null, Map.of("message", "반갑네"));
+        AdminController controller = new AdminController(payloadCapture, "s3cret");
+
+        ResponseEntity<?> response = controller.getPayloadCaptures("s3cret", 10L, null, 50);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<?> captures = (List<?>) response.getBody();
+        assertEquals(1, captures.size());
+        assertEquals(10L, ((CapturedPayload) captures.get(0)).getProfileId());
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getPayloadCaptures("s3cret", null, null, 0).getStatusCode());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.toremainserver.controller;
+
+import com.example.toremainserver.config.AsyncConfig;
+import com.example.toremainserver.dto.game.Ue5NpcRequest;
+import com.example.toremainserver.dto.game.Ue5NpcResponse;
+import com.example.toremainserver.service.GameEventService;
+import com.example.toremainserver.service.NpcChatCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/npc/chat이 LLM 호출을 aiUpstreamExecutor에 넘기고 서블릿 스레드를 바로 반환하는지 검증합니다.
+ * (AI 서버 호출 부분만 대체하고, 컨트롤러의 CompletableFuture 반환과 실행기 제출/거절은 실제 코드를 사용)
+ */
+class GameEventControllerAsyncTest {
+
+    private ThreadPoolTaskExecutor upstreamExecutor;
+    private final CountDownLatch releaseUpstream = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        releaseUpstream.countDown();
+        if (upstreamExecutor != null) {
+            upstreamExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void servletThreadReturnsBeforeLlmResponseAndResultIsDelivered() throws Exception {
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        AtomicReference<String> upstreamThread = new AtomicReference<>();
+        MockMvc mockMvc = mockMvc(64, 256, ue5Request -> {
+            upstreamThread.set(Thread.currentThread().getName());
+            upstreamStarted.countDown();
+            awaitRelease();
+            return ResponseEntity.ok(npcResponse(ue5Request.getNpcId(), "어서 오게나"));
+        });
+
+        MvcResult result = mockMvc.perform(chat(1L, 10L, "2025-10-20T10:00:00"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // 요청 스레드는 이미 반환되었고 LLM 호출은 업스트림 실행기에서 대기 중
+        assertTrue(upstreamStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, releaseUpstream.getCount());
+        assertTrue(upstreamThread.get().startsWith("ai-upstream-"), upstreamThread.get());
+
+        releaseUpstream.countDown();
+        result.getAsyncResult(5000);
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.npcId").value(1))
+            .andExpect(jsonPath("$.npcResponse.message").value("어서 오게나"));
+    }
+
+    @Test
+    void rejectsWith503WhenUpstreamExecutorIsSaturated() throws Exception {
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        MockMvc mockMvc = mockMvc(1, 0, ue5Request -> {
+            upstreamStarted.countDown();
+            awaitRelease();
+            return ResponseEntity.ok(npcResponse(ue5Request.getNpcId(), "어서 오게나"));
+        });
+
+        MvcResult busy = mockMvc.perform(chat(1L, 10L, "2025-10-20T10:00:00"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertTrue(upstreamStarted.await(5, TimeUnit.SECONDS));
+
+        // 동시 실행 한도와 대기열이 모두 찬 상태: 다른 대화 턴은 즉시 503
+        MvcResult rejected = mockMvc.perform(chat(2L, 11L, "2025-10-20T10:00:01"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(rejected))
+            .andExpect(status().isServiceUnavailable());
+
+        releaseUpstream.countDown();
+        busy.getAsyncResult(5000);
+        mockMvc.perform(asyncDispatch(busy))
+            .andExpect(status().isOk());
+    }
+
+    private MockMvc mockMvc(int maxConcurrent, int queueCapacity,
+                            Function<Ue5NpcRequest, ResponseEntity<Ue5NpcResponse>> upstream) {
+        upstreamExecutor = new AsyncConfig().aiUpstreamExecutor(maxConcurrent, queueCapacity);
+        upstreamExecutor.initialize();
+        GameEventService service = new StubUpstreamService(upstreamExecutor, upstream);
+        return MockMvcBuilders.standaloneSetup(new GameEventController(service, null, null, null, null)).build();
+    }
+
+    private static RequestBuilder chat(Long npcId, Long profileId, String timestamp) {
+        return post("/api/npc/chat")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"npcId\":" + npcId + ",\"profileId\":" + profileId
+                + ",\"currentPlayerMessage\":{\"speaker\":\"player\",\"message\":\"안녕하세요\",\"timestamp\":\"" + timestamp + "\"}}");
+    }
+
+    private static Ue5NpcResponse npcResponse(Long npcId, String message) {
+        return new Ue5NpcResponse(npcId, new Ue5NpcResponse.ChatHistory("npc", message, "2025-10-20T10:00:05"));
+    }
+
+    private void awaitRelease() {
+        try {
+            releaseUpstream.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * AI 서버 호출(forwardNpcRequest)만 대체한 GameEventService
+     */
+    private static class StubUpstreamService extends GameEventService {
+        private final Function<Ue5NpcRequest, ResponseEntity<Ue5NpcResponse>> upstream;
+
+        StubUpstreamService(Executor aiUpstreamExecutor, Function<Ue5NpcRequest, ResponseEntity<Ue5NpcResponse>> upstream) {
+            super(null, "http://ai.invalid", null, null, null,
+                aiUpstreamExecutor, true, null, 120000L, null,
+                new NpcChatCoalescer(new SimpleMeterRegistry(), 30), null, null, "...", null,
+                null, 8, null, null, null,
+                null, 32, 8, null, null,
+                null, null, null, 256, null,
+                null);
+            this.upstream = upstream;
+        }
+
+        @Override
+        public ResponseEntity<Ue5NpcResponse> forwardNpcRequest(Ue5NpcRequest ue5Request) {
+            return upstream.apply(ue5Request);
+        }
+    }
+}
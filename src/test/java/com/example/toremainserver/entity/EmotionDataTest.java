@@ -0,0 +1,51 @@
+package com.example.toremainserver.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmotionDataTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void packRoundTripsSignedAndClampedValues() {
+        EmotionData emotion = EmotionData.of(-100, 150, 70, 0, -5, 10, 0, 100);
+
+        EmotionData restored = EmotionData.unpack(emotion.pack());
+
+        assertEquals(emotion, restored);
+        assertEquals(-100, restored.getValence());
+        assertEquals(100, restored.getArousal());
+        assertEquals(70, restored.get(EmotionData.JOY));
+        assertEquals(0, restored.get(EmotionData.ANGER));
+        assertEquals(100, restored.get(EmotionData.DISGUST));
+    }
+
+    @Test
+    void jsonKeepsNestedShapeAndDropsUnknownKeys() throws Exception {
+        String json = "{\"dimensional\":{\"valence\":\"90\",\"arousal\":30.4,\"dominance\":5},"
+            + "\"categorical\":{\"joy\":70,\"surprise\":10,\"trust\":{\"x\":1}},\"note\":[1,2]}";
+
+        EmotionData emotion = objectMapper.readValue(json, EmotionData.class);
+
+        assertEquals(EmotionData.of(90, 30, 70, 0, 0, 10, 0, 0), emotion);
+        assertEquals("{\"dimensional\":{\"valence\":90,\"arousal\":30},"
+                + "\"categorical\":{\"joy\":70,\"sadness\":0,\"anger\":0,\"surprise\":10,\"fear\":0,\"disgust\":0}}",
+            objectMapper.writeValueAsString(emotion));
+    }
+
+    @Test
+    void conversationAccumulatesAffinity() {
+        Conversation conversation = new Conversation();
+
+        conversation.recordEmotion(EmotionData.of(80, 20));
+        conversation.recordEmotion(EmotionData.of(-20, 40));
+        conversation.recordEmotion(null);
+
+        assertEquals(2, conversation.getEmotionSamples());
+        assertEquals(30.0, conversation.getAffinity());
+        assertEquals(30.0, conversation.getAverageArousal());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.toremainserver.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserGameProfileTest {
+
+    @Test
+    void equipmentSlotPathQuotesTheMember() {
+        assertEquals("$.\"weapon\"", UserGameProfile.equipmentSlotPath("weapon"));
+        assertEquals("$.\"1h_weapon\"", UserGameProfile.equipmentSlotPath("1h_weapon"));
+        assertEquals("$.\"off hand.left\"", UserGameProfile.equipmentSlotPath("off hand.left"));
+        assertEquals("$.\"a\\\"b\\\\c\"", UserGameProfile.equipmentSlotPath("a\"b\\c"));
+    }
+
+    @Test
+    void equipmentSlotPathRejectsEmptyAndControlCharacters() {
+        assertThrows(IllegalArgumentException.class, () -> UserGameProfile.equipmentSlotPath(null));
+        assertThrows(IllegalArgumentException.class, () -> UserGameProfile.equipmentSlotPath(""));
+        assertThrows(IllegalArgumentException.class, () -> UserGameProfile.equipmentSlotPath("ring\n"));
+    }
+}
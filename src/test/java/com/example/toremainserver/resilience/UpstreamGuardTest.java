@@ -0,0 +1,47 @@
+package com.example.toremainserver.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamGuardTest {
+
+    // window 4, 최소 2회, 실패율 50% 이상이면 OPEN
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 2, 50.0, 60000, 1);
+    private final UpstreamGuard guard = new UpstreamGuard("material", breaker, new Bulkhead(1, 0),
+        e -> !(e instanceof UncheckedIOException), new SimpleMeterRegistry());
+
+    @Test
+    void permitHoldsBulkheadUntilReleasedOnce() {
+        UpstreamGuard.Permit permit = guard.acquire();
+        assertEquals(0, guard.getAvailablePermits());
+
+        UpstreamRejectedException rejected = assertThrows(UpstreamRejectedException.class, guard::acquire);
+        assertEquals(UpstreamRejectedException.Reason.BULKHEAD_FULL, rejected.getReason());
+
+        permit.success();
+        permit.success();
+        permit.failure(new IllegalStateException("late"));
+        assertEquals(1, guard.getAvailablePermits());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+
+    @Test
+    void streamingFailuresAreRecordedByPredicate() {
+        // UE5 연결 종료는 업스트림 장애가 아님
+        guard.acquire().failure(new UncheckedIOException(new IOException("client gone")));
+        guard.acquire().failure(new UncheckedIOException(new IOException("client gone")));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+
+        guard.acquire().failure(new IOException("upstream reset"));
+        guard.acquire().failure(new IOException("upstream reset"));
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+        assertThrows(UpstreamRejectedException.class, guard::acquire);
+        assertEquals(1, guard.getAvailablePermits());
+    }
+}
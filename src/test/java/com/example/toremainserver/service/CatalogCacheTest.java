@@ -0,0 +1,154 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Npc;
+import com.example.toremainserver.entity.NpcChangeListener;
+import com.example.toremainserver.entity.NpcChangedEvent;
+import com.example.toremainserver.repository.ItemDefinitionRepository;
+import com.example.toremainserver.repository.NpcRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogCacheTest {
+
+    private static final String ETAG = "\"0123456789abcdef0123456789abcdef\"";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Npc> npcRows = new CopyOnWriteArrayList<>(List.of(new Npc(1L, "대장장이", Map.of("role", "smith"))));
+    private final AtomicInteger npcLoads = new AtomicInteger();
+
+    @Test
+    void matchingIfNoneMatchReturns304WithoutLoading() {
+        CatalogCache cache = newCache(0);
+        String etag = cache.respond(CatalogCache.NPCS, null, null).getHeaders().getETag();
+        assertEquals(1, npcLoads.get());
+
+        ResponseEntity<byte[]> response = cache.respond(CatalogCache.NPCS, "W/" + etag, "gzip");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(CatalogCache.gzipEtagOf(etag), response.getHeaders().getETag());
+        assertNull(response.getBody());
+        assertEquals(1, npcLoads.get());
+    }
+
+    @Test
+    void servesPrecompressedBodyOnlyWhenGzipIsAccepted() throws Exception {
+        CatalogCache cache = newCache(0);
+
+        ResponseEntity<byte[]> identity = cache.respond(CatalogCache.NPCS, null, "identity");
+        ResponseEntity<byte[]> gzip = cache.respond(CatalogCache.NPCS, null, "gzip, br");
+
+        assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        // 바이트가 다른 두 본문은 서로 다른 강한 ETag
+        String identityEtag = identity.getHeaders().getETag();
+        assertEquals(identityEtag.substring(0, identityEtag.length() - 1) + "-gz\"", gzip.getHeaders().getETag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertArrayEquals(identity.getBody(), in.readAllBytes());
+        }
+
+        // min-bytes보다 작은 본문은 압축하지 않음
+        ResponseEntity<byte[]> small = newCache(1 << 20).respond(CatalogCache.NPCS, null, "gzip");
+        assertNull(small.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void etagOfEitherEncodingRevalidates() {
+        CatalogCache cache = newCache(0);
+        String identityEtag = cache.respond(CatalogCache.NPCS, null, null).getHeaders().getETag();
+        String gzipEtag = cache.respond(CatalogCache.NPCS, null, "gzip").getHeaders().getETag();
+
+        ResponseEntity<byte[]> gzipRevalidated = cache.respond(CatalogCache.NPCS, gzipEtag, "gzip");
+        assertEquals(HttpStatus.NOT_MODIFIED, gzipRevalidated.getStatusCode());
+        assertEquals(gzipEtag, gzipRevalidated.getHeaders().getETag());
+
+        // 인코딩이 바뀐 클라이언트도 내용이 같으면 304, ETag는 이번에 고른 인코딩 기준
+        ResponseEntity<byte[]> switched = cache.respond(CatalogCache.NPCS, gzipEtag, "identity");
+        assertEquals(HttpStatus.NOT_MODIFIED, switched.getStatusCode());
+        assertEquals(identityEtag, switched.getHeaders().getETag());
+    }
+
+    @Test
+    void entityListenerInvalidationRebuildsBodyAndEtag() throws Exception {
+        CatalogCache cache = newCache(0);
+        NpcChangeListener listener = new NpcChangeListener(event -> cache.onNpcChanged((NpcChangedEvent) event));
+        ResponseEntity<byte[]> before = cache.respond(CatalogCache.NPCS, null, null);
+
+        Npc added = new Npc(2L, "여관 주인", Map.of("role", "innkeeper"));
+        npcRows.add(added);
+        listener.onNpcChanged(added);
+        ResponseEntity<byte[]> after = cache.respond(CatalogCache.NPCS, before.getHeaders().getETag(), null);
+
+        assertEquals(HttpStatus.OK, after.getStatusCode());
+        assertNotEquals(before.getHeaders().getETag(), after.getHeaders().getETag());
+        JsonNode body = objectMapper.readTree(after.getBody());
+        assertEquals(2, body.size());
+        assertEquals("여관 주인", body.get(1).get("name").asText());
+        assertEquals(2, npcLoads.get());
+    }
+
+    @Test
+    void ifNoneMatchAcceptsListsWeakTagsAndWildcard() {
+        assertTrue(CatalogCache.matches(ETAG, ETAG));
+        assertTrue(CatalogCache.matches("\"other\", " + ETAG, ETAG));
+        assertTrue(CatalogCache.matches("W/" + ETAG, ETAG));
+        assertTrue(CatalogCache.matches("*", ETAG));
+        assertTrue(CatalogCache.matches(CatalogCache.gzipEtagOf(ETAG), ETAG));
+        assertTrue(CatalogCache.matches("W/" + CatalogCache.gzipEtagOf(ETAG), ETAG));
+
+        assertFalse(CatalogCache.matches(null, ETAG));
+        assertFalse(CatalogCache.matches("\"other\"", ETAG));
+        assertFalse(CatalogCache.matches("\"other-gz\"", ETAG));
+    }
+
+    @Test
+    void gzipIsUsedOnlyWhenAccepted() {
+        assertTrue(CatalogCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CatalogCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+
+        assertFalse(CatalogCache.acceptsGzip(null));
+        assertFalse(CatalogCache.acceptsGzip("identity"));
+        assertFalse(CatalogCache.acceptsGzip("gzip;q=0"));
+    }
+
+    private CatalogCache newCache(int gzipMinBytes) {
+        NpcRepository npcRepository = proxy(NpcRepository.class, () -> {
+            npcLoads.incrementAndGet();
+            return List.copyOf(npcRows);
+        });
+        ItemDefinitionRepository itemDefinitionRepository = proxy(ItemDefinitionRepository.class, List::of);
+        return new CatalogCache(npcRepository, itemDefinitionRepository, objectMapper, new SimpleMeterRegistry(),
+            true, gzipMinBytes, 60);
+    }
+
+    // findAll만 지원하는 저장소
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Supplier<List<?>> findAll) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getName().equals("findAll") && (args == null || args.length == 0)) {
+                return findAll.get();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatContextBuilderTest {
+
+    private final ChatContextBuilder builder = new ChatContextBuilder(100, new SimpleMeterRegistry());
+
+    @Test
+    void selectsNewestMessagesWithinNpcBudgetWithoutTouchingCachedEntries() {
+        // 토큰 수가 없는 이전 기록: 추정만 하고 저장하지 않음
+        Conversation.ChatHistory legacy = message("a".repeat(400), null);
+        List<Conversation.ChatHistory> history = List.of(legacy, message("old", 30), message("mid", 30), message("new", 30));
+
+        assertEquals(List.of(history.get(2), history.get(3)),
+            builder.selectHistory(history, Map.of("contextTokenBudget", 60)));
+        assertEquals(history.subList(1, 4), builder.selectHistory(history, null));
+        assertNull(legacy.getTokenCount());
+    }
+
+    @Test
+    void oldestMessagesAreDroppableOnlyWhenTheRestFillsTheBudget() {
+        List<Conversation.ChatHistory> history = List.of(
+            message("p1", 30), message("n1", 30), message("p2", 30), message("n2", 30), message("p3", 30), message("n3", 40));
+
+        // 뒤의 4개가 130토큰으로 예산 100을 채우므로 앞의 2개는 다시 보낼 일이 없음
+        assertTrue(builder.fillsBudgetWithout(history, 2, 100));
+        // 뒤의 2개(70토큰)만으로는 예산을 못 채움
+        assertFalse(builder.fillsBudgetWithout(history, 4, 100));
+        assertTrue(builder.fillsBudgetWithout(history, 4, builder.tokenBudgetFor(Map.of("contextTokenBudget", "70"))));
+    }
+
+    private static Conversation.ChatHistory message(String text, Integer tokenCount) {
+        Conversation.ChatHistory chatHistory = new Conversation.ChatHistory("player", text, "2025-10-20T10:00:00");
+        chatHistory.setTokenCount(tokenCount);
+        return chatHistory;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.ConversationSummaryRequest;
+import com.example.toremainserver.dto.game.ConversationSummaryResponse;
+import com.example.toremainserver.dto.game.NpcChatRequest;
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.repository.ConversationRepository;
+import com.example.toremainserver.repository.NpcRepository;
+import com.example.toremainserver.repository.UserGameProfileRepository;
+import com.example.toremainserver.resilience.Bulkhead;
+import com.example.toremainserver.resilience.CircuitBreaker;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversationSummarizerTest {
+
+    private static final int THRESHOLD = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<Long, Conversation> rows = new TreeMap<>();
+    private final AtomicInteger candidateQueries = new AtomicInteger();
+    private final List<ConversationSummaryRequest> summaryRequests = new ArrayList<>();
+    private final ConversationWriter writer = newWriter();
+    private Function<ConversationSummaryRequest, ConversationSummaryResponse> aiServer = request -> null;
+
+    @Test
+    void writeBackStoresSummaryAndKeepsTurnsAddedDuringTheRequest() {
+        Long id = insert(messages(6), 4, "이전 요약");
+        aiServer = request -> {
+            // 요약 요청 중에 새 턴(2개)이 저장됨
+            writer.update(writer.read(10L, 1L), conversation -> {
+                List<Conversation.ChatHistory> history = new ArrayList<>(conversation.getRecentHistory());
+                history.add(message("m7"));
+                history.add(message("m8"));
+                conversation.setRecentHistory(history);
+                conversation.setUnsummarizedCount(conversation.getUnsummarizedCount() + 2);
+            });
+            return new ConversationSummaryResponse(List.of(new ConversationSummaryResponse.Item(id, "새 요약")));
+        };
+
+        newSummarizer(true, guard(new Bulkhead(4, 0))).summarizeBatch();
+
+        ConversationSummaryRequest.Item item = summaryRequests.get(0).getItems().get(0);
+        assertEquals("이전 요약", item.getPreviousSummary());
+        assertEquals(List.of("m3", "m4", "m5", "m6"),
+            item.getMessages().stream().map(NpcChatRequest.ChatHistory::getMessage).collect(Collectors.toList()));
+
+        // 요약한 4개만 빠지고 요청 중에 추가된 2개는 미요약으로 남음, 메시지는 버리지 않음
+        Conversation row = rows.get(id);
+        assertEquals("새 요약", row.getSummary());
+        assertEquals(2, row.getUnsummarizedCount());
+        assertEquals(8, row.getRecentHistory().size());
+        assertEquals(1.0, meterRegistry.counter("conversation.summary.summarized").count());
+    }
+
+    @Test
+    void oldestMessagesAreKeptUntilSummarized() {
+        ConversationSummarizer summarizer = newSummarizer(true, guard(new Bulkhead(4, 0)));
+
+        assertTrue(summarizer.keepsUnsummarized(8, 6, 2));
+        assertFalse(summarizer.keepsUnsummarized(8, 7, 2));
+        assertTrue(newSummarizer(false, guard(new Bulkhead(4, 0))).keepsUnsummarized(8, 8, 2));
+
+        // 채팅 요청에는 미요약 메시지만 (최소 min-recent-messages개)
+        Conversation conversation = new Conversation(10L, 1L, messages(6), "요약");
+        conversation.setUnsummarizedCount(3);
+        assertEquals(List.of("m4", "m5", "m6"), texts(summarizer.unsummarizedTail(conversation)));
+        conversation.setUnsummarizedCount(0);
+        assertEquals(List.of("m5", "m6"), texts(summarizer.unsummarizedTail(conversation)));
+    }
+
+    @Test
+    void skipsRunWhenCircuitIsNotClosed() {
+        insert(messages(6), 6, null);
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 50.0, 60000, 2);
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        UpstreamGuard guard = new UpstreamGuard("ai-npc", breaker, new Bulkhead(4, 0), e -> true, meterRegistry);
+
+        newSummarizer(true, guard).summarizeBatch();
+
+        assertEquals(0, candidateQueries.get());
+        assertTrue(summaryRequests.isEmpty());
+        assertEquals(1.0, meterRegistry.counter("conversation.summary.deferred").count());
+    }
+
+    @Test
+    void skipsRunWhenBulkheadHeadroomIsLow() {
+        insert(messages(6), 6, null);
+        Bulkhead bulkhead = new Bulkhead(4, 0);
+        ConversationSummarizer summarizer = newSummarizer(true, guard(bulkhead));
+
+        // 남은 자리 1 < 4 * min-free-capacity(0.5)
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bulkhead.tryAcquire());
+        }
+        summarizer.summarizeBatch();
+        assertEquals(0, candidateQueries.get());
+        assertEquals(1.0, meterRegistry.counter("conversation.summary.deferred").count());
+
+        bulkhead.release();
+        summarizer.summarizeBatch();
+        assertEquals(1, candidateQueries.get());
+        assertEquals(1, summaryRequests.size());
+    }
+
+    private ConversationSummarizer newSummarizer(boolean enabled, UpstreamGuard guard) {
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType, Object... uriVariables) {
+                summaryRequests.add((ConversationSummaryRequest) request);
+                return (ResponseEntity<T>) ResponseEntity.ok(aiServer.apply((ConversationSummaryRequest) request));
+            }
+        };
+        PromptFragmentCache promptFragmentCache = new PromptFragmentCache(
+            proxy(NpcRepository.class, (method, args) -> Optional.empty()), meterRegistry, 600, 16);
+        return new ConversationSummarizer(enabled, THRESHOLD, 20, 2, 0.5, "", restTemplate, "http://ai.invalid",
+            guard, Runnable::run, conversationRepository(), writer, turnStore(),
+            promptFragmentCache, proxy(UserGameProfileRepository.class, (method, args) -> List.of()), meterRegistry);
+    }
+
+    private UpstreamGuard guard(Bulkhead bulkhead) {
+        return new UpstreamGuard("ai-npc", new CircuitBreaker(10, 4, 50.0, 60000, 2), bulkhead, e -> true, meterRegistry);
+    }
+
+    private ConversationWriter newWriter() {
+        ConversationWriteBehindBuffer writeBehind = new ConversationWriteBehindBuffer(false, null, null, null,
+            "unused", false, 500, 200, meterRegistry);
+        return new ConversationWriter(conversationRepository(), writeBehind, turnStore(), Runnable::run, false, 200);
+    }
+
+    private static ConversationTurnStore turnStore() {
+        return new ConversationTurnStore("json", 64, null, null);
+    }
+
+    private Long insert(List<Conversation.ChatHistory> history, int unsummarizedCount, String summary) {
+        Conversation conversation = new Conversation(10L, 1L, history, summary);
+        conversation.setUnsummarizedCount(unsummarizedCount);
+        return save(conversation).getConversationId();
+    }
+
+    // conversations 테이블 흉내: 저장 시 복사본 보관
+    private synchronized Conversation save(Conversation conversation) {
+        Conversation row = conversation.copy();
+        if (row.getConversationId() == null) {
+            row.setConversationId((long) rows.size() + 1);
+        }
+        rows.put(row.getConversationId(), row);
+        return row.copy();
+    }
+
+    private ConversationRepository conversationRepository() {
+        return proxy(ConversationRepository.class, (method, args) -> {
+            switch (method) {
+                case "save":
+                    return save((Conversation) args[0]);
+                case "findByProfileIdAndNpcId":
+                    synchronized (this) {
+                        return rows.values().stream()
+                            .filter(c -> c.getProfileId().equals(args[0]) && c.getNpcId().equals(args[1]))
+                            .findFirst()
+                            .map(Conversation::copy);
+                    }
+                case "findSummarizationCandidates":
+                    candidateQueries.incrementAndGet();
+                    synchronized (this) {
+                        return rows.values().stream()
+                            .filter(c -> c.getUnsummarizedCount() >= (Integer) args[0])
+                            .limit(((Pageable) args[1]).getPageSize())
+                            .map(Conversation::copy)
+                            .collect(Collectors.toList());
+                    }
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, BiFunction<String, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+            (proxy, method, args) -> handler.apply(method.getName(), args));
+    }
+
+    private static List<Conversation.ChatHistory> messages(int count) {
+        List<Conversation.ChatHistory> history = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            history.add(message("m" + i));
+        }
+        return history;
+    }
+
+    private static Conversation.ChatHistory message(String text) {
+        return new Conversation.ChatHistory("player", text, "2025-10-20T10:00:00");
+    }
+
+    private static List<String> texts(List<Conversation.ChatHistory> history) {
+        return history.stream().map(Conversation.ChatHistory::getMessage).collect(Collectors.toList());
+    }
+}
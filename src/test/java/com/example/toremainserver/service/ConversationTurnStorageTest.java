@@ -0,0 +1,111 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.repository.ConversationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * conversation.storage=turns 에서 ConversationWriter/ConversationTurnStore의 턴 추가와
+ * recent_history JSON 마이그레이션을 메모리 저장소(conversations, conversation_turns 흉내)로 검증합니다.
+ */
+class ConversationTurnStorageTest {
+
+    private static final int WINDOW_SIZE = 4;
+
+    private final InMemoryConversations db = new InMemoryConversations();
+    private final ConversationWriter writer = newWriter(1);
+
+    @Test
+    void eachTurnInsertsOnlyNewMessagesAndWindowComesFromTurnTable() {
+        for (int turn = 1; turn <= 5; turn++) {
+            ConversationWriter.Snapshot snapshot = writer.read(10L, 1L);
+            int n = turn;
+            writer.update(snapshot, conversation -> appendTurn(conversation, "질문 " + n, "대답 " + n));
+        }
+
+        Conversation row = db.conversations.values().iterator().next();
+        assertEquals(10L, row.getLastTurnSeq());
+        // JSON 컬럼에는 아무것도 쓰지 않음
+        assertNull(row.getRecentHistory());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), db.seqs(row.getConversationId()));
+
+        // 메시지 창은 마지막 window-size개 (오래된 순), 창 밖 메시지도 턴 테이블에는 남음
+        assertEquals(List.of("질문 4", "대답 4", "질문 5", "대답 5"), messages(writer.read(10L, 1L).getConversation()));
+        assertEquals("질문 1", db.turns.get(row.getConversationId()).get(1L).getMessage());
+    }
+
+    @Test
+    void bulkMigrationMovesJsonHistoryOnceAndLaterTurnsContinueTheSequence() {
+        Long first = db.insert(new Conversation(10L, 1L, history("a", "b", "c"), "요약"));
+        Long second = db.insert(new Conversation(11L, 1L, history("x", "y"), null));
+        db.insert(new Conversation(12L, 1L, null, null));
+
+        assertEquals(2, writer.migrateAllToTurns());
+        assertEquals(0, writer.migrateAllToTurns());
+
+        assertNull(db.conversations.get(first).getRecentHistory());
+        assertEquals(List.of(1L, 2L, 3L), db.seqs(first));
+        assertEquals(List.of(1L, 2L), db.seqs(second));
+        assertEquals("요약", db.conversations.get(first).getSummary());
+
+        ConversationWriter.Snapshot snapshot = writer.read(10L, 1L);
+        assertEquals(List.of("a", "b", "c"), messages(snapshot.getConversation()));
+        writer.update(snapshot, conversation -> appendTurn(conversation, "d", "e"));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), db.seqs(first));
+    }
+
+    @Test
+    void readMigratesJsonHistoryOnFirstAccess() {
+        Long id = db.insert(new Conversation(10L, 1L, history("a", "b"), null));
+
+        ConversationWriter.Snapshot snapshot = writer.read(10L, 1L);
+
+        assertEquals(List.of("a", "b"), messages(snapshot.getConversation()));
+        assertNull(db.conversations.get(id).getRecentHistory());
+        assertEquals(List.of(1L, 2L), db.seqs(id));
+    }
+
+    private ConversationWriter newWriter(int migrationPageSize) {
+        ConversationRepository conversationRepository = db.conversationRepository();
+        ConversationTurnStore turnStore = new ConversationTurnStore("turns", WINDOW_SIZE,
+            conversationRepository, db.turnRepository());
+        ConversationWriteBehindBuffer writeBehind = new ConversationWriteBehindBuffer(false, null, null, null,
+            "unused", false, 500, 200, new SimpleMeterRegistry());
+        return new ConversationWriter(conversationRepository, writeBehind, turnStore,
+            Runnable::run, false, migrationPageSize);
+    }
+
+    // GameEventService.appendTurn과 같이 메시지 2개를 추가하고 창 크기를 넘으면 앞의 2개를 버림
+    private static void appendTurn(Conversation conversation, String playerMessage, String npcMessage) {
+        List<Conversation.ChatHistory> window = conversation.getRecentHistory() != null
+            ? new ArrayList<>(conversation.getRecentHistory()) : new ArrayList<>();
+        window.add(new Conversation.ChatHistory("player", playerMessage, "2025-10-20T10:00:00"));
+        window.add(new Conversation.ChatHistory("npc", npcMessage, "2025-10-20T10:00:01"));
+        if (window.size() > WINDOW_SIZE) {
+            window = new ArrayList<>(window.subList(2, window.size()));
+        }
+        conversation.setRecentHistory(window);
+    }
+
+    private static List<Conversation.ChatHistory> history(String... messages) {
+        List<Conversation.ChatHistory> history = new ArrayList<>();
+        for (String message : messages) {
+            history.add(new Conversation.ChatHistory("player", message, "2025-10-20T10:00:00"));
+        }
+        return history;
+    }
+
+    private static List<String> messages(Conversation conversation) {
+        return conversation.getRecentHistory().stream()
+            .map(Conversation.ChatHistory::getMessage)
+            .collect(Collectors.toList());
+    }
+}
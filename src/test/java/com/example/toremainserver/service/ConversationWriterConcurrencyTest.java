@@ -0,0 +1,130 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.repository.ConversationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 같은 (프로필, NPC)에 대한 read -> update(턴 추가)를 동시에 실행해도 턴이 유실되지 않는지
+ * ConversationWriter와 메모리 저장소(InMemoryConversations)로 검증하는 스트레스 테스트입니다.
+ */
+class ConversationWriterConcurrencyTest {
+
+    private static final long PROFILE_ID = 10L;
+    private static final int NPCS = 4;
+    private static final int TURNS_PER_NPC = 100;
+
+    private final InMemoryConversations db = new InMemoryConversations();
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentJsonUpdatesLoseNoTurns() throws Exception {
+        ConversationWriter writer = newWriter("json");
+
+        runConcurrentTurns(writer);
+
+        ConversationRepository repository = db.conversationRepository();
+        for (long npcId = 1; npcId <= NPCS; npcId++) {
+            Conversation row = repository.findByProfileIdAndNpcId(PROFILE_ID, npcId).orElseThrow();
+            // 창을 자르지 않으므로 모든 턴(메시지 2개씩)이 한 번씩 남아야 함
+            List<String> messages = row.getRecentHistory().stream()
+                .map(Conversation.ChatHistory::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+            assertEquals(expectedMessages(), messages, "lost turns for npc " + npcId);
+        }
+    }
+
+    @Test
+    void concurrentTurnTableUpdatesLoseNoTurns() throws Exception {
+        ConversationWriter writer = newWriter("turns");
+
+        runConcurrentTurns(writer);
+
+        ConversationRepository repository = db.conversationRepository();
+        List<Long> expectedSeqs = LongStream.rangeClosed(1, 2L * TURNS_PER_NPC).boxed().collect(Collectors.toList());
+        for (long npcId = 1; npcId <= NPCS; npcId++) {
+            Conversation row = repository.findByProfileIdAndNpcId(PROFILE_ID, npcId).orElseThrow();
+            // 같은 번호를 두 번 INSERT 하면 저장소가 예외를 던지므로 번호가 빈틈없이 이어져야 함
+            assertEquals(expectedSeqs, db.seqs(row.getConversationId()), "lost turns for npc " + npcId);
+            assertEquals(2L * TURNS_PER_NPC, row.getLastTurnSeq());
+        }
+    }
+
+    // 요청마다 read()로 Snapshot을 얻고 update()로 턴을 추가 (GameEventService의 NPC 대화 흐름과 같음)
+    private void runConcurrentTurns(ConversationWriter writer) throws Exception {
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int turn = 0; turn < TURNS_PER_NPC; turn++) {
+            for (long npcId = 1; npcId <= NPCS; npcId++) {
+                long npc = npcId;
+                int n = turn;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    await(start);
+                    ConversationWriter.Snapshot snapshot = writer.read(PROFILE_ID, npc);
+                    writer.update(snapshot, conversation -> {
+                        List<Conversation.ChatHistory> history = conversation.getRecentHistory() != null
+                            ? new ArrayList<>(conversation.getRecentHistory()) : new ArrayList<>();
+                        Thread.yield();
+                        history.add(new Conversation.ChatHistory("player", message("q", n), "2025-10-20T10:00:00"));
+                        history.add(new Conversation.ChatHistory("npc", message("a", n), "2025-10-20T10:00:01"));
+                        conversation.setRecentHistory(history);
+                    });
+                }, callers));
+            }
+        }
+        start.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+    }
+
+    private static List<String> expectedMessages() {
+        return IntStream.range(0, TURNS_PER_NPC)
+            .boxed()
+            .flatMap(n -> Stream.of(message("q", n), message("a", n)))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private static String message(String prefix, int turn) {
+        return String.format("%s-%03d", prefix, turn);
+    }
+
+    private ConversationWriter newWriter(String storage) {
+        ConversationRepository conversationRepository = db.conversationRepository();
+        // 창 크기를 턴 수보다 크게 두어 메시지 창에서도 모든 턴을 확인
+        ConversationTurnStore turnStore = new ConversationTurnStore(storage, 4 * TURNS_PER_NPC,
+            conversationRepository, db.turnRepository());
+        ConversationWriteBehindBuffer writeBehind = new ConversationWriteBehindBuffer(false, null, null, null,
+            "unused", false, 500, 200, new SimpleMeterRegistry());
+        return new ConversationWriter(conversationRepository, writeBehind, turnStore, Runnable::run, false, 200);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
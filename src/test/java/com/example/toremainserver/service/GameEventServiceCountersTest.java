@@ -0,0 +1,135 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.ExperienceUpdateRequest;
+import com.example.toremainserver.dto.game.ExperienceUpdateResponse;
+import com.example.toremainserver.dto.game.GoldUpdateRequest;
+import com.example.toremainserver.dto.game.GoldUpdateResponse;
+import com.example.toremainserver.repository.ProfileCounters;
+import com.example.toremainserver.repository.UserGameProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Gold/경험치 단일 증감 경로(updateGold, addExperience)의 검증을 확인합니다.
+ * (버퍼를 끄고 user_game_profiles의 addGold/addExperience 조건만 흉내 낸 저장소 사용)
+ */
+class GameEventServiceCountersTest {
+
+    private static final long PROFILE_ID = 12345L;
+
+    // profileId -> {gold, experience}
+    private final Map<Long, long[]> rows = new HashMap<>();
+    private final List<Object> events = new ArrayList<>();
+    private final GameEventService service = newService();
+
+    @Test
+    void deductsGoldWithinBalance() {
+        rows.put(PROFILE_ID, new long[] {500, 0});
+
+        GoldUpdateResponse response = service.updateGold(new GoldUpdateRequest(PROFILE_ID, -300));
+
+        assertEquals(200, response.getGold());
+        assertEquals(200, rows.get(PROFILE_ID)[0]);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void rejectsDeductionBeyondBalance() {
+        rows.put(PROFILE_ID, new long[] {200, 0});
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> service.updateGold(new GoldUpdateRequest(PROFILE_ID, -300)));
+
+        assertTrue(e.getMessage().startsWith("Gold cannot be negative"), e.getMessage());
+        assertEquals(200, rows.get(PROFILE_ID)[0]);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void rejectsGoldBeyondIntRange() {
+        rows.put(PROFILE_ID, new long[] {Integer.MAX_VALUE - 100, 0});
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> service.updateGold(new GoldUpdateRequest(PROFILE_ID, 101)));
+
+        assertTrue(e.getMessage().startsWith("Gold exceeds maximum"), e.getMessage());
+        assertEquals(Integer.MAX_VALUE - 100, rows.get(PROFILE_ID)[0]);
+        assertEquals(Integer.MAX_VALUE, service.updateGold(new GoldUpdateRequest(PROFILE_ID, 100)).getGold());
+    }
+
+    @Test
+    void experienceIsAddedUntilTheBigintLimit() {
+        rows.put(PROFILE_ID, new long[] {0, Long.MAX_VALUE - 10});
+
+        ExperienceUpdateResponse response = service.addExperience(new ExperienceUpdateRequest(PROFILE_ID, 10L));
+        assertEquals(Long.MAX_VALUE, response.getExperience());
+
+        assertThrows(IllegalArgumentException.class, () -> service.addExperience(new ExperienceUpdateRequest(PROFILE_ID, 1L)));
+        assertEquals(Long.MAX_VALUE, rows.get(PROFILE_ID)[1]);
+    }
+
+    @Test
+    void missingProfileReturnsNull() {
+        assertNull(service.updateGold(new GoldUpdateRequest(PROFILE_ID, 10)));
+        assertNull(service.updateGold(new GoldUpdateRequest(PROFILE_ID, -10)));
+        assertNull(service.addExperience(new ExperienceUpdateRequest(PROFILE_ID, 10L)));
+    }
+
+    private GameEventService newService() {
+        ProfileDeltaBuffer disabledBuffer = new ProfileDeltaBuffer(false, null, null, "unused", false, 200, 4,
+            new SimpleMeterRegistry());
+        return new GameEventService(null, "http://ai.invalid", null, null, profileRepository(),
+            null, true, null, 120000L, null,
+            null, null, null, "...", null,
+            null, 8, null, null, null,
+            null, 32, 8, null, null,
+            null, disabledBuffer, null, 256, null,
+            events::add);
+    }
+
+    private UserGameProfileRepository profileRepository() {
+        return (UserGameProfileRepository) Proxy.newProxyInstance(UserGameProfileRepository.class.getClassLoader(),
+            new Class<?>[] {UserGameProfileRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "addGold": {
+                        // WHERE gold + :amount >= 0 AND gold + :amount <= 2147483647
+                        long[] row = rows.get(args[0]);
+                        long gold = row != null ? row[0] + (Integer) args[1] : -1;
+                        if (gold < 0 || gold > Integer.MAX_VALUE) {
+                            return 0;
+                        }
+                        row[0] = gold;
+                        return 1;
+                    }
+                    case "addExperience": {
+                        // WHERE experience <= :maxCurrent
+                        long[] row = rows.get(args[0]);
+                        if (row == null || row[1] > (Long) args[2]) {
+                            return 0;
+                        }
+                        row[1] += (Long) args[1];
+                        return 1;
+                    }
+                    case "findCountersById": {
+                        long[] row = rows.get(args[0]);
+                        return Optional.ofNullable(row == null ? null
+                            : new ProfileCounters((Long) args[0], 1L, 10, row[1], (int) row[0], null, 0L));
+                    }
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.capture.PayloadCapture;
+import com.example.toremainserver.resilience.Bulkhead;
+import com.example.toremainserver.resilience.CircuitBreaker;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Material 본문이 실행되지 않을 때 업스트림 응답과 가드 자리가 정리되는지 확인합니다.
+ * (stream-timeout-ms=0 이라 reapMaterialStreams 호출 시 바로 만료)
+ */
+class GameEventServiceMaterialStreamTest {
+
+    private static final byte[] TEXTURE = "{\"baseColor64\":\"AAAA\"}".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCloses = new AtomicInteger();
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 2, 50.0, 60000, 1);
+    private final UpstreamGuard guard = new UpstreamGuard("material", breaker, new Bulkhead(1, 0), e -> true, meterRegistry);
+
+    @Test
+    void reaperReleasesPermitWhenBodyNeverRuns() {
+        GameEventService service = newService();
+        ResponseEntity<StreamingResponseBody> response = service.forwardMaterialRequest(Map.of("materialDescription", "돌"), false);
+        assertEquals(0, guard.getAvailablePermits());
+
+        service.reapMaterialStreams();
+
+        assertEquals(1, guard.getAvailablePermits());
+        assertEquals(1, upstreamCloses.get());
+        assertEquals(100.0, breaker.getFailureRate());
+        // 늦게 실행된 본문은 닫힌 응답을 읽지 않음
+        assertThrows(IOException.class, () -> response.getBody().writeTo(new ByteArrayOutputStream()));
+        assertEquals(1, upstreamCloses.get());
+    }
+
+    @Test
+    void startedBodyIsNotReaped() throws IOException {
+        GameEventService service = newService();
+        ResponseEntity<StreamingResponseBody> response = service.forwardMaterialRequest(Map.of("materialDescription", "돌"), false);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        service.reapMaterialStreams();
+
+        assertEquals(new String(TEXTURE, StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+        assertEquals(1, guard.getAvailablePermits());
+        assertEquals(1, upstreamCloses.get());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+
+    private GameEventService newService() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        PayloadCapture capture = new PayloadCapture(0.0, 1, 2048, 65536, 1 << 20, false,
+            tempDir.resolve("capture").toString(), 0, 0, objectMapper, Runnable::run, meterRegistry);
+        MaterialTextureCache cache = new MaterialTextureCache(false, tempDir.resolve("cache").toString(), 0, 0,
+            objectMapper, meterRegistry);
+        MaterialStreamClient client = new MaterialStreamClient(new RestTemplate(), objectMapper) {
+            @Override
+            public ClientHttpResponse open(String url, Map<String, Object> body) {
+                return new MockClientHttpResponse(TEXTURE, HttpStatus.OK) {
+                    @Override
+                    public void close() {
+                        upstreamCloses.incrementAndGet();
+                        super.close();
+                    }
+                };
+            }
+        };
+        ProfileDeltaBuffer disabledBuffer = new ProfileDeltaBuffer(false, null, null, "unused", false, 200, 4,
+            new SimpleMeterRegistry());
+        return new GameEventService(null, "http://ai.invalid", null, null, null,
+            null, false, null, 0L, null,
+            null, null, guard, "...", null,
+            null, 8, null, capture, cache,
+            client, 32, 8, null, null,
+            null, disabledBuffer, null, 256, null,
+            event -> {});
+    }
+}
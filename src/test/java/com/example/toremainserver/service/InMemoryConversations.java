@@ -0,0 +1,111 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Conversation;
+import com.example.toremainserver.entity.ConversationTurn;
+import com.example.toremainserver.repository.ConversationRepository;
+import com.example.toremainserver.repository.ConversationTurnRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * conversations / conversation_turns 테이블 흉내 (ConversationWriter와 ConversationTurnStore가 쓰는 메서드만 처리)
+ * 저장 시 복사본을 보관하므로 호출자가 객체를 고쳐도 "DB" 행은 바뀌지 않습니다.
+ */
+class InMemoryConversations {
+    final Map<Long, Conversation> conversations = new TreeMap<>();
+    final Map<Long, TreeMap<Long, ConversationTurn>> turns = new TreeMap<>();
+    private long nextId = 1;
+
+    synchronized Long insert(Conversation conversation) {
+        return save(conversation).getConversationId();
+    }
+
+    synchronized List<Long> seqs(Long conversationId) {
+        return new ArrayList<>(turns.getOrDefault(conversationId, new TreeMap<>()).keySet());
+    }
+
+    private synchronized Conversation save(Conversation conversation) {
+        Conversation row = conversation.copy();
+        if (row.getConversationId() == null) {
+            row.setConversationId(nextId++);
+        }
+        conversations.put(row.getConversationId(), row);
+        return row.copy();
+    }
+
+    private synchronized Optional<Conversation> find(Long profileId, Long npcId) {
+        return conversations.values().stream()
+            .filter(c -> c.getProfileId().equals(profileId) && c.getNpcId().equals(npcId))
+            .findFirst()
+            .map(Conversation::copy);
+    }
+
+    private synchronized List<Long> idsWithJsonHistoryAfter(Long afterId, Pageable pageable) {
+        return conversations.values().stream()
+            .filter(c -> c.getRecentHistory() != null && c.getConversationId() > afterId)
+            .map(Conversation::getConversationId)
+            .limit(pageable.getPageSize())
+            .collect(Collectors.toList());
+    }
+
+    private synchronized void insertTurns(Collection<ConversationTurn> newTurns) {
+        for (ConversationTurn turn : newTurns) {
+            TreeMap<Long, ConversationTurn> rows = turns.computeIfAbsent(turn.getConversationId(), id -> new TreeMap<>());
+            if (rows.putIfAbsent(turn.getSeq(), turn) != null) {
+                throw new IllegalStateException("Duplicate entry for conversation_turns PRIMARY: "
+                    + turn.getConversationId() + "-" + turn.getSeq());
+            }
+        }
+    }
+
+    private synchronized List<ConversationTurn> latestTurns(Long conversationId, Pageable pageable) {
+        return turns.getOrDefault(conversationId, new TreeMap<>()).descendingMap().values().stream()
+            .limit(pageable.getPageSize())
+            .collect(Collectors.toList());
+    }
+
+    ConversationRepository conversationRepository() {
+        return (ConversationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {ConversationRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "save":
+                        return save((Conversation) args[0]);
+                    case "findById":
+                        synchronized (this) {
+                            return Optional.ofNullable(conversations.get((Long) args[0])).map(Conversation::copy);
+                        }
+                    case "findByProfileIdAndNpcId":
+                        return find((Long) args[0], (Long) args[1]);
+                    case "findIdsWithJsonHistoryAfter":
+                        return idsWithJsonHistoryAfter((Long) args[0], (Pageable) args[1]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    ConversationTurnRepository turnRepository() {
+        return (ConversationTurnRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {ConversationTurnRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "saveAll":
+                        List<ConversationTurn> saved = new ArrayList<>((Collection<ConversationTurn>) args[0]);
+                        insertTurns(saved);
+                        return saved;
+                    case "findByConversationIdOrderBySeqDesc":
+                        return latestTurns((Long) args[0], (Pageable) args[1]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
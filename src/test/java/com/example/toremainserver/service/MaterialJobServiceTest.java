@@ -0,0 +1,267 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.resilience.Bulkhead;
+import com.example.toremainserver.resilience.CircuitBreaker;
+import com.example.toremainserver.resilience.UpstreamGuard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaterialJobServiceTest {
+
+    private static final byte[] TEXTURE = "{\"baseColor64\":\"AAAAAAAAAAAAAAAA\"}".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    // 업스트림 호출 순서 (materialDescription)
+    private final List<Object> upstreamOrder = Collections.synchronizedList(new ArrayList<>());
+    private final Semaphore upstreamOpened = new Semaphore(0);
+    // 열려 있는 동안 업스트림 응답을 붙잡아 작업자를 RUNNING 상태로 둠
+    private final CountDownLatch upstreamGate = new CountDownLatch(1);
+    private final UpstreamGuard guard = new UpstreamGuard("material", new CircuitBreaker(10, 4, 50.0, 60000, 1),
+        new Bulkhead(1, 0), e -> true, meterRegistry);
+    private MaterialJobService service;
+
+    @AfterEach
+    void stop() {
+        upstreamGate.countDown();
+        if (service != null) {
+            service.stopWorkers();
+        }
+    }
+
+    @Test
+    void resultSurvivesWhenTheCacheDropsTheEntry() throws Exception {
+        // 결과보다 작은 캐시: commit 시 항목을 버림
+        MaterialTextureCache cache = newCache(TEXTURE.length - 1);
+        service = newService(cache, 0);
+
+        MaterialJobService.Job job = service.submit(Map.of("materialDescription", "거친 돌"), 0);
+        service.awaitCompletion(job, 5000).get(10, TimeUnit.SECONDS);
+
+        assertEquals(MaterialJobService.Status.SUCCEEDED, job.getStatus());
+        assertFalse(cache.contains(cache.keyOf(Map.of("materialDescription", "거친 돌"))));
+        assertArrayEquals(TEXTURE, readResult(job));
+    }
+
+    @Test
+    void cachedResultIsCopiedAndOutlivesEviction() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000);
+        Map<String, Object> body = Map.of("materialDescription", "푸른 금속");
+        cache.put(cache.keyOf(body), TEXTURE);
+        service = newService(cache, 0);
+
+        MaterialJobService.Job job = service.submit(body, 0);
+        assertEquals(MaterialJobService.Status.SUCCEEDED, job.getStatus());
+        assertEquals(0, upstreamCalls.get());
+
+        // 캐시에서 밀려나도 보관 기간 동안은 결과를 조회할 수 있음
+        Files.delete(tempDir.resolve("cache").resolve(cache.keyOf(body) + ".json"));
+        assertArrayEquals(TEXTURE, readResult(job));
+    }
+
+    @Test
+    void purgeDeletesExpiredResultFiles() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000);
+        service = newService(cache, -1);
+
+        MaterialJobService.Job job = service.submit(Map.of("materialDescription", "나무"), 0);
+        service.awaitCompletion(job, 5000).get(10, TimeUnit.SECONDS);
+        service.purgeCompleted();
+
+        assertNull(service.get(job.getId()));
+        assertNull(service.openResult(job));
+        try (var files = Files.list(tempDir.resolve("jobs"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void identicalPendingRequestsShareOneJob() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000);
+        service = newService(cache, 10, 1, 0, 0, 5000);
+        Map<String, Object> body = Map.of("materialDescription", "젖은 모래");
+
+        MaterialJobService.Job running = service.submit(body, 0);
+        assertTrue(upstreamOpened.tryAcquire(5, TimeUnit.SECONDS));
+        assertSame(running, service.submit(body, 0));
+        assertSame(running, service.submit(Map.of("materialDescription", "젖은 모래"), 5));
+        assertEquals(2.0, meterRegistry.counter("material.jobs.deduplicated").count());
+
+        upstreamGate.countDown();
+        service.awaitCompletion(running, 5000).get(10, TimeUnit.SECONDS);
+        assertEquals(MaterialJobService.Status.SUCCEEDED, running.getStatus());
+
+        // 완료 후 같은 요청은 캐시에서 새 작업으로 바로 완료
+        MaterialJobService.Job cached = service.submit(body, 0);
+        assertNotEquals(running.getId(), cached.getId());
+        assertEquals(MaterialJobService.Status.SUCCEEDED, cached.getStatus());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void higherPriorityJobsRunFirst() throws Exception {
+        service = newService(newCache(1_000_000), 10, 1, 0, 0, 5000);
+
+        MaterialJobService.Job first = service.submit(Map.of("materialDescription", "first"), 0);
+        assertTrue(upstreamOpened.tryAcquire(5, TimeUnit.SECONDS));
+        // 작업자가 first를 처리하는 동안 쌓인 작업은 priority 내림차순, 같으면 접수 순
+        MaterialJobService.Job low = service.submit(Map.of("materialDescription", "low"), 0);
+        MaterialJobService.Job high = service.submit(Map.of("materialDescription", "high"), 5);
+        MaterialJobService.Job mid = service.submit(Map.of("materialDescription", "mid"), 1);
+        MaterialJobService.Job mid2 = service.submit(Map.of("materialDescription", "mid2"), 1);
+        upstreamGate.countDown();
+
+        CompletableFuture.allOf(
+            service.awaitCompletion(first, 5000), service.awaitCompletion(low, 5000), service.awaitCompletion(high, 5000),
+            service.awaitCompletion(mid, 5000), service.awaitCompletion(mid2, 5000)
+        ).get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "high", "mid", "mid2", "low"), upstreamOrder);
+    }
+
+    @Test
+    void submitIsRejectedWhenTheQueueIsFull() throws Exception {
+        service = newService(newCache(1_000_000), 1, 1, 0, 0, 5000);
+
+        assertNotNull(service.submit(Map.of("materialDescription", "a"), 0));
+        assertTrue(upstreamOpened.tryAcquire(5, TimeUnit.SECONDS));
+        assertNotNull(service.submit(Map.of("materialDescription", "b"), 0));
+
+        // 대기열(1개)이 차면 null (컨트롤러가 503으로 응답)
+        assertNull(service.submit(Map.of("materialDescription", "c"), 9));
+        assertEquals(1.0, meterRegistry.counter("material.jobs.rejected").count());
+    }
+
+    @Test
+    void jobIsRequeuedWhileTheGuardRejects() throws Exception {
+        upstreamGate.countDown();
+        service = newService(newCache(1_000_000), 10, 100, 10, 0, 5000);
+        UpstreamGuard.Permit held = guard.acquire();
+
+        MaterialJobService.Job job = service.submit(Map.of("materialDescription", "철"), 0);
+        waitUntil(() -> meterRegistry.counter("ai.upstream.rejected", "upstream", "material", "reason", "BULKHEAD_FULL").count() >= 2);
+        assertNotEquals(MaterialJobService.Status.FAILED, job.getStatus());
+        assertEquals(0, upstreamCalls.get());
+
+        // 자리가 나면 다시 꺼낸 작업이 성공
+        held.success();
+        service.awaitCompletion(job, 5000).get(10, TimeUnit.SECONDS);
+        assertEquals(MaterialJobService.Status.SUCCEEDED, job.getStatus());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void jobFailsAfterMaxAttemptsOfRejection() throws Exception {
+        service = newService(newCache(1_000_000), 10, 3, 0, 0, 5000);
+        guard.acquire();
+
+        MaterialJobService.Job job = service.submit(Map.of("materialDescription", "철"), 0);
+        service.awaitCompletion(job, 5000).get(10, TimeUnit.SECONDS);
+
+        assertEquals(MaterialJobService.Status.FAILED, job.getStatus());
+        assertNotNull(job.getError());
+        assertEquals(3.0, meterRegistry.counter("ai.upstream.rejected", "upstream", "material", "reason", "BULKHEAD_FULL").count());
+        assertEquals(0, upstreamCalls.get());
+        assertNull(service.openResult(job));
+    }
+
+    @Test
+    void longPollReturnsThePendingJobAfterMaxWait() throws Exception {
+        service = newService(newCache(1_000_000), 10, 1, 0, 0, 100);
+        MaterialJobService.Job job = service.submit(Map.of("materialDescription", "유리"), 0);
+        assertTrue(upstreamOpened.tryAcquire(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        // 요청한 대기 시간은 max-wait-ms(100ms)로 제한
+        MaterialJobService.Job polled = service.awaitCompletion(job, 60000).get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertSame(job, polled);
+        assertEquals(MaterialJobService.Status.RUNNING, polled.getStatus());
+        assertTrue(elapsedMs >= 90, "elapsed " + elapsedMs);
+        assertTrue(service.awaitCompletion(job, 0).isDone());
+    }
+
+        private MaterialTextureCache newCache(long maxBytes) throws Exception {
+        MaterialTextureCache cache = new MaterialTextureCache(true, tempDir.resolve("cache").toString(), maxBytes, 100,
+            new ObjectMapper(), meterRegistry);
+        cache.loadIndex();
+        return cache;
+    }
+
+    private MaterialJobService newService(MaterialTextureCache cache, long retentionMs) throws Exception {
+        upstreamGate.countDown();
+        return newService(cache, 10, 1, 0, retentionMs, 5000);
+    }
+
+    private MaterialJobService newService(MaterialTextureCache cache, int queueCapacity, int maxAttempts, long retryDelayMs,
+                                          long retentionMs, long maxWaitMs) throws Exception {
+        MaterialStreamClient client = new MaterialStreamClient(new RestTemplate(), new ObjectMapper()) {
+            @Override
+            public ClientHttpResponse open(String url, Map<String, Object> body) {
+                upstreamCalls.incrementAndGet();
+                upstreamOrder.add(body.get("materialDescription"));
+                upstreamOpened.release();
+                try {
+                    upstreamGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new MockClientHttpResponse(TEXTURE, HttpStatus.OK);
+            }
+        };
+        MaterialJobService jobService = new MaterialJobService(queueCapacity, 1, maxAttempts, retryDelayMs, retentionMs, maxWaitMs,
+            tempDir.resolve("jobs").toString(), "http://ai.invalid", client, cache, guard,
+            runnable -> new Thread(runnable, "material-job-test").start(), meterRegistry);
+        jobService.startWorkers();
+        return jobService;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5s");
+            Thread.sleep(5);
+        }
+    }
+
+    private byte[] readResult(MaterialJobService.Job job) throws Exception {
+        try (InputStream in = service.openResult(job)) {
+            assertNotNull(in);
+            return in.readAllBytes();
+        }
+    }
+}
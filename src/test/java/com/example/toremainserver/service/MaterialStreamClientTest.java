@@ -0,0 +1,60 @@
+package com.example.toremainserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaterialStreamClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MaterialStreamClient client = new MaterialStreamClient(new RestTemplate(), objectMapper);
+
+    @Test
+    void multipartContainsDecodedTexturePartsOnly() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0, 1, 2, 3, (byte) 0xff};
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("baseColor64", Base64.getEncoder().encodeToString(png));
+        response.put("meta", Map.of("model", "sdxl"));
+        response.put("normalMap64", Base64.getEncoder().encodeToString(png));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        client.writeMultipart(new ByteArrayInputStream(objectMapper.writeValueAsBytes(response)), out, "b");
+
+        byte[] body = out.toByteArray();
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("name=\"baseColor\""));
+        assertTrue(text.contains("name=\"normalMap\""));
+        assertFalse(text.contains("meta"));
+        assertTrue(text.endsWith("--b--\r\n"));
+
+        int start = text.indexOf("\r\n\r\n") + 4;
+        byte[] firstPart = Arrays.copyOfRange(body, start, start + png.length);
+        assertArrayEquals(png, firstPart);
+    }
+
+    @Test
+    void teeCopiesEverythingThatIsRead() throws Exception {
+        byte[] source = "{\"baseColor64\":\"AAAA\"}".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        InputStream in = MaterialStreamClient.tee(new ByteArrayInputStream(source), sink);
+        client.copyJson(in, out);
+
+        assertArrayEquals(source, out.toByteArray());
+        assertArrayEquals(source, sink.toByteArray());
+    }
+}
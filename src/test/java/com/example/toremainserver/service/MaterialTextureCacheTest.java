@@ -0,0 +1,126 @@
+package com.example.toremainserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MaterialTextureCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MaterialTextureCache newCache(long maxBytes, int maxEntries) throws Exception {
+        MaterialTextureCache cache = new MaterialTextureCache(true, cacheDir.toString(), maxBytes, maxEntries,
+            new ObjectMapper(), meterRegistry);
+        cache.loadIndex();
+        return cache;
+    }
+
+    @Test
+    void keyIgnoresFieldOrderAndApiKey() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000, 100);
+
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("materialDescription", "거친 돌 질감, 파란색");
+        first.put("materialInfo", Map.of("roughness", 0.8, "metallic", 0.1));
+        first.put("api_key", "key-a");
+
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("api_key", "key-b");
+        second.put("materialInfo", Map.of("metallic", 0.1, "roughness", 0.8));
+        second.put("materialDescription", "거친 돌 질감, 파란색");
+
+        assertEquals(cache.keyOf(first), cache.keyOf(second));
+
+        second.put("materialDescription", "매끈한 금속");
+        assertNotEquals(cache.keyOf(first), cache.keyOf(second));
+    }
+
+    @Test
+    void storedTexturesAreServedFromDisk() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000, 100);
+        String key = cache.keyOf(Map.of("materialDescription", "stone"));
+
+        assertNull(read(cache, key));
+        cache.put(key, textures("AAAA"));
+
+        byte[] cached = read(cache, key);
+        assertNotNull(cached);
+        assertEquals("AAAA", new ObjectMapper().readTree(cached).get("baseColor64").asText());
+        assertEquals(1.0, meterRegistry.counter("material.cache.hits").count());
+        assertEquals(cached.length, meterRegistry.counter("material.cache.served.bytes").count());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryOverEntryLimit() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000, 2);
+        String a = cache.keyOf(Map.of("materialDescription", "a"));
+        String b = cache.keyOf(Map.of("materialDescription", "b"));
+        String c = cache.keyOf(Map.of("materialDescription", "c"));
+
+        cache.put(a, textures("A"));
+        cache.put(b, textures("B"));
+        read(cache, a);
+        cache.put(c, textures("C"));
+
+        assertNotNull(read(cache, a));
+        assertNull(read(cache, b));
+        assertNotNull(read(cache, c));
+        assertFalse(Files.exists(cacheDir.resolve(b + ".json")));
+    }
+
+    @Test
+    void indexIsRebuiltFromDiskOnRestart() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000, 100);
+        String key = cache.keyOf(Map.of("materialDescription", "stone"));
+        cache.put(key, textures("AAAA"));
+        byte[] before = read(cache, key);
+
+        MaterialTextureCache restarted = newCache(1_000_000, 100);
+
+        assertArrayEquals(before, read(restarted, key));
+    }
+
+    @Test
+    void uncommittedWriterLeavesNoEntry() throws Exception {
+        MaterialTextureCache cache = newCache(1_000_000, 100);
+        String key = cache.keyOf(Map.of("materialDescription", "stone"));
+
+        try (MaterialTextureCache.Writer writer = cache.openWriter(key)) {
+            writer.stream().write(textures("AAAA"), 0, 10);
+        }
+
+        assertNull(read(cache, key));
+    }
+
+    private byte[] read(MaterialTextureCache cache, String key) throws Exception {
+        try (InputStream in = cache.open(key)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    private byte[] textures(String value) throws Exception {
+        return new ObjectMapper().writeValueAsBytes(Map.of(
+            "baseColor64", value,
+            "normalMap64", value,
+            "ORMMap64", value,
+            "emissiveMap64", value
+        ));
+    }
+}
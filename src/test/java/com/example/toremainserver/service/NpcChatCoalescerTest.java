@@ -0,0 +1,89 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.Ue5NpcRequest;
+import com.example.toremainserver.dto.game.Ue5NpcResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NpcChatCoalescerTest {
+
+    private static final long TTL_SECONDS = 30;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final NpcChatCoalescer coalescer = new NpcChatCoalescer(meterRegistry, TTL_SECONDS, now::get);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void duplicateRequestAttachesToInFlightCall() {
+        CompletableFuture<ResponseEntity<Ue5NpcResponse>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Ue5NpcResponse>> first = coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(upstream));
+        CompletableFuture<ResponseEntity<Ue5NpcResponse>> retry = coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(upstream));
+
+        assertSame(first, retry);
+        assertFalse(retry.isDone());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, meterRegistry.counter("npc.chat.coalescing", "result", "coalesced").count());
+
+        ResponseEntity<Ue5NpcResponse> response = ok("어서 오게나");
+        upstream.complete(response);
+        assertSame(response, retry.join());
+    }
+
+    @Test
+    void completedTurnIsReplayedUntilTtlExpires() {
+        ResponseEntity<Ue5NpcResponse> response = ok("어서 오게나");
+        coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(CompletableFuture.completedFuture(response)));
+
+        now.addAndGet(TTL_SECONDS * 1000 - 1);
+        assertSame(response, coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(new CompletableFuture<>())).join());
+        assertEquals(1, upstreamCalls.get());
+
+        // TTL이 지나면 같은 턴도 다시 호출
+        now.addAndGet(1);
+        coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(CompletableFuture.completedFuture(ok("다시 왔군"))));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void fallbackAndErrorResponsesAreNotReplayed() {
+        ResponseEntity<Ue5NpcResponse> fallback = ResponseEntity.ok()
+            .header(GameEventService.FALLBACK_HEADER, "true")
+            .body(new Ue5NpcResponse(1L, new Ue5NpcResponse.ChatHistory("npc", "...", "2025-10-20T10:00:01")));
+        coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(CompletableFuture.completedFuture(fallback)));
+
+        ResponseEntity<Ue5NpcResponse> unavailable = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        assertSame(unavailable,
+            coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(CompletableFuture.completedFuture(unavailable))).join());
+
+        ResponseEntity<Ue5NpcResponse> response = ok("어서 오게나");
+        assertSame(response,
+            coalescer.execute(turn("2025-10-20T10:00:00"), () -> call(CompletableFuture.completedFuture(response))).join());
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(0.0, meterRegistry.counter("npc.chat.coalescing", "result", "replayed").count());
+    }
+
+    private CompletableFuture<ResponseEntity<Ue5NpcResponse>> call(CompletableFuture<ResponseEntity<Ue5NpcResponse>> result) {
+        upstreamCalls.incrementAndGet();
+        return result;
+    }
+
+    private static Ue5NpcRequest turn(String timestamp) {
+        return new Ue5NpcRequest(1L, 10L, new Ue5NpcRequest.ChatHistory("player", "안녕하세요", timestamp), null, null);
+    }
+
+    private static ResponseEntity<Ue5NpcResponse> ok(String message) {
+        return ResponseEntity.ok(new Ue5NpcResponse(1L, new Ue5NpcResponse.ChatHistory("npc", message, "2025-10-20T10:00:05")));
+    }
+}
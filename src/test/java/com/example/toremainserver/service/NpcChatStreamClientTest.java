@@ -0,0 +1,97 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.dto.game.NpcChatRequest;
+import com.example.toremainserver.dto.game.NpcChatResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 로컬 스텁 AI 서버(JDK HttpServer)를 상대로 NpcChatStreamClient의 토큰 중계를 검증합니다.
+ */
+class NpcChatStreamClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NpcChatStreamClient client = new NpcChatStreamClient(new RestTemplate(), objectMapper);
+    private HttpServer stubAiServer;
+
+    @AfterEach
+    void stopStub() {
+        if (stubAiServer != null) {
+            stubAiServer.stop(0);
+        }
+    }
+
+    @Test
+    void relaysTokensInOrderAndReturnsFinalResponse() throws Exception {
+        AtomicReference<String> receivedBody = new AtomicReference<>();
+        String url = startStub(receivedBody,
+            "data: {\"token\":\"어서\"}\n\n",
+            "data: {\"token\":\" 오게나\"}\n\n",
+            "data: {\"npcId\":1,\"npcResponse\":{\"speaker\":\"npc\",\"message\":\"어서 오게나\",\"timestamp\":\"2025-10-20T10:00:05\"},"
+                + "\"previousConversationSummary\":\"요약\"}\n\n",
+            "data: [DONE]\n\n");
+
+        List<String> tokens = new ArrayList<>();
+        NpcChatResponse response = client.stream(url, chatRequest(), tokens::add);
+
+        assertEquals(List.of("어서", " 오게나"), tokens);
+        assertNotNull(response.getNpcResponse());
+        assertEquals("어서 오게나", response.getNpcResponse().getMessage());
+        assertEquals("요약", response.getPreviousConversationSummary());
+        assertTrue(receivedBody.get().contains("\"currentPlayerMessage\":\"안녕하세요\""));
+    }
+
+    @Test
+    void assemblesResponseFromTokensWhenNoFinalEvent() throws Exception {
+        String url = startStub(new AtomicReference<>(),
+            "data: {\"token\":\"반갑\"}\n\n",
+            ": keep-alive\n\n",
+            "data: {\"token\":\"네!\"}\n\n");
+
+        List<String> tokens = new ArrayList<>();
+        NpcChatResponse response = client.stream(url, chatRequest(), tokens::add);
+
+        assertEquals(2, tokens.size());
+        assertEquals(1L, response.getNpcId());
+        assertEquals("npc", response.getNpcResponse().getSpeaker());
+        assertEquals("반갑네!", response.getNpcResponse().getMessage());
+    }
+
+    private NpcChatRequest chatRequest() {
+        NpcChatRequest request = new NpcChatRequest(1L, "모험가", "안녕하세요", null);
+        request.setNpcName("마을 촌장");
+        return request;
+    }
+
+    private String startStub(AtomicReference<String> receivedBody, String... chunks) throws IOException {
+        stubAiServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubAiServer.createContext("/api.ai/llm/generate/stream", exchange -> {
+            receivedBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=UTF-8");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String chunk : chunks) {
+                    out.write(chunk.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        stubAiServer.start();
+        return "http://127.0.0.1:" + stubAiServer.getAddress().getPort() + "/api.ai/llm/generate/stream";
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.UserGameProfile;
+import com.example.toremainserver.entity.UserGameProfileChangedEvent;
+import com.example.toremainserver.repository.UserGameProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProfileCacheTest {
+
+    private final Map<Long, UserGameProfile> rows = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Long> published = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void versionMismatchEvictsAndReloads() {
+        ProfileCache cache = newCache(100);
+        save(1L, 1L, 10);
+
+        assertEquals(10, cache.get(1L).toResponse(null).getGold());
+        assertEquals(10, cache.get(1L).toResponse(null).getGold());
+        assertEquals(1, loads.get());
+
+        // SQL로 직접 갱신한 경로 (version만 올라감)
+        save(1L, 2L, 20);
+        assertEquals(20, cache.get(1L).toResponse(null).getGold());
+        assertEquals(2, loads.get());
+        assertEquals(1.0, counter("profile.cache.evictions", "cause", "stale"));
+        assertEquals(1.0, counter("profile.cache", "result", "hit"));
+        assertEquals(2.0, counter("profile.cache", "result", "miss"));
+    }
+
+    @Test
+    void writeThroughOnlyReplacesOlderVersions() {
+        ProfileCache cache = newCache(100);
+        save(1L, 1L, 10);
+        cache.get(1L);
+
+        cache.onProfileChanged(new UserGameProfileChangedEvent(1L, profile(1L, 3L, 30)));
+        // 늦게 도착한 이전 버전은 무시
+        cache.onProfileChanged(new UserGameProfileChangedEvent(1L, profile(1L, 2L, 20)));
+        save(1L, 3L, 30);
+
+        assertEquals(3L, cache.get(1L).getVersion());
+        assertEquals(30, cache.get(1L).toResponse(null).getGold());
+        assertEquals(1, loads.get());
+        assertEquals(List.of(1L, 1L), published);
+
+        // SQL 갱신/삭제 이벤트는 제거하고 다른 노드에도 알림
+        cache.onProfileChanged(new UserGameProfileChangedEvent(1L, null));
+        assertEquals(1.0, counter("profile.cache.evictions", "cause", "changed"));
+        assertEquals(List.of(1L, 1L, 1L), published);
+        cache.get(1L);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedProfileIsEvictedBeyondMaxEntries() {
+        ProfileCache cache = newCache(2);
+        save(1L, 1L, 10);
+        save(2L, 1L, 20);
+        save(3L, 1L, 30);
+
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(1L);
+        cache.get(3L);
+
+        assertEquals(1.0, counter("profile.cache.evictions", "cause", "size"));
+        assertEquals(2.0, meterRegistry.get("profile.cache.size").gauge().value());
+        assertEquals(3, loads.get());
+        cache.get(1L);
+        assertEquals(3, loads.get());
+        cache.get(2L);
+        assertEquals(4, loads.get());
+    }
+
+    private double counter(String name, String tagKey, String tagValue) {
+        return meterRegistry.get(name).tag(tagKey, tagValue).counter().count();
+    }
+
+    private void save(Long profileId, Long version, int gold) {
+        rows.put(profileId, profile(profileId, version, gold));
+    }
+
+    private static UserGameProfile profile(Long profileId, Long version, int gold) {
+        UserGameProfile profile = new UserGameProfile(100L, "profile-" + profileId);
+        profile.setId(profileId);
+        profile.setVersion(version);
+        profile.setGold(gold);
+        profile.setExperience(0L);
+        return profile;
+    }
+
+    private ProfileCache newCache(int maxEntries) {
+        UserGameProfileRepository repository = (UserGameProfileRepository) Proxy.newProxyInstance(
+            UserGameProfileRepository.class.getClassLoader(), new Class<?>[] {UserGameProfileRepository.class},
+            (proxy, method, args) -> {
+                UserGameProfile row = rows.get(args[0]);
+                switch (method.getName()) {
+                    case "findById":
+                        loads.incrementAndGet();
+                        return Optional.ofNullable(row);
+                    case "findVersionById":
+                        return Optional.ofNullable(row != null ? row.getVersion() : null);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        return new ProfileCache(repository, published::add, meterRegistry, true, 0, maxEntries);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.repository.ProfileCounters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProfileDeltaBufferTest {
+
+    private static final long PROFILE_ID = 7L;
+    private static final long OTHER_PROFILE_ID = 8L;
+
+    @TempDir
+    Path logDir;
+
+    private final FakeProfiles db = new FakeProfiles(PROFILE_ID, OTHER_PROFILE_ID);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void pendingDeltasAreMergedUntilFlushedOnce() throws Exception {
+        ProfileDeltaBuffer buffer = newBuffer();
+        buffer.recover();
+
+        add(buffer, PROFILE_ID, 10, 100);
+        ProfileCounters counters = add(buffer, PROFILE_ID, 5, 0);
+        assertEquals(15, counters.getGold());
+        assertEquals(100, counters.getExperience());
+
+        ProfileDeltaBuffer.Pending pending = buffer.pending(PROFILE_ID);
+        assertEquals(15, pending.gold(db.deltaSeq(PROFILE_ID)));
+        assertEquals(100, pending.experience(db.deltaSeq(PROFILE_ID)));
+
+        buffer.flush();
+        assertEquals(15, db.gold(PROFILE_ID));
+        assertEquals(100, db.experience(PROFILE_ID));
+        assertNull(buffer.pending(PROFILE_ID));
+
+        // flush 전에 가져온 스냅샷도 flush 후 DB 값과 중복 없이 합산
+        assertEquals(0, pending.gold(db.deltaSeq(PROFILE_ID)));
+    }
+
+    @Test
+    void acknowledgedDeltasSurviveCrashWithoutDoubleApply() throws Exception {
+        ProfileDeltaBuffer first = newBuffer();
+        first.recover();
+        add(first, PROFILE_ID, 10, 0);
+        first.flush();
+        add(first, PROFILE_ID, 20, 50);
+        // 종료 처리 없이 중단 (두 번째 증감은 로그에만 있음)
+        Path backup = Files.createDirectory(logDir.resolve("backup"));
+        List<Path> segments = copySegments(logDir, backup);
+
+        ProfileDeltaBuffer restarted = newBuffer();
+        restarted.recover();
+        assertEquals(30, db.gold(PROFILE_ID));
+        assertEquals(50, db.experience(PROFILE_ID));
+
+        add(restarted, PROFILE_ID, 1, 0);
+        restarted.shutdown();
+        assertEquals(31, db.gold(PROFILE_ID));
+
+        // 이미 반영한 로그를 다시 복구해도 delta_seq 조건으로 중복 반영되지 않음
+        assertEquals(1, segments.size());
+        copySegments(backup, logDir);
+        newBuffer().recover();
+        assertEquals(31, db.gold(PROFILE_ID));
+        assertEquals(50, db.experience(PROFILE_ID));
+    }
+
+    @Test
+    void rejectsGoldThatWouldExceedTheIntColumn() throws Exception {
+        ProfileDeltaBuffer buffer = newBuffer();
+        buffer.recover();
+        db.setGold(PROFILE_ID, Integer.MAX_VALUE - 10);
+
+        assertEquals(Integer.MAX_VALUE - 4, add(buffer, PROFILE_ID, 6, 0).getGold());
+        // DB 값 + 버퍼에 남은 6 + 5 > INT 최대값
+        assertThrows(IllegalArgumentException.class, () -> add(buffer, PROFILE_ID, 5, 0));
+        assertEquals(Integer.MAX_VALUE, add(buffer, PROFILE_ID, 4, 0).getGold());
+
+        buffer.flush();
+        assertEquals(Integer.MAX_VALUE, db.gold(PROFILE_ID));
+        assertNull(buffer.pending(PROFILE_ID));
+    }
+
+    @Test
+    void failedBatchFallsBackToRowsSoOneProfileDoesNotBlockOthers() throws Exception {
+        ProfileDeltaBuffer buffer = newBuffer();
+        buffer.recover();
+        add(buffer, PROFILE_ID, 100, 0);
+        add(buffer, OTHER_PROFILE_ID, 7, 70);
+        // 검사 후 다른 경로로 DB 값이 바뀌어 이 프로필의 UPDATE만 범위를 넘음
+        db.setGold(PROFILE_ID, Integer.MAX_VALUE - 50);
+
+        buffer.flush();
+
+        assertEquals(7, db.gold(OTHER_PROFILE_ID));
+        assertEquals(70, db.experience(OTHER_PROFILE_ID));
+        assertNull(buffer.pending(OTHER_PROFILE_ID));
+        // 실패한 프로필은 같은 번호로 남아 다음 flush에서 다시 반영
+        assertEquals(100, buffer.pending(PROFILE_ID).gold(db.deltaSeq(PROFILE_ID)));
+        assertEquals(2.0, meterRegistry.counter("profile.delta.buffer.flush.failures").count());
+
+        db.setGold(PROFILE_ID, 0);
+        buffer.flush();
+        assertEquals(100, db.gold(PROFILE_ID));
+        assertNull(buffer.pending(PROFILE_ID));
+    }
+
+    private ProfileCounters add(ProfileDeltaBuffer buffer, long profileId, long gold, long experience) {
+        return buffer.add(profileId, gold, experience, db.counters(profileId));
+    }
+
+    private static List<Path> copySegments(Path from, Path to) throws IOException {
+        List<Path> copied = new ArrayList<>();
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path path : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                copied.add(Files.copy(path, to.resolve(path.getFileName())));
+            }
+        }
+        return copied;
+    }
+
+    private ProfileDeltaBuffer newBuffer() {
+        return new ProfileDeltaBuffer(true, db, event -> {}, logDir.toString(), false, 200, 4, meterRegistry);
+    }
+
+    /**
+     * user_game_profiles를 흉내 내는 JdbcTemplate (ProfileDeltaBuffer가 쓰는 쿼리만 처리)
+     * gold는 MySQL strict 모드처럼 INT 범위를 넘으면 UPDATE가 실패하고, 배치는 한 행이라도 실패하면 반영하지 않음
+     */
+    private static class FakeProfiles extends JdbcTemplate {
+        // profileId -> {gold, experience, delta_seq}
+        private final Map<Long, long[]> rows = new HashMap<>();
+
+        FakeProfiles(long... profileIds) {
+            for (long profileId : profileIds) {
+                rows.put(profileId, new long[3]);
+            }
+        }
+
+        long gold(long profileId) {
+            return rows.get(profileId)[0];
+        }
+
+        long experience(long profileId) {
+            return rows.get(profileId)[1];
+        }
+
+        long deltaSeq(long profileId) {
+            return rows.get(profileId)[2];
+        }
+
+        void setGold(long profileId, long gold) {
+            rows.get(profileId)[0] = gold;
+        }
+
+        ProfileCounters counters(long profileId) {
+            long[] row = rows.get(profileId);
+            return new ProfileCounters(profileId, 1L, 1, row[1], (int) row[0], null, row[2]);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            // gold + ?, experience + ?, delta_seq = ?, updated_at = ? WHERE profile_id = ? AND delta_seq < ?
+            long[] row = rows.get(((Number) args[4]).longValue());
+            if (row == null || row[2] >= ((Number) args[5]).longValue()) {
+                return 0;
+            }
+            long gold = row[0] + ((Number) args[0]).longValue();
+            if (gold > Integer.MAX_VALUE) {
+                throw new DataIntegrityViolationException("Out of range value for column 'gold'");
+            }
+            row[0] = gold;
+            row[1] += ((Number) args[1]).longValue();
+            row[2] = ((Number) args[2]).longValue();
+            return 1;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            Map<Long, long[]> before = new HashMap<>();
+            rows.forEach((id, row) -> before.put(id, row.clone()));
+            int[] counts = new int[batchArgs.size()];
+            try {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = update(sql, batchArgs.get(i));
+                }
+            } catch (DataIntegrityViolationException e) {
+                rows.putAll(before);
+                throw e;
+            }
+            return counts;
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return requiredType.cast(rows.values().stream().mapToLong(row -> row[2]).max().orElse(0));
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            try {
+                for (Object arg : args) {
+                    long profileId = ((Number) arg).longValue();
+                    if (!rows.containsKey(profileId)) {
+                        continue;
+                    }
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("1", profileId);
+                    row.put("2", deltaSeq(profileId));
+                    rch.processRow((ResultSet) Proxy.newProxyInstance(FakeProfiles.class.getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, (proxy, method, methodArgs) -> row.get(String.valueOf(methodArgs[0]))));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
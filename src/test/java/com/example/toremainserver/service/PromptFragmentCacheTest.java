@@ -0,0 +1,115 @@
+package com.example.toremainserver.service;
+
+import com.example.toremainserver.entity.Npc;
+import com.example.toremainserver.entity.NpcChangedEvent;
+import com.example.toremainserver.repository.NpcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptFragmentCacheTest {
+
+    private final Map<Long, Npc> npcRows = new ConcurrentHashMap<>();
+    private final AtomicInteger npcLoads = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // 조회 도중 실행할 작업 (변경 이벤트가 조회와 겹치는 경우 재현)
+    private Runnable duringLoad = () -> {};
+    private final PromptFragmentCache cache = new PromptFragmentCache(npcRepository(), meterRegistry, 600, 16);
+
+    @Test
+    void personaIsRenderedOnceAndServedFromCache() {
+        npcRows.put(1L, new Npc(1L, "대장장이", Map.of("occupation", "대장장이")));
+
+        PromptFragmentCache.NpcPersona first = cache.getNpcPersona(1L);
+        PromptFragmentCache.NpcPersona second = cache.getNpcPersona(1L);
+
+        assertSame(first, second);
+        assertTrue(first.getDescription().contains("'대장장이'라는 대장장이 NPC"));
+        assertEquals(1, npcLoads.get());
+        assertEquals(1.0, counter("hit"));
+        assertEquals(1.0, counter("miss"));
+        assertNull(cache.getNpcPersona(2L));
+    }
+
+    @Test
+    void changedNpcIsReloaded() {
+        npcRows.put(1L, new Npc(1L, "대장장이", Map.of()));
+        npcRows.put(2L, new Npc(2L, "상인", Map.of()));
+        cache.getNpcPersonas(List.of(1L, 2L));
+
+        npcRows.put(1L, new Npc(1L, "늙은 대장장이", Map.of()));
+        cache.onNpcChanged(new NpcChangedEvent(1L));
+
+        Map<Long, PromptFragmentCache.NpcPersona> personas = cache.getNpcPersonas(List.of(1L, 2L, 3L));
+        assertEquals("늙은 대장장이", personas.get(1L).getNpcName());
+        assertEquals("상인", personas.get(2L).getNpcName());
+        assertEquals(2, personas.size());
+        // 1번만 다시 조회 (2번은 캐시, 없는 3번은 매번 조회)
+        assertEquals(2, npcLoads.get());
+        assertEquals("늙은 대장장이", cache.getNpcPersona(1L).getNpcName());
+        assertEquals(2, npcLoads.get());
+    }
+
+    @Test
+    void changeDuringLoadIsNotOverwrittenByTheOldPersona() {
+        npcRows.put(1L, new Npc(1L, "대장장이", Map.of()));
+        // 조회가 이전 값을 읽은 뒤, 캐시하기 전에 변경이 커밋됨
+        duringLoad = () -> {
+            npcRows.put(1L, new Npc(1L, "늙은 대장장이", Map.of()));
+            cache.onNpcChanged(new NpcChangedEvent(1L));
+        };
+        assertEquals("대장장이", cache.getNpcPersona(1L).getNpcName());
+
+        duringLoad = () -> {};
+        assertEquals("늙은 대장장이", cache.getNpcPersona(1L).getNpcName());
+        assertEquals(2, npcLoads.get());
+        assertEquals("늙은 대장장이", cache.getNpcPersona(1L).getNpcName());
+        assertEquals(2, npcLoads.get());
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("npc.prompt.fragment.cache").tag("fragment", "persona").tag("result", result).counter().count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private NpcRepository npcRepository() {
+        return (NpcRepository) Proxy.newProxyInstance(NpcRepository.class.getClassLoader(),
+            new Class<?>[] {NpcRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findById": {
+                        npcLoads.incrementAndGet();
+                        Optional<Npc> npc = Optional.ofNullable(npcRows.get((Long) args[0]));
+                        duringLoad.run();
+                        return npc;
+                    }
+                    case "findAllById": {
+                        npcLoads.incrementAndGet();
+                        List<Npc> npcs = new ArrayList<>();
+                        for (Long npcId : (Collection<Long>) args[0]) {
+                            Npc npc = npcRows.get(npcId);
+                            if (npc != null) {
+                                npcs.add(npc);
+                            }
+                        }
+                        duringLoad.run();
+                        return npcs;
+                    }
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}